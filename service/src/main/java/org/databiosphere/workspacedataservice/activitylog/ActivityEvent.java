@@ -1,5 +1,6 @@
 package org.databiosphere.workspacedataservice.activitylog;
 
+import java.util.Arrays;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 
 /**
@@ -11,6 +12,7 @@ import org.databiosphere.workspacedataservice.shared.model.RecordType;
  * @param recordType further qualifies the object, if this is a table or record
  * @param quantity number of things being operated on, if "ids" is not specified
  * @param ids ids for the things being operated on
+ * @param omittedIds number of ids left out of "ids"; see {@link #withIdsTruncatedTo(int)}
  */
 public record ActivityEvent(
     String subject,
@@ -18,4 +20,42 @@ public record ActivityEvent(
     ActivityModels.Thing thing,
     RecordType recordType,
     Integer quantity,
-    String[] ids) {}
+    String[] ids,
+    int omittedIds) {
+
+  public ActivityEvent(
+      String subject,
+      ActivityModels.Action action,
+      ActivityModels.Thing thing,
+      RecordType recordType,
+      Integer quantity,
+      String[] ids) {
+    this(subject, action, thing, recordType, quantity, ids, 0);
+  }
+
+  /** number of things being operated on, including any omitted ids */
+  public Integer count() {
+    if (ids != null) {
+      return ids.length + omittedIds;
+    }
+    return quantity;
+  }
+
+  /**
+   * Returns this event with no more than maxIds ids, counting the rest in omittedIds, so that an
+   * event for a batch operation does not hold on to, or log, every id in the batch.
+   */
+  public ActivityEvent withIdsTruncatedTo(int maxIds) {
+    if (ids == null || ids.length <= maxIds) {
+      return this;
+    }
+    return new ActivityEvent(
+        subject,
+        action,
+        thing,
+        recordType,
+        quantity,
+        Arrays.copyOf(ids, maxIds),
+        omittedIds + ids.length - maxIds);
+  }
+}
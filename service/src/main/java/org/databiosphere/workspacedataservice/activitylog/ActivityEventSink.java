@@ -0,0 +1,10 @@
+package org.databiosphere.workspacedataservice.activitylog;
+
+/**
+ * Destination for activity log entries. {@link ActivityLogger} writes events to its sink from a
+ * single background thread, so implementations need not be thread-safe.
+ */
+@FunctionalInterface
+public interface ActivityEventSink {
+  void write(ActivityEvent event);
+}
@@ -1,22 +1,83 @@
 package org.databiosphere.workspacedataservice.activitylog;
 
-import java.util.Arrays;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.databiosphere.workspacedataservice.sam.SamDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.lang.Nullable;
 
 /**
- * Save entries to an activity log. Currently implemented as writing to a Slf4j logger, but could be
- * modified to write entries to a database table or other persistence.
+ * Save entries to an activity log. Entries are written to an {@link ActivityEventSink} by a
+ * background thread, so that saving an entry does not slow down the request that saves it.
+ *
+ * <p>Entries wait for that thread in a bounded queue. If the queue is full, the caller waits
+ * briefly for room; should the queue still be full, the entry is dropped, logged here as a warning
+ * and counted in the wds.activitylog.dropped metric, rather than blocking the caller for long or
+ * growing without limit. wds.activitylog.queue.depth reports how full the queue is. Events with
+ * many ids keep only the first few; see {@link ActivityEvent#withIdsTruncatedTo(int)}.
+ *
+ * <p>Each entry is written with the caller's MDC logging context, e.g. its requestId.
+ *
+ * <p>The current user is resolved on the caller's thread, since it depends on the caller's bearer
+ * token. Sam lookups for the same token are cached; see HttpSamDao.getUserId.
  */
-public class ActivityLogger {
+public class ActivityLogger implements AutoCloseable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ActivityLogger.class);
+  private static final long POLL_MILLIS = 100;
+  private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  // an entry waiting to be written, with the MDC logging context of the request that saved it
+  private record QueuedEvent(ActivityEvent event, @Nullable Map<String, String> mdc) {}
 
   private final SamDao samDao;
+  private final ActivityEventSink sink;
+  private final int maxIds;
+  private final BlockingQueue<QueuedEvent> queue;
+  private final Counter dropped;
+  private final Thread writer;
+
+  private volatile boolean closed = false;
 
-  public ActivityLogger(SamDao samDao) {
+  /**
+   * Constructor.
+   *
+   * @param samDao Sam dao to use for resolving the current user to a Sam id
+   * @param sink where to write entries
+   * @param queueCapacity maximum number of entries waiting to be written
+   * @param maxIds maximum number of ids to keep per entry
+   * @param meterRegistry registry for the queue's metrics
+   */
+  public ActivityLogger(
+      SamDao samDao,
+      ActivityEventSink sink,
+      int queueCapacity,
+      int maxIds,
+      MeterRegistry meterRegistry) {
     this.samDao = samDao;
+    this.sink = sink;
+    this.maxIds = maxIds;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.dropped =
+        Counter.builder("wds.activitylog.dropped")
+            .description("Activity log entries dropped because the queue was full")
+            .register(meterRegistry);
+    Gauge.builder("wds.activitylog.queue.depth", queue, BlockingQueue::size)
+        .description("Activity log entries waiting to be written")
+        .register(meterRegistry);
+    this.writer = new Thread(this::writeEvents, "activity-log-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
   }
 
   /**
@@ -47,22 +108,65 @@ public class ActivityLogger {
   }
 
   protected void saveEvent(ActivityEvent event) {
-    if (LOGGER.isInfoEnabled()) {
-      StringBuilder sb = new StringBuilder();
-      sb.append("user %s %s".formatted(event.subject(), event.action().getName()));
-      if (event.ids() != null) {
-        sb.append(" %s".formatted(event.ids().length));
-      } else if (event.quantity() != null) {
-        sb.append(" %s".formatted(event.quantity()));
-      }
-      sb.append(" %s(s)".formatted(event.thing().getName()));
-      if (event.recordType() != null) {
-        sb.append(" of type %s".formatted(event.recordType().getName()));
-      }
-      if (event.ids() != null) {
-        sb.append(" with id(s) %s".formatted(Arrays.toString(event.ids())));
+    ActivityEvent truncated = event.withIdsTruncatedTo(maxIds);
+    if (closed || !offer(new QueuedEvent(truncated, MDC.getCopyOfContextMap()))) {
+      dropped.increment();
+      LOGGER.warn("Dropped activity log entry: {}", TextActivityEventSink.format(truncated));
+    }
+  }
+
+  private boolean offer(QueuedEvent queued) {
+    try {
+      return queue.offer(queued, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /** Stops accepting entries, and waits briefly for those already queued to be written. */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      writer.join(CLOSE_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!queue.isEmpty()) {
+      LOGGER.warn("Closed activity log with {} entries unwritten", queue.size());
+    }
+  }
+
+  private void writeEvents() {
+    List<QueuedEvent> batch = new ArrayList<>();
+    while (!closed || !queue.isEmpty()) {
+      try {
+        QueuedEvent first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch);
+        batch.forEach(this::write);
+        batch.clear();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       }
-      LOGGER.info(sb.toString());
+    }
+  }
+
+  private void write(QueuedEvent queued) {
+    if (queued.mdc() != null) {
+      MDC.setContextMap(queued.mdc());
+    }
+    try {
+      sink.write(queued.event());
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to write activity log entry: {}", e.getMessage());
+    } finally {
+      MDC.clear();
     }
   }
 }
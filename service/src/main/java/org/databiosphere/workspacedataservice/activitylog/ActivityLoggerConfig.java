@@ -1,14 +1,34 @@
 package org.databiosphere.workspacedataservice.activitylog;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.databiosphere.workspacedataservice.sam.SamDao;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class ActivityLoggerConfig {
 
+  /** Sink for activity log entries: "text" (the default) for sentences, or "json". */
   @Bean
-  public ActivityLogger getActivityLogger(SamDao samDao) {
-    return new ActivityLogger(samDao);
+  public ActivityEventSink activityEventSink(
+      @Value("${twds.activity-log.format:text}") String format, ObjectMapper objectMapper) {
+    return switch (format) {
+      case "text" -> new TextActivityEventSink();
+      case "json" -> new JsonActivityEventSink(objectMapper);
+      default -> throw new IllegalArgumentException(
+          "Unknown activity log format: %s".formatted(format));
+    };
+  }
+
+  @Bean
+  public ActivityLogger getActivityLogger(
+      SamDao samDao,
+      ActivityEventSink activityEventSink,
+      @Value("${twds.activity-log.queue-capacity:10000}") int queueCapacity,
+      @Value("${twds.activity-log.max-ids:100}") int maxIds,
+      MeterRegistry meterRegistry) {
+    return new ActivityLogger(samDao, activityEventSink, queueCapacity, maxIds, meterRegistry);
   }
 }
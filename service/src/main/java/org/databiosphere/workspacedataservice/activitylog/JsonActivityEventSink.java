@@ -0,0 +1,50 @@
+package org.databiosphere.workspacedataservice.activitylog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes activity log entries as one JSON object per line, for log pipelines which index fields
+ * rather than parse sentences.
+ */
+public class JsonActivityEventSink implements ActivityEventSink {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ActivityLogger.class);
+
+  private final ObjectMapper objectMapper;
+
+  public JsonActivityEventSink(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void write(ActivityEvent event) {
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info(format(event));
+    }
+  }
+
+  String format(ActivityEvent event) {
+    ObjectNode node = objectMapper.createObjectNode();
+    node.put("subject", event.subject());
+    node.put("action", event.action().getName());
+    node.put("thing", event.thing().getName());
+    if (event.recordType() != null) {
+      node.put("recordType", event.recordType().getName());
+    }
+    node.put("count", event.count());
+    if (event.ids() != null) {
+      node.set("ids", objectMapper.valueToTree(event.ids()));
+      node.put("omittedIds", event.omittedIds());
+    }
+    try {
+      return objectMapper.writeValueAsString(node);
+    } catch (JsonProcessingException e) {
+      // not expected for a tree of strings and numbers; fall back to the text format
+      return TextActivityEventSink.format(event);
+    }
+  }
+}
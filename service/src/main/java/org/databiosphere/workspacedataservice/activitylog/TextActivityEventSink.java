@@ -0,0 +1,41 @@
+package org.databiosphere.workspacedataservice.activitylog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes activity log entries as human-readable sentences, e.g. "user 1234 deleted 2 record(s) of
+ * type sample with id(s) [s1, s2]".
+ */
+public class TextActivityEventSink implements ActivityEventSink {
+
+  // log under ActivityLogger, which is where these entries have always been written
+  private static final Logger LOGGER = LoggerFactory.getLogger(ActivityLogger.class);
+
+  @Override
+  public void write(ActivityEvent event) {
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info(format(event));
+    }
+  }
+
+  static String format(ActivityEvent event) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("user %s %s".formatted(event.subject(), event.action().getName()));
+    if (event.count() != null) {
+      sb.append(" %s".formatted(event.count()));
+    }
+    sb.append(" %s(s)".formatted(event.thing().getName()));
+    if (event.recordType() != null) {
+      sb.append(" of type %s".formatted(event.recordType().getName()));
+    }
+    if (event.ids() != null) {
+      sb.append(" with id(s) [").append(String.join(", ", event.ids()));
+      if (event.omittedIds() > 0) {
+        sb.append(", ... and %s more".formatted(event.omittedIds()));
+      }
+      sb.append("]");
+    }
+    return sb.toString();
+  }
+}
@@ -4,11 +4,13 @@ import static java.util.Arrays.stream;
 import static java.util.Collections.emptySet;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
 
 /** Properties that dictate how data import processes should behave. */
 public class DataImportProperties {
@@ -23,6 +25,13 @@ public class DataImportProperties {
   private List<ImportSourceConfig> sources;
   private boolean shouldAddImportMetadata = false;
   private boolean connectivityCheckEnabled = false;
+  private boolean checkpointingEnabled = false;
+  private Duration progressUpdateInterval = Duration.ofSeconds(10);
+  private int maxConcurrentImports = 0;
+  private int maxConcurrentImportsPerCollection = 0;
+  private int snapshotLinkParallelism = 8;
+  private int uploadParallelism = 1;
+  private DataSize uploadPartSize = DataSize.ofMegabytes(8);
 
   /** Where to write Rawls JSON files after import. */
   @Nullable
@@ -130,6 +139,93 @@ public class DataImportProperties {
     this.connectivityCheckEnabled = connectivityCheckEnabled;
   }
 
+  /**
+   * Should PFB and TDR imports commit each batch as it is written, recording a checkpoint in
+   * sys_wds.import_checkpoint? If so, an import which is retried after a failure - e.g. when Quartz
+   * recovers a job whose replica died - resumes from its last checkpoint instead of starting over.
+   * Only applies to imports into WDS data tables.
+   */
+  public boolean isCheckpointingEnabled() {
+    return checkpointingEnabled;
+  }
+
+  public void setCheckpointingEnabled(boolean checkpointingEnabled) {
+    this.checkpointingEnabled = checkpointingEnabled;
+  }
+
+  /**
+   * How often a running import saves its progress to its job row. Progress metrics are updated
+   * continuously regardless of this setting.
+   */
+  public Duration getProgressUpdateInterval() {
+    return progressUpdateInterval;
+  }
+
+  public void setProgressUpdateInterval(Duration progressUpdateInterval) {
+    this.progressUpdateInterval = progressUpdateInterval;
+  }
+
+  /**
+   * How many imports may be admitted for execution at once on this replica; further imports wait in
+   * QUEUED status. Zero means unlimited.
+   */
+  public int getMaxConcurrentImports() {
+    return maxConcurrentImports;
+  }
+
+  public void setMaxConcurrentImports(int maxConcurrentImports) {
+    this.maxConcurrentImports = maxConcurrentImports;
+  }
+
+  /**
+   * How many imports into any single collection may be admitted for execution at once on this
+   * replica. Zero means unlimited.
+   */
+  public int getMaxConcurrentImportsPerCollection() {
+    return maxConcurrentImportsPerCollection;
+  }
+
+  public void setMaxConcurrentImportsPerCollection(int maxConcurrentImportsPerCollection) {
+    this.maxConcurrentImportsPerCollection = maxConcurrentImportsPerCollection;
+  }
+
+  /**
+   * How many snapshot references a PFB or TDR import creates at once, when its data mentions
+   * snapshots not yet linked to the workspace.
+   */
+  public int getSnapshotLinkParallelism() {
+    return snapshotLinkParallelism;
+  }
+
+  public void setSnapshotLinkParallelism(int snapshotLinkParallelism) {
+    this.snapshotLinkParallelism = snapshotLinkParallelism;
+  }
+
+  /**
+   * How many parts of a file WDS uploads to GCS at once, e.g. when writing Rawls JSON. 1, the
+   * default, uploads each file in a single stream. Parallel uploads hold up to this many parts,
+   * plus one, in memory per file.
+   */
+  public int getUploadParallelism() {
+    return uploadParallelism;
+  }
+
+  public void setUploadParallelism(int uploadParallelism) {
+    this.uploadParallelism = uploadParallelism;
+  }
+
+  /**
+   * The size of the first parts of a file uploaded in parallel; later parts of large files grow to
+   * a few times this size.
+   */
+  public DataSize getUploadPartSize() {
+    return uploadPartSize;
+  }
+
+  public void setUploadPartSize(DataSize uploadPartSize) {
+    this.uploadPartSize = uploadPartSize;
+  }
+
   /** Dictates the sink where BatchWriteService should write records after import. */
   public enum RecordSinkMode {
     WDS("wds"),
@@ -0,0 +1,89 @@
+package org.databiosphere.workspacedataservice.config;
+
+import java.time.Duration;
+
+/**
+ * Properties for the HTTP clients WDS uses to call other services, such as Sam, Rawls and DRS Hub.
+ * Each of those services gets its own connection pool and limit on concurrent requests.
+ *
+ * @see org.databiosphere.workspacedataservice.outbound.OutboundHttpClients
+ */
+public class OutboundHttpProperties {
+  private boolean http2Enabled = false;
+  private Duration connectTimeout = Duration.ofSeconds(10);
+  private Duration readTimeout = Duration.ofSeconds(60);
+  private Duration requestTimeout = Duration.ofMinutes(2);
+  private Duration keepAlive = Duration.ofMinutes(5);
+  private int maxIdleConnectionsPerHost = 10;
+  private int maxRequestsPerHost = 64;
+
+  /**
+   * Should outbound clients negotiate HTTP/2, multiplexing concurrent requests to the same host
+   * over a single connection? HTTP/2 is only negotiated over TLS; when disabled, or when the other
+   * service does not support it, requests use HTTP/1.1.
+   */
+  public boolean isHttp2Enabled() {
+    return http2Enabled;
+  }
+
+  public void setHttp2Enabled(boolean http2Enabled) {
+    this.http2Enabled = http2Enabled;
+  }
+
+  /** How long to wait to establish a connection. */
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout(Duration connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  /** How long to wait between bytes of a response before failing the request. */
+  public Duration getReadTimeout() {
+    return readTimeout;
+  }
+
+  public void setReadTimeout(Duration readTimeout) {
+    this.readTimeout = readTimeout;
+  }
+
+  /** Upper bound on a single request, from connecting through reading the whole response. */
+  public Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  public void setRequestTimeout(Duration requestTimeout) {
+    this.requestTimeout = requestTimeout;
+  }
+
+  /** How long an idle connection is kept open for reuse. */
+  public Duration getKeepAlive() {
+    return keepAlive;
+  }
+
+  public void setKeepAlive(Duration keepAlive) {
+    this.keepAlive = keepAlive;
+  }
+
+  /** How many idle connections to each host are kept open for reuse. */
+  public int getMaxIdleConnectionsPerHost() {
+    return maxIdleConnectionsPerHost;
+  }
+
+  public void setMaxIdleConnectionsPerHost(int maxIdleConnectionsPerHost) {
+    this.maxIdleConnectionsPerHost = maxIdleConnectionsPerHost;
+  }
+
+  /**
+   * How many requests to each host may be in flight at once. Further requests wait, up to the
+   * connect timeout, for an in-flight request to finish.
+   */
+  public int getMaxRequestsPerHost() {
+    return maxRequestsPerHost;
+  }
+
+  public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+    this.maxRequestsPerHost = maxRequestsPerHost;
+  }
+}
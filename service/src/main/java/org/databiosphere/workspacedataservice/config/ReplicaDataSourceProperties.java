@@ -0,0 +1,36 @@
+package org.databiosphere.workspacedataservice.config;
+
+import java.time.Duration;
+
+/**
+ * Properties for routing read-only transactions to a streaming read replica of the WDS database.
+ * The replica's connection pool is configured under twds.datasource.replica.hikari, and defaults to
+ * the settings of the primary pool.
+ *
+ * @see org.databiosphere.workspacedataservice.dao.ReplicaRoutingDataSource
+ */
+public class ReplicaDataSourceProperties {
+  private Duration maxLag = Duration.ofSeconds(5);
+  private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+  /**
+   * Read-only transactions run on the primary when the replica's replay lag is greater than this.
+   * This is also how long a session's reads stay on the primary after that session writes.
+   */
+  public Duration getMaxLag() {
+    return maxLag;
+  }
+
+  public void setMaxLag(Duration maxLag) {
+    this.maxLag = maxLag;
+  }
+
+  /** How often to measure the replica's replay lag. */
+  public Duration getLagCheckInterval() {
+    return lagCheckInterval;
+  }
+
+  public void setLagCheckInterval(Duration lagCheckInterval) {
+    this.lagCheckInterval = lagCheckInterval;
+  }
+}
@@ -14,6 +14,7 @@ import org.springframework.lang.Nullable;
 @ConfigurationProperties(prefix = "twds")
 public class TwdsProperties {
   private DataImportProperties dataImport;
+  private OutboundHttpProperties outboundHttp = new OutboundHttpProperties();
   private TenancyProperties tenancy;
   private InstanceProperties instance;
   private String startupToken;
@@ -29,6 +30,17 @@ public class TwdsProperties {
     this.dataImport = dataImport;
   }
 
+  @Bean
+  public OutboundHttpProperties outboundHttpProperties() {
+    return outboundHttp;
+  }
+
+  // setter method allows spring to automatically populate this with the contents of the
+  // twds.outbound-http section of the props file
+  void setOutboundHttp(OutboundHttpProperties outboundHttp) {
+    this.outboundHttp = outboundHttp;
+  }
+
   /**
    * InstanceProperties are only returned if tenancy requires a WORKSPACE_ID environment variable,
    * and if that environment variable is correctly configured with a WorkspaceId.
@@ -0,0 +1,139 @@
+package org.databiosphere.workspacedataservice.config;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * A Quartz {@link ThreadPool} which runs each job on a new virtual thread. Like Quartz's own
+ * SimpleThreadPool, it runs no more than org.quartz.threadPool.threadCount jobs at once, and {@link
+ * #blockForAvailableThreads()} waits until one of them finishes, so the scheduler only acquires
+ * triggers it can fire straight away.
+ *
+ * <p>Virtual threads need Java 21 or later. Quartz instantiates this class by name, so on such a
+ * JVM, setting spring.quartz.properties.org.quartz.threadPool.class to this class runs jobs on
+ * virtual threads; Quartz's default pool of platform threads is used otherwise.
+ */
+public class VirtualThreadPool implements ThreadPool {
+  private static final int DEFAULT_THREAD_COUNT = 10;
+  // how often a wait for a free thread checks whether the pool has shut down
+  private static final long SHUTDOWN_CHECK_MILLIS = 500;
+
+  private final ThreadFactory threadFactory;
+  private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+  private int threadCount = DEFAULT_THREAD_COUNT;
+  private Semaphore available = new Semaphore(DEFAULT_THREAD_COUNT);
+  private volatile boolean shutdown;
+
+  public VirtualThreadPool() {
+    this(new VirtualThreadTaskExecutor("quartz-vt-").getVirtualThreadFactory());
+  }
+
+  VirtualThreadPool(ThreadFactory threadFactory) {
+    this.threadFactory = threadFactory;
+  }
+
+  /** Set from org.quartz.threadPool.threadCount */
+  public void setThreadCount(int threadCount) {
+    this.threadCount = threadCount;
+  }
+
+  @Override
+  public void initialize() throws SchedulerConfigException {
+    if (threadCount <= 0) {
+      throw new SchedulerConfigException("Thread count must be > 0");
+    }
+    available = new Semaphore(threadCount);
+  }
+
+  @Override
+  public boolean runInThread(Runnable runnable) {
+    try {
+      if (!acquire()) {
+        return false;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    Thread thread =
+        threadFactory.newThread(
+            () -> {
+              try {
+                runnable.run();
+              } finally {
+                running.remove(Thread.currentThread());
+                available.release();
+              }
+            });
+    running.add(thread);
+    thread.start();
+    return true;
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+    try {
+      if (!acquire()) {
+        return 0;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 0;
+    }
+    // Quartz's scheduler thread is the only caller of runInThread, so the threads available now
+    // remain available until it next runs a job
+    int availableThreads = available.availablePermits() + 1;
+    available.release();
+    return availableThreads;
+  }
+
+  // take a thread, waiting for one to become available; false if the pool shuts down meanwhile
+  private boolean acquire() throws InterruptedException {
+    while (!shutdown) {
+      if (available.tryAcquire(SHUTDOWN_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (!shutdown) {
+          return true;
+        }
+        available.release();
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void shutdown(boolean waitForJobsToComplete) {
+    shutdown = true;
+    if (!waitForJobsToComplete) {
+      return;
+    }
+    for (Thread thread : running) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  @Override
+  public int getPoolSize() {
+    return threadCount;
+  }
+
+  @Override
+  public void setInstanceId(String schedInstId) {
+    // threads are not named per scheduler instance
+  }
+
+  @Override
+  public void setInstanceName(String schedName) {
+    // threads are not named per scheduler instance
+  }
+}
@@ -0,0 +1,72 @@
+package org.databiosphere.workspacedataservice.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Answers conditional GETs from change tokens, without computing the response. A GET whose
+ * If-None-Match header matches the current token is answered with 304 Not Modified; otherwise the
+ * caller computes the response, which is sent with the token as its ETag.
+ *
+ * <p>Responses with an ETag may be stored by the client, which must revalidate them before each
+ * use. Responses without one keep the "no-store" set by {@link
+ * org.databiosphere.workspacedataservice.service.NoCacheFilter}.
+ *
+ * <p>The wds.http.conditional.requests counter reports the outcome of each request, tagged with the
+ * endpoint. The ratio of not-modified to all requests for an endpoint is its 304 ratio.
+ *
+ * @see org.databiosphere.workspacedataservice.dao.ChangeTokenDao
+ */
+@Component
+public class ConditionalGets {
+  private static final String CACHE_CONTROL = "private, no-cache";
+
+  private final MeterRegistry meterRegistry;
+
+  public ConditionalGets(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Is the client's copy of this response still current? If so, the response status has been set to
+   * 304 and the caller should return without a body.
+   *
+   * @param request the current request
+   * @param changeToken the change token of the data behind the response, if it has one
+   * @param endpoint name of the endpoint, for metrics
+   */
+  public boolean checkNotModified(
+      ServletWebRequest request, Optional<Long> changeToken, String endpoint) {
+    if (changeToken.isEmpty()) {
+      count(endpoint, "uncacheable");
+      return false;
+    }
+    boolean conditional = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+    HttpServletResponse response = request.getResponse();
+    if (response != null) {
+      response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+    }
+    // sets the ETag header, and the 304 status if it matches If-None-Match
+    boolean notModified = request.checkNotModified("\"" + changeToken.get() + "\"");
+    if (notModified) {
+      count(endpoint, "not-modified");
+    } else {
+      count(endpoint, conditional ? "modified" : "unconditional");
+    }
+    return notModified;
+  }
+
+  private void count(String endpoint, String result) {
+    Counter.builder("wds.http.conditional.requests")
+        .description("GETs of endpoints which support ETags, by outcome")
+        .tag("endpoint", endpoint)
+        .tag("result", result)
+        .register(meterRegistry)
+        .increment();
+  }
+}
@@ -3,6 +3,7 @@ package org.databiosphere.workspacedataservice.controller;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -29,7 +30,9 @@ public class ControllerConfig {
         registry
             .addMapping("/**")
             .allowedMethods("DELETE", "GET", "HEAD", "PATCH", "POST", "PUT")
-            .allowedOrigins("*");
+            .allowedOrigins("*")
+            // allow browser clients to make their own conditional GETs
+            .exposedHeaders(HttpHeaders.ETAG);
       }
     };
   }
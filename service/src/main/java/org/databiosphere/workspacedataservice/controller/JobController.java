@@ -12,6 +12,7 @@ import org.databiosphere.workspacedataservice.generated.JobApi;
 import org.databiosphere.workspacedataservice.service.JobService;
 import org.databiosphere.workspacedataservice.service.PermissionService;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.job.JobListOptions;
 import org.databiosphere.workspacedataservice.shared.model.job.JobStatus;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +25,8 @@ import org.springframework.web.server.ResponseStatusException;
 @ControlPlane
 @RestController
 public class JobController implements JobApi {
+  // keep in sync with the pageSize maximum in apis-v1.yaml
+  static final int MAX_PAGE_SIZE = 1000;
 
   JobService jobService;
   private final PermissionService permissionService;
@@ -47,7 +50,11 @@ public class JobController implements JobApi {
 
   @Override
   public ResponseEntity<List<GenericJobServerModel>> jobsInInstanceV1(
-      UUID instanceUuid, @Nullable List<String> statuses) {
+      UUID instanceUuid,
+      @Nullable List<String> statuses,
+      @Nullable Integer pageSize,
+      @Nullable UUID afterJobId,
+      @Nullable Boolean includeInput) {
     // status is an optional parameter
     if (statuses != null) {
       try {
@@ -60,11 +67,16 @@ public class JobController implements JobApi {
             HttpStatus.BAD_REQUEST, "Invalid status type provided.", e);
       }
     }
+    if (pageSize != null && (pageSize < 1 || pageSize > MAX_PAGE_SIZE)) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "pageSize must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
     permissionService.requireReadPermission(CollectionId.of(instanceUuid));
     List<GenericJobServerModel> jobList =
         jobService.getJobsForCollection(
             CollectionId.of(instanceUuid),
-            statuses == null || statuses.isEmpty() ? Optional.empty() : Optional.of(statuses));
+            statuses == null || statuses.isEmpty() ? Optional.empty() : Optional.of(statuses),
+            new JobListOptions(pageSize, afterJobId, !Boolean.FALSE.equals(includeInput)));
 
     return new ResponseEntity<>(jobList, HttpStatus.OK);
   }
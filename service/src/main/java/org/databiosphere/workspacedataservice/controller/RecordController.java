@@ -5,6 +5,7 @@ import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
 import org.databiosphere.workspacedataservice.service.PermissionService;
 import org.databiosphere.workspacedataservice.service.RecordOrchestratorService;
 import org.databiosphere.workspacedataservice.service.model.AttributeSchema;
@@ -33,6 +34,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
@@ -43,11 +45,15 @@ public class RecordController {
 
   private final RecordOrchestratorService recordOrchestratorService;
   private final PermissionService permissionService;
+  private final ConditionalGets conditionalGets;
 
   public RecordController(
-      RecordOrchestratorService recordOrchestratorService, PermissionService permissionService) {
+      RecordOrchestratorService recordOrchestratorService,
+      PermissionService permissionService,
+      ConditionalGets conditionalGets) {
     this.recordOrchestratorService = recordOrchestratorService;
     this.permissionService = permissionService;
+    this.conditionalGets = conditionalGets;
   }
 
   @PatchMapping("/{instanceId}/records/{version}/{recordType}/{recordId}")
@@ -65,12 +71,20 @@ public class RecordController {
   }
 
   @GetMapping("/{instanceId}/records/{version}/{recordType}/{recordId}")
+  @Nullable // when not modified
   public ResponseEntity<RecordResponse> getSingleRecord(
       @PathVariable("instanceId") UUID instanceId,
       @PathVariable("version") String version,
       @PathVariable("recordType") RecordType recordType,
-      @PathVariable("recordId") String recordId) {
+      @PathVariable("recordId") String recordId,
+      ServletWebRequest request) {
     permissionService.requireReadPermission(CollectionId.of(instanceId));
+    if (conditionalGets.checkNotModified(
+        request,
+        recordOrchestratorService.getChangeToken(instanceId, version, recordType),
+        "getSingleRecord")) {
+      return null;
+    }
     RecordResponse response =
         recordOrchestratorService.getSingleRecord(instanceId, version, recordType, recordId);
     return new ResponseEntity<>(response, HttpStatus.OK);
@@ -144,6 +158,27 @@ public class RecordController {
         : new ResponseEntity<>(HttpStatus.NOT_FOUND);
   }
 
+  @PutMapping("/{instanceId}/fulltext/{v}/{type}")
+  public ResponseEntity<GenericJobServerModel> enableFullTextSearch(
+      @PathVariable("instanceId") UUID instanceId,
+      @PathVariable("v") String version,
+      @PathVariable("type") RecordType recordType) {
+    permissionService.requireWritePermission(CollectionId.of(instanceId));
+    GenericJobServerModel job =
+        recordOrchestratorService.enableFullTextSearch(instanceId, version, recordType);
+    return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+  }
+
+  @DeleteMapping("/{instanceId}/fulltext/{v}/{type}")
+  public ResponseEntity<Void> disableFullTextSearch(
+      @PathVariable("instanceId") UUID instanceId,
+      @PathVariable("v") String version,
+      @PathVariable("type") RecordType recordType) {
+    permissionService.requireWritePermission(CollectionId.of(instanceId));
+    recordOrchestratorService.disableFullTextSearch(instanceId, version, recordType);
+    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+  }
+
   @DeleteMapping("/{instanceId}/types/{v}/{type}")
   public ResponseEntity<Void> deleteRecordType(
       @PathVariable("instanceId") UUID instanceId,
@@ -154,8 +189,13 @@ public class RecordController {
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
 
+  /**
+   * Rename an attribute and/or change its data type. A rename is applied immediately, and responds
+   * with the new attribute schema. A data type change converts existing values in a job, and
+   * responds with 202 Accepted and the job; the data type is changed once the job succeeds.
+   */
   @PatchMapping("{instanceId}/types/{v}/{type}/{attribute}")
-  public ResponseEntity<AttributeSchema> updateAttribute(
+  public ResponseEntity<?> updateAttribute(
       @PathVariable("instanceId") UUID instanceId,
       @PathVariable("v") String version,
       @PathVariable("type") RecordType recordType,
@@ -177,10 +217,12 @@ public class RecordController {
 
     String finalAttributeName = optionalNewAttributeName.orElse(attribute);
 
-    optionalNewDataType.ifPresent(
-        newDataType ->
-            recordOrchestratorService.updateAttributeDataType(
-                instanceId, version, recordType, finalAttributeName, newDataType));
+    if (optionalNewDataType.isPresent()) {
+      GenericJobServerModel job =
+          recordOrchestratorService.startAttributeDataTypeConversion(
+              instanceId, version, recordType, finalAttributeName, optionalNewDataType.get());
+      return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
 
     RecordTypeSchema recordTypeSchema =
         recordOrchestratorService.describeRecordType(instanceId, version, recordType);
@@ -208,20 +250,37 @@ public class RecordController {
   }
 
   @GetMapping("/{instanceId}/types/{v}/{type}")
+  @Nullable // when not modified
   public ResponseEntity<RecordTypeSchema> describeRecordType(
       @PathVariable("instanceId") UUID instanceId,
       @PathVariable("v") String version,
-      @PathVariable("type") RecordType recordType) {
+      @PathVariable("type") RecordType recordType,
+      ServletWebRequest request) {
     permissionService.requireReadPermission(CollectionId.of(instanceId));
+    if (conditionalGets.checkNotModified(
+        request,
+        recordOrchestratorService.getChangeToken(instanceId, version, recordType),
+        "describeRecordType")) {
+      return null;
+    }
     RecordTypeSchema result =
         recordOrchestratorService.describeRecordType(instanceId, version, recordType);
     return new ResponseEntity<>(result, HttpStatus.OK);
   }
 
   @GetMapping("/{instanceId}/types/{v}")
+  @Nullable // when not modified
   public ResponseEntity<List<RecordTypeSchema>> describeAllRecordTypes(
-      @PathVariable("instanceId") UUID instanceId, @PathVariable("v") String version) {
+      @PathVariable("instanceId") UUID instanceId,
+      @PathVariable("v") String version,
+      ServletWebRequest request) {
     permissionService.requireReadPermission(CollectionId.of(instanceId));
+    if (conditionalGets.checkNotModified(
+        request,
+        recordOrchestratorService.getChangeToken(instanceId, version, null),
+        "describeAllRecordTypes")) {
+      return null;
+    }
     List<RecordTypeSchema> result =
         recordOrchestratorService.describeAllRecordTypes(instanceId, version);
     return new ResponseEntity<>(result, HttpStatus.OK);
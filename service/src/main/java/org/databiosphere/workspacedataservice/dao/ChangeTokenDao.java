@@ -0,0 +1,197 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read/write change tokens via the sys_wds.change_token Postgres table. A change token identifies
+ * one version of a record type, or of a whole collection: every write to a record type, and every
+ * change to its schema, gives it and its collection new tokens. Tokens are used as ETags for
+ * conditional GETs.
+ *
+ * <p>Record types and collections which have not been written since change tokens were introduced
+ * have no token; their responses are not cacheable.
+ *
+ * <p>New tokens are assigned only once the write commits, outside of its transaction, so that
+ * concurrent writers to a collection do not contend for its token row. A reader may briefly see new
+ * data under an old token; that only costs its client one more full response later.
+ *
+ * <p>If new tokens can't be assigned after a write, the affected collections' tokens are removed,
+ * so that their responses are not cacheable until a later write assigns new ones. Should removing
+ * them fail too, this instance stops serving those collections' tokens until it next assigns them.
+ */
+@Repository
+public class ChangeTokenDao {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChangeTokenDao.class);
+
+  // the record_type of the token for a collection as a whole
+  private static final String COLLECTION = "";
+  private static final int ASSIGN_ATTEMPTS = 3;
+
+  private final NamedParameterJdbcTemplate namedTemplate;
+  private final TransactionTemplate tokenTransaction;
+  // collections whose tokens may be stale, since new ones could not be assigned after a write
+  private final Set<UUID> invalidatedCollections = ConcurrentHashMap.newKeySet();
+
+  public ChangeTokenDao(
+      NamedParameterJdbcTemplate namedTemplate, PlatformTransactionManager transactionManager) {
+    this.namedTemplate = namedTemplate;
+    this.tokenTransaction = new TransactionTemplate(transactionManager);
+    // suspend the committed transaction; each token statement then commits on its own
+    tokenTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+  }
+
+  /** The current token for a record type, or for the whole collection if recordType is null. */
+  public Optional<Long> getToken(UUID collectionId, @Nullable RecordType recordType) {
+    if (invalidatedCollections.contains(collectionId)) {
+      return Optional.empty();
+    }
+    List<Long> tokens =
+        namedTemplate.queryForList(
+            "select token from sys_wds.change_token "
+                + "where collection_id = :collectionId and record_type = :recordType",
+            new MapSqlParameterSource("collectionId", collectionId)
+                .addValue("recordType", recordType == null ? COLLECTION : recordType.getName()),
+            Long.class);
+    return tokens.stream().findFirst();
+  }
+
+  /** Record that a record type's records or schema changed. */
+  public void recordTypeChanged(UUID collectionId, RecordType recordType) {
+    PendingChanges changes = pendingChanges();
+    changes.recordTypes.add(new PendingChange(collectionId, recordType.getName()));
+    assignTokensIfCommitted(changes);
+  }
+
+  /**
+   * Record that a collection changed in a way which may affect any of its record types, e.g. a
+   * delete which cascades through relations.
+   */
+  public void collectionChanged(UUID collectionId) {
+    PendingChanges changes = pendingChanges();
+    changes.collections.add(collectionId);
+    assignTokensIfCommitted(changes);
+  }
+
+  private PendingChanges pendingChanges() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return new PendingChanges();
+    }
+    PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      pending = new PendingChanges();
+      TransactionSynchronizationManager.bindResource(this, pending);
+      TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+    return pending;
+  }
+
+  // outside a transaction, the write has already been committed
+  private void assignTokensIfCommitted(PendingChanges changes) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      assignTokens(changes);
+    }
+  }
+
+  private void assignTokens(PendingChanges changes) {
+    Set<UUID> collectionIds = changes.affectedCollections();
+    for (int attempt = 1; attempt <= ASSIGN_ATTEMPTS; attempt++) {
+      try {
+        tokenTransaction.executeWithoutResult(status -> updateTokens(changes));
+        invalidatedCollections.removeAll(collectionIds);
+        return;
+      } catch (DataAccessException e) {
+        LOGGER.warn(
+            "Failed to assign change tokens after a write (attempt {} of {}): {}",
+            attempt,
+            ASSIGN_ATTEMPTS,
+            e.getMessage());
+      }
+    }
+    // the data has changed, but cached responses would still be considered current
+    invalidateTokens(collectionIds);
+  }
+
+  private void updateTokens(PendingChanges changes) {
+    for (UUID collectionId : changes.collections) {
+      namedTemplate.update(
+          "update sys_wds.change_token set token = nextval('sys_wds.change_token_seq') "
+              + "where collection_id = :collectionId",
+          new MapSqlParameterSource("collectionId", collectionId));
+      upsertToken(collectionId, COLLECTION);
+    }
+    for (PendingChange change : changes.recordTypes) {
+      if (!changes.collections.contains(change.collectionId())) {
+        upsertToken(change.collectionId(), change.recordType());
+        upsertToken(change.collectionId(), COLLECTION);
+      }
+    }
+  }
+
+  private void invalidateTokens(Set<UUID> collectionIds) {
+    invalidatedCollections.addAll(collectionIds);
+    try {
+      namedTemplate.update(
+          "delete from sys_wds.change_token where collection_id in (:collectionIds)",
+          new MapSqlParameterSource("collectionIds", collectionIds));
+      LOGGER.error(
+          "Failed to assign change tokens after a write; removed the tokens of collections {}",
+          collectionIds);
+    } catch (DataAccessException e) {
+      LOGGER.error(
+          "Failed to assign or remove change tokens after a write to collections {}: {}",
+          collectionIds,
+          e.getMessage(),
+          e);
+    }
+  }
+
+  private void upsertToken(UUID collectionId, String recordType) {
+    namedTemplate.update(
+        "insert into sys_wds.change_token(collection_id, record_type, token) "
+            + "values (:collectionId, :recordType, nextval('sys_wds.change_token_seq')) "
+            + "on conflict (collection_id, record_type) do update set token = excluded.token",
+        new MapSqlParameterSource("collectionId", collectionId).addValue("recordType", recordType));
+  }
+
+  private record PendingChange(UUID collectionId, String recordType) {}
+
+  /** Changes made by the current transaction, which get new tokens once it commits. */
+  private class PendingChanges implements TransactionSynchronization {
+    private final Set<UUID> collections = new HashSet<>();
+    private final Set<PendingChange> recordTypes = new HashSet<>();
+
+    Set<UUID> affectedCollections() {
+      Set<UUID> collectionIds = new HashSet<>(collections);
+      recordTypes.forEach(change -> collectionIds.add(change.collectionId()));
+      return collectionIds;
+    }
+
+    @Override
+    public void afterCommit() {
+      assignTokens(this);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(ChangeTokenDao.this);
+    }
+  }
+}
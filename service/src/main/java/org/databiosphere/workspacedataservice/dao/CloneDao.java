@@ -18,4 +18,11 @@ public interface CloneDao {
   Job<JobInput, CloneResponse> getCloneStatus();
 
   void terminateCloneToError(UUID trackingId, String error, CloneTable table);
+
+  void createCopyEntry(
+      UUID trackingId, WorkspaceId sourceWorkspaceId, WorkspaceId targetWorkspaceId);
+
+  void updateCopyProgress(UUID trackingId, int tablesTotal, int tablesCopied, long rowsCopied);
+
+  void terminateCopyToError(UUID trackingId, String error);
 }
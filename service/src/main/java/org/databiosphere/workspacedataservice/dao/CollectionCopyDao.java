@@ -0,0 +1,352 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static org.databiosphere.workspacedataservice.dao.RecordDao.FULL_TEXT_COLUMN;
+import static org.databiosphere.workspacedataservice.dao.RecordDao.SHADOW_COLUMN_PREFIX;
+import static org.databiosphere.workspacedataservice.dao.SqlUtils.quote;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Copies the tables of one collection into another, inside Postgres. Tables, their columns, and
+ * their keys and indexes are read from the Postgres catalog, so this copies record tables and
+ * relation-array join tables alike. Columns which hold a data type conversion in progress are not
+ * copied; full-text columns are, along with the triggers which maintain them.
+ *
+ * <p>A copy has three steps: create the tables without keys or indexes, copy their rows with {@code
+ * insert ... select}, then add keys and indexes, building each index once over all its rows instead
+ * of maintaining it row by row. Each table's rows may be copied on its own connection; all of them
+ * read from the same {@link ExportedSnapshot}, so that the copied tables are consistent with one
+ * another and foreign keys can be added afterwards.
+ */
+@Repository
+public class CollectionCopyDao {
+  // snapshot ids returned by pg_export_snapshot(), e.g. 00000003-0000001B-1
+  private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9A-F]+(-[0-9A-F]+)+");
+
+  private final DataSource mainDb;
+  private final NamedParameterJdbcTemplate namedTemplate;
+
+  public CollectionCopyDao(DataSource mainDb, NamedParameterJdbcTemplate namedTemplate) {
+    this.mainDb = mainDb;
+    this.namedTemplate = namedTemplate;
+  }
+
+  /** A table to copy, with its columns in order. */
+  public record TableDefinition(String name, List<ColumnDefinition> columns) {
+    String columnList() {
+      return columns.stream().map(column -> quote(column.name())).collect(Collectors.joining(", "));
+    }
+
+    /** Does this record table have full-text search enabled? */
+    public boolean hasFullTextColumn() {
+      return columns.stream().anyMatch(column -> column.name().equals(FULL_TEXT_COLUMN));
+    }
+  }
+
+  /** A column to copy; its type is as formatted by Postgres' format_type(). */
+  public record ColumnDefinition(String name, String type, boolean notNull) {}
+
+  /** A primary key, unique constraint or foreign key to add once a table's rows are copied. */
+  public record ConstraintDefinition(
+      String name,
+      String tableName,
+      ConstraintType type,
+      List<String> columns,
+      @Nullable String referencedTableName,
+      List<String> referencedColumns,
+      String onUpdate,
+      String onDelete) {}
+
+  public enum ConstraintType {
+    PRIMARY_KEY,
+    UNIQUE,
+    FOREIGN_KEY
+  }
+
+  /** The tables of a collection, including relation-array join tables. */
+  public List<TableDefinition> getTables(CollectionId collectionId) {
+    Map<String, List<ColumnDefinition>> columnsByTable = new LinkedHashMap<>();
+    namedTemplate.query(
+        "select c.relname as table_name, a.attname as column_name, "
+            + "format_type(a.atttypid, a.atttypmod) as data_type, a.attnotnull as not_null "
+            + "from pg_class c "
+            + "join pg_namespace n on n.oid = c.relnamespace "
+            + "join pg_attribute a on a.attrelid = c.oid "
+            + "where n.nspname = :schema and c.relkind = 'r' "
+            + "and a.attnum > 0 and not a.attisdropped and a.attname not like :shadowColumns "
+            + "order by c.relname, a.attnum",
+        new MapSqlParameterSource("schema", collectionId.toString())
+            .addValue("shadowColumns", SHADOW_COLUMN_PREFIX.replace("_", "\\_") + "%"),
+        rs -> {
+          columnsByTable
+              .computeIfAbsent(rs.getString("table_name"), table -> new ArrayList<>())
+              .add(
+                  new ColumnDefinition(
+                      rs.getString("column_name"),
+                      rs.getString("data_type"),
+                      rs.getBoolean("not_null")));
+        });
+    return columnsByTable.entrySet().stream()
+        .map(entry -> new TableDefinition(entry.getKey(), entry.getValue()))
+        .toList();
+  }
+
+  /** The primary keys, unique constraints and foreign keys of a collection's tables. */
+  public List<ConstraintDefinition> getConstraints(CollectionId collectionId) {
+    return namedTemplate.query(
+        "select con.conname, con.contype, t.relname as table_name, array(select a.attname::text"
+            + " from unnest(con.conkey) with ordinality k(attnum, ord)   join pg_attribute a on"
+            + " a.attrelid = con.conrelid and a.attnum = k.attnum   order by k.ord) as columns,"
+            + " r.relname as referenced_table_name, array(select a.attname::text from"
+            + " unnest(con.confkey) with ordinality k(attnum, ord)   join pg_attribute a on"
+            + " a.attrelid = con.confrelid and a.attnum = k.attnum   order by k.ord) as"
+            + " referenced_columns, con.confupdtype, con.confdeltype from pg_constraint con join"
+            + " pg_class t on t.oid = con.conrelid join pg_namespace n on n.oid = t.relnamespace"
+            + " left join pg_class r on r.oid = con.confrelid where n.nspname = :schema and"
+            + " con.contype in ('p', 'u', 'f') order by t.relname, con.conname",
+        new MapSqlParameterSource("schema", collectionId.toString()),
+        (rs, rowNum) ->
+            new ConstraintDefinition(
+                rs.getString("conname"),
+                rs.getString("table_name"),
+                switch (rs.getString("contype")) {
+                  case "p" -> ConstraintType.PRIMARY_KEY;
+                  case "u" -> ConstraintType.UNIQUE;
+                  default -> ConstraintType.FOREIGN_KEY;
+                },
+                getStrings(rs, "columns"),
+                rs.getString("referenced_table_name"),
+                getStrings(rs, "referenced_columns"),
+                getReferentialAction(rs.getString("confupdtype")),
+                getReferentialAction(rs.getString("confdeltype"))));
+  }
+
+  /**
+   * Definitions of the indexes on a collection's tables which do not back a constraint, rewritten
+   * to create the same indexes in another collection.
+   */
+  public List<String> getIndexDefinitions(CollectionId source, CollectionId target) {
+    String sourceSchema = " ON " + quote(source.toString()) + ".";
+    String targetSchema = " ON " + quote(target.toString()) + ".";
+    return namedTemplate
+        .queryForList(
+            "select pg_get_indexdef(i.indexrelid) from pg_index i join pg_class t on t.oid ="
+                + " i.indrelid join pg_namespace n on n.oid = t.relnamespace where n.nspname ="
+                + " :schema and t.relkind = 'r' and not exists (select from pg_constraint con where"
+                + " con.conindid = i.indexrelid) order by i.indexrelid",
+            new MapSqlParameterSource("schema", source.toString()),
+            String.class)
+        .stream()
+        .map(
+            definition -> {
+              if (!definition.contains(sourceSchema)) {
+                throw new IllegalStateException("Unexpected index definition: " + definition);
+              }
+              return definition.replace(sourceSchema, targetSchema);
+            })
+        .toList();
+  }
+
+  /** Create an empty table in the target collection, without keys or indexes. */
+  @SuppressWarnings("squid:S2077") // names and types are read from the Postgres catalog
+  public void createTable(CollectionId target, TableDefinition table) {
+    String columnDefs =
+        table.columns().stream()
+            .map(
+                column ->
+                    quote(column.name())
+                        + " "
+                        + column.type()
+                        + (column.notNull() ? " not null" : ""))
+            .collect(Collectors.joining(", "));
+    namedTemplate
+        .getJdbcTemplate()
+        .update("create table " + qualify(target, table.name()) + " (" + columnDefs + ")");
+  }
+
+  /**
+   * Copy the rows of a table into its empty copy in the target collection. This uses a connection
+   * of its own, which reads the source as of the given snapshot and commits once the copy is done.
+   *
+   * @return the number of rows copied
+   */
+  @SuppressWarnings("squid:S2077") // names are read from the Postgres catalog
+  public long copyRows(
+      ExportedSnapshot snapshot, CollectionId source, CollectionId target, TableDefinition table) {
+    String sql =
+        "insert into "
+            + qualify(target, table.name())
+            + " ("
+            + table.columnList()
+            + ") select "
+            + table.columnList()
+            + " from "
+            + qualify(source, table.name());
+    try (Connection connection = mainDb.getConnection()) {
+      // Hikari resets autocommit and the isolation level when the connection returns to the pool
+      connection.setAutoCommit(false);
+      connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("set transaction snapshot '" + snapshot.getSnapshotId() + "'");
+        long rows = statement.executeLargeUpdate(sql);
+        connection.commit();
+        return rows;
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      }
+    } catch (SQLException e) {
+      throw translate("copyRows", sql, e);
+    }
+  }
+
+  /** Add a primary key, unique constraint or foreign key to a table in the target collection. */
+  @SuppressWarnings("squid:S2077") // names are read from the Postgres catalog
+  public void addConstraint(CollectionId target, ConstraintDefinition constraint) {
+    String columns = quoteAll(constraint.columns());
+    String definition =
+        switch (constraint.type()) {
+          case PRIMARY_KEY -> "primary key (" + columns + ")";
+          case UNIQUE -> "unique (" + columns + ")";
+          case FOREIGN_KEY -> "foreign key ("
+              + columns
+              + ") references "
+              + qualify(target, String.valueOf(constraint.referencedTableName()))
+              + " ("
+              + quoteAll(constraint.referencedColumns())
+              + ") on update "
+              + constraint.onUpdate()
+              + " on delete "
+              + constraint.onDelete();
+        };
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "alter table "
+                + qualify(target, constraint.tableName())
+                + " add constraint "
+                + quote(constraint.name())
+                + " "
+                + definition);
+  }
+
+  /** Create an index, as returned by {@link #getIndexDefinitions(CollectionId, CollectionId)}. */
+  @SuppressWarnings("squid:S2077") // index definitions are read from the Postgres catalog
+  public void createIndex(String indexDefinition) {
+    namedTemplate.getJdbcTemplate().update(indexDefinition);
+  }
+
+  /**
+   * Create the trigger which keeps a copied table's full-text column in sync, once its rows are
+   * copied; see {@link TableDefinition#hasFullTextColumn()}.
+   */
+  @SuppressWarnings("squid:S2077") // names are read from the Postgres catalog
+  public void createFullTextTrigger(CollectionId target, TableDefinition table) {
+    namedTemplate
+        .getJdbcTemplate()
+        .update(RecordDao.getFullTextTriggerSql(qualify(target, table.name())));
+  }
+
+  /**
+   * Export a snapshot of the database, for {@link #copyRows} to read from. The snapshot can be
+   * imported only until it is closed.
+   */
+  public ExportedSnapshot exportSnapshot() {
+    try {
+      return new ExportedSnapshot(mainDb.getConnection());
+    } catch (SQLException e) {
+      throw translate("exportSnapshot", null, e);
+    }
+  }
+
+  /**
+   * A snapshot exported by pg_export_snapshot(). The snapshot is held by an open repeatable-read
+   * transaction, which does nothing else and is rolled back on close.
+   */
+  public class ExportedSnapshot implements AutoCloseable {
+    private final Connection connection;
+    private final String snapshotId;
+
+    private ExportedSnapshot(Connection connection) throws SQLException {
+      this.connection = connection;
+      try {
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try (Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery("select pg_export_snapshot()")) {
+          rs.next();
+          this.snapshotId = rs.getString(1);
+        }
+        if (!SNAPSHOT_ID.matcher(snapshotId).matches()) {
+          throw new IllegalStateException("Unexpected snapshot id: " + snapshotId);
+        }
+      } catch (SQLException | RuntimeException e) {
+        connection.close();
+        throw e;
+      }
+    }
+
+    public String getSnapshotId() {
+      return snapshotId;
+    }
+
+    @Override
+    public void close() {
+      try (connection) {
+        connection.rollback();
+      } catch (SQLException e) {
+        throw translate("closeSnapshot", null, e);
+      }
+    }
+  }
+
+  private DataAccessException translate(String task, @Nullable String sql, SQLException e) {
+    SQLExceptionTranslator translator = namedTemplate.getJdbcTemplate().getExceptionTranslator();
+    DataAccessException translated = translator.translate(task, sql, e);
+    return translated != null ? translated : new UncategorizedSQLException(task, sql, e);
+  }
+
+  private static String qualify(CollectionId collectionId, String tableName) {
+    return quote(collectionId.toString()) + "." + quote(tableName);
+  }
+
+  private static String quoteAll(List<String> names) {
+    return names.stream().map(SqlUtils::quote).collect(Collectors.joining(", "));
+  }
+
+  private static List<String> getStrings(ResultSet rs, String column) throws SQLException {
+    Array array = rs.getArray(column);
+    return array == null ? List.of() : Arrays.asList((String[]) array.getArray());
+  }
+
+  // see pg_constraint.confupdtype and confdeltype
+  private static String getReferentialAction(String action) {
+    return switch (action) {
+      case "r" -> "restrict";
+      case "c" -> "cascade";
+      case "n" -> "set null";
+      case "d" -> "set default";
+      default -> "no action";
+    };
+  }
+}
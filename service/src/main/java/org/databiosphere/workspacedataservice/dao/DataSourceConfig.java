@@ -1,21 +1,36 @@
 package org.databiosphere.workspacedataservice.dao;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.ObservationRegistry;
 import javax.sql.DataSource;
-import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 @Configuration
 public class DataSourceConfig {
 
+  // without a read replica, the primary's pool is used directly; see ReplicaDataSourceConfig
   @Bean
   @Primary
-  @ConfigurationProperties("spring.datasource.hikari")
-  public DataSource mainDb() {
-    return DataSourceBuilder.create().build();
+  @ConditionalOnProperty(
+      name = "twds.datasource.replica.enabled",
+      havingValue = "false",
+      matchIfMissing = true)
+  public DataSource mainDb(
+      Environment environment,
+      ObservationRegistry observationRegistry,
+      @Value("${twds.request-accounting.database-enabled:false}") boolean databaseAccounting) {
+    // bind the pool's settings ourselves, since the bean may be the accounting wrapper around it
+    HikariDataSource pool = new HikariDataSource();
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+    return databaseAccounting ? new RequestAccountingDataSource(pool, observationRegistry) : pool;
   }
 
   @Bean
@@ -0,0 +1,32 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.databiosphere.workspacedataservice.dataimport.ImportCheckpoint;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode;
+
+/** Read/write the checkpoints which allow an interrupted import to resume. */
+public interface ImportCheckpointDao {
+
+  /**
+   * Get the latest checkpoint for a source within an import job.
+   *
+   * @return the saved checkpoint, or {@link ImportCheckpoint#start} if none has been saved
+   */
+  ImportCheckpoint getCheckpoint(UUID jobId, ImportMode importMode, String source);
+
+  /**
+   * Perform some work and save a checkpoint in the same transaction, so that the checkpoint is
+   * saved if and only if the work is committed.
+   *
+   * @param checkpoint the checkpoint to save
+   * @param work the work to perform
+   * @return the result of the work
+   */
+  <T> T commitWithCheckpoint(ImportCheckpoint checkpoint, Supplier<T> work);
+
+  void saveCheckpoint(ImportCheckpoint checkpoint);
+
+  /** Delete all checkpoints for an import job, e.g. once the job has finished successfully. */
+  void deleteCheckpoints(UUID jobId);
+}
@@ -0,0 +1,44 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/** Minimal dynamic proxies for JDBC interfaces, which intercept some calls to a target object. */
+final class JdbcProxies {
+  private JdbcProxies() {}
+
+  /** Handles a call to the proxy, usually by invoking the method on the target. */
+  @FunctionalInterface
+  interface Handler {
+    Object handle(Method method, Object[] args) throws Exception;
+  }
+
+  /**
+   * Create a proxy for the given target. The handler is not called for equals() and hashCode(),
+   * which use the proxy's identity, and exceptions thrown by the target are rethrown unwrapped.
+   */
+  static <T> T proxy(Class<T> iface, T target, Handler handler) {
+    Object proxy =
+        Proxy.newProxyInstance(
+            JdbcProxies.class.getClassLoader(),
+            new Class<?>[] {iface},
+            (self, method, args) -> {
+              if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return self == args[0];
+              }
+              if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(self);
+              }
+              if (method.getName().equals("toString") && method.getParameterCount() == 0) {
+                return "Proxy for " + target;
+              }
+              try {
+                return handler.handle(method, args == null ? new Object[0] : args);
+              } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+              }
+            });
+    return iface.cast(proxy);
+  }
+}
@@ -4,9 +4,11 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
 import org.databiosphere.workspacedataservice.shared.model.job.Job;
 import org.databiosphere.workspacedataservice.shared.model.job.JobInput;
+import org.databiosphere.workspacedataservice.shared.model.job.JobListOptions;
 import org.databiosphere.workspacedataservice.shared.model.job.JobResult;
 
 public interface JobDao {
@@ -29,10 +31,12 @@ public interface JobDao {
 
   GenericJobServerModel fail(UUID jobId, Exception e);
 
+  void updateProgress(UUID jobId, JobProgressServerModel progress);
+
   GenericJobServerModel getJob(UUID jobId);
 
   List<GenericJobServerModel> getJobsForCollection(
-      CollectionId collectionId, Optional<List<String>> statuses);
+      CollectionId collectionId, Optional<List<String>> statuses, JobListOptions options);
 
   List<GenericJobServerModel> getOldNonTerminalJobs();
 }
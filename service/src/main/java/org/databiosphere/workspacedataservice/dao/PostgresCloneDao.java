@@ -72,10 +72,12 @@ public class PostgresCloneDao implements CloneDao {
       // determine the overall job status based on the "clonestatus" sub-status
       JobStatus jobStatus =
           switch (cloneStatus) {
-            case RESTORESUCCEEDED:
+            case RESTORESUCCEEDED, COPYSUCCEEDED:
               yield JobStatus.SUCCEEDED;
-            case BACKUPERROR, RESTOREERROR, UNKNOWN:
+            case BACKUPERROR, RESTOREERROR, COPYERROR, UNKNOWN:
               yield JobStatus.ERROR;
+            case COPYQUEUED:
+              yield JobStatus.QUEUED;
             default:
               yield JobStatus.RUNNING;
           };
@@ -94,10 +96,14 @@ public class PostgresCloneDao implements CloneDao {
       // IntelliJ warnings about
       // self-invocation of transactions on the following line:
       //noinspection SpringTransactionalMethodCallsInspection
-      terminateCloneToError(
-          trackingId,
-          e.getMessage(),
-          cloneStatus.name().contains("BACKUP") ? CloneTable.BACKUP : CloneTable.RESTORE);
+      if (cloneStatus.name().startsWith("COPY") || cloneStatus == CloneStatus.ADDINGCONSTRAINTS) {
+        terminateCopyToError(trackingId, e.getMessage());
+      } else {
+        terminateCloneToError(
+            trackingId,
+            e.getMessage(),
+            cloneStatus.name().contains("BACKUP") ? CloneTable.BACKUP : CloneTable.RESTORE);
+      }
     }
   }
 
@@ -119,6 +125,62 @@ public class PostgresCloneDao implements CloneDao {
         table.equals(CloneTable.BACKUP) ? CloneStatus.BACKUPERROR : CloneStatus.RESTOREERROR);
   }
 
+  @Override
+  @WriteTransaction
+  public void createCopyEntry(
+      UUID trackingId, WorkspaceId sourceWorkspaceId, WorkspaceId targetWorkspaceId) {
+    Timestamp now = Timestamp.from(Instant.now());
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "insert into sys_wds.clone(id, status, createdtime, updatedtime, sourceworkspaceid, "
+                + "targetworkspaceid, clonestatus, tablescopied, rowscopied) "
+                + "values (?,?,?,?,?,?,?,0,0)",
+            trackingId,
+            JobStatus.QUEUED.name(),
+            now,
+            now,
+            sourceWorkspaceId.id(),
+            targetWorkspaceId.id(),
+            CloneStatus.COPYQUEUED.name());
+  }
+
+  /*
+   Progress of an in-database copy is saved in its own transaction, so that it is visible while the
+   copy runs. Callers should save progress from a single thread; concurrent updates of the same row
+   would fail to serialize.
+  */
+  @Override
+  @WriteTransaction
+  public void updateCopyProgress(
+      UUID trackingId, int tablesTotal, int tablesCopied, long rowsCopied) {
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "update sys_wds.clone SET tablestotal = ?, tablescopied = ?, rowscopied = ?, "
+                + "updatedtime = ? where id = ?",
+            tablesTotal,
+            tablesCopied,
+            rowsCopied,
+            Timestamp.from(Instant.now()),
+            trackingId);
+  }
+
+  @Override
+  @WriteTransaction
+  public void terminateCopyToError(UUID trackingId, String error) {
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "update sys_wds.clone SET error = ?, clonestatus = ?, status = ?, updatedtime = ? "
+                + "where id = ?",
+            StringUtils.abbreviate(error, 2000),
+            CloneStatus.COPYERROR.name(),
+            JobStatus.ERROR.name(),
+            Timestamp.from(Instant.now()),
+            trackingId);
+  }
+
   /*
     If a workspace starts up in clone mode, its overall state will be recorded in a single row, saving the source workspace id
     along with the status of the cloning operations. If no data is returned by this function (i.e. null) it is safe to assume
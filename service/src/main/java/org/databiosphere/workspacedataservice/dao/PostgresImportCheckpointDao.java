@@ -0,0 +1,78 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import bio.terra.common.db.WriteTransaction;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.databiosphere.workspacedataservice.dataimport.ImportCheckpoint;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/** Read/write import checkpoints via the sys_wds.import_checkpoint Postgres table */
+@Repository
+public class PostgresImportCheckpointDao implements ImportCheckpointDao {
+  private final NamedParameterJdbcTemplate namedTemplate;
+
+  public PostgresImportCheckpointDao(NamedParameterJdbcTemplate namedTemplate) {
+    this.namedTemplate = namedTemplate;
+  }
+
+  @Override
+  public ImportCheckpoint getCheckpoint(UUID jobId, ImportMode importMode, String source) {
+    List<ImportCheckpoint> checkpoints =
+        namedTemplate.query(
+            "select records_committed, completed from sys_wds.import_checkpoint "
+                + "where job_id = :jobId and import_mode = :importMode and source = :source",
+            new MapSqlParameterSource("jobId", jobId.toString())
+                .addValue("importMode", importMode.name())
+                .addValue("source", source),
+            (rs, rowNum) ->
+                new ImportCheckpoint(
+                    jobId,
+                    importMode,
+                    source,
+                    rs.getLong("records_committed"),
+                    rs.getBoolean("completed")));
+    return checkpoints.isEmpty()
+        ? ImportCheckpoint.start(jobId, importMode, source)
+        : checkpoints.get(0);
+  }
+
+  @Override
+  @WriteTransaction
+  public <T> T commitWithCheckpoint(ImportCheckpoint checkpoint, Supplier<T> work) {
+    T result = work.get();
+    // because commitWithCheckpoint is itself annotated with @WriteTransaction, we can ignore
+    // IntelliJ warnings about self-invocation of transactions on the following line:
+    //noinspection SpringTransactionalMethodCallsInspection
+    saveCheckpoint(checkpoint);
+    return result;
+  }
+
+  @Override
+  @WriteTransaction
+  public void saveCheckpoint(ImportCheckpoint checkpoint) {
+    namedTemplate.update(
+        "insert into sys_wds.import_checkpoint"
+            + "(job_id, import_mode, source, records_committed, completed) "
+            + "values (:jobId, :importMode, :source, :recordsCommitted, :completed) "
+            + "on conflict (job_id, import_mode, source) do update set "
+            + "records_committed = excluded.records_committed, completed = excluded.completed, "
+            + "updated = now()",
+        new MapSqlParameterSource("jobId", checkpoint.jobId().toString())
+            .addValue("importMode", checkpoint.importMode().name())
+            .addValue("source", checkpoint.source())
+            .addValue("recordsCommitted", checkpoint.recordsCommitted())
+            .addValue("completed", checkpoint.completed()));
+  }
+
+  @Override
+  @WriteTransaction
+  public void deleteCheckpoints(UUID jobId) {
+    namedTemplate.update(
+        "delete from sys_wds.import_checkpoint where job_id = :jobId",
+        new MapSqlParameterSource("jobId", jobId.toString()));
+  }
+}
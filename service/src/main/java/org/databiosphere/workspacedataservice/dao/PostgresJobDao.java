@@ -21,10 +21,14 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.databiosphere.workspacedataservice.dataimport.ImportJobInput;
+import org.databiosphere.workspacedataservice.datatypeconversion.DataTypeConversionJobInput;
+import org.databiosphere.workspacedataservice.fulltextsearch.FullTextSearchJobInput;
 import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
 import org.databiosphere.workspacedataservice.shared.model.job.Job;
 import org.databiosphere.workspacedataservice.shared.model.job.JobInput;
+import org.databiosphere.workspacedataservice.shared.model.job.JobListOptions;
 import org.databiosphere.workspacedataservice.shared.model.job.JobResult;
 import org.databiosphere.workspacedataservice.workspace.WorkspaceInitJobInput;
 import org.slf4j.Logger;
@@ -177,6 +181,29 @@ public class PostgresJobDao implements JobDao {
     return update(jobId, StatusEnum.ERROR, errorMessage, e.getStackTrace());
   }
 
+  /**
+   * Save the live progress of a running job. Like other updates, this also updates the job's
+   * `updated` column. Callers should not hold a transaction open across the job's work, or its
+   * progress is not visible until that transaction commits; imports save their progress from a
+   * separate thread, see {@link
+   * org.databiosphere.workspacedataservice.dataimport.ImportProgressWriter}.
+   *
+   * @param jobId id of the job to update
+   * @param progress the job's progress
+   */
+  @Override
+  public void updateProgress(UUID jobId, JobProgressServerModel progress) {
+    try {
+      namedTemplate.update(
+          "update sys_wds.job set progress = :progress::jsonb where id = :jobId",
+          new MapSqlParameterSource("jobId", jobId.toString())
+              .addValue("progress", mapper.writeValueAsString(progress)));
+    } catch (JsonProcessingException e) {
+      // progress is informational only; don't fail the job because of it
+      logger.error("Error serializing progress to jsonb for job {}: {}", jobId, e.getMessage());
+    }
+  }
+
   private GenericJobServerModel update(
       UUID jobId,
       StatusEnum status,
@@ -229,20 +256,31 @@ public class PostgresJobDao implements JobDao {
   public GenericJobServerModel getJob(UUID jobId) {
     return namedTemplate.queryForObject(
         "select id, type, status, created, updated, "
-            + "input, result, error, stacktrace, collection_id "
+            + "input, result, error, stacktrace, collection_id, progress "
             + "from sys_wds.job "
             + "where id = :jobId",
         new MapSqlParameterSource("jobId", jobId.toString()),
         new AsyncJobRowMapper(mapper));
   }
 
+  /**
+   * List a collection's jobs, newest first. Pages are keyset-paginated on (created, id), which is
+   * backed by the idx_job_collection_status_created index.
+   *
+   * @param collectionId the collection whose jobs to list
+   * @param statuses if present, list only jobs in these statuses
+   * @param options paging options, and whether to include each job's input
+   * @return the jobs
+   */
   public List<GenericJobServerModel> getJobsForCollection(
-      CollectionId collectionId, Optional<List<String>> statuses) {
-    // start our sql statement and map of params
+      CollectionId collectionId, Optional<List<String>> statuses, JobListOptions options) {
+    // start our sql statement and map of params. result and stacktrace are never returned by the
+    // list API, so don't read them; also skip input unless it was requested.
     StringBuilder sb =
         new StringBuilder(
             "select id, type, status, created, updated, "
-                + "input, result, error, stacktrace, collection_id "
+                + (options.includeInput() ? "input" : "null as input")
+                + ", error, collection_id, progress "
                 + "from sys_wds.job "
                 + "where collection_id = :collection_id");
     MapSqlParameterSource params = new MapSqlParameterSource("collection_id", collectionId.id());
@@ -252,6 +290,19 @@ public class PostgresJobDao implements JobDao {
       sb.append(" and status in (:statuses)");
       params.addValue("statuses", statuses.get());
     }
+    // if resuming from a previous page, list only jobs ordered after that page's last job.
+    // If that job does not exist in this collection, the subquery is null and no jobs are listed.
+    if (options.afterJobId() != null) {
+      sb.append(
+          " and (created, id) < (select created, id from sys_wds.job"
+              + " where id = :after_job_id and collection_id = :collection_id)");
+      params.addValue("after_job_id", options.afterJobId().toString());
+    }
+    sb.append(" order by created desc, id desc");
+    if (options.pageSize() != null) {
+      sb.append(" limit :page_size");
+      params.addValue("page_size", options.pageSize());
+    }
     return namedTemplate.query(sb.toString(), params, new AsyncJobRowMapper(mapper));
   }
 
@@ -276,7 +327,8 @@ public class PostgresJobDao implements JobDao {
       return new GenericJobServerModel(
               jobId, jobType, /* instanceId= */ collectionId, status, created, updated)
           .errorMessage(rs.getString("error"))
-          .input(getJobInput(jobType, rs));
+          .input(getJobInput(jobType, rs))
+          .progress(getJobProgress(rs));
     }
 
     private JobTypeEnum getJobType(ResultSet rs) throws SQLException {
@@ -299,15 +351,37 @@ public class PostgresJobDao implements JobDao {
       return StatusEnum.UNKNOWN;
     }
 
+    @Nullable
+    private JobProgressServerModel getJobProgress(ResultSet rs) throws SQLException {
+      String progress = rs.getString("progress");
+      if (progress == null) {
+        return null;
+      }
+      try {
+        return mapper.readValue(progress, JobProgressServerModel.class);
+      } catch (JsonProcessingException e) {
+        logger.error("Error deserializing progress: {}; progress will be empty.", e.getMessage());
+      }
+      return null;
+    }
+
+    @Nullable
     private JobInput getJobInput(JobTypeEnum jobType, ResultSet rs) throws SQLException {
+      String input = rs.getString("input");
+      if (input == null) {
+        // input was not requested
+        return null;
+      }
       Class<? extends JobInput> targetClass =
           switch (jobType) {
             case DATA_IMPORT -> ImportJobInput.class;
             case WORKSPACE_INIT -> WorkspaceInitJobInput.class;
+            case DATA_TYPE_CONVERSION -> DataTypeConversionJobInput.class;
+            case FULL_TEXT_SEARCH -> FullTextSearchJobInput.class;
             default -> JobInput.class;
           };
       try {
-        return mapper.readValue(rs.getString("input"), targetClass);
+        return mapper.readValue(input, targetClass);
       } catch (JsonProcessingException e) {
         logger.error("Error deserializing input: {}; input will be empty.", e.getMessage());
       }
@@ -345,7 +419,8 @@ public class PostgresJobDao implements JobDao {
         NONTERMINAL_JOB_STATUSES.stream().map(status -> status.name()).toList();
 
     return namedTemplate.query(
-        "SELECT id, type, status, created, updated, input, result, error, stacktrace, collection_id "
+        "SELECT id, type, status, created, updated, input, result, error, stacktrace, "
+            + "collection_id, progress "
             + "FROM sys_wds.job "
             + "WHERE status in (:statuses) AND updated < :lastUpdate",
         new MapSqlParameterSource()
@@ -2,12 +2,20 @@ package org.databiosphere.workspacedataservice.dao;
 
 import static org.quartz.TriggerBuilder.newTrigger;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.databiosphere.workspacedataservice.shared.model.Schedulable;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -33,4 +41,98 @@ public class QuartzSchedulerDao implements SchedulerDao {
       throw new RuntimeException(e);
     }
   }
+
+  public void store(Schedulable schedulable) {
+    JobDetail jobDetail = schedulable.getJobDetail();
+    try {
+      // the job is non-durable, so Quartz deletes it once it has been triggered and finishes
+      scheduler.addJob(jobDetail, false, true);
+    } catch (SchedulerException e) {
+      logger.error("Failed to store job {}: {}", jobDetail.getKey(), e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  public boolean trigger(Schedulable schedulable) {
+    JobKey jobKey = jobKey(schedulable);
+    // name the trigger after the job, so that only one replica can trigger it
+    Trigger trigger =
+        newTrigger()
+            .withIdentity(jobKey.getName(), jobKey.getGroup())
+            .forJob(jobKey)
+            .startNow()
+            .build();
+    try {
+      if (!scheduler.checkExists(jobKey)) {
+        logger.info("Job {} no longer exists; not triggering it", jobKey);
+        return false;
+      }
+      scheduler.scheduleJob(trigger);
+      return true;
+    } catch (ObjectAlreadyExistsException e) {
+      logger.info("Job {} has already been triggered", jobKey);
+      return false;
+    } catch (SchedulerException e) {
+      logger.error("Failed to trigger job {}: {}", jobKey, e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  public void delete(Schedulable schedulable) {
+    JobKey jobKey = jobKey(schedulable);
+    try {
+      scheduler.deleteJob(jobKey);
+    } catch (SchedulerException e) {
+      logger.error("Failed to delete job {}: {}", jobKey, e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  public boolean exists(String group, String id) {
+    JobKey jobKey = new JobKey(id, group);
+    try {
+      return scheduler.checkExists(jobKey);
+    } catch (SchedulerException e) {
+      logger.error("Failed to check whether job {} exists: {}", jobKey, e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  public List<Schedulable> getStoredJobs(Collection<String> groups) {
+    List<Schedulable> storedJobs = new ArrayList<>();
+    try {
+      for (String group : groups) {
+        for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.jobGroupEquals(group))) {
+          JobDetail jobDetail = scheduler.getJobDetail(jobKey);
+          // skip jobs which finished meanwhile, and jobs which have already been triggered
+          if (jobDetail != null && scheduler.getTriggersOfJob(jobKey).isEmpty()) {
+            storedJobs.add(toSchedulable(jobDetail));
+          }
+        }
+      }
+    } catch (SchedulerException e) {
+      logger.error("Failed to list stored jobs in groups {}: {}", groups, e.getMessage());
+      throw new RuntimeException(e);
+    }
+    return storedJobs;
+  }
+
+  private static JobKey jobKey(Schedulable schedulable) {
+    return new JobKey(schedulable.getId(), schedulable.getGroup());
+  }
+
+  private static Schedulable toSchedulable(JobDetail jobDetail) {
+    // Schedulable arguments are Serializable, and Quartz serializes the job data map to store it
+    Map<String, Serializable> arguments = new HashMap<>();
+    jobDetail
+        .getJobDataMap()
+        .getWrappedMap()
+        .forEach((key, value) -> arguments.put(key, (Serializable) value));
+    return new Schedulable(
+        jobDetail.getKey().getGroup(),
+        jobDetail.getKey().getName(),
+        jobDetail.getJobClass(),
+        jobDetail.getDescription(),
+        arguments);
+  }
 }
@@ -0,0 +1,56 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.InstantSource;
+import org.databiosphere.workspacedataservice.sam.TokenContextUtil;
+import org.databiosphere.workspacedataservice.shared.model.BearerToken;
+
+/**
+ * Remembers which sessions recently wrote to the primary database, so that their reads can stay on
+ * the primary until the replica has caught up with those writes. A session is identified by the
+ * bearer token of the current request or job, or by the current thread when there is no token.
+ * Tokens are hashed, rather than held, for the lifetime of the entry.
+ */
+public class RecentWrites {
+  private static final long MAX_SESSIONS = 10_000;
+
+  private final InstantSource instantSource;
+  private final Duration window;
+  private final Cache<String, Instant> lastWrites;
+
+  /**
+   * @param instantSource source of the current time
+   * @param window how long after a session writes its reads should stay on the primary
+   */
+  public RecentWrites(InstantSource instantSource, Duration window) {
+    this.instantSource = instantSource;
+    this.window = window;
+    this.lastWrites =
+        CacheBuilder.newBuilder().maximumSize(MAX_SESSIONS).expireAfterWrite(window).build();
+  }
+
+  /** Record that the current session just wrote to the primary. */
+  public void markWritten() {
+    lastWrites.put(currentSession(), instantSource.instant());
+  }
+
+  /** Did the current session write to the primary within the window? */
+  public boolean wroteRecently() {
+    Instant lastWrite = lastWrites.getIfPresent(currentSession());
+    return lastWrite != null && lastWrite.plus(window).isAfter(instantSource.instant());
+  }
+
+  private static String currentSession() {
+    BearerToken token = TokenContextUtil.getToken();
+    if (token.nonEmpty()) {
+      return Hashing.sha256().hashString(token.getValue(), UTF_8).toString();
+    }
+    return "thread-" + Thread.currentThread().getId();
+  }
+}
@@ -9,8 +9,12 @@ import static org.databiosphere.workspacedataservice.service.model.exception.Inv
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -31,8 +35,11 @@ import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.UUID;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -40,6 +47,7 @@ import javax.sql.DataSource;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.StringSubstitutor;
 import org.databiosphere.workspacedataservice.search.QueryParser;
+import org.databiosphere.workspacedataservice.search.RelationArrayJoin;
 import org.databiosphere.workspacedataservice.search.WhereClause;
 import org.databiosphere.workspacedataservice.search.WhereClausePart;
 import org.databiosphere.workspacedataservice.service.DataTypeInferer;
@@ -57,6 +65,7 @@ import org.databiosphere.workspacedataservice.shared.model.AttributeComparator;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
 import org.databiosphere.workspacedataservice.shared.model.Record;
 import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordColumn;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
@@ -74,9 +83,12 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.server.ResponseStatusException;
@@ -97,6 +109,8 @@ public class RecordDao {
 
   private final ObjectMapper objectMapper;
   private final PrimaryKeyDao primaryKeyDao;
+  private final ChangeTokenDao changeTokenDao;
+  private final StatementTimer statementTimer;
 
   @Value("${twds.streaming.fetch.size:5000}")
   int fetchSize;
@@ -133,17 +147,49 @@ public class RecordDao {
           "22008" // datetime field overflow
           );
 
+  /**
+   * Prefix of the shadow columns which hold converted values during a data type conversion; see
+   * {@link #prepareDataTypeConversion}. Shadow columns are not part of a record type's schema.
+   */
+  static final String SHADOW_COLUMN_PREFIX = RESERVED_NAME_PREFIX + "shadow_";
+
+  /** Prefix of the names of search indexes; see {@link #createSearchIndexConcurrently}. */
+  private static final String SEARCH_INDEX_PREFIX = RESERVED_NAME_PREFIX + "search_";
+
+  /**
+   * The tsvector column of a record type with full-text search enabled; see {@link
+   * #enableFullTextSearch}. Named for the query parser's default column, which queries that do not
+   * specify a column search. Not part of a record type's schema.
+   */
+  static final String FULL_TEXT_COLUMN = QueryParser.DEFAULT_ALL_COLUMNS_NAME;
+
+  // the column holding the count of matching records; see queryForRecordsWithCount
+  private static final String COUNT_COLUMN = RESERVED_NAME_PREFIX + "count";
+
+  private static final String NOT_A_HIDDEN_COLUMN =
+      " and column_name not like 'sys\\_shadow\\_%' and column_name != '" + FULL_TEXT_COLUMN + "'";
+
+  // the most record ids to report when values cannot be converted to a new data type
+  private static final int MAX_UNCONVERTIBLE_RECORDS = 10;
+
+  // how long the final step of a data type conversion may wait for its lock on the table
+  private static final String CONVERSION_LOCK_TIMEOUT = "5s";
+
   public RecordDao(
       DataSource mainDb,
       NamedParameterJdbcTemplate namedTemplate,
       DataTypeInferer inf,
       ObjectMapper objectMapper,
-      PrimaryKeyDao primaryKeyDao) {
+      PrimaryKeyDao primaryKeyDao,
+      ChangeTokenDao changeTokenDao,
+      StatementTimer statementTimer) {
     this.mainDb = mainDb;
     this.namedTemplate = namedTemplate;
     this.inferer = inf;
     this.objectMapper = objectMapper;
     this.primaryKeyDao = primaryKeyDao;
+    this.changeTokenDao = changeTokenDao;
+    this.statementTimer = statementTimer;
   }
 
   public boolean recordTypeExists(UUID collectionId, RecordType recordType) {
@@ -185,6 +231,7 @@ public class RecordDao {
             recordType,
             relationArray.relationRecordType());
       }
+      changeTokenDao.recordTypeChanged(collectionId, recordType);
     } catch (DataAccessException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForMissingTable(sqlEx);
@@ -243,6 +290,16 @@ public class RecordDao {
                       new Relation(toCol, referencedRecordType),
                       collectionId)
                   + ")");
+      // for searches of the relation-array column; see QueryParser
+      namedTemplate
+          .getJdbcTemplate()
+          .update(
+              "create index on "
+                  + getQualifiedJoinTableName(collectionId, tableName, referringRecordType)
+                  + " (LOWER("
+                  + quote(toCol)
+                  + "))");
+      changeTokenDao.recordTypeChanged(collectionId, referringRecordType);
     } catch (DataAccessException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForMissingTable(sqlEx);
@@ -266,39 +323,196 @@ public class RecordDao {
       UUID collectionId) {
     LOGGER.info("queryForRecords: {}", recordType.getName());
 
-    // extract potential record ids from the `filter` param
-    Optional<List<String>> filterIds = searchFilter.flatMap(SearchFilter::ids);
-
     // fail fast: filter.ids is provided, but no ids were specified.
     // Return an empty list of Records.
     // Should this be a Bad Request instead?
-    if (filterIds.isPresent() && filterIds.get().isEmpty()) {
+    if (hasEmptyFilterIds(searchFilter)) {
       return List.of();
     }
 
-    // find primary key column name
-    String pkColumn = primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId);
-    // and the whole schema
-    Map<String, DataTypeMapping> schema = getExistingTableSchema(collectionId, recordType);
-
-    WhereClause where = generateQueryWhereClause(pkColumn, schema, searchFilter);
-
-    return namedTemplate.query(
+    WhereClause where = getWhereClause(collectionId, recordType, searchFilter);
+    String sql =
         "select * from "
             + getQualifiedTableName(recordType, collectionId)
             + where.sql()
-            + " order by "
-            + (sortAttribute == null
-                ? quote(primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId))
-                : quote(sortAttribute))
-            + " "
-            + sortDirection
-            + " limit "
-            + pageSize
-            + " offset "
-            + offset,
+            + getOrderAndPage(
+                collectionId, recordType, sortAttribute, sortDirection, pageSize, offset);
+    return statementTimer.timeQuery(
+        "queryForRecords",
+        sql,
         where.params(),
-        new RecordRowMapper(recordType, objectMapper, collectionId));
+        List::size,
+        () ->
+            namedTemplate.query(
+                sql, where.params(), new RecordRowMapper(recordType, objectMapper, collectionId)));
+  }
+
+  /**
+   * Count the records which match a search filter, using the same where clause as {@link
+   * #queryForRecords}.
+   *
+   * @param countLimit if positive, stop counting after this many records; the count is then capped
+   * @return the number of matching records
+   */
+  @SuppressWarnings("squid:S2077")
+  public RecordCount countRecords(
+      UUID collectionId,
+      RecordType recordType,
+      Optional<SearchFilter> searchFilter,
+      int countLimit) {
+    if (hasEmptyFilterIds(searchFilter)) {
+      return new RecordCount(0, false);
+    }
+    WhereClause where = getWhereClause(collectionId, recordType, searchFilter);
+    String matches = "select from " + getQualifiedTableName(recordType, collectionId) + where.sql();
+    String sql =
+        countLimit > 0
+            ? "select count(*) from (" + matches + " limit " + (countLimit + 1) + ") matches"
+            : "select count(*) from (" + matches + ") matches";
+    int count =
+        statementTimer.timeQuery(
+            "countMatchingRecords",
+            sql,
+            where.params(),
+            Integer::intValue,
+            () -> namedTemplate.queryForObject(sql, where.params(), Integer.class));
+    return RecordCount.of(count, countLimit);
+  }
+
+  /**
+   * One page of records, as {@link #queryForRecords}, with the number of records which match the
+   * search filter, in a single statement: the count is computed by count(*) over () alongside the
+   * page. Without a limit, this reads every matching record; with one, the page must lie within the
+   * first countLimit records.
+   *
+   * @param countLimit if positive, stop counting after this many records; the count is then capped
+   * @return the page, with a null count if the page is empty because offset is past the last
+   *     matching record
+   */
+  @SuppressWarnings("squid:S2077")
+  public RecordPage queryForRecordsWithCount(
+      RecordType recordType,
+      int pageSize,
+      int offset,
+      String sortDirection,
+      @Nullable String sortAttribute,
+      Optional<SearchFilter> searchFilter,
+      UUID collectionId,
+      int countLimit) {
+    if (countLimit > 0 && offset + pageSize > countLimit) {
+      throw new IllegalArgumentException("Page must lie within the first countLimit records");
+    }
+    if (hasEmptyFilterIds(searchFilter)) {
+      return new RecordPage(List.of(), new RecordCount(0, false));
+    }
+    WhereClause where = getWhereClause(collectionId, recordType, searchFilter);
+    String orderAndPage =
+        getOrderAndPage(collectionId, recordType, sortAttribute, sortDirection, pageSize, offset);
+    String table = getQualifiedTableName(recordType, collectionId);
+    String matches =
+        countLimit > 0
+            // the first countLimit + 1 matching records, in page order
+            ? "(select * from "
+                + table
+                + where.sql()
+                + getOrderAndPage(
+                    collectionId, recordType, sortAttribute, sortDirection, countLimit + 1, 0)
+                + ") matches"
+            : table + where.sql();
+    String sql =
+        "select *, count(*) over () as " + COUNT_COLUMN + " from " + matches + orderAndPage;
+    RecordRowMapper rowMapper = new RecordRowMapper(recordType, objectMapper, collectionId);
+    int[] count = {0};
+    List<Record> records =
+        statementTimer.timeQuery(
+            "queryForRecordsWithCount",
+            sql,
+            where.params(),
+            List::size,
+            () ->
+                namedTemplate.query(
+                    sql,
+                    where.params(),
+                    (rs, rowNum) -> {
+                      count[0] = rs.getInt(COUNT_COLUMN);
+                      return rowMapper.mapRow(rs, rowNum);
+                    }));
+    if (records.isEmpty() && offset > 0) {
+      return new RecordPage(records, null);
+    }
+    return new RecordPage(records, RecordCount.of(count[0], countLimit));
+  }
+
+  /**
+   * The number of records which match a search filter.
+   *
+   * @param total the number of matching records, or the count limit if capped
+   * @param capped whether more than total records match
+   */
+  public record RecordCount(int total, boolean capped) {
+    static RecordCount of(int counted, int countLimit) {
+      return countLimit > 0 && counted > countLimit
+          ? new RecordCount(countLimit, true)
+          : new RecordCount(counted, false);
+    }
+  }
+
+  /** A page of records, with the number of records which match its search filter, if known. */
+  public record RecordPage(List<Record> records, @Nullable RecordCount count) {}
+
+  private static boolean hasEmptyFilterIds(Optional<SearchFilter> searchFilter) {
+    return searchFilter.flatMap(SearchFilter::ids).map(List::isEmpty).orElse(false);
+  }
+
+  @VisibleForTesting
+  WhereClause getWhereClause(
+      UUID collectionId, RecordType recordType, Optional<SearchFilter> searchFilter) {
+    // find primary key column name
+    String pkColumn = primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId);
+    // and the whole schema, which only filter.query needs
+    Map<String, DataTypeMapping> schema =
+        searchFilter.flatMap(SearchFilter::query).isPresent()
+            ? getExistingTableSchema(collectionId, recordType)
+            : Map.of();
+    // relation-array columns are searched through their join tables, looked up only if needed
+    Supplier<Map<String, RecordType>> relationArrays =
+        Suppliers.memoize(
+            () -> getRelationColumnsByName(getRelationArrayCols(collectionId, recordType)));
+    return generateQueryWhereClause(
+        pkColumn,
+        schema,
+        searchFilter,
+        () -> isFullTextSearchEnabled(collectionId, recordType),
+        column ->
+            Optional.ofNullable(relationArrays.get().get(column))
+                .map(
+                    referencedType ->
+                        new RelationArrayJoin(
+                            getQualifiedJoinTableName(collectionId, column, recordType),
+                            quote(getFromColumnName(recordType)),
+                            quote(getToColumnName(referencedType)),
+                            getQualifiedTableName(recordType, collectionId)
+                                + "."
+                                + quote(pkColumn))));
+  }
+
+  private String getOrderAndPage(
+      UUID collectionId,
+      RecordType recordType,
+      @Nullable String sortAttribute,
+      String sortDirection,
+      int pageSize,
+      int offset) {
+    return " order by "
+        + (sortAttribute == null
+            ? quote(primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId))
+            : quote(sortAttribute))
+        + " "
+        + sortDirection
+        + " limit "
+        + pageSize
+        + " offset "
+        + offset;
   }
 
   /**
@@ -520,7 +734,21 @@ public class RecordDao {
   // helper method to generate the SQL where clause for queryForRecords()
   @VisibleForTesting
   static WhereClause generateQueryWhereClause(
-      String pkColumn, Map<String, DataTypeMapping> schema, Optional<SearchFilter> searchFilter) {
+      String pkColumn,
+      Map<String, DataTypeMapping> schema,
+      Optional<SearchFilter> searchFilter,
+      BooleanSupplier fullTextSearchEnabled) {
+    return generateQueryWhereClause(
+        pkColumn, schema, searchFilter, fullTextSearchEnabled, column -> Optional.empty());
+  }
+
+  @VisibleForTesting
+  static WhereClause generateQueryWhereClause(
+      String pkColumn,
+      Map<String, DataTypeMapping> schema,
+      Optional<SearchFilter> searchFilter,
+      BooleanSupplier fullTextSearchEnabled,
+      Function<String, Optional<RelationArrayJoin>> relationArrayJoins) {
     // init an empty list of clauses and empty map of bind params
     List<String> clauses = new ArrayList<>();
     MapSqlParameterSource sqlParams = new MapSqlParameterSource();
@@ -532,14 +760,16 @@ public class RecordDao {
     if (filterIds.isPresent()) {
       // filterIds is an Optional. If the Optional is present, we know that the List
       // inside the Optional is non-empty due to the check in queryForRecords above
-      clauses.add(quote(pkColumn) + " in (:filterIds)");
-      sqlParams.addValue("filterIds", filterIds.get());
+      clauses.add(quote(pkColumn) + " = any(:filterIds)");
+      sqlParams.addValue("filterIds", recordIdArray(filterIds.get()));
     }
 
     // if this query has specified filter.query, populate the where clause and bind params
     Optional<String> filterQuery = searchFilter.flatMap(SearchFilter::query);
     if (filterQuery.isPresent()) {
-      WhereClausePart queryPart = new QueryParser(schema).parse(filterQuery.get());
+      WhereClausePart queryPart =
+          new QueryParser(schema, fullTextSearchEnabled, relationArrayJoins)
+              .parse(filterQuery.get());
       clauses.addAll(queryPart.clauses());
       sqlParams.addValues(queryPart.values());
     }
@@ -554,6 +784,18 @@ public class RecordDao {
     return new WhereClause(sqlFragment, sqlParams);
   }
 
+  /**
+   * Bind a list of record ids as a single array parameter, for use as {@code = any(:param)} or
+   * {@code unnest(:param)}. Spring expands a list bound as {@code in (:param)} into one placeholder
+   * per id, so the SQL text grows with the list, cannot be reused as a prepared statement, and
+   * fails beyond the driver's limit of 32767 bind parameters.
+   */
+  @VisibleForTesting
+  static String[] recordIdArray(List<String> recordIds) {
+    // the Postgres driver binds a String[] as a single array parameter
+    return recordIds.toArray(String[]::new);
+  }
+
   public List<String> getAllAttributeNames(UUID collectionId, RecordType recordType) {
     MapSqlParameterSource params =
         new MapSqlParameterSource(COLLECTION_ID, collectionId.toString());
@@ -561,7 +803,8 @@ public class RecordDao {
     List<String> attributeNames =
         namedTemplate.queryForList(
             "select column_name from INFORMATION_SCHEMA.COLUMNS where table_schema = :collectionId "
-                + "and table_name = :tableName",
+                + "and table_name = :tableName"
+                + NOT_A_HIDDEN_COLUMN,
             params,
             String.class);
     attributeNames.sort(
@@ -576,23 +819,30 @@ public class RecordDao {
     params.addValue("tableName", recordType.getName());
     String sql =
         "select column_name,coalesce(domain_name, udt_name::regtype::varchar) as data_type from INFORMATION_SCHEMA.COLUMNS "
-            + "where table_schema = :collectionId and table_name = :tableName";
+            + "where table_schema = :collectionId and table_name = :tableName"
+            + NOT_A_HIDDEN_COLUMN;
     return getTableSchema(sql, params);
   }
 
   private Map<String, DataTypeMapping> getTableSchema(String sql, MapSqlParameterSource params) {
-    return namedTemplate.query(
+    return statementTimer.timeQuery(
+        "getTableSchema",
         sql,
         params,
-        rs -> {
-          Map<String, DataTypeMapping> result = new HashMap<>();
-          while (rs.next()) {
-            result.put(
-                rs.getString("column_name"),
-                DataTypeMapping.fromPostgresType(rs.getString("data_type")));
-          }
-          return result;
-        });
+        Map::size,
+        () ->
+            namedTemplate.query(
+                sql,
+                params,
+                rs -> {
+                  Map<String, DataTypeMapping> result = new HashMap<>();
+                  while (rs.next()) {
+                    result.put(
+                        rs.getString("column_name"),
+                        DataTypeMapping.fromPostgresType(rs.getString("data_type")));
+                  }
+                  return result;
+                }));
   }
 
   public Map<String, DataTypeMapping> getExistingTableSchemaLessPrimaryKey(
@@ -603,7 +853,8 @@ public class RecordDao {
     params.addValue("primaryKey", primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId));
     String sql =
         "select column_name, coalesce(domain_name, udt_name::regtype::varchar) as data_type from INFORMATION_SCHEMA.COLUMNS where table_schema = :collectionId "
-            + "and table_name = :tableName and column_name != :primaryKey";
+            + "and table_name = :tableName and column_name != :primaryKey"
+            + NOT_A_HIDDEN_COLUMN;
     return getTableSchema(sql, params);
   }
 
@@ -612,46 +863,86 @@ public class RecordDao {
     addColumn(collectionId, recordType, columnName, colType, null);
   }
 
-  @SuppressWarnings("squid:S2077")
   public void addColumn(
       UUID collectionId,
       RecordType recordType,
       String columnName,
       DataTypeMapping colType,
-      RecordType referencedType) {
+      @Nullable RecordType referencedType) {
+    alterColumns(
+        collectionId,
+        recordType,
+        Map.of(columnName, colType),
+        referencedType == null ? Map.of() : Map.of(columnName, referencedType),
+        Map.of());
+  }
+
+  public void changeColumn(
+      UUID collectionId, RecordType recordType, String columnName, DataTypeMapping newColType) {
+    alterColumns(collectionId, recordType, Map.of(), Map.of(), Map.of(columnName, newColType));
+  }
+
+  /**
+   * Add columns to, and change the types of columns in, a record type's table in a single ALTER
+   * TABLE statement, so the table is locked and rewritten once for all of them.
+   *
+   * @param columnsToAdd new columns and their types
+   * @param referencedTypes the record types referenced by those new columns which are relations
+   * @param columnsToChange existing columns and their new types
+   */
+  @SuppressWarnings("squid:S2077")
+  public void alterColumns(
+      UUID collectionId,
+      RecordType recordType,
+      Map<String, DataTypeMapping> columnsToAdd,
+      Map<String, RecordType> referencedTypes,
+      Map<String, DataTypeMapping> columnsToChange) {
+    if (columnsToAdd.isEmpty() && columnsToChange.isEmpty()) {
+      return;
+    }
+    columnsToChange
+        .keySet()
+        .forEach(
+            columnName -> {
+              checkNoDataTypeConversion(collectionId, recordType, columnName);
+              // an index for the old data type may not apply to the new one
+              dropSearchIndexes(collectionId, recordType, columnName);
+            });
+    Stream<String> additions =
+        columnsToAdd.entrySet().stream()
+            .map(
+                column ->
+                    " add column if not exists "
+                        + quote(SqlUtils.validateSqlString(column.getKey(), ATTRIBUTE))
+                        + " "
+                        + column.getValue().getPostgresType()
+                        + (referencedTypes.containsKey(column.getKey())
+                            ? " references "
+                                + getQualifiedTableName(
+                                    referencedTypes.get(column.getKey()), collectionId)
+                            : ""));
+    Stream<String> changes =
+        columnsToChange.entrySet().stream()
+            .map(
+                column ->
+                    " alter column "
+                        + quote(SqlUtils.validateSqlString(column.getKey(), ATTRIBUTE))
+                        + " TYPE "
+                        + column.getValue().getPostgresType());
     try {
       namedTemplate
           .getJdbcTemplate()
           .update(
               "alter table "
                   + getQualifiedTableName(recordType, collectionId)
-                  + " add column "
-                  + quote(SqlUtils.validateSqlString(columnName, ATTRIBUTE))
-                  + " "
-                  + colType.getPostgresType()
-                  + (referencedType != null
-                      ? " references " + getQualifiedTableName(referencedType, collectionId)
-                      : ""));
+                  + Stream.concat(additions, changes).collect(Collectors.joining(",")));
     } catch (DataAccessException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForMissingTable(sqlEx);
       }
       throw e;
     }
-  }
-
-  @SuppressWarnings("squid:S2077")
-  public void changeColumn(
-      UUID collectionId, RecordType recordType, String columnName, DataTypeMapping newColType) {
-    namedTemplate
-        .getJdbcTemplate()
-        .update(
-            "alter table "
-                + getQualifiedTableName(recordType, collectionId)
-                + " alter column "
-                + quote(SqlUtils.validateSqlString(columnName, ATTRIBUTE))
-                + " TYPE "
-                + newColType.getPostgresType());
+    changeTokenDao.recordTypeChanged(collectionId, recordType);
   }
 
   private String genColumnDefs(Map<String, DataTypeMapping> tableInfo, String primaryKeyCol) {
@@ -685,12 +976,36 @@ public class RecordDao {
       Map<String, DataTypeMapping> schema,
       String primaryKeyColumn) {
     List<RecordColumn> schemaAsList = getSchemaWithRowId(schema, primaryKeyColumn);
+    String sql = genInsertStatement(collectionId, recordType, schemaAsList, primaryKeyColumn);
+    executeUpsert(
+        collectionId, recordType, sql, getInsertBatchArgs(records, schemaAsList, primaryKeyColumn));
+  }
+
+  /**
+   * Upsert a columnar batch of records. Builds each row's arguments by column index, rather than by
+   * looking up each attribute of a {@link Record} by name.
+   */
+  public void batchUpsert(
+      UUID collectionId,
+      RecordType recordType,
+      RecordBatch batch,
+      Map<String, DataTypeMapping> schema,
+      String primaryKeyColumn) {
+    List<RecordColumn> schemaAsList = getSchemaWithRowId(schema, primaryKeyColumn);
+    String sql = genInsertStatement(collectionId, recordType, schemaAsList, primaryKeyColumn);
+    executeUpsert(
+        collectionId, recordType, sql, getInsertBatchArgs(batch, schemaAsList, primaryKeyColumn));
+  }
+
+  private void executeUpsert(
+      UUID collectionId, RecordType recordType, String sql, List<Object[]> batchArgs) {
     try {
-      namedTemplate
-          .getJdbcTemplate()
-          .batchUpdate(
-              genInsertStatement(collectionId, recordType, schemaAsList, primaryKeyColumn),
-              getInsertBatchArgs(records, schemaAsList, primaryKeyColumn));
+      statementTimer.time(
+          "batchUpsert",
+          sql,
+          rowCounts -> rowCounts.length,
+          () -> namedTemplate.getJdbcTemplate().batchUpdate(sql, batchArgs));
+      changeTokenDao.recordTypeChanged(collectionId, recordType);
     } catch (DataAccessException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForMissingRecord(sqlEx);
@@ -701,12 +1016,15 @@ public class RecordDao {
 
   public void insertIntoJoin(
       UUID collectionId, Relation column, RecordType recordType, List<RelationValue> relations) {
+    String sql = genJoinInsertStatement(collectionId, column, recordType);
     try {
-      namedTemplate
-          .getJdbcTemplate()
-          .batchUpdate(
-              genJoinInsertStatement(collectionId, column, recordType),
-              getJoinInsertBatchArgs(relations));
+      statementTimer.time(
+          "insertIntoJoin",
+          sql,
+          rowCounts -> rowCounts.length,
+          () ->
+              namedTemplate.getJdbcTemplate().batchUpdate(sql, getJoinInsertBatchArgs(relations)));
+      changeTokenDao.recordTypeChanged(collectionId, recordType);
     } catch (DataAccessException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForMissingRecord(sqlEx);
@@ -722,8 +1040,9 @@ public class RecordDao {
             + getQualifiedJoinTableName(collectionId, column.relationColName(), fromType)
             + " where "
             + quote(getFromColumnName(fromType))
-            + "in (:recordIds)",
-        new MapSqlParameterSource(RECORD_IDS_PARAM, recordIds));
+            + " = any(:recordIds)",
+        new MapSqlParameterSource(RECORD_IDS_PARAM, recordIdArray(recordIds)));
+    changeTokenDao.recordTypeChanged(collectionId, fromType);
   }
 
   public void batchUpsert(
@@ -754,14 +1073,16 @@ public class RecordDao {
   public boolean deleteSingleRecord(UUID collectionId, RecordType recordType, String recordId) {
     String recordTypePrimaryKey = primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId);
     try {
-      return namedTemplate.update(
+      int deleted =
+          namedTemplate.update(
               "delete from "
                   + getQualifiedTableName(recordType, collectionId)
                   + " where "
                   + quote(recordTypePrimaryKey)
                   + " = :recordId",
-              new MapSqlParameterSource(RECORD_ID_PARAM, recordId))
-          == 1;
+              new MapSqlParameterSource(RECORD_ID_PARAM, recordId));
+      changeTokenDao.recordTypeChanged(collectionId, recordType);
+      return deleted == 1;
     } catch (DataIntegrityViolationException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForTableRelation(sqlEx);
@@ -774,13 +1095,16 @@ public class RecordDao {
   public int deleteRecords(UUID collectionId, RecordType recordType, List<String> recordIds) {
     String recordTypePrimaryKey = primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId);
     try {
-      return namedTemplate.update(
-          "delete from "
-              + getQualifiedTableName(recordType, collectionId)
-              + " where "
-              + quote(recordTypePrimaryKey)
-              + " in (:recordIds)",
-          new MapSqlParameterSource(RECORD_IDS_PARAM, recordIds));
+      int deleted =
+          namedTemplate.update(
+              "delete from "
+                  + getQualifiedTableName(recordType, collectionId)
+                  + " where "
+                  + quote(recordTypePrimaryKey)
+                  + " = any(:recordIds)",
+              new MapSqlParameterSource(RECORD_IDS_PARAM, recordIdArray(recordIds)));
+      changeTokenDao.recordTypeChanged(collectionId, recordType);
+      return deleted;
     } catch (DataIntegrityViolationException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForTableRelation(sqlEx);
@@ -795,20 +1119,27 @@ public class RecordDao {
     String recordTypePrimaryKey = primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId.id());
 
     try {
+      int deleted;
       if (excludedRecordIds.isEmpty()) {
-        return namedTemplate.update(
-            "delete from " + getQualifiedTableName(recordType, collectionId.id()),
-            new MapSqlParameterSource());
+        deleted =
+            namedTemplate.update(
+                "delete from " + getQualifiedTableName(recordType, collectionId.id()),
+                new MapSqlParameterSource());
       } else {
-        return namedTemplate.update(
-            "delete from "
-                + getQualifiedTableName(recordType, collectionId.id())
-                + " where "
-                + quote(recordTypePrimaryKey)
-                + "not in (:recordIds)",
-            new MapSqlParameterSource(RECORD_IDS_PARAM, excludedRecordIds));
+        // anti-join against the excluded ids, rather than "<> all(:recordIds)": Postgres compares
+        // each row against every element of an array in "<> all", but can hash an anti-join
+        deleted =
+            namedTemplate.update(
+                "delete from "
+                    + getQualifiedTableName(recordType, collectionId.id())
+                    + " t where not exists (select from unnest(:recordIds) as excluded(id)"
+                    + " where excluded.id = t."
+                    + quote(recordTypePrimaryKey)
+                    + ")",
+                new MapSqlParameterSource(RECORD_IDS_PARAM, recordIdArray(excludedRecordIds)));
       }
-
+      changeTokenDao.recordTypeChanged(collectionId.id(), recordType);
+      return deleted;
     } catch (DataIntegrityViolationException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForTableRelation(sqlEx);
@@ -832,6 +1163,7 @@ public class RecordDao {
               + "references "
               + getQualifiedTableName(referencedRecordType, collectionId);
       namedTemplate.getJdbcTemplate().execute(addFk);
+      changeTokenDao.recordTypeChanged(collectionId, recordType);
     } catch (DataAccessException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForMissingTable(sqlEx);
@@ -868,6 +1200,18 @@ public class RecordDao {
     }
   }
 
+  // wraps a DataSource so that its connections are read-only
+  private static DataSource readOnly(DataSource dataSource) {
+    return new DelegatingDataSource(dataSource) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        connection.setReadOnly(true);
+        return connection;
+      }
+    };
+  }
+
   @SuppressWarnings("squid:S2077") // sql statement has been manually reviewed
   public Stream<Record> streamAllRecordsForType(UUID collectionId, RecordType recordType) {
     // create the SQL for the query
@@ -886,6 +1230,8 @@ public class RecordDao {
     // the ItemReader will manage the underlying Postgres db cursor and ultimately
     // make multiple queries to the db, returning `fetchSize` rows each time.
     // Hikari will reset the autocommit value on this connection when returning it to the pool.
+    // The connection is also read-only, so that a read replica can serve the stream when one is
+    // configured; see ReplicaRoutingDataSource.
     //
     // Per https://jdbc.postgresql.org/documentation/query/#getting-results-based-on-a-cursor,
     // requirements for streaming are:
@@ -894,7 +1240,7 @@ public class RecordDao {
     //		- the statement must have a positive fetch size
     JdbcCursorItemReader<Record> itemReader =
         new JdbcCursorItemReaderBuilder<Record>()
-            .dataSource(mainDb)
+            .dataSource(readOnly(mainDb))
             .connectionAutoCommit(false)
             .fetchSize(fetchSize)
             .sql(sql)
@@ -971,7 +1317,8 @@ public class RecordDao {
   public List<Relation> getRelationArrayCols(UUID collectionId, RecordType recordType) {
     return namedTemplate.query(
         "select kcu1.table_name, kcu1.column_name from information_schema.key_column_usage kcu1 join information_schema.key_column_usage kcu2 "
-            + "on kcu1.table_name = kcu2.table_name where kcu1.constraint_schema = :workspace and kcu2.constraint_name = :from_table_constraint"
+            + "on kcu1.table_name = kcu2.table_name and kcu1.constraint_schema = kcu2.constraint_schema "
+            + "where kcu1.constraint_schema = :workspace and kcu2.constraint_name = :from_table_constraint"
             + " and kcu2.constraint_name != kcu1.constraint_name",
         Map.of(
             "workspace",
@@ -1011,11 +1358,13 @@ public class RecordDao {
 
   @SuppressWarnings("squid:S2077")
   public int countRecords(UUID collectionId, RecordType recordType) {
-    return namedTemplate
-        .getJdbcTemplate()
-        .queryForObject(
-            "select count(*) from " + getQualifiedTableName(recordType, collectionId),
-            Integer.class);
+    String sql = "select count(*) from " + getQualifiedTableName(recordType, collectionId);
+    return statementTimer.timeQuery(
+        "countRecords",
+        sql,
+        EmptySqlParameterSource.INSTANCE,
+        Integer::intValue,
+        () -> namedTemplate.getJdbcTemplate().queryForObject(sql, Integer.class));
   }
 
   private String genColUpsertUpdates(List<String> cols, String recordTypeRowIdentifier) {
@@ -1030,6 +1379,33 @@ public class RecordDao {
     return records.stream().map(r -> getInsertArgs(r, cols, recordTypeRowIdentifier)).toList();
   }
 
+  private List<Object[]> getInsertBatchArgs(
+      RecordBatch batch, List<RecordColumn> cols, String recordTypeRowIdentifier) {
+    // resolve each column's index in the batch once; -1 for the id and for absent columns
+    int[] columnIndexes =
+        cols.stream()
+            .mapToInt(
+                col ->
+                    col.colName().equals(recordTypeRowIdentifier)
+                        ? -1
+                        : batch.getColumnIndex(col.colName()))
+            .toArray();
+    List<Object[]> result = new ArrayList<>(batch.size());
+    for (int rowIndex = 0; rowIndex < batch.size(); rowIndex++) {
+      Object[] row = new Object[cols.size()];
+      for (int i = 0; i < row.length; i++) {
+        RecordColumn col = cols.get(i);
+        if (col.colName().equals(recordTypeRowIdentifier)) {
+          row[i] = batch.getId(rowIndex);
+        } else if (columnIndexes[i] >= 0) {
+          row[i] = getValueForSql(batch.getValue(rowIndex, columnIndexes[i]), col.typeMapping());
+        }
+      }
+      result.add(row);
+    }
+    return result;
+  }
+
   private Object getValueForSql(Object attVal, DataTypeMapping typeMapping) {
     if (Objects.isNull(attVal)) {
       return null;
@@ -1219,6 +1595,7 @@ public class RecordDao {
                       return recordIds.size();
                     }
                   });
+      changeTokenDao.recordTypeChanged(collectionId, recordType);
       List<String> recordErrors = new ArrayList<>();
       for (int i = 0; i < rowCounts.length; i++) {
         if (rowCounts[i] != 1) {
@@ -1313,6 +1690,11 @@ public class RecordDao {
             attributes.putAttribute(primaryKeyColumn, rs.getString(columnIndex));
             continue;
           }
+          if (columnName.startsWith(SHADOW_COLUMN_PREFIX)
+              || columnName.equals(FULL_TEXT_COLUMN)
+              || columnName.equals(COUNT_COLUMN)) {
+            continue;
+          }
           if (referenceColToTable.size() > 0
               && referenceColToTable.containsKey(columnName)
               && rs.getString(columnName) != null) {
@@ -1455,6 +1837,7 @@ public class RecordDao {
       namedTemplate
           .getJdbcTemplate()
           .update("drop table " + getQualifiedTableName(recordType, collectionId));
+      changeTokenDao.recordTypeChanged(collectionId, recordType);
     } catch (DataAccessException e) {
       if (e.getRootCause() instanceof SQLException sqlEx) {
         checkForTableRelation(sqlEx);
@@ -1465,6 +1848,7 @@ public class RecordDao {
 
   public void renameAttribute(
       UUID collectionId, RecordType recordType, String attribute, String newAttributeName) {
+    checkNoDataTypeConversion(collectionId, recordType, attribute);
     namedTemplate
         .getJdbcTemplate()
         .update(
@@ -1474,41 +1858,521 @@ public class RecordDao {
                 + quote(SqlUtils.validateSqlString(attribute, ATTRIBUTE))
                 + " to "
                 + quote(SqlUtils.validateSqlString(newAttributeName, ATTRIBUTE)));
+    // keep the attribute's search index, if any, findable by name; see getSearchIndexName
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "alter index if exists "
+                + quote(collectionId.toString())
+                + "."
+                + quote(getSearchIndexName(recordType, attribute))
+                + " rename to "
+                + quote(getSearchIndexName(recordType, newAttributeName)));
+    changeTokenDao.recordTypeChanged(collectionId, recordType);
   }
 
-  public void updateAttributeDataType(
-      UUID collectionId, RecordType recordType, String attribute, DataTypeMapping newDataType) {
-    Map<String, DataTypeMapping> schema = getExistingTableSchema(collectionId, recordType);
-    DataTypeMapping currentDataType = schema.get(attribute);
+  /**
+   * Start an online data type conversion of an attribute, without rewriting the table. This adds a
+   * shadow column of the new type, and a trigger which fills it with the converted value whenever
+   * the attribute is written. Existing values are then converted in batches by {@link
+   * #convertDataTypeBatch}, and {@link #completeDataTypeConversion} replaces the attribute with its
+   * shadow column.
+   *
+   * <p>Until the conversion completes or is aborted, writes of values which cannot be converted to
+   * the new data type fail, and the attribute cannot be renamed, deleted or converted again. The
+   * shadow column records the job which owns the conversion, so that conversions abandoned by their
+   * job can be found and aborted; see {@link #getDataTypeConversions}.
+   *
+   * @throws IllegalArgumentException if the conversion is not supported
+   * @throws ConflictException if the attribute is already being converted
+   */
+  public void prepareDataTypeConversion(
+      UUID collectionId,
+      RecordType recordType,
+      String attribute,
+      DataTypeMapping newDataType,
+      UUID jobId) {
+    checkNoDataTypeConversion(collectionId, recordType, attribute);
+    DataTypeMapping currentDataType =
+        getExistingTableSchema(collectionId, recordType).get(attribute);
+    String conversion =
+        getPostgresTypeConversion(
+            "NEW." + quote(SqlUtils.validateSqlString(attribute, ATTRIBUTE)),
+            currentDataType,
+            newDataType);
+    String table = getQualifiedTableName(recordType, collectionId);
+    String shadowColumn = quote(getShadowColumnName(recordType, attribute));
+    String function = quote(collectionId.toString()) + "." + shadowColumn;
+    JdbcTemplate jdbcTemplate = namedTemplate.getJdbcTemplate();
+    jdbcTemplate.update(
+        "alter table "
+            + table
+            + " add column "
+            + shadowColumn
+            + " "
+            + newDataType.getPostgresType());
+    jdbcTemplate.update("comment on column " + table + "." + shadowColumn + " is '" + jobId + "'");
+    jdbcTemplate.update(
+        "create function "
+            + function
+            + "() returns trigger language plpgsql as $$ begin NEW."
+            + shadowColumn
+            + " := "
+            + conversion
+            + "; return NEW; end $$");
+    jdbcTemplate.update(
+        "create trigger "
+            + shadowColumn
+            + " before insert or update of "
+            + quote(attribute)
+            + " on "
+            + table
+            + " for each row execute function "
+            + function
+            + "()");
+  }
 
+  /**
+   * Convert the next batch of existing values for an online data type conversion, in primary key
+   * order. Run outside of a transaction, so that each batch commits, and holds its row locks, on
+   * its own.
+   *
+   * @param afterRecordId the last record id of the previous batch, or null for the first batch
+   * @return the number of records in the batch, and the last record id in it
+   * @throws ConflictException if values in the batch cannot be converted; its message lists the ids
+   *     of records with such values
+   */
+  public ConvertedBatch convertDataTypeBatch(
+      UUID collectionId,
+      RecordType recordType,
+      String attribute,
+      DataTypeMapping newDataType,
+      @Nullable String afterRecordId,
+      int batchSize) {
+    DataTypeMapping currentDataType =
+        getExistingTableSchema(collectionId, recordType).get(attribute);
+    String conversion =
+        getPostgresTypeConversionExpression(attribute, currentDataType, newDataType);
+    String primaryKey = quote(primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId));
+    MapSqlParameterSource params =
+        new MapSqlParameterSource("batchSize", batchSize).addValue(RECORD_ID_PARAM, afterRecordId);
+    String batch = nextBatchQuery(collectionId, recordType, primaryKey, afterRecordId);
     try {
-      namedTemplate
-          .getJdbcTemplate()
-          .update(
-              "alter table "
+      return Objects.requireNonNull(
+          namedTemplate.queryForObject(
+              "with batch as ("
+                  + batch
+                  + "), converted as (update "
                   + getQualifiedTableName(recordType, collectionId)
-                  + " alter column "
-                  + quote(SqlUtils.validateSqlString(attribute, ATTRIBUTE))
-                  + " type "
-                  + newDataType.getPostgresType()
-                  + " using "
-                  + getPostgresTypeConversionExpression(attribute, currentDataType, newDataType));
+                  + " t set "
+                  + quote(getShadowColumnName(recordType, attribute))
+                  + " = "
+                  + conversion
+                  + " from batch where t."
+                  + primaryKey
+                  + " = batch."
+                  + primaryKey
+                  + " returning t."
+                  + primaryKey
+                  + ") select count(*) as converted, max("
+                  + primaryKey
+                  + ") as last_record_id from converted",
+              params,
+              (rs, rowNum) ->
+                  new ConvertedBatch(rs.getInt("converted"), rs.getString("last_record_id"))));
     } catch (DataIntegrityViolationException e) {
-      if (e.getRootCause() instanceof SQLException sqlEx && sqlEx.getSQLState() != null) {
-        if (expectedDataTypeConversionErrorCodes.contains(sqlEx.getSQLState())) {
-          throw new ConflictException(
-              "Unable to convert values for attribute %s to %s"
-                  .formatted(attribute, newDataType.name()));
-        } else {
-          LOGGER.warn(
-              "updateAttributeDataType: DataIntegrityViolationException with unexpected error code {}",
-              sqlEx.getSQLState());
+      if (!isDataTypeConversionError(e)) {
+        throw e;
+      }
+      // find which records in the batch cannot be converted, one by one
+      List<String> unconvertible = new ArrayList<>();
+      for (String recordId : namedTemplate.queryForList(batch, params, String.class)) {
+        try {
+          namedTemplate.queryForList(
+              "select "
+                  + conversion
+                  + " from "
+                  + getQualifiedTableName(recordType, collectionId)
+                  + " where "
+                  + primaryKey
+                  + " = :recordId",
+              new MapSqlParameterSource(RECORD_ID_PARAM, recordId));
+        } catch (DataIntegrityViolationException recordException) {
+          if (!isDataTypeConversionError(recordException)) {
+            throw recordException;
+          }
+          unconvertible.add(recordId);
+          if (unconvertible.size() == MAX_UNCONVERTIBLE_RECORDS) {
+            break;
+          }
         }
       }
+      throw new ConflictException(
+          "Unable to convert values for attribute %s to %s%s"
+              .formatted(
+                  attribute,
+                  newDataType.name(),
+                  unconvertible.isEmpty()
+                      ? ""
+                      : " for records: " + String.join(", ", unconvertible)));
+    }
+  }
+
+  private String nextBatchQuery(
+      UUID collectionId, RecordType recordType, String primaryKey, @Nullable String afterRecordId) {
+    return "select "
+        + primaryKey
+        + " from "
+        + getQualifiedTableName(recordType, collectionId)
+        + (afterRecordId == null ? "" : " where " + primaryKey + " > :recordId")
+        + " order by "
+        + primaryKey
+        + " limit :batchSize";
+  }
+
+  /** One batch of an online data type conversion; see {@link #convertDataTypeBatch}. */
+  public record ConvertedBatch(int converted, @Nullable String lastRecordId) {}
+
+  /**
+   * Finish an online data type conversion, once every existing value has been converted: replace
+   * the attribute with its shadow column. This needs only a brief exclusive lock on the table;
+   * rather than queue writers behind it for long, it fails if the lock is not granted within a few
+   * seconds, and may be retried. Must run in a transaction.
+   */
+  public void completeDataTypeConversion(
+      UUID collectionId, RecordType recordType, String attribute) {
+    String table = getQualifiedTableName(recordType, collectionId);
+    String shadowColumn = quote(getShadowColumnName(recordType, attribute));
+    JdbcTemplate jdbcTemplate = namedTemplate.getJdbcTemplate();
+    jdbcTemplate.execute("set local lock_timeout = '" + CONVERSION_LOCK_TIMEOUT + "'");
+    jdbcTemplate.execute("lock table " + table + " in access exclusive mode");
+    jdbcTemplate.update("drop trigger " + shadowColumn + " on " + table);
+    jdbcTemplate.update(
+        "drop function " + quote(collectionId.toString()) + "." + shadowColumn + "()");
+    jdbcTemplate.update(
+        "alter table "
+            + table
+            + " drop column "
+            + quote(SqlUtils.validateSqlString(attribute, ATTRIBUTE)));
+    jdbcTemplate.update(
+        "alter table " + table + " rename column " + shadowColumn + " to " + quote(attribute));
+    // the attribute's old indexes were dropped with its column. Building new ones here would hold
+    // the exclusive lock throughout; see createSearchIndexConcurrently instead.
+    changeTokenDao.recordTypeChanged(collectionId, recordType);
+  }
+
+  /**
+   * Abandon an online data type conversion, leaving the attribute unchanged. Safe to call whether
+   * or not the conversion was fully prepared, and if the record type has since been deleted.
+   */
+  public void abortDataTypeConversion(UUID collectionId, RecordType recordType, String attribute) {
+    abortDataTypeConversion(
+        new DataTypeConversion(
+            collectionId, recordType, getShadowColumnName(recordType, attribute), null));
+  }
+
+  /** Abandon an online data type conversion found by {@link #getDataTypeConversions}. */
+  public void abortDataTypeConversion(DataTypeConversion conversion) {
+    UUID collectionId = conversion.collectionId();
+    String table = getQualifiedTableName(conversion.recordType(), collectionId);
+    String shadowColumn = quote(conversion.shadowColumn());
+    JdbcTemplate jdbcTemplate = namedTemplate.getJdbcTemplate();
+    jdbcTemplate.update("drop trigger if exists " + shadowColumn + " on " + table);
+    jdbcTemplate.update(
+        "drop function if exists " + quote(collectionId.toString()) + "." + shadowColumn + "()");
+    jdbcTemplate.update(
+        "alter table if exists " + table + " drop column if exists " + shadowColumn);
+  }
+
+  /**
+   * List the online data type conversions in progress in every collection: those which have been
+   * prepared, but neither completed nor aborted.
+   */
+  public List<DataTypeConversion> getDataTypeConversions() {
+    return namedTemplate.query(
+        "select table_schema, table_name, column_name, col_description(format('%I.%I',"
+            + " table_schema, table_name)::regclass, ordinal_position) as job_id from"
+            + " INFORMATION_SCHEMA.COLUMNS where column_name like :shadowColumnPattern",
+        new MapSqlParameterSource(
+            "shadowColumnPattern", SHADOW_COLUMN_PREFIX.replace("_", "\\_") + "%"),
+        (rs, rowNum) -> {
+          String jobId = rs.getString("job_id");
+          return new DataTypeConversion(
+              UUID.fromString(rs.getString("table_schema")),
+              RecordType.valueOf(rs.getString("table_name")),
+              rs.getString("column_name"),
+              jobId == null ? null : UUID.fromString(jobId));
+        });
+  }
+
+  /**
+   * An online data type conversion in progress; see {@link #getDataTypeConversions}.
+   *
+   * @param shadowColumn the column which holds converted values
+   * @param jobId the job which owns the conversion, if any; conversions prepared before jobs were
+   *     recorded have none
+   */
+  public record DataTypeConversion(
+      UUID collectionId, RecordType recordType, String shadowColumn, @Nullable UUID jobId) {}
+
+  /** Is an online data type conversion of this attribute in progress? */
+  public boolean isDataTypeConversionInProgress(
+      UUID collectionId, RecordType recordType, String attribute) {
+    return Boolean.TRUE.equals(
+        namedTemplate.queryForObject(
+            "select exists(select from INFORMATION_SCHEMA.COLUMNS where table_schema ="
+                + " :collectionId and table_name = :tableName and column_name = :shadowColumn)",
+            new MapSqlParameterSource(COLLECTION_ID, collectionId.toString())
+                .addValue("tableName", recordType.getName())
+                .addValue("shadowColumn", getShadowColumnName(recordType, attribute)),
+            Boolean.class));
+  }
+
+  private void checkNoDataTypeConversion(
+      UUID collectionId, RecordType recordType, String attribute) {
+    if (isDataTypeConversionInProgress(collectionId, recordType, attribute)) {
+      throw new ConflictException(
+          "The data type of attribute %s is being changed; try again later".formatted(attribute));
+    }
+  }
+
+  /**
+   * Start enabling full-text search of a record type: queries which do not specify a column then
+   * match records with the term in any attribute, including the record id. Adds a tsvector column,
+   * and a trigger which keeps it in sync with each record's string and numeric values (including
+   * those in arrays and json) on every insert and update from now on. The column has no default, so
+   * adding it rewrites no rows and needs only a brief exclusive lock. Existing records are then
+   * indexed by {@link #indexFullTextBatch}, and the column by {@link
+   * #createFullTextIndexConcurrently}; full-text search is enabled once that index is built. Safe
+   * to call again should an earlier attempt not have finished. Must run in a transaction.
+   */
+  public void prepareFullTextSearch(UUID collectionId, RecordType recordType) {
+    String table = getQualifiedTableName(recordType, collectionId);
+    JdbcTemplate jdbcTemplate = namedTemplate.getJdbcTemplate();
+    jdbcTemplate.update(
+        "alter table " + table + " add column if not exists " + FULL_TEXT_COLUMN + " tsvector");
+    jdbcTemplate.update("drop trigger if exists " + FULL_TEXT_COLUMN + " on " + table);
+    jdbcTemplate.update(getFullTextTriggerSql(table));
+  }
+
+  /**
+   * Index the next batch of existing records for full-text search, in primary key order, by
+   * rewriting their full-text column; the trigger computes it for each of them. Run outside of a
+   * transaction, so that each batch commits, and holds its row locks, on its own.
+   *
+   * @param afterRecordId the last record id of the previous batch, or null for the first batch
+   * @return the number of records in the batch, and the last record id in it
+   */
+  public IndexedBatch indexFullTextBatch(
+      UUID collectionId, RecordType recordType, @Nullable String afterRecordId, int batchSize) {
+    String primaryKey = quote(primaryKeyDao.getPrimaryKeyColumn(recordType, collectionId));
+    return Objects.requireNonNull(
+        namedTemplate.queryForObject(
+            "with batch as ("
+                + nextBatchQuery(collectionId, recordType, primaryKey, afterRecordId)
+                + "), indexed as (update "
+                + getQualifiedTableName(recordType, collectionId)
+                + " t set "
+                + FULL_TEXT_COLUMN
+                + " = null from batch where t."
+                + primaryKey
+                + " = batch."
+                + primaryKey
+                + " returning t."
+                + primaryKey
+                + ") select count(*) as indexed, max("
+                + primaryKey
+                + ") as last_record_id from indexed",
+            new MapSqlParameterSource("batchSize", batchSize)
+                .addValue(RECORD_ID_PARAM, afterRecordId),
+            (rs, rowNum) ->
+                new IndexedBatch(rs.getInt("indexed"), rs.getString("last_record_id"))));
+  }
+
+  /** One batch of records indexed for full-text search; see {@link #indexFullTextBatch}. */
+  public record IndexedBatch(int indexed, @Nullable String lastRecordId) {}
+
+  /**
+   * Finish enabling full-text search, once existing records are indexed: build the GIN index of the
+   * full-text column without blocking writes to the record type. Must not run in a transaction. An
+   * invalid index left behind by an earlier attempt, or by this one should it fail, is dropped.
+   */
+  public void createFullTextIndexConcurrently(UUID collectionId, RecordType recordType) {
+    dropSearchIndexes(collectionId, recordType, FULL_TEXT_COLUMN);
+    try {
+      namedTemplate
+          .getJdbcTemplate()
+          .update(
+              "create index concurrently on "
+                  + getQualifiedTableName(recordType, collectionId)
+                  + " using gin ("
+                  + FULL_TEXT_COLUMN
+                  + ")");
+    } catch (DataAccessException e) {
+      dropSearchIndexes(collectionId, recordType, FULL_TEXT_COLUMN);
+      throw e;
+    }
+  }
+
+  /**
+   * Disable full-text search of a record type, dropping its index. Also abandons enabling it, if
+   * that has not finished.
+   */
+  public void disableFullTextSearch(UUID collectionId, RecordType recordType) {
+    String table = getQualifiedTableName(recordType, collectionId);
+    JdbcTemplate jdbcTemplate = namedTemplate.getJdbcTemplate();
+    jdbcTemplate.update("drop trigger if exists " + FULL_TEXT_COLUMN + " on " + table);
+    // drops the index along with the column
+    jdbcTemplate.update("alter table " + table + " drop column if exists " + FULL_TEXT_COLUMN);
+  }
+
+  /**
+   * Is full-text search of this record type enabled? It is once its index has been built, and with
+   * it the full-text column of every existing record.
+   */
+  public boolean isFullTextSearchEnabled(UUID collectionId, RecordType recordType) {
+    return Boolean.TRUE.equals(
+        namedTemplate.queryForObject(
+            "select exists(select from pg_index i join pg_attribute a on a.attrelid = i.indrelid"
+                + " and a.attnum = any(i.indkey) where i.indrelid = to_regclass(:table)"
+                + " and a.attname = :fullTextColumn and i.indisvalid)",
+            new MapSqlParameterSource("table", getQualifiedTableName(recordType, collectionId))
+                .addValue("fullTextColumn", FULL_TEXT_COLUMN),
+            Boolean.class));
+  }
+
+  // does this record type have a full-text column, whether or not full-text search is yet enabled?
+  private boolean hasFullTextColumn(UUID collectionId, RecordType recordType) {
+    return Boolean.TRUE.equals(
+        namedTemplate.queryForObject(
+            "select exists(select from INFORMATION_SCHEMA.COLUMNS where table_schema ="
+                + " :collectionId and table_name = :tableName and column_name = :fullTextColumn)",
+            new MapSqlParameterSource(COLLECTION_ID, collectionId.toString())
+                .addValue("tableName", recordType.getName())
+                .addValue("fullTextColumn", FULL_TEXT_COLUMN),
+            Boolean.class));
+  }
+
+  /**
+   * Index an attribute for searches by {@link QueryParser}, if those of its data type can use an
+   * index: md5(LOWER()) of string, file and relation attributes, and a GIN index of the md5 hashes
+   * of the lower-cased elements of arrays of strings and files. Postgres limits the size of an
+   * index entry to about a third of a page, so the hashes are indexed rather than the values, which
+   * may be longer. Other data types, and relation arrays, which are searched through their join
+   * tables, are not indexed. Does nothing if the attribute already has its index.
+   *
+   * <p>The index is built without blocking writes to the record type, so this must not run in a
+   * transaction. Should building the index fail, the invalid index it leaves behind is dropped.
+   */
+  @SuppressWarnings("squid:S2077")
+  public void createSearchIndexConcurrently(
+      UUID collectionId, RecordType recordType, String attribute) {
+    String indexed =
+        getSearchIndexDefinition(
+            attribute, getExistingTableSchema(collectionId, recordType).get(attribute));
+    if (indexed == null) {
+      return;
+    }
+    try {
+      // the index is named for the attribute, so that only one of any concurrent calls builds it
+      namedTemplate
+          .getJdbcTemplate()
+          .update(
+              "create index concurrently if not exists "
+                  + quote(getSearchIndexName(recordType, attribute))
+                  + " on "
+                  + getQualifiedTableName(recordType, collectionId)
+                  + " "
+                  + indexed);
+    } catch (DataAccessException e) {
+      dropSearchIndexes(collectionId, recordType, attribute);
       throw e;
     }
   }
 
+  // the definition of an attribute's search index, or null if it should have none
+  @Nullable
+  private String getSearchIndexDefinition(String attribute, @Nullable DataTypeMapping dataType) {
+    if (dataType == null) {
+      return null;
+    }
+    String column = quote(SqlUtils.validateSqlString(attribute, ATTRIBUTE));
+    return switch (dataType) {
+      case STRING, FILE, RELATION -> "(md5(LOWER(" + column + ")))";
+      case ARRAY_OF_STRING, ARRAY_OF_FILE -> "using gin ("
+          + QueryParser.LOWER_ARRAY_MD5_FUNCTION
+          + "("
+          + column
+          + "))";
+      default -> null;
+    };
+  }
+
+  // drops the indexes on an attribute which do not back a constraint
+  private void dropSearchIndexes(UUID collectionId, RecordType recordType, String attribute) {
+    List<String> indexes =
+        namedTemplate.queryForList(
+            "select i.indexrelid::regclass::text from pg_index i join pg_depend d on d.classid ="
+                + " 'pg_class'::regclass and d.objid = i.indexrelid and d.refobjid = i.indrelid"
+                + " join pg_attribute a on a.attrelid = i.indrelid and a.attnum = d.refobjsubid"
+                + " where i.indrelid = :table::regclass and a.attname = :attribute and not exists"
+                + " (select from pg_constraint con where con.conindid = i.indexrelid)",
+            new MapSqlParameterSource("table", getQualifiedTableName(recordType, collectionId))
+                .addValue("attribute", attribute),
+            String.class);
+    indexes.forEach(index -> namedTemplate.getJdbcTemplate().update("drop index " + index));
+  }
+
+  // rewrites every row; the trigger computes the full-text column for each of them
+  private void updateFullTextColumn(String qualifiedTableName) {
+    namedTemplate
+        .getJdbcTemplate()
+        .update("update " + qualifiedTableName + " set " + FULL_TEXT_COLUMN + " = null");
+  }
+
+  /**
+   * The trigger which keeps a table's full-text column in sync; sys_wds.update_all_columns() is
+   * created by Liquibase.
+   */
+  static String getFullTextTriggerSql(String qualifiedTableName) {
+    return "create trigger "
+        + FULL_TEXT_COLUMN
+        + " before insert or update on "
+        + qualifiedTableName
+        + " for each row execute function sys_wds.update_all_columns()";
+  }
+
+  // Postgres truncates identifiers at 63 bytes, so shadow columns are named for a hash of the
+  // attribute. The record type is part of the hash so that trigger functions, which are named for
+  // their shadow column, are unique within the collection's schema.
+  private static String getShadowColumnName(RecordType recordType, String attribute) {
+    return SHADOW_COLUMN_PREFIX + hashAttribute(recordType, attribute);
+  }
+
+  // search indexes are named for a hash of the attribute, likewise; see getShadowColumnName
+  private static String getSearchIndexName(RecordType recordType, String attribute) {
+    return SEARCH_INDEX_PREFIX + hashAttribute(recordType, attribute);
+  }
+
+  private static String hashAttribute(RecordType recordType, String attribute) {
+    return Hashing.sha256()
+        .hashString(recordType.getName() + "/" + attribute, StandardCharsets.UTF_8)
+        .toString()
+        .substring(0, 16);
+  }
+
+  private boolean isDataTypeConversionError(DataIntegrityViolationException e) {
+    if (e.getRootCause() instanceof SQLException sqlEx && sqlEx.getSQLState() != null) {
+      if (expectedDataTypeConversionErrorCodes.contains(sqlEx.getSQLState())) {
+        return true;
+      }
+      LOGGER.warn(
+          "convertDataTypeBatch: DataIntegrityViolationException with unexpected error code {}",
+          sqlEx.getSQLState());
+    }
+    return false;
+  }
+
   private boolean isDataTypeConversionSupported(
       DataTypeMapping dataType, DataTypeMapping newDataType) {
     DataTypeMapping baseType = dataType.getBaseType();
@@ -1520,6 +2384,13 @@ public class RecordDao {
   @VisibleForTesting
   String getPostgresTypeConversionExpression(
       String attribute, DataTypeMapping dataType, DataTypeMapping newDataType) {
+    return getPostgresTypeConversion(
+        quote(SqlUtils.validateSqlString(attribute, ATTRIBUTE)), dataType, newDataType);
+  }
+
+  // builds the conversion of a SQL expression, e.g. a column, to the new data type
+  private String getPostgresTypeConversion(
+      String source, DataTypeMapping dataType, DataTypeMapping newDataType) {
     // Some data types are not yet supported.
     // Some conversions don't make sense / are invalid.
     if (!isDataTypeConversionSupported(dataType, newDataType)) {
@@ -1533,7 +2404,7 @@ public class RecordDao {
       throw new IllegalArgumentException("Unable to convert array type to scalar type");
     }
 
-    String expression = quote(SqlUtils.validateSqlString(attribute, ATTRIBUTE));
+    String expression = source;
 
     // Unable to cast numbers to dates or timestamps.
     // Convert number to timestamp using to_timestamp.
@@ -1588,6 +2459,7 @@ public class RecordDao {
   }
 
   public void deleteAttribute(UUID collectionId, RecordType recordType, String attribute) {
+    checkNoDataTypeConversion(collectionId, recordType, attribute);
     namedTemplate
         .getJdbcTemplate()
         .update(
@@ -1595,5 +2467,10 @@ public class RecordDao {
                 + getQualifiedTableName(recordType, collectionId)
                 + " drop column "
                 + quote(SqlUtils.validateSqlString(attribute, ATTRIBUTE)));
+    // so that the attribute's values no longer match full-text queries
+    if (hasFullTextColumn(collectionId, recordType)) {
+      updateFullTextColumn(getQualifiedTableName(recordType, collectionId));
+    }
+    changeTokenDao.recordTypeChanged(collectionId, recordType);
   }
 }
@@ -0,0 +1,89 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.time.InstantSource;
+import org.databiosphere.workspacedataservice.config.ReplicaDataSourceProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+/**
+ * When twds.datasource.replica.enabled is true, replaces the primary-only DataSource from {@link
+ * DataSourceConfig} with a {@link ReplicaRoutingDataSource}, which sends read-only transactions to
+ * a read replica.
+ *
+ * <p>Neither connection pool is itself a DataSource bean, so that Spring Boot's database health
+ * check, which feeds the liveness probe, only ever checks the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "twds.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+  @Bean
+  @ConfigurationProperties("twds.datasource.replica")
+  public ReplicaDataSourceProperties replicaDataSourceProperties() {
+    return new ReplicaDataSourceProperties();
+  }
+
+  @Bean
+  public ReplicaDatabase replicaDatabase(
+      Environment environment,
+      ReplicaDataSourceProperties replicaDataSourceProperties,
+      MeterRegistry meterRegistry) {
+    // the replica inherits the primary's pool settings and credentials, unless overridden
+    HikariDataSource replicaPool = new HikariDataSource();
+    primaryPool(environment).copyStateTo(replicaPool);
+    replicaPool.setPoolName("replica");
+    replicaPool.setReadOnly(true);
+    Binder.get(environment)
+        .bind("twds.datasource.replica.hikari", Bindable.ofInstance(replicaPool));
+    replicaPool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    return new ReplicaDatabase(replicaPool, replicaDataSourceProperties.getMaxLag(), meterRegistry);
+  }
+
+  @Bean
+  public RecentWrites recentWrites(
+      InstantSource instantSource, ReplicaDataSourceProperties replicaDataSourceProperties) {
+    // a write older than the maximum lag, plus the time between lag checks, has been replayed on
+    // any replica we still route reads to
+    return new RecentWrites(
+        instantSource,
+        replicaDataSourceProperties
+            .getMaxLag()
+            .plus(replicaDataSourceProperties.getLagCheckInterval()));
+  }
+
+  @Bean
+  @Primary
+  public ReplicaRoutingDataSource mainDb(
+      Environment environment,
+      ReplicaDatabase replicaDatabase,
+      RecentWrites recentWrites,
+      MeterRegistry meterRegistry,
+      ObservationRegistry observationRegistry,
+      @Value("${twds.request-accounting.database-enabled:false}") boolean databaseAccounting) {
+    // without an observation, there is no request to count work against; see RequestAccounting
+    return new ReplicaRoutingDataSource(
+        primaryPool(environment),
+        replicaDatabase,
+        recentWrites,
+        meterRegistry,
+        databaseAccounting ? observationRegistry : ObservationRegistry.NOOP);
+  }
+
+  // the primary's pool, configured by spring.datasource.hikari as in DataSourceConfig
+  private static HikariDataSource primaryPool(Environment environment) {
+    HikariDataSource primaryPool = new HikariDataSource();
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primaryPool));
+    return primaryPool;
+  }
+}
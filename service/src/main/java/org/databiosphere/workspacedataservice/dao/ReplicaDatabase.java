@@ -0,0 +1,113 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Connection pool for a streaming read replica of the WDS database, which also tracks how far the
+ * replica lags behind the primary. Read-only transactions are routed here by {@link
+ * ReplicaRoutingDataSource} only while {@link #isUsable()}.
+ *
+ * <p>Postgres does not allow serializable transactions on a hot standby; connections from this pool
+ * run them as repeatable read instead. For a read-only transaction, that is still a consistent
+ * snapshot of the database.
+ */
+public class ReplicaDatabase implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaDatabase.class);
+
+  // replay lag in seconds; zero when the replica has replayed everything it has received, so that
+  // a quiet primary does not read as a lagging replica. Zero if this is not a replica at all.
+  private static final String LAG_SQL =
+      """
+      select case
+        when not pg_is_in_recovery() then 0
+        when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+        else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+      end""";
+
+  private final DataSource pool;
+  private final JdbcTemplate jdbcTemplate;
+  private final Duration maxLag;
+  // null until the first check, and whenever the replica could not be reached
+  @Nullable private volatile Duration lag;
+
+  public ReplicaDatabase(DataSource pool, Duration maxLag, MeterRegistry meterRegistry) {
+    this.pool = pool;
+    this.jdbcTemplate = new JdbcTemplate(pool);
+    this.maxLag = maxLag;
+    Gauge.builder("wds.db.replica.lag", () -> lag == null ? Double.NaN : lag.toMillis() / 1000.0)
+        .description("Replay lag of the read replica, in seconds")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  /** Whether the replica was reachable as of the last check; false until it has been checked. */
+  public boolean isReachable() {
+    return lag != null;
+  }
+
+  /** Whether the replica was reachable, and within the maximum lag, as of the last check. */
+  public boolean isUsable() {
+    Duration currentLag = lag;
+    return currentLag != null && currentLag.compareTo(maxLag) <= 0;
+  }
+
+  @Scheduled(fixedDelayString = "${twds.datasource.replica.lag-check-interval:5s}")
+  public void checkLag() {
+    try {
+      Double seconds = jdbcTemplate.queryForObject(LAG_SQL, Double.class);
+      Duration measured = Duration.ofMillis(Math.round((seconds == null ? 0 : seconds) * 1000));
+      if (measured.compareTo(maxLag) > 0 && isUsable()) {
+        logger.warn(
+            "Read replica lag of {} exceeds {}; routing reads to the primary", measured, maxLag);
+      }
+      lag = measured;
+    } catch (DataAccessException e) {
+      if (lag != null) {
+        logger.warn("Read replica is unreachable; routing reads to the primary", e);
+      }
+      lag = null;
+    }
+  }
+
+  @VisibleForTesting
+  @Nullable
+  Duration getLag() {
+    return lag;
+  }
+
+  /** Get a connection from the replica's pool. */
+  public Connection getConnection() throws SQLException {
+    Connection connection = pool.getConnection();
+    return JdbcProxies.proxy(
+        Connection.class,
+        connection,
+        (method, args) -> {
+          if (method.getName().equals("setTransactionIsolation")
+              && (int) args[0] == Connection.TRANSACTION_SERIALIZABLE) {
+            return method.invoke(connection, Connection.TRANSACTION_REPEATABLE_READ);
+          }
+          return method.invoke(connection, args);
+        });
+  }
+
+  @Override
+  public void close() {
+    if (pool instanceof HikariDataSource hikariDataSource) {
+      hikariDataSource.close();
+    }
+  }
+}
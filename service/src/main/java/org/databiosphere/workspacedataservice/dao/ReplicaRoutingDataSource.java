@@ -0,0 +1,200 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.Closeable;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * DataSource which runs read-only transactions, such as those demarcated by {@link
+ * bio.terra.common.db.ReadTransaction}, on a read replica, and everything else on the primary.
+ * Connections are fetched lazily, once the transaction's read-only flag is known.
+ *
+ * <p>A read-only transaction runs on the primary instead when:
+ *
+ * <p>- the replica is unreachable, or lags the primary by more than the maximum lag; see {@link
+ * ReplicaDatabase}.
+ *
+ * <p>- the same session wrote to the primary within the maximum lag, so that a session always reads
+ * its own writes; see {@link RecentWrites}.
+ *
+ * <p>The wds.db.replica.reads counter reports how read-only transactions were routed, tagged with
+ * the target database and the reason. Like the DataSource used without a replica, this can count
+ * each connection's work against the current API request; see {@link RequestAccountingDataSource}.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+  // Statement methods which may modify the database
+  private static final Set<String> WRITE_METHODS =
+      Set.of("execute", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+  private final DataSource primary;
+  private final ObservationRegistry observationRegistry;
+
+  public ReplicaRoutingDataSource(
+      DataSource primary,
+      ReplicaDatabase replica,
+      RecentWrites recentWrites,
+      MeterRegistry meterRegistry,
+      ObservationRegistry observationRegistry) {
+    this.primary = primary;
+    this.observationRegistry = observationRegistry;
+    setTargetDataSource(new WriteTrackingDataSource(primary, recentWrites));
+    setReadOnlyDataSource(new ReadRoutingDataSource(primary, replica, recentWrites, meterRegistry));
+    afterPropertiesSet();
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return RequestAccountingDataSource.account(super.getConnection(), observationRegistry);
+  }
+
+  @Override
+  public void close() {
+    if (primary instanceof HikariDataSource hikariDataSource) {
+      hikariDataSource.close();
+    }
+  }
+
+  /** Chooses the replica or the primary for each read-only transaction. */
+  private static class ReadRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final ReplicaDatabase replica;
+    private final RecentWrites recentWrites;
+    private final Counter toReplica;
+    private final Counter lagging;
+    private final Counter recentlyWrote;
+    private final Counter unavailable;
+
+    ReadRoutingDataSource(
+        DataSource primary,
+        ReplicaDatabase replica,
+        RecentWrites recentWrites,
+        MeterRegistry meterRegistry) {
+      this.primary = primary;
+      this.replica = replica;
+      this.recentWrites = recentWrites;
+      this.toReplica = readCounter(meterRegistry, "replica", "ok");
+      this.lagging = readCounter(meterRegistry, "primary", "lag");
+      this.recentlyWrote = readCounter(meterRegistry, "primary", "recent-write");
+      this.unavailable = readCounter(meterRegistry, "primary", "unavailable");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      if (!replica.isReachable()) {
+        unavailable.increment();
+        return readOnlyPrimaryConnection();
+      }
+      if (!replica.isUsable()) {
+        lagging.increment();
+        return readOnlyPrimaryConnection();
+      }
+      if (recentWrites.wroteRecently()) {
+        recentlyWrote.increment();
+        return readOnlyPrimaryConnection();
+      }
+      try {
+        Connection connection = replica.getConnection();
+        toReplica.increment();
+        return connection;
+      } catch (SQLException e) {
+        logger.warn("Could not connect to read replica; reading from the primary", e);
+        unavailable.increment();
+        return readOnlyPrimaryConnection();
+      }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+      throw new UnsupportedOperationException("Only the configured credentials are supported");
+    }
+
+    private Connection readOnlyPrimaryConnection() throws SQLException {
+      Connection connection = primary.getConnection();
+      connection.setReadOnly(true);
+      return connection;
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target, String reason) {
+      return Counter.builder("wds.db.replica.reads")
+          .description("Read-only transactions, by the database they ran on")
+          .tag("target", target)
+          .tag("reason", reason)
+          .register(meterRegistry);
+    }
+  }
+
+  /**
+   * Wraps the primary's connections to notice when they modify the database. Once a connection
+   * which modified the database commits, or is closed in auto-commit mode, the current session is
+   * recorded in {@link RecentWrites}.
+   */
+  private static class WriteTrackingDataSource extends DelegatingDataSource {
+    private final RecentWrites recentWrites;
+
+    WriteTrackingDataSource(DataSource primary, RecentWrites recentWrites) {
+      super(primary);
+      this.recentWrites = recentWrites;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      Connection connection = obtainTargetDataSource().getConnection();
+      boolean[] wrote = {false};
+      return JdbcProxies.proxy(
+          Connection.class,
+          connection,
+          (method, args) -> {
+            String name = method.getName();
+            if (name.equals("rollback") && args.length == 0) {
+              wrote[0] = false;
+            }
+            if (wrote[0]
+                && (name.equals("commit")
+                    || (name.equals("close") && connection.getAutoCommit()))) {
+              recentWrites.markWritten();
+              wrote[0] = false;
+            }
+            Object result = method.invoke(connection, args);
+            if (result instanceof Statement statement) {
+              return trackWrites(statement, () -> wrote[0] = true);
+            }
+            return result;
+          });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Statement> T trackWrites(T statement, Runnable onWrite) {
+      Class<? extends Statement> iface = Statement.class;
+      if (statement instanceof CallableStatement) {
+        iface = CallableStatement.class;
+      } else if (statement instanceof PreparedStatement) {
+        iface = PreparedStatement.class;
+      }
+      return JdbcProxies.proxy(
+          (Class<T>) iface,
+          statement,
+          (method, args) -> {
+            if (WRITE_METHODS.contains(method.getName())) {
+              onWrite.run();
+            }
+            return method.invoke(statement, args);
+          });
+    }
+  }
+}
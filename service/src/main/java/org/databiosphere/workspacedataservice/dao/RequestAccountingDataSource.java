@@ -0,0 +1,118 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import io.micrometer.observation.ObservationRegistry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.databiosphere.workspacedataservice.metrics.RequestAccounting;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts statements, rows and bytes against the {@link RequestAccounting} of the current API
+ * request, if any. Connections obtained outside an API request, e.g. by Quartz jobs, are returned
+ * unwrapped.
+ *
+ * <p>Each connection, statement and result set of a request is wrapped in a proxy, which costs a
+ * reflective call per JDBC method. Used only if twds.request-accounting.database-enabled is true,
+ * which it is in non-production profiles; otherwise requests report no database work.
+ *
+ * <p>Bytes are the lengths of the strings and byte arrays read from result sets; they approximate
+ * how much data a request read, not what crossed the wire.
+ */
+public class RequestAccountingDataSource extends DelegatingDataSource implements Closeable {
+  private final ObservationRegistry observationRegistry;
+
+  public RequestAccountingDataSource(
+      DataSource targetDataSource, ObservationRegistry observationRegistry) {
+    super(targetDataSource);
+    this.observationRegistry = observationRegistry;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return account(obtainTargetDataSource().getConnection(), observationRegistry);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return account(obtainTargetDataSource().getConnection(username, password), observationRegistry);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (obtainTargetDataSource() instanceof Closeable closeable) {
+      closeable.close();
+    }
+  }
+
+  /**
+   * Wrap the connection to count its work against the current request.
+   *
+   * @param connection the connection to wrap
+   * @param observationRegistry registry holding the current request's observation
+   * @return the wrapped connection, or the connection itself outside an API request
+   */
+  static Connection account(Connection connection, ObservationRegistry observationRegistry) {
+    RequestAccounting accounting = RequestAccounting.current(observationRegistry);
+    if (accounting == null) {
+      return connection;
+    }
+    return JdbcProxies.proxy(
+        Connection.class,
+        connection,
+        (method, args) -> {
+          Object result = method.invoke(connection, args);
+          if (result instanceof Statement statement) {
+            return account(statement, accounting);
+          }
+          return result;
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Statement> T account(T statement, RequestAccounting accounting) {
+    Class<? extends Statement> iface = Statement.class;
+    if (statement instanceof CallableStatement) {
+      iface = CallableStatement.class;
+    } else if (statement instanceof PreparedStatement) {
+      iface = PreparedStatement.class;
+    }
+    return JdbcProxies.proxy(
+        (Class<T>) iface,
+        statement,
+        (method, args) -> {
+          // a batch is one round trip, so counts as one statement
+          if (method.getName().startsWith("execute")) {
+            accounting.statementExecuted();
+          }
+          Object result = method.invoke(statement, args);
+          if (result instanceof ResultSet resultSet) {
+            return account(resultSet, accounting);
+          }
+          return result;
+        });
+  }
+
+  private static ResultSet account(ResultSet resultSet, RequestAccounting accounting) {
+    return JdbcProxies.proxy(
+        ResultSet.class,
+        resultSet,
+        (method, args) -> {
+          Object result = method.invoke(resultSet, args);
+          if (result instanceof Boolean hasRow && hasRow && method.getName().equals("next")) {
+            accounting.rowFetched();
+          } else if (result instanceof String string) {
+            accounting.bytesFetched(string.length());
+          } else if (result instanceof byte[] bytes) {
+            accounting.bytesFetched(bytes.length);
+          }
+          return result;
+        });
+  }
+}
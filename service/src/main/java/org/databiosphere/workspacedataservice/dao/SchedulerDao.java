@@ -1,8 +1,36 @@
 package org.databiosphere.workspacedataservice.dao;
 
+import java.util.Collection;
+import java.util.List;
 import org.databiosphere.workspacedataservice.shared.model.Schedulable;
 
 public interface SchedulerDao {
 
   void schedule(Schedulable schedulable);
+
+  /**
+   * Store a job without running it; {@link #trigger(Schedulable)} runs it later. With a persistent
+   * job store, stored jobs survive restarts and are visible to every replica.
+   */
+  void store(Schedulable schedulable);
+
+  /**
+   * Run a job previously stored via {@link #store(Schedulable)}.
+   *
+   * @return false if the job was not triggered because it has already been triggered, e.g. by
+   *     another replica, or no longer exists
+   */
+  boolean trigger(Schedulable schedulable);
+
+  /** Delete a job previously stored via {@link #store(Schedulable)}, if it still exists. */
+  void delete(Schedulable schedulable);
+
+  /**
+   * Does Quartz hold this job, i.e. is it stored, waiting to run, running, or - with a clustered
+   * job store - awaiting recovery after its replica died?
+   */
+  boolean exists(String group, String id);
+
+  /** Stored jobs in the given groups which have not yet been triggered. */
+  List<Schedulable> getStoredJobs(Collection<String> groups);
 }
@@ -0,0 +1,207 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times database statements, by a logical name for each statement and the number of rows it read or
+ * wrote, in the wds.db.statement timer. Row counts are bucketed by order of magnitude, to keep the
+ * number of timers small.
+ *
+ * <p>Statements slower than twds.db.slow-statement-threshold are logged with a fingerprint of their
+ * SQL: the SQL with literals, collection ids and parameter lists replaced by placeholders, so that
+ * slow statements against different collections can be grouped.
+ *
+ * <p>If twds.db.explain-slow-statements is true, a sample of slow queries (read-only statements;
+ * see {@link #timeQuery}) is re-run in the background with EXPLAIN (ANALYZE, BUFFERS), and the plan
+ * is logged. Write statements are never explained, since EXPLAIN ANALYZE would execute them again.
+ */
+@Component
+public class StatementTimer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StatementTimer.class);
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern UUID =
+      Pattern.compile(
+          "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+  private static final Pattern NUMBER = Pattern.compile("\\b\\d+\\b");
+  private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+
+  private final NamedParameterJdbcTemplate namedTemplate;
+  private final MeterRegistry meterRegistry;
+  private final Duration slowThreshold;
+  private final double explainSampleRate;
+  @Nullable private final ExecutorService explainExecutor;
+
+  public StatementTimer(
+      NamedParameterJdbcTemplate namedTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${twds.db.slow-statement-threshold:1s}") Duration slowThreshold,
+      @Value("${twds.db.explain-slow-statements:false}") boolean explainSlowStatements,
+      @Value("${twds.db.explain-sample-rate:0.1}") double explainSampleRate) {
+    this.namedTemplate = namedTemplate;
+    this.meterRegistry = meterRegistry;
+    this.slowThreshold = slowThreshold;
+    this.explainSampleRate = explainSampleRate;
+    // one plan at a time, and only a few waiting; explaining is a diagnostic, not a workload
+    this.explainExecutor =
+        explainSlowStatements
+            ? new ThreadPoolExecutor(
+                1,
+                1,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(10),
+                runnable -> {
+                  Thread thread = new Thread(runnable, "explain-slow-statements");
+                  thread.setDaemon(true);
+                  return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy())
+            : null;
+  }
+
+  /**
+   * Run a statement, timing it.
+   *
+   * @param name logical name for the statement, e.g. "batchUpsert"
+   * @param sql the statement's SQL, for logging if it is slow
+   * @param rows how many rows the statement read or wrote, given its result
+   * @param statement runs the statement
+   * @return the statement's result
+   */
+  public <T> T time(String name, String sql, ToIntFunction<T> rows, Supplier<T> statement) {
+    return time(name, sql, null, rows, statement);
+  }
+
+  /**
+   * Run a read-only statement, timing it. Unlike {@link #time}, a slow query may be explained.
+   *
+   * @param name logical name for the statement, e.g. "queryForRecords"
+   * @param sql the statement's SQL
+   * @param params the statement's parameters
+   * @param rows how many rows the statement read, given its result
+   * @param statement runs the statement
+   * @return the statement's result
+   */
+  public <T> T timeQuery(
+      String name,
+      String sql,
+      SqlParameterSource params,
+      ToIntFunction<T> rows,
+      Supplier<T> statement) {
+    return time(name, sql, params, rows, statement);
+  }
+
+  private <T> T time(
+      String name,
+      String sql,
+      @Nullable SqlParameterSource params,
+      ToIntFunction<T> rows,
+      Supplier<T> statement) {
+    long start = System.nanoTime();
+    String outcome = "error";
+    String bucket = "unknown";
+    try {
+      T result = statement.get();
+      outcome = "success";
+      int rowCount = rows.applyAsInt(result);
+      bucket = rowsBucket(rowCount);
+      long elapsed = System.nanoTime() - start;
+      if (elapsed >= slowThreshold.toNanos()) {
+        LOGGER.warn(
+            "Slow statement {} took {} ms for {} rows: {}",
+            name,
+            TimeUnit.NANOSECONDS.toMillis(elapsed),
+            rowCount,
+            fingerprint(sql));
+        if (params != null && shouldExplain()) {
+          explain(name, sql, params);
+        }
+      }
+      return result;
+    } finally {
+      Timer.builder("wds.db.statement")
+          .description("Time spent running a database statement")
+          .tag("statement", name)
+          .tag("rows", bucket)
+          .tag("outcome", outcome)
+          .register(meterRegistry)
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Stop explaining slow statements, discarding any waiting to be explained. */
+  @PreDestroy
+  void shutdown() {
+    if (explainExecutor != null) {
+      explainExecutor.shutdownNow();
+    }
+  }
+
+  private boolean shouldExplain() {
+    return explainExecutor != null && ThreadLocalRandom.current().nextDouble() < explainSampleRate;
+  }
+
+  private void explain(String name, String sql, SqlParameterSource params) {
+    explainExecutor.execute(
+        () -> {
+          try {
+            List<String> plan =
+                namedTemplate.queryForList(
+                    "explain (analyze, buffers) " + sql, params, String.class);
+            LOGGER.info("Plan for slow statement {}:\n{}", name, String.join("\n", plan));
+          } catch (RuntimeException e) {
+            LOGGER.warn("Failed to explain slow statement {}: {}", name, e.getMessage());
+          }
+        });
+  }
+
+  /** 0, 1, 2-10, 11-100, 101-1000 or 1000+ */
+  static String rowsBucket(int rows) {
+    if (rows <= 1) {
+      return Integer.toString(Math.max(rows, 0));
+    }
+    if (rows <= 10) {
+      return "2-10";
+    }
+    if (rows <= 100) {
+      return "11-100";
+    }
+    if (rows <= 1000) {
+      return "101-1000";
+    }
+    return "1000+";
+  }
+
+  /**
+   * Normalize SQL for logging, so that the same statement run against different collections, with
+   * different literals or different numbers of parameters, has the same fingerprint.
+   */
+  static String fingerprint(String sql) {
+    String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+    normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+    normalized = UUID.matcher(normalized).replaceAll("?");
+    normalized = NUMBER.matcher(normalized).replaceAll("?");
+    return PARAMETER_LIST.matcher(normalized).replaceAll("?, ...");
+  }
+}
@@ -17,6 +17,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import org.apache.avro.Conversions;
 import org.apache.avro.LogicalType;
 import org.apache.avro.LogicalTypes;
@@ -29,6 +31,8 @@ import org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMo
 import org.databiosphere.workspacedataservice.service.model.exception.DataImportException;
 import org.databiosphere.workspacedataservice.shared.model.Record;
 import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.databiosphere.workspacedataservice.shared.model.attributes.JsonAttribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +62,45 @@ public abstract class AvroRecordConverter {
     };
   }
 
+  /**
+   * Converts an Avro record to a new record in a {@link RecordBatch}, with the same attributes as
+   * {@link #convert(GenericRecord, ImportMode)} would give it, without creating a {@link Record}.
+   *
+   * @param genRec the inbound Avro GenericRecord to be converted
+   * @param importMode which attributes to convert
+   * @param batchForType the batch to which to add a record of a given record type
+   */
+  public void convertInto(
+      GenericRecord genRec, ImportMode importMode, Function<RecordType, RecordBatch> batchForType) {
+    RecordBatch batch = batchForType.apply(getRecordType(genRec));
+    int row = batch.addRecord(getId(genRec));
+    BiConsumer<String, Object> attributes = (name, value) -> batch.put(row, name, value);
+    switch (importMode) {
+      case RELATIONS -> putRelations(genRec, attributes);
+      case BASE_ATTRIBUTES -> putBaseAttributes(genRec, attributes);
+    }
+  }
+
+  /** the id of the WDS record converted from an Avro record */
+  protected abstract String getId(GenericRecord genericRecord);
+
+  /** the record type of the WDS record converted from an Avro record */
+  protected abstract RecordType getRecordType(GenericRecord genericRecord);
+
+  /**
+   * Pass each base (non-relation) attribute of an Avro record to a consumer, as {@link
+   * #convertBaseAttributes(GenericRecord)} would set them on a Record.
+   */
+  protected abstract void putBaseAttributes(
+      GenericRecord genericRecord, BiConsumer<String, Object> attributes);
+
+  /**
+   * Pass each relation attribute of an Avro record to a consumer, as {@link
+   * #convertRelations(GenericRecord)} would set them on a Record.
+   */
+  protected abstract void putRelations(
+      GenericRecord genericRecord, BiConsumer<String, Object> attributes);
+
   /**
    * When operating in {@see ImportMode.BASE_ATTRIBUTES} mode, what Record - and its attributes -
    * should be upserted?
@@ -87,10 +130,26 @@ public abstract class AvroRecordConverter {
    */
   protected RecordAttributes extractBaseAttributes(
       GenericRecord objectAttributes, Set<String> ignoreAttributes) {
+    RecordAttributes attributes = RecordAttributes.empty();
+    extractBaseAttributes(objectAttributes, ignoreAttributes, attributes::putAttribute);
+    return attributes;
+  }
+
+  /**
+   * Extract WDS attributes from an Avro GenericRecord, as {@link
+   * #extractBaseAttributes(GenericRecord, Set)} does, passing each to a consumer.
+   *
+   * @param objectAttributes the Avro record from which to extract WDS attributes
+   * @param ignoreAttributes field names that should not be extracted from the Avro record
+   * @param attributes receives each attribute's name and value
+   */
+  protected void extractBaseAttributes(
+      GenericRecord objectAttributes,
+      Set<String> ignoreAttributes,
+      BiConsumer<String, Object> attributes) {
     // loop over all Avro fields and add to the record's attributes
     Schema schema = objectAttributes.getSchema();
     List<Schema.Field> fields = schema.getFields();
-    RecordAttributes attributes = RecordAttributes.empty();
     for (Schema.Field field : fields) {
       String fieldName = field.name();
       // if this attribute is marked as ignorable, skip it
@@ -104,9 +163,8 @@ public abstract class AvroRecordConverter {
               : convertAttributeType(
                   destructureElementList(objectAttributes.get(fieldName), field), field);
 
-      attributes.putAttribute(fieldName, value);
+      attributes.accept(fieldName, value);
     }
-    return attributes;
   }
 
   /**
@@ -10,6 +10,8 @@ import java.nio.file.Path;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import org.apache.commons.io.FileUtils;
 import org.databiosphere.workspacedataservice.service.model.exception.TdrManifestImportException;
@@ -21,12 +23,14 @@ public class FileDownloadHelper {
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
   private final Path tempFileDir;
   private final Multimap<String, File> fileMap;
+  private final Map<File, URL> sourceUrls;
   private final FileAttribute<Set<PosixFilePermission>> permissions =
       PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
 
   public FileDownloadHelper(String dirName) throws IOException {
     this.tempFileDir = Files.createTempDirectory(dirName, permissions);
     this.fileMap = HashMultimap.create();
+    this.sourceUrls = new HashMap<>();
   }
 
   public void downloadFileFromURL(String tableName, URL pathToRemoteFile) {
@@ -36,17 +40,20 @@ public class FileDownloadHelper {
               tempFileDir, /* prefix= */ "tdr-", /* suffix= */ "download", permissions);
       logger.debug("downloading to temp file {} ...", tempFilePath);
       FileUtils.copyURLToFile(pathToRemoteFile, tempFilePath.toFile());
+      long numBytes = tempFilePath.toFile().length();
+      ImportProgress.current().ifPresent(progress -> progress.addBytesDownloaded(numBytes));
       // In the TDR manifest, for Azure snapshots only,
       // the first file in the list will always be a directory.
       // Attempting to import that directory
       // will fail; it has no content. To avoid those failures,
       // check files for length and ignore any that are empty
-      if (tempFilePath.toFile().length() == 0) {
+      if (numBytes == 0) {
         logger.debug("Empty file in parquet, skipping");
         Files.delete(tempFilePath);
       } else {
         // Once the remote file has been copied to the temp file, make it read-only
         fileMap.put(tableName, tempFilePath.toFile());
+        sourceUrls.put(tempFilePath.toFile(), pathToRemoteFile);
       }
     } catch (IOException e) {
       throw new TdrManifestImportException(e.getMessage(), e);
@@ -65,4 +72,12 @@ public class FileDownloadHelper {
   public Multimap<String, File> getFileMap() {
     return fileMap;
   }
+
+  /**
+   * The remote URL from which a file was downloaded. Temp file names are random, so this is the
+   * stable identity of a downloaded file.
+   */
+  public URL getSourceUrl(File file) {
+    return sourceUrls.get(file);
+  }
 }
@@ -0,0 +1,35 @@
+package org.databiosphere.workspacedataservice.dataimport;
+
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode;
+
+/**
+ * How far a checkpointed import has progressed through one of its sources, within one import pass.
+ * Records are read from a source in a deterministic order, so a retried import can skip the first
+ * {@code recordsCommitted} records and resume with the next batch.
+ *
+ * @param jobId the import job
+ * @param importMode the import pass
+ * @param source stable identifier for the file being imported
+ * @param recordsCommitted number of records from this source which have been durably written
+ * @param completed whether every record from this source has been written
+ */
+public record ImportCheckpoint(
+    UUID jobId, ImportMode importMode, String source, long recordsCommitted, boolean completed) {
+
+  /** A checkpoint for a source which has not yet been imported at all. */
+  public static ImportCheckpoint start(UUID jobId, ImportMode importMode, String source) {
+    return new ImportCheckpoint(jobId, importMode, source, 0, false);
+  }
+
+  /** A copy of this checkpoint, moved forward past another batch of records. */
+  public ImportCheckpoint advance(int numRecords) {
+    return new ImportCheckpoint(
+        jobId, importMode, source, recordsCommitted + numRecords, /* completed= */ false);
+  }
+
+  /** A copy of this checkpoint, marked as having written every record from its source. */
+  public ImportCheckpoint complete() {
+    return new ImportCheckpoint(jobId, importMode, source, recordsCommitted, /* completed= */ true);
+  }
+}
@@ -0,0 +1,212 @@
+package org.databiosphere.workspacedataservice.dataimport;
+
+import io.micrometer.core.instrument.Counter;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.InstantSource;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel.PassEnum;
+import org.databiosphere.workspacedataservice.jobexec.JobContextHolder;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+/**
+ * Tracks the live progress of a single running import: rows read and written, bytes downloaded, the
+ * current pass and table, and an estimated completion time. It also counts the ALTER TABLE
+ * statements the import issues as its tables' schemas evolve, which it logs when the import ends.
+ * Each update increments the corresponding wds.import.* counter immediately; the job's row in
+ * sys_wds.job is updated at most once per configured interval, in the background by the {@link
+ * ImportProgressWriter}.
+ *
+ * <p>Create instances via {@link ImportProgressFactory#start}, which also stashes the instance into
+ * the {@link JobContextHolder} so that code deep within an import, such as {@link
+ * org.databiosphere.workspacedataservice.service.BatchWriteService}, can report progress via {@link
+ * #current()}.
+ */
+public class ImportProgress implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(ImportProgress.class);
+
+  /** JobContextHolder attribute under which the current import's progress is stashed */
+  static final String ATTRIBUTE_NAME_PROGRESS = "importProgress";
+
+  private final UUID jobId;
+  private final ImportProgressWriter progressWriter;
+  private final InstantSource instantSource;
+  private final Duration persistInterval;
+  private final Counter rowsReadCounter;
+  private final Counter rowsWrittenCounter;
+  private final Counter bytesDownloadedCounter;
+  private final Counter schemaAltersCounter;
+  private final Runnable onClose;
+  private final Instant started;
+  private final ReentrantLock persistLock = new ReentrantLock();
+
+  private final AtomicLong rowsRead = new AtomicLong();
+  private final AtomicLong rowsWritten = new AtomicLong();
+  private final AtomicLong bytesDownloaded = new AtomicLong();
+  private final AtomicLong schemaAlters = new AtomicLong();
+  @Nullable private volatile Long rowsTotal;
+  @Nullable private volatile ImportMode pass;
+  @Nullable private volatile String table;
+  private volatile Instant lastPersisted;
+
+  ImportProgress(
+      UUID jobId,
+      ImportProgressWriter progressWriter,
+      InstantSource instantSource,
+      Duration persistInterval,
+      Counter rowsReadCounter,
+      Counter rowsWrittenCounter,
+      Counter bytesDownloadedCounter,
+      Counter schemaAltersCounter,
+      Runnable onClose) {
+    this.jobId = jobId;
+    this.progressWriter = progressWriter;
+    this.instantSource = instantSource;
+    this.persistInterval = persistInterval;
+    this.rowsReadCounter = rowsReadCounter;
+    this.rowsWrittenCounter = rowsWrittenCounter;
+    this.bytesDownloadedCounter = bytesDownloadedCounter;
+    this.schemaAltersCounter = schemaAltersCounter;
+    this.onClose = onClose;
+    this.started = instantSource.instant();
+    this.lastPersisted = started;
+  }
+
+  /**
+   * The progress of the import running on this thread, if any. Imports outside a Quartz job, such
+   * as synchronous TSV and JSON uploads, do not track progress.
+   *
+   * @return the current import's progress, or empty if there is none
+   */
+  public static Optional<ImportProgress> current() {
+    if (JobContextHolder.getAttribute(ATTRIBUTE_NAME_PROGRESS) instanceof ImportProgress progress) {
+      return Optional.of(progress);
+    }
+    return Optional.empty();
+  }
+
+  /** Record that the import has started a new pass over its source data. */
+  public void startPass(ImportMode importMode) {
+    this.pass = importMode;
+  }
+
+  /** Record that the import is now writing to the given table. */
+  public void startTable(String tableName) {
+    this.table = tableName;
+  }
+
+  /** Add to the number of rows this import expects to read, summed across all passes. */
+  public void addRowsTotal(long numRows) {
+    Long current = rowsTotal;
+    rowsTotal = current == null ? numRows : current + numRows;
+  }
+
+  public void addRowsRead(long numRows) {
+    rowsRead.addAndGet(numRows);
+    rowsReadCounter.increment(numRows);
+  }
+
+  public void addRowsWritten(long numRows) {
+    rowsWritten.addAndGet(numRows);
+    rowsWrittenCounter.increment(numRows);
+  }
+
+  public void addBytesDownloaded(long numBytes) {
+    bytesDownloaded.addAndGet(numBytes);
+    bytesDownloadedCounter.increment(numBytes);
+  }
+
+  /** Record that the import has altered the schema of one of its tables. */
+  public void addSchemaAlter() {
+    schemaAlters.incrementAndGet();
+    schemaAltersCounter.increment();
+  }
+
+  /** The number of ALTER TABLE statements this import has issued. */
+  public long getSchemaAlters() {
+    return schemaAlters.get();
+  }
+
+  /**
+   * Save this progress to the job's row, if it has not been saved within the configured interval.
+   */
+  public void maybePersist() {
+    if (!instantSource.instant().isBefore(lastPersisted.plus(persistInterval))) {
+      persist();
+    }
+  }
+
+  /**
+   * Save this progress to the job's row in the background. Failures are logged, and do not fail the
+   * import.
+   */
+  public void persist() {
+    persist(progressWriter::write);
+  }
+
+  private void persist(BiConsumer<UUID, JobProgressServerModel> writer) {
+    persistLock.lock();
+    try {
+      lastPersisted = instantSource.instant();
+      writer.accept(jobId, toServerModel());
+    } finally {
+      persistLock.unlock();
+    }
+  }
+
+  /**
+   * Represent this progress as it is returned by the job APIs.
+   *
+   * @return the current progress
+   */
+  public JobProgressServerModel toServerModel() {
+    ImportMode currentPass = pass;
+    JobProgressServerModel progress =
+        new JobProgressServerModel()
+            .pass(currentPass == null ? null : PassEnum.fromValue(currentPass.name()))
+            .table(table)
+            .rowsRead(rowsRead.get())
+            .rowsWritten(rowsWritten.get())
+            .rowsTotal(rowsTotal)
+            .bytesDownloaded(bytesDownloaded.get());
+    estimateCompletion()
+        .ifPresent(eta -> progress.estimatedCompletion(eta.atOffset(ZoneOffset.UTC)));
+    return progress;
+  }
+
+  /**
+   * Extrapolate a completion time from the rate at which rows have been read so far.
+   *
+   * @return the estimated completion time, or empty if the total number of rows is unknown or no
+   *     rows have been read yet
+   */
+  Optional<Instant> estimateCompletion() {
+    Long total = rowsTotal;
+    long read = rowsRead.get();
+    if (total == null || read == 0) {
+      return Optional.empty();
+    }
+    Instant now = instantSource.instant();
+    long remaining = Math.max(0, total - read);
+    // use floating point, as elapsed time multiplied by remaining rows can overflow a long
+    double elapsedMillis = Duration.between(started, now).toMillis();
+    return Optional.of(now.plusMillis(Math.round(elapsedMillis * remaining / read)));
+  }
+
+  /** Save the final progress of this import and stop tracking it. */
+  @Override
+  public void close() {
+    logger.info("Import job {} issued {} schema alterations", jobId, schemaAlters.get());
+    persist(progressWriter::writeNow);
+    onClose.run();
+  }
+}
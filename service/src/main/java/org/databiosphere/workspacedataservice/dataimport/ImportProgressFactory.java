@@ -0,0 +1,81 @@
+package org.databiosphere.workspacedataservice.dataimport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.InstantSource;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel.TypeEnum;
+import org.databiosphere.workspacedataservice.jobexec.JobContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates {@link ImportProgress} trackers for running imports, and owns the wds.import.* meters
+ * those trackers report to.
+ */
+@Component
+public class ImportProgressFactory {
+  private final ImportProgressWriter progressWriter;
+  private final MeterRegistry meterRegistry;
+  private final InstantSource instantSource;
+  private final DataImportProperties dataImportProperties;
+  private final AtomicInteger activeImports = new AtomicInteger();
+
+  public ImportProgressFactory(
+      ImportProgressWriter progressWriter,
+      MeterRegistry meterRegistry,
+      InstantSource instantSource,
+      DataImportProperties dataImportProperties) {
+    this.progressWriter = progressWriter;
+    this.meterRegistry = meterRegistry;
+    this.instantSource = instantSource;
+    this.dataImportProperties = dataImportProperties;
+    Gauge.builder("wds.import.active", activeImports, AtomicInteger::get)
+        .description("Number of imports currently running on this replica")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Start tracking the progress of an import running on this thread. Callers must close the
+   * returned tracker when the import finishes, typically via try-with-resources.
+   *
+   * @param jobId id of the import job
+   * @param importType type of the import, used to tag metrics
+   * @return the progress tracker, which is also available via {@link ImportProgress#current()}
+   */
+  public ImportProgress start(UUID jobId, TypeEnum importType) {
+    String importTypeTag = importType.toString();
+    ImportProgress progress =
+        new ImportProgress(
+            jobId,
+            progressWriter,
+            instantSource,
+            dataImportProperties.getProgressUpdateInterval(),
+            counter("wds.import.rowsRead", "rows", "Rows read by imports", importTypeTag),
+            counter("wds.import.rowsWritten", "rows", "Rows written by imports", importTypeTag),
+            counter(
+                "wds.import.bytesDownloaded",
+                "bytes",
+                "Bytes of source data downloaded by imports",
+                importTypeTag),
+            counter(
+                "wds.import.schemaAlters",
+                "statements",
+                "ALTER TABLE statements issued by imports as their schemas evolve",
+                importTypeTag),
+            activeImports::decrementAndGet);
+    activeImports.incrementAndGet();
+    JobContextHolder.setAttribute(ImportProgress.ATTRIBUTE_NAME_PROGRESS, progress);
+    return progress;
+  }
+
+  private Counter counter(String name, String baseUnit, String description, String importType) {
+    return Counter.builder(name)
+        .baseUnit(baseUnit)
+        .description(description)
+        .tag("importType", importType)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,97 @@
+package org.databiosphere.workspacedataservice.dataimport;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Saves the progress of running imports to their jobs' rows from a single background thread, so
+ * that an import does not need a second pooled connection to report progress while its own batch
+ * holds one. Only the latest progress of each job is kept: if an import reports progress again
+ * before its previous progress was saved, only the newer one is written.
+ */
+@Component
+public class ImportProgressWriter {
+  private static final Logger logger = LoggerFactory.getLogger(ImportProgressWriter.class);
+
+  private final JobDao jobDao;
+  private final Map<UUID, JobProgressServerModel> pending = new ConcurrentHashMap<>();
+  // orders a final save after any save the writer thread has in flight for the same job
+  private final ReentrantLock writeLock = new ReentrantLock();
+  // each job has at most one save queued, so the queue is bounded by the number of running imports
+  private final ThreadPoolExecutor executor =
+      new ThreadPoolExecutor(
+          1,
+          1,
+          0,
+          TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(),
+          runnable -> {
+            Thread thread = new Thread(runnable, "import-progress-writer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public ImportProgressWriter(JobDao jobDao) {
+    this.jobDao = jobDao;
+  }
+
+  /** Save a job's progress in the background, replacing any of its progress not yet saved. */
+  public void write(UUID jobId, JobProgressServerModel progress) {
+    if (pending.put(jobId, progress) == null) {
+      executor.execute(() -> flush(jobId));
+    }
+  }
+
+  /**
+   * Save a job's progress on this thread, replacing any of its progress not yet saved. Used for an
+   * import's final progress, so that it is saved before the job completes.
+   */
+  public void writeNow(UUID jobId, JobProgressServerModel progress) {
+    writeLock.lock();
+    try {
+      pending.remove(jobId);
+      save(jobId, progress);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private void flush(UUID jobId) {
+    writeLock.lock();
+    try {
+      JobProgressServerModel progress = pending.remove(jobId);
+      // null if a final save already replaced it
+      if (progress != null) {
+        save(jobId, progress);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  // progress is informational only; failures are logged, and do not fail the import
+  private void save(UUID jobId, JobProgressServerModel progress) {
+    try {
+      jobDao.updateProgress(jobId, progress);
+    } catch (Exception e) {
+      logger.warn("Error saving progress for job {}: {}", jobId, e.getMessage());
+    }
+  }
+
+  /** Stop saving progress, discarding any progress not yet saved. */
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
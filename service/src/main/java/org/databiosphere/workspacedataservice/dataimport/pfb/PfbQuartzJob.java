@@ -12,6 +12,7 @@ import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
 import java.net.URI;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -23,22 +24,30 @@ import org.apache.avro.file.DataFileStream;
 import org.apache.avro.generic.GenericRecord;
 import org.databiosphere.workspacedataservice.activitylog.ActivityLogger;
 import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.ImportCheckpointDao;
 import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dataimport.ImportCheckpoint;
 import org.databiosphere.workspacedataservice.dataimport.ImportDetails;
 import org.databiosphere.workspacedataservice.dataimport.ImportDetailsRetriever;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgress;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgressFactory;
 import org.databiosphere.workspacedataservice.dataimport.snapshotsupport.SnapshotLinkResult;
 import org.databiosphere.workspacedataservice.dataimport.snapshotsupport.SnapshotSupport;
 import org.databiosphere.workspacedataservice.dataimport.snapshotsupport.SnapshotSupportFactory;
+import org.databiosphere.workspacedataservice.jobexec.BackgroundTask;
 import org.databiosphere.workspacedataservice.jobexec.JobDataMapReader;
 import org.databiosphere.workspacedataservice.jobexec.QuartzJob;
 import org.databiosphere.workspacedataservice.metrics.ImportMetrics;
 import org.databiosphere.workspacedataservice.recordsink.RawlsAttributePrefixer.PrefixStrategy;
 import org.databiosphere.workspacedataservice.recordsink.RecordSink;
 import org.databiosphere.workspacedataservice.recordsink.RecordSinkFactory;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource;
 import org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode;
 import org.databiosphere.workspacedataservice.recordsource.RecordSourceFactory;
 import org.databiosphere.workspacedataservice.service.BatchWriteService;
 import org.databiosphere.workspacedataservice.service.DrsService;
+import org.databiosphere.workspacedataservice.service.PrescannedSchemas;
+import org.databiosphere.workspacedataservice.service.SchemaPrescanner;
 import org.databiosphere.workspacedataservice.service.model.BatchWriteResult;
 import org.databiosphere.workspacedataservice.service.model.exception.DataImportException;
 import org.databiosphere.workspacedataservice.service.model.exception.PfbImportException;
@@ -67,6 +76,10 @@ public class PfbQuartzJob extends QuartzJob {
   private final ImportDetailsRetriever importDetailsRetriever;
   private final ImportMetrics importMetrics;
   private final DrsService drsService;
+  private final ImportCheckpointDao importCheckpointDao;
+  private final boolean isCheckpointingEnabled;
+  private final ImportProgressFactory importProgressFactory;
+  private final SchemaPrescanner schemaPrescanner;
 
   public PfbQuartzJob(
       JobDao jobDao,
@@ -79,7 +92,10 @@ public class PfbQuartzJob extends QuartzJob {
       SnapshotSupportFactory snapshotSupportFactory,
       DataImportProperties dataImportProperties,
       ImportDetailsRetriever importDetailsRetriever,
-      DrsService drsService) {
+      DrsService drsService,
+      ImportCheckpointDao importCheckpointDao,
+      ImportProgressFactory importProgressFactory,
+      SchemaPrescanner schemaPrescanner) {
     super(jobDao, observationRegistry, dataImportProperties);
     this.recordSourceFactory = recordSourceFactory;
     this.recordSinkFactory = recordSinkFactory;
@@ -89,6 +105,10 @@ public class PfbQuartzJob extends QuartzJob {
     this.importDetailsRetriever = importDetailsRetriever;
     this.importMetrics = importMetrics;
     this.drsService = drsService;
+    this.importCheckpointDao = importCheckpointDao;
+    this.isCheckpointingEnabled = dataImportProperties.isCheckpointingEnabled();
+    this.importProgressFactory = importProgressFactory;
+    this.schemaPrescanner = schemaPrescanner;
   }
 
   @Override
@@ -102,6 +122,8 @@ public class PfbQuartzJob extends QuartzJob {
     // Grab the PFB uri from the job's data map
     JobDataMapReader jobData = JobDataMapReader.fromContext(context);
     URI uri = jobData.getURI(ARG_URL);
+    // checkpoints identify the PFB by its original URI, which is stable across retries
+    String checkpointSource = uri.toString();
 
     // if the URI is a DRS URI, resolve it to get the actual URL
     if (this.drsService.isDrsUri(uri)) {
@@ -119,22 +141,37 @@ public class PfbQuartzJob extends QuartzJob {
     logger.info("Finding snapshots in this PFB...");
     Set<UUID> snapshotIds = withPfbStream(uri, this::findSnapshots);
 
-    logger.info("Linking snapshots...");
-    linkSnapshots(snapshotIds, details.workspaceId());
+    // Import all the tables and rows inside the PFB. PFBs do not declare their row counts up
+    // front, so progress for PFB imports has no rowsTotal or estimated completion.
+    try (ImportProgress importProgress = importProgressFactory.start(jobId, PFB);
+        RecordSink recordSink = recordSinkFactory.buildRecordSink(details);
+        BackgroundTask linking =
+            startLinkingSnapshots(snapshotIds, details.workspaceId(), recordSink)) {
+      boolean checkpointed = isCheckpointingEnabled && recordSink.supportsCheckpoints();
 
-    // Import all the tables and rows inside the PFB.
-    try (RecordSink recordSink = recordSinkFactory.buildRecordSink(details)) {
-      // This is HTTP connection #2 to the PFB.
+      // This is HTTP connection #2 to the PFB, preceded by another if column types are pre-scanned.
       logger.info("Importing tables and rows from this PFB...");
       BatchWriteResult result =
-          withPfbStream(uri, stream -> importTables(stream, recordSink, BASE_ATTRIBUTES));
+          importPass(
+              uri,
+              recordSink,
+              BASE_ATTRIBUTES,
+              findCheckpoint(checkpointed, jobId, BASE_ATTRIBUTES, checkpointSource));
+
+      // snapshots must be linked before the import can succeed
+      linking.join();
 
       // This is HTTP connection #3 to the PFB.
       logger.info("Updating tables and rows from this PFB with relations...");
       // TODO: merging batch results may have unexpected behavior until BatchWriteResult can
       //   group its merged results under import mode; most notably, relations will be double
       //   counted
-      result.merge(withPfbStream(uri, stream -> importTables(stream, recordSink, RELATIONS)));
+      result.merge(
+          importPass(
+              uri,
+              recordSink,
+              RELATIONS,
+              findCheckpoint(checkpointed, jobId, RELATIONS, checkpointSource)));
       // complete the RecordSink
 
       importMetrics
@@ -143,6 +180,9 @@ public class PfbQuartzJob extends QuartzJob {
           .record(result.getTotalUpdatedCount());
 
       recordSink.success();
+      if (checkpointed) {
+        importCheckpointDao.deleteCheckpoints(jobId);
+      }
     } catch (DataImportException e) {
       throw new PfbImportException(e.getMessage(), e);
     }
@@ -174,21 +214,80 @@ public class PfbQuartzJob extends QuartzJob {
     }
   }
 
+  /**
+   * Get the checkpoint from which to resume a pass over the PFB.
+   *
+   * @return the checkpoint, or empty if this import is not checkpointed
+   */
+  private Optional<ImportCheckpoint> findCheckpoint(
+      boolean checkpointed, UUID jobId, ImportMode importMode, String source) {
+    if (!checkpointed) {
+      return Optional.empty();
+    }
+    return Optional.of(importCheckpointDao.getCheckpoint(jobId, importMode, source));
+  }
+
+  /**
+   * Make one pass over the PFB at a given uri, unless a previous attempt at this import already
+   * completed this pass.
+   */
+  private BatchWriteResult importPass(
+      URI uri,
+      RecordSink recordSink,
+      ImportMode importMode,
+      Optional<ImportCheckpoint> maybeCheckpoint) {
+    if (maybeCheckpoint.isPresent() && maybeCheckpoint.get().completed()) {
+      logger.info("Skipping {} pass, which was completed by a previous attempt", importMode);
+      return BatchWriteResult.empty();
+    }
+    // the relations pass only writes columns the base attributes pass already created
+    PrescannedSchemas prescannedSchemas =
+        importMode == BASE_ATTRIBUTES && schemaPrescanner.isEnabled()
+            ? withPfbStream(
+                uri,
+                stream ->
+                    schemaPrescanner.prescan(recordSourceFactory.forPfb(stream, BASE_ATTRIBUTES)))
+            : PrescannedSchemas.none();
+    return withPfbStream(
+        uri,
+        stream -> importTables(stream, recordSink, importMode, maybeCheckpoint, prescannedSchemas));
+  }
+
   /**
    * Given a DataFileStream representing a PFB, import all the tables and rows inside that PFB.
    *
    * @param dataStream stream representing the PFB.
    * @param recordSink the {@link RecordSink} which directs the records to their destination
    * @param importMode indicating whether to import all data in the tables or only the relations
+   * @param maybeCheckpoint if present, commit each batch and resume from this checkpoint
+   * @param prescannedSchemas column types found by pre-scanning the PFB, if any
    */
   BatchWriteResult importTables(
-      DataFileStream<GenericRecord> dataStream, RecordSink recordSink, ImportMode importMode) {
+      DataFileStream<GenericRecord> dataStream,
+      RecordSink recordSink,
+      ImportMode importMode,
+      Optional<ImportCheckpoint> maybeCheckpoint,
+      PrescannedSchemas prescannedSchemas) {
+    RecordSource recordSource = recordSourceFactory.forPfb(dataStream, importMode);
     BatchWriteResult result =
-        batchWriteService.batchWrite(
-            recordSourceFactory.forPfb(dataStream, importMode),
-            recordSink,
-            /* recordType= */ null, // record type is determined later
-            /* primaryKey= */ ID_FIELD); // PFBs currently only use ID_FIELD as primary key
+        maybeCheckpoint
+            .map(
+                checkpoint ->
+                    batchWriteService.checkpointedBatchWrite(
+                        recordSource,
+                        recordSink,
+                        /* recordType= */ null,
+                        ID_FIELD,
+                        checkpoint,
+                        prescannedSchemas))
+            .orElseGet(
+                () ->
+                    batchWriteService.batchWrite(
+                        recordSource,
+                        recordSink,
+                        /* recordType= */ null, // record type is determined later
+                        /* primaryKey= */ ID_FIELD, // PFBs currently only use ID_FIELD as PK
+                        prescannedSchemas));
 
     result
         .entrySet()
@@ -229,6 +328,22 @@ public class PfbQuartzJob extends QuartzJob {
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Link snapshots, which applies their policies to the workspace, so must complete before any
+   * imported records become visible. If the sink delivers records only on success, linking runs in
+   * the background alongside the import; otherwise it runs before this method returns.
+   *
+   * @return the linking task, to be joined before the import succeeds
+   */
+  private BackgroundTask startLinkingSnapshots(
+      Set<UUID> snapshotIds, WorkspaceId workspaceId, RecordSink recordSink) {
+    logger.info("Linking snapshots...");
+    Runnable link = () -> linkSnapshots(snapshotIds, workspaceId);
+    return recordSink.deliversOnSuccess()
+        ? BackgroundTask.start(link)
+        : BackgroundTask.runNow(link);
+  }
+
   /**
    * Given a list of snapshot ids, create references from the workspace to the snapshot for each id
    * that does not already have a reference.
@@ -3,10 +3,10 @@ package org.databiosphere.workspacedataservice.dataimport.pfb;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Collection;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import org.apache.avro.generic.GenericRecord;
 import org.databiosphere.workspacedataservice.dataimport.AvroRecordConverter;
 import org.databiosphere.workspacedataservice.shared.model.Record;
-import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.databiosphere.workspacedataservice.shared.model.attributes.RelationAttribute;
 
@@ -24,30 +24,48 @@ public class PfbRecordConverter extends AvroRecordConverter {
     super(objectMapper);
   }
 
+  @Override
+  protected String getId(GenericRecord genericRecord) {
+    return genericRecord.get(ID_FIELD).toString();
+  }
+
+  @Override
+  protected RecordType getRecordType(GenericRecord genericRecord) {
+    return RecordType.valueOf(genericRecord.get(TYPE_FIELD).toString());
+  }
+
   private Record createEmptyRecord(GenericRecord genericRecord) {
-    return new Record(
-        genericRecord.get(ID_FIELD).toString(),
-        RecordType.valueOf(genericRecord.get(TYPE_FIELD).toString()));
+    return new Record(getId(genericRecord), getRecordType(genericRecord));
   }
 
   @Override
   protected final Record convertBaseAttributes(GenericRecord genericRecord) {
     Record record = createEmptyRecord(genericRecord);
+    putBaseAttributes(genericRecord, record::setAttributeValue);
+    return record;
+  }
+
+  @Override
+  protected final void putBaseAttributes(
+      GenericRecord genericRecord, BiConsumer<String, Object> attributes) {
     // extract the OBJECT_FIELD sub-record, then find all its attributes
     if (genericRecord.get(OBJECT_FIELD) instanceof GenericRecord objectAttributes) {
-      RecordAttributes attributes = extractBaseAttributes(objectAttributes, Set.of());
-      record.setAttributes(attributes);
+      extractBaseAttributes(objectAttributes, Set.of(), attributes);
     }
-    return record;
   }
 
   @Override
   protected final Record convertRelations(GenericRecord genericRecord) {
     Record record = createEmptyRecord(genericRecord);
+    putRelations(genericRecord, record::setAttributeValue);
+    return record;
+  }
+
+  @Override
+  protected final void putRelations(
+      GenericRecord genericRecord, BiConsumer<String, Object> attributes) {
     // get the relations array from the record
-    if (genericRecord.get(RELATIONS_FIELD) instanceof Collection<?> relationArray
-        && !relationArray.isEmpty()) {
-      RecordAttributes attributes = RecordAttributes.empty();
+    if (genericRecord.get(RELATIONS_FIELD) instanceof Collection<?> relationArray) {
       for (Object relationObject : relationArray) {
         // Here we assume that the relations object is a GenericRecord with keys "dst_name" and
         // "dst_id"
@@ -55,12 +73,10 @@ public class PfbRecordConverter extends AvroRecordConverter {
           String relationType = relation.get(RELATIONS_NAME).toString();
           String relationId = relation.get(RELATIONS_ID).toString();
           // Give the relation column the name of the record type it's linked to
-          attributes.putAttribute(
+          attributes.accept(
               relationType, new RelationAttribute(RecordType.valueOf(relationType), relationId));
         }
       }
-      record.setAttributes(attributes);
     }
-    return record;
   }
 }
@@ -1,6 +1,7 @@
 package org.databiosphere.workspacedataservice.dataimport.snapshotsupport;
 
 import org.databiosphere.workspacedataservice.activitylog.ActivityLogger;
+import org.databiosphere.workspacedataservice.config.DataImportProperties;
 import org.databiosphere.workspacedataservice.rawls.RawlsClient;
 import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
 import org.springframework.stereotype.Component;
@@ -11,10 +12,15 @@ public class MultiCloudSnapshotSupportFactory implements SnapshotSupportFactory
 
   private final ActivityLogger activityLogger;
   private final RawlsClient rawlsClient;
+  private final int linkParallelism;
 
-  public MultiCloudSnapshotSupportFactory(ActivityLogger activityLogger, RawlsClient rawlsClient) {
+  public MultiCloudSnapshotSupportFactory(
+      ActivityLogger activityLogger,
+      RawlsClient rawlsClient,
+      DataImportProperties dataImportProperties) {
     this.activityLogger = activityLogger;
     this.rawlsClient = rawlsClient;
+    this.linkParallelism = dataImportProperties.getSnapshotLinkParallelism();
   }
 
   /**
@@ -26,6 +32,6 @@ public class MultiCloudSnapshotSupportFactory implements SnapshotSupportFactory
    */
   @Override
   public SnapshotSupport buildSnapshotSupport(WorkspaceId workspaceId) {
-    return new RawlsSnapshotSupport(workspaceId, rawlsClient, activityLogger);
+    return new RawlsSnapshotSupport(workspaceId, rawlsClient, activityLogger, linkParallelism);
   }
 }
@@ -19,6 +19,15 @@ public class RawlsSnapshotSupport extends SnapshotSupport {
 
   public RawlsSnapshotSupport(
       WorkspaceId workspaceId, RawlsClient rawlsClient, ActivityLogger activityLogger) {
+    this(workspaceId, rawlsClient, activityLogger, /* linkParallelism= */ 1);
+  }
+
+  public RawlsSnapshotSupport(
+      WorkspaceId workspaceId,
+      RawlsClient rawlsClient,
+      ActivityLogger activityLogger,
+      int linkParallelism) {
+    super(linkParallelism);
     this.workspaceId = workspaceId;
     this.rawlsClient = rawlsClient;
     this.activityLogger = activityLogger;
@@ -15,8 +15,12 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.databiosphere.workspacedataservice.jobexec.ParallelTasks;
 import org.databiosphere.workspacedataservice.service.model.exception.DataImportException;
 import org.databiosphere.workspacedataservice.service.model.exception.RestException;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
@@ -37,8 +41,25 @@ public abstract class SnapshotSupport {
   public static final String PURPOSE_POLICY = "policy";
   private static final String DEFAULT_PRIMARY_KEY = "datarepo_row_id";
 
+  /** size of the first page of snapshot references to list; later pages grow from here */
+  @VisibleForTesting static final int INITIAL_PAGE_SIZE = 100;
+
+  /** largest page of snapshot references to list in one request */
+  @VisibleForTesting static final int MAX_PAGE_SIZE = 1000;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotSupport.class);
 
+  /** how many snapshot references {@link #linkSnapshots(Set)} creates at once */
+  private final int linkParallelism;
+
+  protected SnapshotSupport() {
+    this(1);
+  }
+
+  protected SnapshotSupport(int linkParallelism) {
+    this.linkParallelism = linkParallelism;
+  }
+
   @VisibleForTesting
   String getDefaultPrimaryKey() {
     return DEFAULT_PRIMARY_KEY;
@@ -80,13 +101,15 @@ public abstract class SnapshotSupport {
 
   /**
    * Given a list of snapshot ids, create references from the workspace to the snapshot for each id
-   * that does not already have a reference.
+   * that does not already have a reference. Up to {@link #linkParallelism} references are created
+   * at once.
    *
    * @param snapshotIds the list of snapshot ids to create or verify references.
    */
   public SnapshotLinkResult linkSnapshots(Set<UUID> snapshotIds) {
     // list existing snapshots linked to this workspace
-    Set<UUID> existingSnapshotIds = Set.copyOf(existingPolicySnapshotIds(/* pageSize= */ 50));
+    Set<UUID> existingSnapshotIds =
+        Set.copyOf(existingPolicySnapshotIds(/* pageSize= */ INITIAL_PAGE_SIZE));
     // find the snapshots that are not already linked to this workspace
     Set<UUID> newSnapshotIds = Sets.difference(snapshotIds, existingSnapshotIds);
 
@@ -98,18 +121,52 @@ public abstract class SnapshotSupport {
 
     // pass snapshotIds to underlying client to link
     int successfulLinks = 0;
-    for (UUID uuid : newSnapshotIds) {
-      try {
-        linkSnapshot(uuid);
+    if (linkParallelism > 1 && newSnapshotIds.size() > 1) {
+      successfulLinks = linkConcurrently(newSnapshotIds);
+    } else {
+      for (UUID uuid : newSnapshotIds) {
+        linkSnapshotOrThrow(uuid);
         successfulLinks++;
-      } catch (RestException re) {
-        throw new DataImportException("Error processing data import: " + re.getMessage(), re);
       }
     }
 
     return new SnapshotLinkResult(snapshotIds.size(), successfulLinks);
   }
 
+  /**
+   * Link snapshots on a pool of {@link #linkParallelism} threads. If any link fails, cancels the
+   * rest and throws its exception.
+   */
+  private int linkConcurrently(Set<UUID> snapshotIds) {
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(linkParallelism, snapshotIds.size()));
+    try {
+      ParallelTasks.runAll(
+          executor,
+          snapshotIds.stream()
+              .<Callable<UUID>>map(
+                  uuid ->
+                      () -> {
+                        linkSnapshotOrThrow(uuid);
+                        return uuid;
+                      })
+              .toList(),
+          linked -> {},
+          DataImportException::new);
+      return snapshotIds.size();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void linkSnapshotOrThrow(UUID snapshotId) {
+    try {
+      linkSnapshot(snapshotId);
+    } catch (RestException re) {
+      throw new DataImportException("Error processing data import: " + re.getMessage(), re);
+    }
+  }
+
   /**
    * Given a single snapshotId, create a reference to that snapshot from the current workspace.
    *
@@ -201,8 +258,10 @@ public abstract class SnapshotSupport {
 
   /**
    * Query for the full list of referenced snapshots in this workspace, paginating as necessary.
+   * Each page which comes back full doubles the size of the next, up to {@link #MAX_PAGE_SIZE}, so
+   * workspaces with many references need few requests while those with few need only one small one.
    *
-   * @param pageSize how many references to return in each paginated request
+   * @param pageSize how many references to return in the first paginated request
    * @return the full list of snapshot references in this workspace
    */
   // TODO (AJ-1705): Filter out snapshots that do NOT have purpose:policy
@@ -224,8 +283,9 @@ public abstract class SnapshotSupport {
         // fewer results than we requested; this is the last page of results
         return finalList;
       } else {
-        // bump our offset and request another page of results
+        // bump our offset and request another, larger page of results
         offset += pageSize;
+        pageSize = Math.min(pageSize * 2, MAX_PAGE_SIZE);
       }
     }
 
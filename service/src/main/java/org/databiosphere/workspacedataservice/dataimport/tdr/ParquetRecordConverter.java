@@ -6,12 +6,12 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.databiosphere.workspacedataservice.dataimport.AvroRecordConverter;
 import org.databiosphere.workspacedataservice.service.model.TdrManifestImportTable;
 import org.databiosphere.workspacedataservice.shared.model.Record;
-import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.databiosphere.workspacedataservice.shared.model.attributes.RelationAttribute;
 
@@ -28,33 +28,53 @@ public class ParquetRecordConverter extends AvroRecordConverter {
     this.relationshipModels = table.relations();
   }
 
+  @Override
+  protected String getId(GenericRecord genericRecord) {
+    return genericRecord.get(idField).toString();
+  }
+
+  @Override
+  protected RecordType getRecordType(GenericRecord genericRecord) {
+    return recordType;
+  }
+
   private Record createEmptyRecord(GenericRecord genericRecord) {
-    return new Record(genericRecord.get(idField).toString(), recordType);
+    return new Record(getId(genericRecord), recordType);
   }
 
   @Override
   protected final Record convertBaseAttributes(GenericRecord genericRecord) {
     Record record = createEmptyRecord(genericRecord);
+    putBaseAttributes(genericRecord, record::setAttributeValue);
+    return record;
+  }
+
+  @Override
+  protected final void putBaseAttributes(
+      GenericRecord genericRecord, BiConsumer<String, Object> attributes) {
     // for base attributes, skip all relations
     List<String> relationNames =
         relationshipModels.stream().map(r -> r.getFrom().getColumn()).toList();
     Set<String> allIgnores = new HashSet<>(relationNames);
 
-    record.setAttributes(extractBaseAttributes(genericRecord, allIgnores));
-
-    return record;
+    extractBaseAttributes(genericRecord, allIgnores, attributes);
   }
 
   @Override
   protected final Record convertRelations(GenericRecord genericRecord) {
     Record record = createEmptyRecord(genericRecord);
+    putRelations(genericRecord, record::setAttributeValue);
+    return record;
+  }
+
+  @Override
+  protected final void putRelations(
+      GenericRecord genericRecord, BiConsumer<String, Object> attributes) {
     // find relation columns for this type
     if (relationshipModels.isEmpty()) {
-      return record;
+      return;
     }
 
-    RecordAttributes attributes = RecordAttributes.empty();
-
     // filter the relationship models to those known by this schema. This should only reduce the
     // list in strange conditions in which the TDR schema is out of sync with the Parquet schema.
     List<RelationshipModel> knownModels =
@@ -85,17 +105,13 @@ public class ParquetRecordConverter extends AvroRecordConverter {
                               new RelationAttribute(
                                   RecordType.valueOf(targetType), relValue.toString()))
                       .toList();
-              attributes.putAttribute(attrName, rels);
+              attributes.accept(attrName, rels);
             } else {
-              attributes.putAttribute(
+              attributes.accept(
                   attrName,
                   new RelationAttribute(RecordType.valueOf(targetType), value.toString()));
             }
           }
         });
-
-    record.setAttributes(attributes);
-
-    return record;
   }
 }
@@ -34,21 +34,28 @@ import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.UnaryOperator;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetReader;
 import org.apache.parquet.hadoop.util.HadoopInputFile;
 import org.apache.parquet.io.InputFile;
 import org.databiosphere.workspacedataservice.activitylog.ActivityLogger;
 import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.ImportCheckpointDao;
 import org.databiosphere.workspacedataservice.dao.JobDao;
 import org.databiosphere.workspacedataservice.dataimport.FileDownloadHelper;
+import org.databiosphere.workspacedataservice.dataimport.ImportCheckpoint;
 import org.databiosphere.workspacedataservice.dataimport.ImportDetails;
 import org.databiosphere.workspacedataservice.dataimport.ImportDetailsRetriever;
 import org.databiosphere.workspacedataservice.dataimport.ImportJobInput;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgress;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgressFactory;
 import org.databiosphere.workspacedataservice.dataimport.snapshotsupport.SnapshotLinkResult;
 import org.databiosphere.workspacedataservice.dataimport.snapshotsupport.SnapshotSupport;
 import org.databiosphere.workspacedataservice.dataimport.snapshotsupport.SnapshotSupportFactory;
+import org.databiosphere.workspacedataservice.jobexec.BackgroundTask;
 import org.databiosphere.workspacedataservice.jobexec.JobDataMapReader;
 import org.databiosphere.workspacedataservice.jobexec.JobExecutionException;
 import org.databiosphere.workspacedataservice.jobexec.QuartzJob;
@@ -62,6 +69,9 @@ import org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMo
 import org.databiosphere.workspacedataservice.recordsource.RecordSourceFactory;
 import org.databiosphere.workspacedataservice.sam.SamDao;
 import org.databiosphere.workspacedataservice.service.BatchWriteService;
+import org.databiosphere.workspacedataservice.service.PrescannedSchemas;
+import org.databiosphere.workspacedataservice.service.SchemaPrescanner;
+import org.databiosphere.workspacedataservice.service.SchemaPrescanner.RecordSourceOpener;
 import org.databiosphere.workspacedataservice.service.model.BatchWriteResult;
 import org.databiosphere.workspacedataservice.service.model.TdrManifestImportTable;
 import org.databiosphere.workspacedataservice.service.model.exception.RestException;
@@ -92,6 +102,10 @@ public class TdrManifestQuartzJob extends QuartzJob {
   private final InstantSource instantSource;
   private final boolean shouldAddImportMetadata;
   private final ImportMetrics importMetrics;
+  private final ImportCheckpointDao importCheckpointDao;
+  private final boolean isCheckpointingEnabled;
+  private final ImportProgressFactory importProgressFactory;
+  private final SchemaPrescanner schemaPrescanner;
 
   public TdrManifestQuartzJob(
       JobDao jobDao,
@@ -106,7 +120,10 @@ public class TdrManifestQuartzJob extends QuartzJob {
       SnapshotSupportFactory snapshotSupportFactory,
       SamDao samDao,
       ImportDetailsRetriever importDetailsRetriever,
-      InstantSource instantSource) {
+      InstantSource instantSource,
+      ImportCheckpointDao importCheckpointDao,
+      ImportProgressFactory importProgressFactory,
+      SchemaPrescanner schemaPrescanner) {
     super(jobDao, observationRegistry, dataImportProperties);
     this.recordSinkFactory = recordSinkFactory;
     this.recordSourceFactory = recordSourceFactory;
@@ -120,6 +137,10 @@ public class TdrManifestQuartzJob extends QuartzJob {
     this.instantSource = instantSource;
     this.shouldAddImportMetadata = dataImportProperties.shouldAddImportMetadata();
     this.importMetrics = importMetrics;
+    this.importCheckpointDao = importCheckpointDao;
+    this.isCheckpointingEnabled = dataImportProperties.isCheckpointingEnabled();
+    this.importProgressFactory = importProgressFactory;
+    this.schemaPrescanner = schemaPrescanner;
   }
 
   @Override
@@ -156,68 +177,86 @@ public class TdrManifestQuartzJob extends QuartzJob {
             ? Optional.of(getAddImportMetadataToRecordFunction(snapshotId, instantSource.instant()))
             : Optional.empty();
 
-    // Create snapshot reference
-    linkSnapshots(Set.of(snapshotId), details.workspaceId());
-
     // read the manifest and extract the information necessary to perform the import
     List<TdrManifestImportTable> tdrManifestImportTables =
         extractTableInfo(snapshotExportResponseModel, details.workspaceId());
 
-    // get all the parquet files from the manifests
-
-    FileDownloadHelper fileDownloadHelper = getFilesForImport(tdrManifestImportTables);
-    try (RecordSink recordSink = recordSinkFactory.buildRecordSink(details)) {
-      // loop through the tables to be imported and upsert base attributes
-      logger.info("Job {} starting write of base attributes  ...", jobId);
-      var result =
-          importTables(
-              tdrManifestImportTables,
-              fileDownloadHelper.getFileMap(),
-              ImportMode.BASE_ATTRIBUTES,
-              recordSink,
-              maybeMapRecord);
-
-      // add relations to the existing base attributes
-      logger.info("Job {} starting write of relations ...", jobId);
-      result.merge(
-          importTables(
-              tdrManifestImportTables,
-              fileDownloadHelper.getFileMap(),
-              ImportMode.RELATIONS,
-              recordSink,
-              Optional.empty()));
-
-      // activity logging for import status
-      // no specific activity logging for relations since main import is a superset
-      result
-          .entrySet()
-          .forEach(
-              entry ->
-                  activityLogger.saveEventForCurrentUser(
-                      user ->
-                          user.upserted()
-                              .record()
-                              .withRecordType(entry.getKey())
-                              .ofQuantity(entry.getValue())));
-
-      // sync permissions if option is enabled and we're running in the control-plane
-      if (options.syncPermissions() && isTdrPermissionSyncingEnabled) {
-        syncPermissions(details.workspaceId(), snapshotId);
+    try (ImportProgress importProgress = importProgressFactory.start(jobId, TDRMANIFEST)) {
+      // get all the parquet files from the manifests
+      FileDownloadHelper fileDownloadHelper = getFilesForImport(tdrManifestImportTables);
+      try (RecordSink recordSink = recordSinkFactory.buildRecordSink(details);
+          // Create snapshot reference
+          BackgroundTask linking =
+              startLinkingSnapshot(snapshotId, details.workspaceId(), recordSink)) {
+        // each import pass reads every row of every file
+        importProgress.addRowsTotal(2 * countRows(fileDownloadHelper));
+
+        // if checkpointed, commit each batch and resume from where any previous attempt left off
+        Optional<UUID> maybeCheckpointJobId =
+            isCheckpointingEnabled && recordSink.supportsCheckpoints()
+                ? Optional.of(jobId)
+                : Optional.empty();
+
+        // loop through the tables to be imported and upsert base attributes
+        logger.info("Job {} starting write of base attributes  ...", jobId);
+        var result =
+            importTables(
+                tdrManifestImportTables,
+                fileDownloadHelper,
+                ImportMode.BASE_ATTRIBUTES,
+                recordSink,
+                maybeMapRecord,
+                maybeCheckpointJobId);
+
+        // the snapshot must be linked before the import can succeed
+        linking.join();
+
+        // add relations to the existing base attributes
+        logger.info("Job {} starting write of relations ...", jobId);
+        result.merge(
+            importTables(
+                tdrManifestImportTables,
+                fileDownloadHelper,
+                ImportMode.RELATIONS,
+                recordSink,
+                Optional.empty(),
+                maybeCheckpointJobId));
+
+        // activity logging for import status
+        // no specific activity logging for relations since main import is a superset
+        result
+            .entrySet()
+            .forEach(
+                entry ->
+                    activityLogger.saveEventForCurrentUser(
+                        user ->
+                            user.upserted()
+                                .record()
+                                .withRecordType(entry.getKey())
+                                .ofQuantity(entry.getValue())));
+
+        // sync permissions if option is enabled and we're running in the control-plane
+        if (options.syncPermissions() && isTdrPermissionSyncingEnabled) {
+          syncPermissions(details.workspaceId(), snapshotId);
+        }
+
+        importMetrics
+            .recordUpsertDistributionSummary()
+            .distributionSummary()
+            .record(result.getTotalUpdatedCount());
+
+        // complete the RecordSink
+        recordSink.success();
+        if (maybeCheckpointJobId.isPresent()) {
+          importCheckpointDao.deleteCheckpoints(jobId);
+        }
+      } catch (Exception e) {
+        throw new TdrManifestImportException(e.getMessage(), e);
+      } finally {
+        // delete temp files after everything else is completed
+        // Any failed deletions will be removed if/when pod restarts
+        fileDownloadHelper.deleteFileDirectory();
       }
-
-      importMetrics
-          .recordUpsertDistributionSummary()
-          .distributionSummary()
-          .record(result.getTotalUpdatedCount());
-
-      // complete the RecordSink
-      recordSink.success();
-    } catch (Exception e) {
-      throw new TdrManifestImportException(e.getMessage(), e);
-    } finally {
-      // delete temp files after everything else is completed
-      // Any failed deletions will be removed if/when pod restarts
-      fileDownloadHelper.deleteFileDirectory();
     }
   }
 
@@ -237,26 +276,110 @@ public class TdrManifestQuartzJob extends QuartzJob {
       RecordSink recordSink,
       ImportMode importMode,
       Optional<UnaryOperator<Record>> maybeMapRecord) {
+    return importTable(
+        inputFile,
+        table,
+        recordSink,
+        importMode,
+        maybeMapRecord,
+        Optional.empty(),
+        PrescannedSchemas.none());
+  }
+
+  /**
+   * Given a single Parquet file to be imported, import it
+   *
+   * @param inputFile Parquet file to be imported.
+   * @param table info about the table to be imported
+   * @param recordSink {@link RecordSink} that directs the records to their destination
+   * @param importMode mode for this invocation
+   * @param maybeCheckpoint if present, commit each batch and resume from this checkpoint
+   * @param prescannedSchemas column types found by pre-scanning the table's files, if any
+   * @return statistics on what was imported
+   */
+  private BatchWriteResult importTable(
+      InputFile inputFile,
+      TdrManifestImportTable table,
+      RecordSink recordSink,
+      ImportMode importMode,
+      Optional<UnaryOperator<Record>> maybeMapRecord,
+      Optional<ImportCheckpoint> maybeCheckpoint,
+      PrescannedSchemas prescannedSchemas) {
     // upsert this parquet file's contents
-    try (ParquetReader<GenericRecord> avroParquetReader = readerForFile(inputFile)) {
+    try (RecordSource recordSource =
+        openRecordSource(inputFile, table, importMode, maybeMapRecord)) {
       logger.debug(
           "batch-writing records for file in table {} with mode {} ...",
           table.recordType().getName(),
           importMode.name());
 
-      RecordSource recordSource =
-          recordSourceFactory.forTdrImport(avroParquetReader, table, importMode);
-      if (maybeMapRecord.isPresent()) {
-        recordSource = new MappedRecordSource(recordSource, maybeMapRecord.get());
+      if (maybeCheckpoint.isPresent()) {
+        return batchWriteService.checkpointedBatchWrite(
+            recordSource,
+            recordSink,
+            table.recordType(),
+            table.primaryKey(),
+            maybeCheckpoint.get(),
+            prescannedSchemas);
       }
-
       return batchWriteService.batchWrite(
-          recordSource, recordSink, table.recordType(), table.primaryKey());
+          recordSource, recordSink, table.recordType(), table.primaryKey(), prescannedSchemas);
     } catch (Throwable t) {
       throw new TdrManifestImportException(t.getMessage(), t);
     }
   }
 
+  /**
+   * Open a {@link RecordSource} over a single Parquet file. Closing the source closes the file.
+   *
+   * @param inputFile Parquet file to be read
+   * @param table info about the table to be imported
+   * @param importMode mode for this invocation
+   * @param maybeMapRecord if present, applied to each record read
+   * @return the source
+   * @throws IOException on problem opening the file
+   */
+  private RecordSource openRecordSource(
+      InputFile inputFile,
+      TdrManifestImportTable table,
+      ImportMode importMode,
+      Optional<UnaryOperator<Record>> maybeMapRecord)
+      throws IOException {
+    RecordSource recordSource =
+        recordSourceFactory.forTdrImport(readerForFile(inputFile), table, importMode);
+    if (maybeMapRecord.isPresent()) {
+      recordSource = new MappedRecordSource(recordSource, maybeMapRecord.get());
+    }
+    return recordSource;
+  }
+
+  /**
+   * Pre-scan all the files of a table, if enabled, so that its columns are created with the types
+   * needed by all its rows. Only the base attributes pass is pre-scanned; the relations pass only
+   * writes columns that pass already created.
+   */
+  private PrescannedSchemas prescanTable(
+      TdrManifestImportTable table,
+      Collection<File> files,
+      ImportMode importMode,
+      Optional<UnaryOperator<Record>> maybeMapRecord) {
+    if (importMode != ImportMode.BASE_ATTRIBUTES || !schemaPrescanner.isEnabled()) {
+      return PrescannedSchemas.none();
+    }
+    logger.info("Pre-scanning {} files for table '{}'", files.size(), table.recordType().getName());
+    try {
+      return schemaPrescanner.prescan(
+          files.stream()
+              .<RecordSourceOpener>map(
+                  file ->
+                      () ->
+                          openRecordSource(localInputFile(file), table, importMode, maybeMapRecord))
+              .toList());
+    } catch (Exception e) {
+      throw new TdrManifestImportException(e.getMessage(), e);
+    }
+  }
+
   /**
    * Creates an AvroParquetReader for a given input file. This should only be called from within a
    * try-with-resources. It exists as a standalone method to allow unit tests to work with the same
@@ -279,13 +402,15 @@ public class TdrManifestQuartzJob extends QuartzJob {
    * @param importTables tables to be imported
    * @param importMode mode for this invocation
    * @param recordSink {@link RecordSink} that directs the records to their destination
+   * @param maybeCheckpointJobId if present, checkpoint the import of each file under this job id
    */
   private BatchWriteResult importTables(
       List<TdrManifestImportTable> importTables,
-      Multimap<String, File> fileMap,
+      FileDownloadHelper fileDownloadHelper,
       ImportMode importMode,
       RecordSink recordSink,
-      Optional<UnaryOperator<Record>> maybeMapRecord) {
+      Optional<UnaryOperator<Record>> maybeMapRecord,
+      Optional<UUID> maybeCheckpointJobId) {
     var combinedResult = BatchWriteResult.empty();
     var numTables = importTables.size();
     AtomicInteger tableIdx = new AtomicInteger();
@@ -300,7 +425,8 @@ public class TdrManifestQuartzJob extends QuartzJob {
               numTables,
               importTable.recordType().getName());
 
-          Collection<File> files = fileMap.get(importTable.recordType().getName());
+          Collection<File> files =
+              fileDownloadHelper.getFileMap().get(importTable.recordType().getName());
 
           if (files.isEmpty()) {
             logger.info("Nothing to import for table '{}'", importTable.recordType().getName());
@@ -309,6 +435,8 @@ public class TdrManifestQuartzJob extends QuartzJob {
 
           var numFiles = files.size();
           AtomicInteger fileIdx = new AtomicInteger();
+          PrescannedSchemas prescannedSchemas =
+              prescanTable(importTable, files, importMode, maybeMapRecord);
 
           // loop through each parquet file
           files.forEach(
@@ -318,24 +446,70 @@ public class TdrManifestQuartzJob extends QuartzJob {
                     fileIdx.incrementAndGet(),
                     numFiles,
                     importTable.recordType().getName());
-                try {
-                  org.apache.hadoop.fs.Path hadoopFilePath =
-                      new org.apache.hadoop.fs.Path(file.toString());
-                  Configuration configuration = new Configuration();
-
-                  // generate the HadoopInputFile
-                  InputFile inputFile = HadoopInputFile.fromPath(hadoopFilePath, configuration);
-                  var result =
-                      importTable(inputFile, importTable, recordSink, importMode, maybeMapRecord);
-                  combinedResult.merge(result);
-                } catch (IOException e) {
-                  throw new TdrManifestImportException(e.getMessage(), e);
+                Optional<ImportCheckpoint> maybeCheckpoint =
+                    maybeCheckpointJobId.map(
+                        jobId ->
+                            importCheckpointDao.getCheckpoint(
+                                jobId,
+                                importMode,
+                                checkpointSource(fileDownloadHelper.getSourceUrl(file))));
+                if (maybeCheckpoint.isPresent() && maybeCheckpoint.get().completed()) {
+                  logger.info("file was imported by a previous attempt; skipping");
+                  return; // skip the remainder of the forEach lambda for this file
                 }
+                var result =
+                    importTable(
+                        localInputFile(file),
+                        importTable,
+                        recordSink,
+                        importMode,
+                        maybeMapRecord,
+                        maybeCheckpoint,
+                        prescannedSchemas);
+                combinedResult.merge(result);
               });
         });
     return combinedResult;
   }
 
+  /** Generate a HadoopInputFile for a local Parquet file */
+  private static InputFile localInputFile(File file) {
+    try {
+      org.apache.hadoop.fs.Path hadoopFilePath = new org.apache.hadoop.fs.Path(file.toString());
+      Configuration configuration = new Configuration();
+      return HadoopInputFile.fromPath(hadoopFilePath, configuration);
+    } catch (IOException e) {
+      throw new TdrManifestImportException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Count the rows in all downloaded Parquet files, as declared in their footers.
+   *
+   * @param fileDownloadHelper holds the downloaded files
+   * @return the total row count
+   */
+  private long countRows(FileDownloadHelper fileDownloadHelper) {
+    long numRows = 0;
+    for (File file : fileDownloadHelper.getFileMap().values()) {
+      InputFile inputFile = localInputFile(file);
+      try (ParquetFileReader reader = ParquetFileReader.open(inputFile)) {
+        numRows += reader.getRecordCount();
+      } catch (IOException e) {
+        throw new TdrManifestImportException(e.getMessage(), e);
+      }
+    }
+    return numRows;
+  }
+
+  /**
+   * Identify a data file across attempts at the same import by its url, without any query string,
+   * such as the signature of a signed url.
+   */
+  private static String checkpointSource(URL url) {
+    return StringUtils.substringBefore(url.toString(), "?");
+  }
+
   /**
    * Given the list of tables/data files to be imported, loop through and download each one to a
    * temporary file
@@ -473,6 +647,21 @@ public class TdrManifestQuartzJob extends QuartzJob {
     }
   }
 
+  /**
+   * Link the snapshot, which applies its policies to the workspace, so must complete before any
+   * imported records become visible. If the sink delivers records only on success, linking runs in
+   * the background alongside the import; otherwise it runs before this method returns.
+   *
+   * @return the linking task, to be joined before the import succeeds
+   */
+  private BackgroundTask startLinkingSnapshot(
+      UUID snapshotId, WorkspaceId workspaceId, RecordSink recordSink) {
+    Runnable link = () -> linkSnapshots(Set.of(snapshotId), workspaceId);
+    return recordSink.deliversOnSuccess()
+        ? BackgroundTask.start(link)
+        : BackgroundTask.runNow(link);
+  }
+
   /**
    * Given a list of snapshot ids, create references from the workspace to the snapshot for each id
    * that does not already have a reference.
@@ -0,0 +1,15 @@
+package org.databiosphere.workspacedataservice.datatypeconversion;
+
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.job.JobInput;
+
+/**
+ * JobInput implementation for attribute data type conversions.
+ *
+ * @param recordType the record type of the attribute
+ * @param attribute the attribute being converted
+ * @param dataType the data type the attribute is converted to
+ */
+public record DataTypeConversionJobInput(
+    RecordType recordType, String attribute, DataTypeMapping dataType) implements JobInput {}
@@ -0,0 +1,56 @@
+package org.databiosphere.workspacedataservice.datatypeconversion;
+
+import static org.databiosphere.workspacedataservice.datatypeconversion.DataTypeConversionService.ARG_ATTRIBUTE;
+import static org.databiosphere.workspacedataservice.datatypeconversion.DataTypeConversionService.ARG_DATA_TYPE;
+import static org.databiosphere.workspacedataservice.datatypeconversion.DataTypeConversionService.ARG_RECORD_TYPE;
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_COLLECTION;
+import static org.databiosphere.workspacedataservice.shared.model.job.JobType.DATA_TYPE_CONVERSION;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.jobexec.JobDataMapReader;
+import org.databiosphere.workspacedataservice.jobexec.QuartzJob;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+/** Runs an attribute data type conversion started by {@link DataTypeConversionService}. */
+@Component
+public class DataTypeConversionQuartzJob extends QuartzJob {
+  private final DataTypeConversionService dataTypeConversionService;
+
+  public DataTypeConversionQuartzJob(
+      DataImportProperties dataImportProperties,
+      ObservationRegistry observationRegistry,
+      JobDao jobDao,
+      DataTypeConversionService dataTypeConversionService) {
+    super(jobDao, observationRegistry, dataImportProperties);
+    this.dataTypeConversionService = dataTypeConversionService;
+  }
+
+  @Override
+  protected void annotateObservation(Observation observation) {
+    observation.lowCardinalityKeyValue("jobType", DATA_TYPE_CONVERSION.toString());
+  }
+
+  @Override
+  protected void executeInternal(UUID jobId, JobExecutionContext context) {
+    JobDataMapReader jobData = JobDataMapReader.fromContext(context);
+    dataTypeConversionService.runJob(
+        jobId,
+        jobData.getUUID(ARG_COLLECTION),
+        RecordType.valueOf(jobData.getString(ARG_RECORD_TYPE)),
+        jobData.getString(ARG_ATTRIBUTE),
+        DataTypeMapping.valueOf(jobData.getString(ARG_DATA_TYPE)));
+  }
+
+  // unlike data imports, conversions are not completed by any other service
+  @Override
+  protected boolean succeedOnCompletion() {
+    return true;
+  }
+}
@@ -0,0 +1,20 @@
+package org.databiosphere.workspacedataservice.datatypeconversion;
+
+import static org.databiosphere.workspacedataservice.shared.model.job.JobType.DATA_TYPE_CONVERSION;
+
+import java.io.Serializable;
+import java.util.Map;
+import org.databiosphere.workspacedataservice.shared.model.Schedulable;
+
+public class DataTypeConversionSchedulable extends Schedulable {
+
+  public DataTypeConversionSchedulable(
+      String name, String description, Map<String, Serializable> arguments) {
+    super(
+        DATA_TYPE_CONVERSION.name(),
+        name,
+        DataTypeConversionQuartzJob.class,
+        description,
+        arguments);
+  }
+}
@@ -0,0 +1,323 @@
+package org.databiosphere.workspacedataservice.datatypeconversion;
+
+import static org.databiosphere.workspacedataservice.service.JobService.NONTERMINAL_JOB_STATUSES;
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_COLLECTION;
+import static org.databiosphere.workspacedataservice.shared.model.job.JobType.DATA_TYPE_CONVERSION;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao.ConvertedBatch;
+import org.databiosphere.workspacedataservice.dao.RecordDao.DataTypeConversion;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.databiosphere.workspacedataservice.service.JobService;
+import org.databiosphere.workspacedataservice.service.RecordService;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.job.Job;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Changes the data type of an attribute online: rather than rewrite the table under an exclusive
+ * lock, which would block all reads and writes of a large record type for minutes, values are
+ * converted into a shadow column in batches, and the shadow column then replaces the attribute in a
+ * brief lock. See {@link RecordDao#prepareDataTypeConversion}.
+ *
+ * <p>Conversions may run synchronously, or as DATA_TYPE_CONVERSION jobs run by Quartz. Either way,
+ * each conversion is recorded as a job in sys_wds.job, which reports its progress and owns the
+ * shadow column. Conversions whose job dies without completing or aborting them, e.g. because its
+ * replica restarted, are aborted by {@link #abortAbandonedConversions()}.
+ */
+@Service
+public class DataTypeConversionService {
+  private static final Logger logger = LoggerFactory.getLogger(DataTypeConversionService.class);
+
+  // keys for job data arguments
+  static final String ARG_RECORD_TYPE = "recordType";
+  static final String ARG_ATTRIBUTE = "attribute";
+  static final String ARG_DATA_TYPE = "dataType";
+
+  // how many times to try to take the lock which completes a conversion
+  private static final int MAX_COMPLETION_ATTEMPTS = 5;
+
+  /** How often, in milliseconds, to look for abandoned conversions */
+  private static final long ABORT_ABANDONED_FREQUENCY_IN_MILLISECONDS = 5 * 60 * 1000;
+
+  private final RecordDao recordDao;
+  private final RecordService recordService;
+  private final JobDao jobDao;
+  private final SchedulerDao schedulerDao;
+  private final JobService jobService;
+  private final int batchSize;
+  private final Duration abandonedAfter;
+
+  public DataTypeConversionService(
+      RecordDao recordDao,
+      RecordService recordService,
+      JobDao jobDao,
+      SchedulerDao schedulerDao,
+      JobService jobService,
+      @Value("${twds.data-type-conversion.batch-size:5000}") int batchSize,
+      @Value("${twds.data-type-conversion.abandoned-after:PT15M}") Duration abandonedAfter) {
+    this.recordDao = recordDao;
+    this.recordService = recordService;
+    this.jobDao = jobDao;
+    this.schedulerDao = schedulerDao;
+    this.jobService = jobService;
+    this.batchSize = batchSize;
+    this.abandonedAfter = abandonedAfter;
+  }
+
+  /**
+   * Change the data type of an attribute, waiting for the conversion to finish.
+   *
+   * @throws IllegalArgumentException if the conversion is not supported
+   * @throws org.databiosphere.workspacedataservice.service.model.exception.ConflictException if
+   *     values cannot be converted, or the attribute is already being converted
+   */
+  public void convert(
+      UUID collectionId, RecordType recordType, String attribute, DataTypeMapping newDataType) {
+    if (isUnchanged(collectionId, recordType, attribute, newDataType)) {
+      return;
+    }
+    UUID jobId = createJob(collectionId, recordType, attribute, newDataType).getJobId();
+    prepare(collectionId, recordType, attribute, newDataType, jobId);
+    jobDao.running(jobId);
+    try {
+      runJob(jobId, collectionId, recordType, attribute, newDataType);
+    } catch (RuntimeException e) {
+      jobDao.fail(jobId, e);
+      throw e;
+    }
+    jobDao.succeeded(jobId);
+  }
+
+  /**
+   * Start a job to change the data type of an attribute. The conversion is prepared before the job
+   * is scheduled, so that unsupported conversions fail here, as well as failing the job, rather
+   * than when the job runs.
+   *
+   * @return the job, which fails if values cannot be converted
+   * @throws IllegalArgumentException if the conversion is not supported
+   * @throws org.databiosphere.workspacedataservice.service.model.exception.ConflictException if the
+   *     attribute is already being converted
+   */
+  public GenericJobServerModel startConversion(
+      UUID collectionId, RecordType recordType, String attribute, DataTypeMapping newDataType) {
+    boolean unchanged = isUnchanged(collectionId, recordType, attribute, newDataType);
+    GenericJobServerModel createdJob = createJob(collectionId, recordType, attribute, newDataType);
+    UUID jobId = createdJob.getJobId();
+    if (unchanged) {
+      return jobDao.succeeded(jobId);
+    }
+    prepare(collectionId, recordType, attribute, newDataType, jobId);
+
+    GenericJobServerModel scheduledJob =
+        jobService.schedule(
+            jobId,
+            Map.of(
+                ARG_COLLECTION, collectionId.toString(),
+                ARG_RECORD_TYPE, recordType.getName(),
+                ARG_ATTRIBUTE, attribute,
+                ARG_DATA_TYPE, newDataType.name()),
+            arguments ->
+                new DataTypeConversionSchedulable(
+                    jobId.toString(), "data type conversion", arguments));
+    if (scheduledJob.getStatus() == StatusEnum.ERROR) {
+      // since this job won't run, undo the preparation
+      recordDao.abortDataTypeConversion(collectionId, recordType, attribute);
+    }
+    return createdJob;
+  }
+
+  /**
+   * Abort conversions abandoned by their jobs, so that the attribute accepts all writes, and can be
+   * converted again. A conversion is abandoned if its job has finished or no longer exists, or if
+   * its job has no Quartz job which will run or recover it, and has made no progress within
+   * twds.data-type-conversion.abandoned-after. Abandoned jobs which have not finished are failed.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelay = ABORT_ABANDONED_FREQUENCY_IN_MILLISECONDS,
+      fixedDelay = ABORT_ABANDONED_FREQUENCY_IN_MILLISECONDS)
+  public void abortAbandonedConversions() {
+    abortAbandonedConversions(abandonedAfter);
+  }
+
+  void abortAbandonedConversions(Duration abandonedAfter) {
+    OffsetDateTime lastProgress = OffsetDateTime.now().minus(abandonedAfter);
+    for (DataTypeConversion conversion : recordDao.getDataTypeConversions()) {
+      try {
+        Optional<GenericJobServerModel> job = getJob(conversion.jobId());
+        if (!isAbandoned(job, lastProgress)) {
+          continue;
+        }
+        logger.warn(
+            "Aborting data type conversion of {} in collection {}, abandoned by job {}",
+            conversion.recordType().getName(),
+            conversion.collectionId(),
+            conversion.jobId());
+        recordDao.abortDataTypeConversion(conversion);
+        job.filter(j -> NONTERMINAL_JOB_STATUSES.contains(j.getStatus()))
+            .ifPresent(j -> jobDao.fail(j.getJobId(), "The data type conversion was interrupted"));
+      } catch (DataAccessException e) {
+        logger.error(
+            "Could not abort abandoned data type conversion of {} in collection {}: {}",
+            conversion.recordType().getName(),
+            conversion.collectionId(),
+            e.getMessage());
+      }
+    }
+  }
+
+  private Optional<GenericJobServerModel> getJob(@Nullable UUID jobId) {
+    if (jobId == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(jobDao.getJob(jobId));
+    } catch (EmptyResultDataAccessException e) {
+      return Optional.empty();
+    }
+  }
+
+  private boolean isAbandoned(Optional<GenericJobServerModel> job, OffsetDateTime lastProgress) {
+    if (job.isEmpty() || !NONTERMINAL_JOB_STATUSES.contains(job.get().getStatus())) {
+      return true;
+    }
+    // a Quartz job is waiting to run, running, or will be recovered by a clustered job store
+    if (schedulerDao.exists(DATA_TYPE_CONVERSION.name(), job.get().getJobId().toString())) {
+      return false;
+    }
+    // otherwise, the conversion runs synchronously, or its Quartz job was lost; it is alive as
+    // long as it keeps reporting progress
+    return job.get().getUpdated().isBefore(lastProgress);
+  }
+
+  /** Run the job for a conversion which was started by {@link #startConversion}. */
+  void runJob(
+      UUID jobId,
+      UUID collectionId,
+      RecordType recordType,
+      String attribute,
+      DataTypeMapping newDataType) {
+    run(
+        collectionId,
+        recordType,
+        attribute,
+        newDataType,
+        progress -> jobDao.updateProgress(jobId, progress));
+  }
+
+  // convert existing values in batches, then complete the conversion. Aborts the conversion on any
+  // failure. The attribute's search index, if it had one, was dropped with its old column; the
+  // next search filtering on the attribute builds a new one, see SearchIndexer.
+  private void run(
+      UUID collectionId,
+      RecordType recordType,
+      String attribute,
+      DataTypeMapping newDataType,
+      Consumer<JobProgressServerModel> progress) {
+    try {
+      long rowsTotal = recordDao.countRecords(collectionId, recordType);
+      long rowsConverted = 0;
+      String lastRecordId = null;
+      ConvertedBatch batch;
+      do {
+        batch =
+            recordDao.convertDataTypeBatch(
+                collectionId, recordType, attribute, newDataType, lastRecordId, batchSize);
+        rowsConverted += batch.converted();
+        lastRecordId = batch.lastRecordId();
+        progress.accept(
+            new JobProgressServerModel()
+                .table(recordType.getName())
+                .rowsWritten(rowsConverted)
+                .rowsTotal(Math.max(rowsTotal, rowsConverted)));
+      } while (batch.converted() == batchSize);
+      complete(collectionId, recordType, attribute);
+    } catch (RuntimeException e) {
+      try {
+        recordDao.abortDataTypeConversion(collectionId, recordType, attribute);
+      } catch (RuntimeException abortException) {
+        e.addSuppressed(abortException);
+      }
+      throw e;
+    }
+  }
+
+  // take the lock which completes the conversion, backing off while other transactions hold it
+  private void complete(UUID collectionId, RecordType recordType, String attribute) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        recordService.completeDataTypeConversion(collectionId, recordType, attribute);
+        return;
+      } catch (PessimisticLockingFailureException e) {
+        if (attempt == MAX_COMPLETION_ATTEMPTS) {
+          throw e;
+        }
+        logger.warn(
+            "Could not lock {} to complete a data type conversion (attempt {} of {})",
+            recordType.getName(),
+            attempt,
+            MAX_COMPLETION_ATTEMPTS);
+        try {
+          Thread.sleep(attempt * 1000L);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
+  private GenericJobServerModel createJob(
+      UUID collectionId, RecordType recordType, String attribute, DataTypeMapping newDataType) {
+    return jobDao.createJob(
+        Job.newJob(
+            CollectionId.of(collectionId),
+            DATA_TYPE_CONVERSION,
+            new DataTypeConversionJobInput(recordType, attribute, newDataType)));
+  }
+
+  // prepare the conversion, owned by the given job; if it cannot be prepared, fail the job
+  private void prepare(
+      UUID collectionId,
+      RecordType recordType,
+      String attribute,
+      DataTypeMapping newDataType,
+      UUID jobId) {
+    try {
+      recordService.prepareDataTypeConversion(
+          collectionId, recordType, attribute, newDataType, jobId);
+    } catch (RuntimeException e) {
+      jobDao.fail(jobId, e);
+      throw e;
+    }
+  }
+
+  private boolean isUnchanged(
+      UUID collectionId, RecordType recordType, String attribute, DataTypeMapping newDataType) {
+    return newDataType.equals(
+        recordDao.getExistingTableSchema(collectionId, recordType).get(attribute));
+  }
+}
@@ -3,6 +3,7 @@ package org.databiosphere.workspacedataservice.drshub;
 import io.micrometer.observation.ObservationRegistry;
 import java.net.MalformedURLException;
 import java.net.URL;
+import org.databiosphere.workspacedataservice.outbound.OutboundHttpClients;
 import org.databiosphere.workspacedataservice.rawls.BearerAuthRequestInitializer;
 import org.databiosphere.workspacedataservice.retry.RestClientRetry;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -33,12 +34,14 @@ public class DrsHubClientConfig {
   }
 
   @Bean
-  public RestClient drsHubRestClient(ObservationRegistry observationRegistry)
+  public RestClient drsHubRestClient(
+      ObservationRegistry observationRegistry, OutboundHttpClients outboundHttpClients)
       throws MalformedURLException {
 
     new URL(drsHubUrl); // validate the DRS Hub URL is well-formed.
 
     return RestClient.builder()
+        .requestFactory(outboundHttpClients.requestFactory("drshub"))
         .observationRegistry(observationRegistry)
         .baseUrl(drsHubUrl)
         .requestInitializer(new BearerAuthRequestInitializer())
@@ -0,0 +1,90 @@
+package org.databiosphere.workspacedataservice.drshub;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Reads the expiry of the signed URLs which DrsHub returns as access URLs: Google Cloud Storage V4
+ * and V2 signatures, AWS S3 presigned URLs, and Azure shared access signatures.
+ */
+public class SignedUrls {
+  private static final DateTimeFormatter SIGNING_DATE =
+      DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+  // the signature parameter of each kind of signed URL
+  private static final List<String> SIGNATURES =
+      List.of("X-Goog-Signature", "X-Amz-Signature", "Signature", "sig");
+
+  private SignedUrls() {}
+
+  /**
+   * When does the signed URL expire?
+   *
+   * @param url the URL
+   * @return the expiry, or empty if the URL is not signed or its expiry can't be read
+   */
+  public static Optional<Instant> expiry(URI url) {
+    MultiValueMap<String, String> params =
+        UriComponentsBuilder.fromUri(url).build().getQueryParams();
+    try {
+      // GCS V4 and S3 sign for a number of seconds from the signing date
+      for (String prefix : new String[] {"X-Goog-", "X-Amz-"}) {
+        String date = param(params, prefix + "Date");
+        String expires = param(params, prefix + "Expires");
+        if (date != null && expires != null) {
+          return Optional.of(
+              LocalDateTime.parse(date, SIGNING_DATE)
+                  .toInstant(ZoneOffset.UTC)
+                  .plusSeconds(Long.parseLong(expires)));
+        }
+      }
+      // GCS V2 signs until an epoch second
+      String expires = param(params, "Expires");
+      if (expires != null) {
+        return Optional.of(Instant.ofEpochSecond(Long.parseLong(expires)));
+      }
+      // Azure signs until an ISO 8601 instant or date
+      String signedExpiry = param(params, "se");
+      if (signedExpiry != null) {
+        return Optional.of(
+            signedExpiry.contains("T")
+                ? Instant.parse(signedExpiry)
+                : LocalDate.parse(signedExpiry).atStartOfDay(ZoneOffset.UTC).toInstant());
+      }
+    } catch (DateTimeParseException | NumberFormatException e) {
+      // an unreadable expiry is treated as no expiry
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Is the URL signed? A signed URL whose expiry can't be read may expire at any time.
+   *
+   * @param url the URL
+   * @return true if the URL has a signature
+   */
+  public static boolean isSigned(URI url) {
+    MultiValueMap<String, String> params =
+        UriComponentsBuilder.fromUri(url).build().getQueryParams();
+    return SIGNATURES.stream().anyMatch(params::containsKey);
+  }
+
+  @Nullable
+  private static String param(MultiValueMap<String, String> params, String name) {
+    String value = params.getFirst(name);
+    return value == null ? null : URLDecoder.decode(value, UTF_8);
+  }
+}
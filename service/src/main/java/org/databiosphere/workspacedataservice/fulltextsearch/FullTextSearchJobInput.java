@@ -0,0 +1,11 @@
+package org.databiosphere.workspacedataservice.fulltextsearch;
+
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.job.JobInput;
+
+/**
+ * JobInput implementation for enabling full-text search.
+ *
+ * @param recordType the record type to enable full-text search of
+ */
+public record FullTextSearchJobInput(RecordType recordType) implements JobInput {}
@@ -0,0 +1,51 @@
+package org.databiosphere.workspacedataservice.fulltextsearch;
+
+import static org.databiosphere.workspacedataservice.fulltextsearch.FullTextSearchService.ARG_RECORD_TYPE;
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_COLLECTION;
+import static org.databiosphere.workspacedataservice.shared.model.job.JobType.FULL_TEXT_SEARCH;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.jobexec.JobDataMapReader;
+import org.databiosphere.workspacedataservice.jobexec.QuartzJob;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+/** Enables full-text search of a record type, as started by {@link FullTextSearchService}. */
+@Component
+public class FullTextSearchQuartzJob extends QuartzJob {
+  private final FullTextSearchService fullTextSearchService;
+
+  public FullTextSearchQuartzJob(
+      DataImportProperties dataImportProperties,
+      ObservationRegistry observationRegistry,
+      JobDao jobDao,
+      FullTextSearchService fullTextSearchService) {
+    super(jobDao, observationRegistry, dataImportProperties);
+    this.fullTextSearchService = fullTextSearchService;
+  }
+
+  @Override
+  protected void annotateObservation(Observation observation) {
+    observation.lowCardinalityKeyValue("jobType", FULL_TEXT_SEARCH.toString());
+  }
+
+  @Override
+  protected void executeInternal(UUID jobId, JobExecutionContext context) {
+    JobDataMapReader jobData = JobDataMapReader.fromContext(context);
+    fullTextSearchService.runJob(
+        jobId,
+        jobData.getUUID(ARG_COLLECTION),
+        RecordType.valueOf(jobData.getString(ARG_RECORD_TYPE)));
+  }
+
+  // like data type conversions, enabling full-text search is not completed by any other service
+  @Override
+  protected boolean succeedOnCompletion() {
+    return true;
+  }
+}
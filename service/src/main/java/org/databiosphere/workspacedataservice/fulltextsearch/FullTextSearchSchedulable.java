@@ -0,0 +1,15 @@
+package org.databiosphere.workspacedataservice.fulltextsearch;
+
+import static org.databiosphere.workspacedataservice.shared.model.job.JobType.FULL_TEXT_SEARCH;
+
+import java.io.Serializable;
+import java.util.Map;
+import org.databiosphere.workspacedataservice.shared.model.Schedulable;
+
+public class FullTextSearchSchedulable extends Schedulable {
+
+  public FullTextSearchSchedulable(
+      String name, String description, Map<String, Serializable> arguments) {
+    super(FULL_TEXT_SEARCH.name(), name, FullTextSearchQuartzJob.class, description, arguments);
+  }
+}
@@ -0,0 +1,126 @@
+package org.databiosphere.workspacedataservice.fulltextsearch;
+
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_COLLECTION;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao.IndexedBatch;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.databiosphere.workspacedataservice.service.JobService;
+import org.databiosphere.workspacedataservice.service.RecordService;
+import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.job.Job;
+import org.databiosphere.workspacedataservice.shared.model.job.JobInput;
+import org.databiosphere.workspacedataservice.shared.model.job.JobResult;
+import org.databiosphere.workspacedataservice.shared.model.job.JobType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Enables full-text search of a record type online: rather than index every existing record in one
+ * transaction under an exclusive lock, which would block all reads and writes of a large record
+ * type for minutes, records are indexed in batches, and the index is then built concurrently. See
+ * {@link RecordDao#prepareFullTextSearch}.
+ *
+ * <p>Full-text search may be enabled synchronously, or by FULL_TEXT_SEARCH jobs which report their
+ * progress in sys_wds.job.
+ */
+@Service
+public class FullTextSearchService {
+  // keys for job data arguments
+  static final String ARG_RECORD_TYPE = "recordType";
+
+  private final RecordDao recordDao;
+  private final RecordService recordService;
+  private final JobDao jobDao;
+  private final JobService jobService;
+  private final int batchSize;
+
+  public FullTextSearchService(
+      RecordDao recordDao,
+      RecordService recordService,
+      JobDao jobDao,
+      JobService jobService,
+      @Value("${twds.full-text-search.batch-size:5000}") int batchSize) {
+    this.recordDao = recordDao;
+    this.recordService = recordService;
+    this.jobDao = jobDao;
+    this.jobService = jobService;
+    this.batchSize = batchSize;
+  }
+
+  /** Enable full-text search of a record type, waiting for existing records to be indexed. */
+  public void enable(UUID collectionId, RecordType recordType) {
+    if (recordDao.isFullTextSearchEnabled(collectionId, recordType)) {
+      return;
+    }
+    run(collectionId, recordType, progress -> {});
+  }
+
+  /**
+   * Start a job to enable full-text search of a record type. Queries which do not specify a column
+   * match only once the job has succeeded.
+   *
+   * @return the job, which succeeds at once if full-text search is already enabled
+   */
+  public GenericJobServerModel startEnabling(UUID collectionId, RecordType recordType) {
+    Job<JobInput, JobResult> job =
+        Job.newJob(
+            CollectionId.of(collectionId),
+            JobType.FULL_TEXT_SEARCH,
+            new FullTextSearchJobInput(recordType));
+    GenericJobServerModel createdJob = jobDao.createJob(job);
+    if (recordDao.isFullTextSearchEnabled(collectionId, recordType)) {
+      return jobDao.succeeded(job.getJobId());
+    }
+
+    jobService.schedule(
+        job.getJobId(),
+        Map.of(ARG_COLLECTION, collectionId.toString(), ARG_RECORD_TYPE, recordType.getName()),
+        arguments ->
+            new FullTextSearchSchedulable(
+                job.getJobId().toString(), "enable full-text search", arguments));
+    return createdJob;
+  }
+
+  /** Run the job started by {@link #startEnabling}. */
+  void runJob(UUID jobId, UUID collectionId, RecordType recordType) {
+    run(collectionId, recordType, progress -> jobDao.updateProgress(jobId, progress));
+  }
+
+  // add the full-text column, index existing records in batches, then build the index. Leaves
+  // full-text search disabled on any failure.
+  private void run(
+      UUID collectionId, RecordType recordType, Consumer<JobProgressServerModel> progress) {
+    try {
+      recordService.prepareFullTextSearch(collectionId, recordType);
+      long rowsTotal = recordDao.countRecords(collectionId, recordType);
+      long rowsIndexed = 0;
+      String lastRecordId = null;
+      IndexedBatch batch;
+      do {
+        batch = recordDao.indexFullTextBatch(collectionId, recordType, lastRecordId, batchSize);
+        rowsIndexed += batch.indexed();
+        lastRecordId = batch.lastRecordId();
+        progress.accept(
+            new JobProgressServerModel()
+                .table(recordType.getName())
+                .rowsWritten(rowsIndexed)
+                .rowsTotal(Math.max(rowsTotal, rowsIndexed)));
+      } while (batch.indexed() == batchSize);
+      recordDao.createFullTextIndexConcurrently(collectionId, recordType);
+    } catch (RuntimeException e) {
+      try {
+        recordService.disableFullTextSearch(collectionId, recordType);
+      } catch (RuntimeException disableException) {
+        e.addSuppressed(disableException);
+      }
+      throw e;
+    }
+  }
+}
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.annotation.JsonValue;
 import java.time.OffsetDateTime;
 import java.util.UUID;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.lang.Nullable;
 import org.openapitools.jackson.nullable.JsonNullable;
@@ -39,6 +40,10 @@ public class GenericJobServerModel {
     
     WORKSPACE_INIT("WORKSPACE_INIT"),
     
+    DATA_TYPE_CONVERSION("DATA_TYPE_CONVERSION"),
+    
+    FULL_TEXT_SEARCH("FULL_TEXT_SEARCH"),
+    
     UNKNOWN("UNKNOWN");
 
     private String value;
@@ -131,6 +136,8 @@ public class GenericJobServerModel {
 
   private @Nullable Object result;
 
+  private @Nullable JobProgressServerModel progress;
+
   public GenericJobServerModel() {
     super();
   }
@@ -327,6 +334,26 @@ public class GenericJobServerModel {
     this.result = result;
   }
 
+  public GenericJobServerModel progress(JobProgressServerModel progress) {
+    this.progress = progress;
+    return this;
+  }
+
+  /**
+   * Get progress
+   * @return progress
+   */
+  @Valid 
+  @Schema(name = "progress", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+  @JsonProperty("progress")
+  public JobProgressServerModel getProgress() {
+    return progress;
+  }
+
+  public void setProgress(JobProgressServerModel progress) {
+    this.progress = progress;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -344,12 +371,13 @@ public class GenericJobServerModel {
         Objects.equals(this.updated, genericJob.updated) &&
         Objects.equals(this.errorMessage, genericJob.errorMessage) &&
         Objects.equals(this.input, genericJob.input) &&
-        Objects.equals(this.result, genericJob.result);
+        Objects.equals(this.result, genericJob.result) &&
+        Objects.equals(this.progress, genericJob.progress);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(jobId, jobType, instanceId, status, created, updated, errorMessage, input, result);
+    return Objects.hash(jobId, jobType, instanceId, status, created, updated, errorMessage, input, result, progress);
   }
 
   @Override
@@ -365,6 +393,7 @@ public class GenericJobServerModel {
     sb.append("    errorMessage: ").append(toIndentedString(errorMessage)).append("\n");
     sb.append("    input: ").append(toIndentedString(input)).append("\n");
     sb.append("    result: ").append(toIndentedString(result)).append("\n");
+    sb.append("    progress: ").append(toIndentedString(progress)).append("\n");
     sb.append("}");
     return sb.toString();
   }
@@ -81,14 +81,19 @@ public interface JobApi {
 
     /**
      * GET /job/v1/instance/{instanceUuid} : Get all jobs with a certain status under a particular instance.
+     * Jobs are listed newest first. To list jobs page by page, specify &#x60;pageSize&#x60;, then request each following page by passing the &#x60;jobId&#x60; of the last job in the previous page as &#x60;afterJobId&#x60;. 
      *
      * @param instanceUuid WDS instance id; by convention equal to workspace id (required)
      * @param statuses  (optional)
+     * @param pageSize Maximum number of jobs to return, from 1 to 1000. If omitted, all matching jobs are returned.  (optional)
+     * @param afterJobId Return only jobs listed after this job. (optional)
+     * @param includeInput Whether to include each job&#39;s input. Omit input for smaller responses. (optional, default to true)
      * @return A list of jobs with specified status for Instance Id. (status code 200)
      */
     @Operation(
         operationId = "jobsInInstanceV1",
         summary = "Get all jobs with a certain status under a particular instance.",
+        description = "Jobs are listed newest first. To list jobs page by page, specify `pageSize`, then request each following page by passing the `jobId` of the last job in the previous page as `afterJobId`. ",
         tags = { "Job" },
         responses = {
             @ApiResponse(responseCode = "200", description = "A list of jobs with specified status for Instance Id.", content = {
@@ -107,7 +112,10 @@ public interface JobApi {
     
     default ResponseEntity<List<GenericJobServerModel>> jobsInInstanceV1(
         @Parameter(name = "instanceUuid", description = "WDS instance id; by convention equal to workspace id", required = true, in = ParameterIn.PATH) @PathVariable("instanceUuid") UUID instanceUuid,
-        @Parameter(name = "statuses", description = "", in = ParameterIn.QUERY) @Valid @RequestParam(value = "statuses", required = false) List<String> statuses
+        @Parameter(name = "statuses", description = "", in = ParameterIn.QUERY) @Valid @RequestParam(value = "statuses", required = false) List<String> statuses,
+        @Parameter(name = "pageSize", description = "Maximum number of jobs to return, from 1 to 1000. If omitted, all matching jobs are returned. ", in = ParameterIn.QUERY) @Valid @RequestParam(value = "pageSize", required = false) Integer pageSize,
+        @Parameter(name = "afterJobId", description = "Return only jobs listed after this job.", in = ParameterIn.QUERY) @Valid @RequestParam(value = "afterJobId", required = false) UUID afterJobId,
+        @Parameter(name = "includeInput", description = "Whether to include each job's input. Omit input for smaller responses.", in = ParameterIn.QUERY) @Valid @RequestParam(value = "includeInput", required = false, defaultValue = "true") Boolean includeInput
     ) {
         return new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED);
 
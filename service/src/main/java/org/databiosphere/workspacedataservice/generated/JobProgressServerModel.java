@@ -0,0 +1,270 @@
+package org.databiosphere.workspacedataservice.generated;
+
+import java.net.URI;
+import java.util.Objects;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.time.OffsetDateTime;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.lang.Nullable;
+import org.openapitools.jackson.nullable.JsonNullable;
+import java.time.OffsetDateTime;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+
+import java.util.*;
+import jakarta.annotation.Generated;
+
+/**
+ * Live progress of a running job. Updated periodically while the job runs, so it may lag slightly behind the job&#39;s actual progress. Only import jobs currently report progress. 
+ */
+
+@Schema(name = "JobProgress", description = "Live progress of a running job. Updated periodically while the job runs, so it may lag slightly behind the job's actual progress. Only import jobs currently report progress. ")
+@JsonTypeName("JobProgress")
+@Generated(value = "org.openapitools.codegen.languages.SpringCodegen", comments = "Generator version: 7.11.0")
+public class JobProgressServerModel {
+
+  /**
+   * The pass the job is currently making over its source data. Imports write base attributes in a first pass, then relations in a second pass. 
+   */
+  public enum PassEnum {
+    BASE_ATTRIBUTES("BASE_ATTRIBUTES"),
+    
+    RELATIONS("RELATIONS");
+
+    private String value;
+
+    PassEnum(String value) {
+      this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(value);
+    }
+
+    @JsonCreator
+    public static PassEnum fromValue(String value) {
+      for (PassEnum b : PassEnum.values()) {
+        if (b.value.equals(value)) {
+          return b;
+        }
+      }
+      throw new IllegalArgumentException("Unexpected value '" + value + "'");
+    }
+  }
+
+  private @Nullable PassEnum pass;
+
+  private @Nullable String table;
+
+  private @Nullable Long rowsRead;
+
+  private @Nullable Long rowsWritten;
+
+  private @Nullable Long rowsTotal;
+
+  private @Nullable Long bytesDownloaded;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private @Nullable OffsetDateTime estimatedCompletion;
+
+  public JobProgressServerModel pass(PassEnum pass) {
+    this.pass = pass;
+    return this;
+  }
+
+  /**
+   * The pass the job is currently making over its source data. Imports write base attributes in a first pass, then relations in a second pass. 
+   * @return pass
+   */
+  
+  @Schema(name = "pass", description = "The pass the job is currently making over its source data. Imports write base attributes in a first pass, then relations in a second pass. ", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+  @JsonProperty("pass")
+  public PassEnum getPass() {
+    return pass;
+  }
+
+  public void setPass(PassEnum pass) {
+    this.pass = pass;
+  }
+
+  public JobProgressServerModel table(String table) {
+    this.table = table;
+    return this;
+  }
+
+  /**
+   * The table currently being written
+   * @return table
+   */
+  
+  @Schema(name = "table", description = "The table currently being written", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+  @JsonProperty("table")
+  public String getTable() {
+    return table;
+  }
+
+  public void setTable(String table) {
+    this.table = table;
+  }
+
+  public JobProgressServerModel rowsRead(Long rowsRead) {
+    this.rowsRead = rowsRead;
+    return this;
+  }
+
+  /**
+   * Rows read from the source so far, summed across all passes
+   * @return rowsRead
+   */
+  
+  @Schema(name = "rowsRead", description = "Rows read from the source so far, summed across all passes", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+  @JsonProperty("rowsRead")
+  public Long getRowsRead() {
+    return rowsRead;
+  }
+
+  public void setRowsRead(Long rowsRead) {
+    this.rowsRead = rowsRead;
+  }
+
+  public JobProgressServerModel rowsWritten(Long rowsWritten) {
+    this.rowsWritten = rowsWritten;
+    return this;
+  }
+
+  /**
+   * Rows written to their destination so far, summed across all passes
+   * @return rowsWritten
+   */
+  
+  @Schema(name = "rowsWritten", description = "Rows written to their destination so far, summed across all passes", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+  @JsonProperty("rowsWritten")
+  public Long getRowsWritten() {
+    return rowsWritten;
+  }
+
+  public void setRowsWritten(Long rowsWritten) {
+    this.rowsWritten = rowsWritten;
+  }
+
+  public JobProgressServerModel rowsTotal(Long rowsTotal) {
+    this.rowsTotal = rowsTotal;
+    return this;
+  }
+
+  /**
+   * Rows the job expects to read in total, summed across all passes. Absent if the source format does not allow counting rows up front. 
+   * @return rowsTotal
+   */
+  
+  @Schema(name = "rowsTotal", description = "Rows the job expects to read in total, summed across all passes. Absent if the source format does not allow counting rows up front. ", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+  @JsonProperty("rowsTotal")
+  public Long getRowsTotal() {
+    return rowsTotal;
+  }
+
+  public void setRowsTotal(Long rowsTotal) {
+    this.rowsTotal = rowsTotal;
+  }
+
+  public JobProgressServerModel bytesDownloaded(Long bytesDownloaded) {
+    this.bytesDownloaded = bytesDownloaded;
+    return this;
+  }
+
+  /**
+   * Bytes of source data downloaded so far
+   * @return bytesDownloaded
+   */
+  
+  @Schema(name = "bytesDownloaded", description = "Bytes of source data downloaded so far", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+  @JsonProperty("bytesDownloaded")
+  public Long getBytesDownloaded() {
+    return bytesDownloaded;
+  }
+
+  public void setBytesDownloaded(Long bytesDownloaded) {
+    this.bytesDownloaded = bytesDownloaded;
+  }
+
+  public JobProgressServerModel estimatedCompletion(OffsetDateTime estimatedCompletion) {
+    this.estimatedCompletion = estimatedCompletion;
+    return this;
+  }
+
+  /**
+   * Estimated completion time, extrapolated from the rate at which rows have been read so far. Absent if rowsTotal is absent. 
+   * @return estimatedCompletion
+   */
+  @Valid 
+  @Schema(name = "estimatedCompletion", description = "Estimated completion time, extrapolated from the rate at which rows have been read so far. Absent if rowsTotal is absent. ", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+  @JsonProperty("estimatedCompletion")
+  public OffsetDateTime getEstimatedCompletion() {
+    return estimatedCompletion;
+  }
+
+  public void setEstimatedCompletion(OffsetDateTime estimatedCompletion) {
+    this.estimatedCompletion = estimatedCompletion;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    JobProgressServerModel jobProgress = (JobProgressServerModel) o;
+    return Objects.equals(this.pass, jobProgress.pass) &&
+        Objects.equals(this.table, jobProgress.table) &&
+        Objects.equals(this.rowsRead, jobProgress.rowsRead) &&
+        Objects.equals(this.rowsWritten, jobProgress.rowsWritten) &&
+        Objects.equals(this.rowsTotal, jobProgress.rowsTotal) &&
+        Objects.equals(this.bytesDownloaded, jobProgress.bytesDownloaded) &&
+        Objects.equals(this.estimatedCompletion, jobProgress.estimatedCompletion);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(pass, table, rowsRead, rowsWritten, rowsTotal, bytesDownloaded, estimatedCompletion);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class JobProgressServerModel {\n");
+    sb.append("    pass: ").append(toIndentedString(pass)).append("\n");
+    sb.append("    table: ").append(toIndentedString(table)).append("\n");
+    sb.append("    rowsRead: ").append(toIndentedString(rowsRead)).append("\n");
+    sb.append("    rowsWritten: ").append(toIndentedString(rowsWritten)).append("\n");
+    sb.append("    rowsTotal: ").append(toIndentedString(rowsTotal)).append("\n");
+    sb.append("    bytesDownloaded: ").append(toIndentedString(bytesDownloaded)).append("\n");
+    sb.append("    estimatedCompletion: ").append(toIndentedString(estimatedCompletion)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+}
+
@@ -38,6 +38,10 @@ public class JobV1ServerModel {
     
     WORKSPACE_INIT("WORKSPACE_INIT"),
     
+    DATA_TYPE_CONVERSION("DATA_TYPE_CONVERSION"),
+    
+    FULL_TEXT_SEARCH("FULL_TEXT_SEARCH"),
+    
     UNKNOWN("UNKNOWN");
 
     private String value;
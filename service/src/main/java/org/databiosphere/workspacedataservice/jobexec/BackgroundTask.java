@@ -0,0 +1,89 @@
+package org.databiosphere.workspacedataservice.jobexec;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.databiosphere.workspacedataservice.service.model.exception.DataImportException;
+import org.springframework.lang.Nullable;
+
+/**
+ * Part of a job which runs on its own thread, alongside the rest of the job, with the job's {@link
+ * JobContextHolder} context. Callers {@link #join()} the task where they need its result, and close
+ * it when done - typically in a try-with-resources - which cancels the task if it has not already
+ * completed, e.g. because the rest of the job failed.
+ */
+public class BackgroundTask implements AutoCloseable {
+  @Nullable private final ExecutorService executor;
+  @Nullable private final Future<Void> future;
+
+  private BackgroundTask(@Nullable ExecutorService executor, @Nullable Future<Void> future) {
+    this.executor = executor;
+    this.future = future;
+  }
+
+  /**
+   * Start running a task on its own thread.
+   *
+   * @param task the task to run
+   * @return the running task
+   */
+  public static BackgroundTask start(Runnable task) {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    return new BackgroundTask(
+        executor,
+        executor.submit(
+            JobContextHolder.propagate(
+                () -> {
+                  task.run();
+                  return null;
+                })));
+  }
+
+  /**
+   * Run a task on this thread, returning once it has completed; for callers which choose between
+   * running a task in the background or up front.
+   *
+   * @param task the task to run
+   * @return the completed task
+   */
+  public static BackgroundTask runNow(Runnable task) {
+    task.run();
+    return new BackgroundTask(null, null);
+  }
+
+  /**
+   * Wait for the task to complete, rethrowing its exception if it failed.
+   *
+   * @throws DataImportException if the task failed with a checked exception, or this thread was
+   *     interrupted while waiting
+   */
+  public void join() {
+    if (future == null) {
+      return;
+    }
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new DataImportException(e.getCause().getMessage(), e.getCause());
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new DataImportException("Interrupted while waiting for background task", e);
+    }
+  }
+
+  /** Cancel the task if it has not completed, and release its thread. */
+  @Override
+  public void close() {
+    if (future != null) {
+      future.cancel(true);
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
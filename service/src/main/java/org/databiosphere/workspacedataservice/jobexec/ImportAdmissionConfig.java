@@ -0,0 +1,52 @@
+package org.databiosphere.workspacedataservice.jobexec;
+
+import java.util.UUID;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.listeners.JobListenerSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
+
+/**
+ * Registers a Quartz job listener which releases an import's {@link ImportAdmissionQueue} slot as
+ * soon as its Quartz job finishes executing on this replica, successfully or not.
+ */
+@Configuration
+public class ImportAdmissionConfig {
+  private static final Logger logger = LoggerFactory.getLogger(ImportAdmissionConfig.class);
+
+  @Bean
+  public SchedulerFactoryBeanCustomizer importAdmissionCustomizer(
+      ObjectProvider<ImportAdmissionQueue> importAdmissionQueue) {
+    // ImportAdmissionQueue depends on the Quartz scheduler, so resolve it lazily
+    return schedulerFactoryBean ->
+        schedulerFactoryBean.setGlobalJobListeners(importAdmissionListener(importAdmissionQueue));
+  }
+
+  static JobListener importAdmissionListener(
+      ObjectProvider<ImportAdmissionQueue> importAdmissionQueue) {
+    return new JobListenerSupport() {
+      @Override
+      public String getName() {
+        return "importAdmission";
+      }
+
+      @Override
+      public void jobWasExecuted(
+          JobExecutionContext context, @Nullable JobExecutionException jobException) {
+        String jobId = context.getJobDetail().getKey().getName();
+        try {
+          importAdmissionQueue.getObject().release(UUID.fromString(jobId));
+        } catch (IllegalArgumentException e) {
+          logger.debug("Quartz job {} is not an import; nothing to release", jobId);
+        }
+      }
+    };
+  }
+}
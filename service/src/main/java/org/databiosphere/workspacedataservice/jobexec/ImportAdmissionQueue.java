@@ -0,0 +1,343 @@
+package org.databiosphere.workspacedataservice.jobexec;
+
+import static org.databiosphere.workspacedataservice.service.JobService.NONTERMINAL_JOB_STATUSES;
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_COLLECTION;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
+import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel.TypeEnum;
+import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.Schedulable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control for import jobs, in front of {@link SchedulerDao}. Rather than handing every
+ * import straight to Quartz, imports wait here until they can run without exceeding:
+ *
+ * <p>- twds.data-import.max-concurrent-imports, the number of imports admitted at once
+ *
+ * <p>- twds.data-import.max-concurrent-imports-per-collection, the number of imports admitted at
+ * once for any single collection
+ *
+ * <p>A limit of zero means unlimited. When a slot frees up, collections with waiting imports are
+ * offered it in round-robin order, so one collection submitting many imports cannot starve others.
+ * Within a collection, imports are admitted in the order they were submitted. Waiting imports
+ * remain in QUEUED status.
+ *
+ * <p>An admitted import's slot is released when its Quartz job finishes executing on this replica;
+ * see {@link ImportAdmissionConfig}. As a fallback, e.g. when a clustered job store runs the job on
+ * another replica, slots are also released for admitted jobs which reach a terminal status.
+ *
+ * <p>Waiting imports are stored in the Quartz job store without a trigger, and admitting an import
+ * triggers it. With a persistent job store, waiting imports therefore survive restarts: on startup,
+ * and periodically thereafter, each replica adopts stored imports which are still QUEUED but not
+ * waiting in its own queue, e.g. those submitted before a restart or on a replica which died.
+ * Replicas may adopt the same import; only the first to admit it triggers it.
+ *
+ * <p>Limits and the order of the waiting queue are held in memory, so they apply per replica.
+ */
+@Component
+public class ImportAdmissionQueue {
+  private static final Logger logger = LoggerFactory.getLogger(ImportAdmissionQueue.class);
+
+  /** How often, in milliseconds, to release slots held by jobs which finished elsewhere */
+  private static final long RELEASE_FINISHED_FREQUENCY_IN_MILLISECONDS = 30 * 1000;
+
+  /** How often, in milliseconds, to adopt stored imports which are not waiting on this replica */
+  private static final long RECOVER_WAITING_FREQUENCY_IN_MILLISECONDS = 60 * 1000;
+
+  // Quartz job groups of import jobs; see ImportService.createSchedulable
+  private static final List<String> IMPORT_GROUPS =
+      Arrays.stream(TypeEnum.values()).map(TypeEnum::name).toList();
+
+  private final SchedulerDao schedulerDao;
+  private final JobDao jobDao;
+  private final int maxConcurrentImports;
+  private final int maxConcurrentImportsPerCollection;
+
+  // guards the state below. Scheduling, which may write to the database, happens while holding
+  // this lock.
+  private final ReentrantLock lock = new ReentrantLock();
+
+  // collections with waiting imports, in the order they will next be offered a slot
+  private final Deque<CollectionId> rotation = new ArrayDeque<>();
+  // waiting imports for each collection, in submission order
+  private final Map<CollectionId, Deque<Schedulable>> waiting = new HashMap<>();
+  // admitted imports which have not yet finished, and the collections they belong to
+  private final Map<UUID, CollectionId> admitted = new HashMap<>();
+  // ids of waiting imports
+  private final Set<UUID> waitingJobIds = new HashSet<>();
+
+  public ImportAdmissionQueue(
+      SchedulerDao schedulerDao,
+      JobDao jobDao,
+      DataImportProperties dataImportProperties,
+      MeterRegistry meterRegistry) {
+    this.schedulerDao = schedulerDao;
+    this.jobDao = jobDao;
+    this.maxConcurrentImports = dataImportProperties.getMaxConcurrentImports();
+    this.maxConcurrentImportsPerCollection =
+        dataImportProperties.getMaxConcurrentImportsPerCollection();
+    Gauge.builder("wds.import.waiting", this, ImportAdmissionQueue::getNumWaiting)
+        .description("Number of imports waiting for admission on this replica")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Submit an import for execution. The job is stored in Quartz, then triggered immediately if
+   * limits allow; otherwise it waits for a slot. If storing or triggering fails, the job is marked
+   * as failed.
+   *
+   * @param collectionId the collection into which the job imports
+   * @param schedulable the job to schedule; its id must be the job id
+   */
+  public void submit(CollectionId collectionId, Schedulable schedulable) {
+    try {
+      schedulerDao.store(schedulable);
+    } catch (Exception e) {
+      jobDao.fail(UUID.fromString(schedulable.getId()), e);
+      return;
+    }
+    lock.lock();
+    try {
+      enqueue(collectionId, schedulable);
+      admit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Release the slot held by an admitted job, and admit waiting jobs into any free slots. Jobs
+   * which were not admitted by this queue are ignored.
+   *
+   * @param jobId the job which finished
+   */
+  public void release(UUID jobId) {
+    lock.lock();
+    try {
+      if (admitted.remove(jobId) != null) {
+        logger.debug("Import job {} released its admission slot", jobId);
+        admit();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Release slots held by admitted jobs which have reached a terminal status. */
+  @Scheduled(fixedDelay = RELEASE_FINISHED_FREQUENCY_IN_MILLISECONDS)
+  public void releaseFinished() {
+    List<UUID> admittedJobIds;
+    lock.lock();
+    try {
+      admittedJobIds = List.copyOf(admitted.keySet());
+    } finally {
+      lock.unlock();
+    }
+    // query job statuses without holding the lock
+    admittedJobIds.stream().filter(this::isFinished).forEach(this::release);
+  }
+
+  /**
+   * Adopt stored imports which are still QUEUED but not known to this queue, e.g. those submitted
+   * before a restart or on another replica, in the order they were created. Stored imports whose
+   * jobs have reached a terminal status will never be triggered, so they are deleted.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelay = RECOVER_WAITING_FREQUENCY_IN_MILLISECONDS,
+      fixedDelay = RECOVER_WAITING_FREQUENCY_IN_MILLISECONDS)
+  public void recoverWaiting() {
+    List<Schedulable> storedJobs;
+    Set<UUID> knownJobIds;
+    try {
+      storedJobs = schedulerDao.getStoredJobs(IMPORT_GROUPS);
+    } catch (Exception e) {
+      logger.warn("Could not list stored import jobs: {}", e.getMessage());
+      return;
+    }
+    lock.lock();
+    try {
+      knownJobIds = new HashSet<>(waitingJobIds);
+      knownJobIds.addAll(admitted.keySet());
+    } finally {
+      lock.unlock();
+    }
+
+    // query job statuses without holding the lock
+    List<StoredImport> recovered = new ArrayList<>();
+    for (Schedulable schedulable : storedJobs) {
+      UUID jobId = UUID.fromString(schedulable.getId());
+      if (knownJobIds.contains(jobId)) {
+        continue;
+      }
+      try {
+        GenericJobServerModel job = jobDao.getJob(jobId);
+        if (job.getStatus() == StatusEnum.QUEUED) {
+          CollectionId collectionId =
+              CollectionId.fromString(schedulable.getArguments().get(ARG_COLLECTION).toString());
+          recovered.add(new StoredImport(collectionId, schedulable, job.getCreated()));
+        } else if (!NONTERMINAL_JOB_STATUSES.contains(job.getStatus())) {
+          deleteQuietly(schedulable);
+        }
+      } catch (EmptyResultDataAccessException e) {
+        // the job no longer exists
+        deleteQuietly(schedulable);
+      } catch (Exception e) {
+        logger.warn("Could not recover stored import job {}: {}", jobId, e.getMessage());
+      }
+    }
+    if (recovered.isEmpty()) {
+      return;
+    }
+
+    recovered.sort(Comparator.comparing(StoredImport::created));
+    lock.lock();
+    try {
+      for (StoredImport storedImport : recovered) {
+        UUID jobId = UUID.fromString(storedImport.schedulable().getId());
+        // skip jobs submitted to this queue since we listed them
+        if (!waitingJobIds.contains(jobId) && !admitted.containsKey(jobId)) {
+          enqueue(storedImport.collectionId(), storedImport.schedulable());
+          logger.info("Recovered stored import job {}", jobId);
+        }
+      }
+      admit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int getNumWaiting() {
+    lock.lock();
+    try {
+      return waitingJobIds.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int getNumAdmitted() {
+    lock.lock();
+    try {
+      return admitted.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean isFinished(UUID jobId) {
+    try {
+      return !NONTERMINAL_JOB_STATUSES.contains(jobDao.getJob(jobId).getStatus());
+    } catch (EmptyResultDataAccessException e) {
+      // the job no longer exists
+      return true;
+    }
+  }
+
+  private void enqueue(CollectionId collectionId, Schedulable schedulable) {
+    waiting
+        .computeIfAbsent(
+            collectionId,
+            id -> {
+              rotation.addLast(id);
+              return new ArrayDeque<>();
+            })
+        .addLast(schedulable);
+    waitingJobIds.add(UUID.fromString(schedulable.getId()));
+  }
+
+  /**
+   * Admit waiting jobs, round-robin across collections, until either no jobs are waiting, the
+   * global limit is reached, or every collection with waiting jobs has reached its own limit.
+   */
+  private void admit() {
+    // number of consecutive collections passed over because they are at their limit
+    int numAtLimit = 0;
+    while (!rotation.isEmpty() && numAtLimit < rotation.size() && hasCapacity()) {
+      CollectionId collectionId = rotation.removeFirst();
+      if (!hasCapacity(collectionId)) {
+        rotation.addLast(collectionId);
+        numAtLimit++;
+        continue;
+      }
+      numAtLimit = 0;
+      Deque<Schedulable> collectionQueue = waiting.get(collectionId);
+      Schedulable schedulable = collectionQueue.removeFirst();
+      waitingJobIds.remove(UUID.fromString(schedulable.getId()));
+      if (collectionQueue.isEmpty()) {
+        waiting.remove(collectionId);
+      } else {
+        rotation.addLast(collectionId);
+      }
+      schedule(collectionId, schedulable);
+    }
+  }
+
+  private void schedule(CollectionId collectionId, Schedulable schedulable) {
+    UUID jobId = UUID.fromString(schedulable.getId());
+    admitted.put(jobId, collectionId);
+    try {
+      if (schedulerDao.trigger(schedulable)) {
+        logger.debug("Import job {} admitted and triggered", jobId);
+      } else {
+        // another replica admitted this job, or it finished; either way it needs no slot here
+        admitted.remove(jobId);
+      }
+    } catch (Exception e) {
+      // this job won't run, so mark it as failed and give up its slot
+      admitted.remove(jobId);
+      jobDao.fail(jobId, e);
+      deleteQuietly(schedulable);
+    }
+  }
+
+  private void deleteQuietly(Schedulable schedulable) {
+    try {
+      schedulerDao.delete(schedulable);
+    } catch (Exception e) {
+      logger.warn("Could not delete stored import job {}: {}", schedulable.getId(), e.getMessage());
+    }
+  }
+
+  private boolean hasCapacity() {
+    return maxConcurrentImports <= 0 || admitted.size() < maxConcurrentImports;
+  }
+
+  private boolean hasCapacity(CollectionId collectionId) {
+    if (maxConcurrentImportsPerCollection <= 0) {
+      return true;
+    }
+    long numAdmitted = admitted.values().stream().filter(collectionId::equals).count();
+    return numAdmitted < maxConcurrentImportsPerCollection;
+  }
+
+  // a stored import recovered from the job store, with its job's creation time for ordering
+  private record StoredImport(
+      CollectionId collectionId, Schedulable schedulable, OffsetDateTime created) {}
+}
@@ -1,7 +1,11 @@
 package org.databiosphere.workspacedataservice.jobexec;
 
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.MDC;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * Modeled after Spring's RequestContextHolder, this class manages a ThreadLocal Map<String, Object>
@@ -65,4 +69,39 @@ public class JobContextHolder {
   public static void destroy() {
     JOB_CONTEXT.remove();
   }
+
+  /**
+   * Wrap a task so that, on whichever thread runs it, it sees a copy of this thread's attributes,
+   * this thread's Spring request attributes, if any, and its MDC logging context, as when a job or
+   * request hands work to an executor. The running thread's context is destroyed when the task
+   * completes; callers must wait for the task to complete before their request does.
+   *
+   * @param task the task to wrap
+   * @return the wrapped task
+   */
+  public static <T> Callable<T> propagate(Callable<T> task) {
+    Map<String, Object> attributes = getAttributes();
+    Map<String, Object> attributesCopy = attributes == null ? null : Map.copyOf(attributes);
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+    return () -> {
+      if (attributesCopy != null) {
+        init();
+        attributesCopy.forEach(JobContextHolder::setAttribute);
+      }
+      if (requestAttributes != null) {
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+      }
+      if (mdc != null) {
+        MDC.setContextMap(mdc);
+      }
+      try {
+        return task.call();
+      } finally {
+        destroy();
+        RequestContextHolder.resetRequestAttributes();
+        MDC.clear();
+      }
+    };
+  }
 }
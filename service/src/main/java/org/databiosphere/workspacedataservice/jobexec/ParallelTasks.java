@@ -0,0 +1,58 @@
+package org.databiosphere.workspacedataservice.jobexec;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Runs parts of a job in parallel on an executor, with the job's {@link JobContextHolder} context,
+ * failing fast: the first task to fail cancels the rest. See also {@link BackgroundTask}, for a
+ * single task running alongside the job.
+ */
+public class ParallelTasks {
+
+  private ParallelTasks() {}
+
+  /**
+   * Run tasks on the executor, passing each result to the consumer on this thread as it completes.
+   * If any task fails, cancels the rest and throws its exception.
+   *
+   * @param executor the executor to run the tasks on
+   * @param tasks the tasks to run
+   * @param onCompletion called with each task's result, in the order the tasks complete
+   * @param exception creates the exception to throw, from a message and a cause, if a task fails
+   *     with a checked exception or this thread is interrupted while waiting
+   */
+  public static <T> void runAll(
+      ExecutorService executor,
+      List<Callable<T>> tasks,
+      Consumer<T> onCompletion,
+      BiFunction<String, Throwable, RuntimeException> exception) {
+    CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+    List<Future<T>> futures =
+        tasks.stream()
+            .map(task -> completionService.submit(JobContextHolder.propagate(task)))
+            .toList();
+    try {
+      for (int i = 0; i < tasks.size(); i++) {
+        onCompletion.accept(completionService.take().get());
+      }
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw exception.apply(e.getCause().getMessage(), e.getCause());
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw exception.apply("Interrupted while waiting for parallel tasks", e);
+    }
+  }
+}
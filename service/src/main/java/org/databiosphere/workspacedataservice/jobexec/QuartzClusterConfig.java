@@ -0,0 +1,67 @@
+package org.databiosphere.workspacedataservice.jobexec;
+
+import java.util.Map;
+import java.util.Properties;
+import org.quartz.impl.jdbcjobstore.PostgreSQLDelegate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures Quartz's JDBC job store as a restart-safe, cluster-aware job queue when WDS runs with
+ * {@code spring.quartz.job-store-type=jdbc}. In this mode:
+ *
+ * <p>- Quartz persists jobs and triggers to the sys_wds.qrtz_* tables, so scheduled jobs survive a
+ * restart of the replica that created them.
+ *
+ * <p>- every replica acquires triggers from the same tables, row-locked via sys_wds.qrtz_locks, so
+ * queued jobs are spread across all replicas.
+ *
+ * <p>- each replica heartbeats into sys_wds.qrtz_scheduler_state. A fired trigger is effectively a
+ * lease held by the replica in sys_wds.qrtz_fired_triggers; if a replica stops heartbeating, a
+ * surviving replica re-queues the jobs it held, provided they request recovery (see {@link
+ * org.databiosphere.workspacedataservice.shared.model.Schedulable#getJobDetail()}).
+ *
+ * <p>Any of these defaults may be overridden via {@code spring.quartz.properties}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.quartz.job-store-type", havingValue = "jdbc")
+public class QuartzClusterConfig {
+
+  /** How often, in milliseconds, each replica heartbeats into sys_wds.qrtz_scheduler_state */
+  static final long DEFAULT_CLUSTER_CHECKIN_INTERVAL_MILLIS = 15000;
+
+  @Bean
+  public SchedulerFactoryBeanCustomizer clusteredJobStoreCustomizer(
+      QuartzProperties quartzProperties) {
+    // SchedulerFactoryBean has no getter for its Quartz properties, so we re-apply the
+    // user-supplied spring.quartz.properties on top of our defaults.
+    return schedulerFactoryBean ->
+        schedulerFactoryBean.setQuartzProperties(
+            clusteredJobStoreProperties(quartzProperties.getProperties()));
+  }
+
+  /**
+   * Quartz properties for a clustered JDBC job store in the sys_wds schema.
+   *
+   * @param overrides properties which take precedence over the defaults
+   * @return the merged properties
+   */
+  public static Properties clusteredJobStoreProperties(Map<String, String> overrides) {
+    Properties props = new Properties();
+    props.put("org.quartz.jobStore.driverDelegateClass", PostgreSQLDelegate.class.getName());
+    props.put("org.quartz.jobStore.tablePrefix", "sys_wds.qrtz_");
+    props.put("org.quartz.jobStore.isClustered", "true");
+    props.put(
+        "org.quartz.jobStore.clusterCheckinInterval",
+        String.valueOf(DEFAULT_CLUSTER_CHECKIN_INTERVAL_MILLIS));
+    // take the trigger lock while acquiring, so two replicas never fire the same trigger
+    props.put("org.quartz.jobStore.acquireTriggersWithinLock", "true");
+    // each replica needs a unique instance id within the cluster
+    props.put("org.quartz.scheduler.instanceId", "AUTO");
+    props.putAll(overrides);
+    return props;
+  }
+}
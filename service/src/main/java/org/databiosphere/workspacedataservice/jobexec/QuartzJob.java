@@ -13,6 +13,8 @@ import org.databiosphere.workspacedataservice.service.MDCServletRequestListener;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 /**
@@ -34,6 +36,7 @@ import org.slf4j.MDC;
 // note this implements Quartz's `Job`, not WDS's own `Job`
 public abstract class QuartzJob implements Job {
 
+  private static final Logger logger = LoggerFactory.getLogger(QuartzJob.class);
   private final JobDao jobDao;
   private final ObservationRegistry observationRegistry;
   private final DataImportProperties dataImportProperties;
@@ -68,6 +71,11 @@ public abstract class QuartzJob implements Job {
             .highCardinalityKeyValue("jobId", jobId.toString());
     annotateObservation(observation);
     try {
+      // with a clustered job store, Quartz re-queues jobs whose replica died mid-execution
+      if (context.isRecovering()) {
+        logger.warn("Job {} is being recovered after an interrupted execution", jobId);
+        observation.event(Observation.Event.of("job.recovering"));
+      }
       // mark this job as running
       jobDao.running(jobId);
       observation.event(Observation.Event.of("job.running"));
@@ -81,7 +89,7 @@ public abstract class QuartzJob implements Job {
       executeInternal(jobId, context);
 
       // if we reached here, and config says we should, mark this job as successful
-      if (dataImportProperties.isSucceedOnCompletion()) {
+      if (succeedOnCompletion()) {
         jobDao.succeeded(jobId);
         observation.lowCardinalityKeyValue("outcome", StatusEnum.SUCCEEDED.getValue());
       } else {
@@ -101,6 +109,14 @@ public abstract class QuartzJob implements Job {
 
   protected abstract void executeInternal(UUID jobId, JobExecutionContext context);
 
+  /**
+   * Should this job be marked as SUCCEEDED once `executeInternal()` finishes? Data imports may
+   * instead be completed by another service, per configuration.
+   */
+  protected boolean succeedOnCompletion() {
+    return dataImportProperties.isSucceedOnCompletion();
+  }
+
   // try to retrieve MDC id from job context and add to this thread; don't fail if this errors out
   private void propagateMdc(JobDataMapReader reader) {
     try {
@@ -0,0 +1,78 @@
+package org.databiosphere.workspacedataservice.metrics;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.ObservationView;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.lang.Nullable;
+
+/**
+ * Counts the work one API request causes: SQL statements run, rows and bytes read from the
+ * database, and outbound calls to other services. Created per request by {@link
+ * RequestAccountingFilter} and stored in the context of the request's http.server.requests
+ * observation, so that anything running within that observation, including the wds.outbound
+ * observations of RestClientRetry, can find it with {@link #current}.
+ */
+public class RequestAccounting {
+  private final AtomicLong statements = new AtomicLong();
+  private final AtomicLong rows = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicLong outboundCalls = new AtomicLong();
+
+  /**
+   * Find the accounting for the current request.
+   *
+   * @param observationRegistry registry holding the current observation
+   * @return the accounting, or null if the current thread is not handling an API request
+   */
+  @Nullable
+  public static RequestAccounting current(ObservationRegistry observationRegistry) {
+    ObservationView observation = observationRegistry.getCurrentObservation();
+    while (observation != null) {
+      RequestAccounting accounting = observation.getContextView().get(RequestAccounting.class);
+      if (accounting != null) {
+        return accounting;
+      }
+      observation = observation.getContextView().getParentObservation();
+    }
+    return null;
+  }
+
+  public void statementExecuted() {
+    statements.incrementAndGet();
+  }
+
+  public void rowFetched() {
+    rows.incrementAndGet();
+  }
+
+  public void bytesFetched(long count) {
+    bytes.addAndGet(count);
+  }
+
+  public void outboundCall() {
+    outboundCalls.incrementAndGet();
+  }
+
+  public long getStatements() {
+    return statements.get();
+  }
+
+  public long getRows() {
+    return rows.get();
+  }
+
+  public long getBytes() {
+    return bytes.get();
+  }
+
+  public long getOutboundCalls() {
+    return outboundCalls.get();
+  }
+
+  /** e.g. "statements=12, rows=340, bytes=20480, outbound=2" */
+  @Override
+  public String toString() {
+    return "statements=%d, rows=%d, bytes=%d, outbound=%d"
+        .formatted(getStatements(), getRows(), getBytes(), getOutboundCalls());
+  }
+}
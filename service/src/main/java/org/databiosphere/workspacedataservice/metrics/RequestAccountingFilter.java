@@ -0,0 +1,80 @@
+package org.databiosphere.workspacedataservice.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Starts a {@link RequestAccounting} for each API request, and when the request completes publishes
+ * its counts as the wds.request.statements, wds.request.rows, wds.request.bytes and
+ * wds.request.outbound distribution summaries, tagged by endpoint.
+ *
+ * <p>This runs inside Spring's ServerHttpObservationFilter, which opens the http.server.requests
+ * observation the accounting is attached to. Requests outside any observation are not accounted.
+ * Statements, rows and bytes are counted only if twds.request-accounting.database-enabled is true;
+ * see RequestAccountingDataSource.
+ */
+@Component
+public class RequestAccountingFilter extends OncePerRequestFilter {
+  private final ObservationRegistry observationRegistry;
+  private final MeterRegistry meterRegistry;
+
+  public RequestAccountingFilter(
+      ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+    this.observationRegistry = observationRegistry;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    Observation observation = observationRegistry.getCurrentObservation();
+    if (observation == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    RequestAccounting accounting = new RequestAccounting();
+    observation.getContext().put(RequestAccounting.class, accounting);
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      publish(request, accounting);
+    }
+  }
+
+  private void publish(HttpServletRequest request, RequestAccounting accounting) {
+    // the matched pattern, e.g. /records/v0.2/{collectionId}/{recordType}, bounds the number of
+    // distinct tags the same way http.server.requests does
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+    summary("wds.request.statements", "statements", "SQL statements run", request, uri)
+        .record(accounting.getStatements());
+    summary("wds.request.rows", "rows", "Rows read from the database", request, uri)
+        .record(accounting.getRows());
+    summary("wds.request.bytes", "bytes", "Bytes of values read from the database", request, uri)
+        .record(accounting.getBytes());
+    summary("wds.request.outbound", "calls", "Calls to other services", request, uri)
+        .record(accounting.getOutboundCalls());
+  }
+
+  private DistributionSummary summary(
+      String name, String baseUnit, String description, HttpServletRequest request, String uri) {
+    return DistributionSummary.builder(name)
+        .baseUnit(baseUnit)
+        .description(description + " per API request")
+        .tag("method", request.getMethod())
+        .tag("uri", uri)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+  }
+}
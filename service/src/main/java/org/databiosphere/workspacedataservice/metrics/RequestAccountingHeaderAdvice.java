@@ -0,0 +1,51 @@
+package org.databiosphere.workspacedataservice.metrics;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * When twds.request-accounting.header-enabled is true, reports the {@link RequestAccounting} of
+ * each API response in a "WDS-Request-Accounting" header, e.g. "statements=12, rows=340,
+ * bytes=20480, outbound=2". The counts are taken just before the response body is written, so they
+ * omit work done while streaming a response. Enabled in non-production profiles only.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "twds.request-accounting.header-enabled", havingValue = "true")
+public class RequestAccountingHeaderAdvice implements ResponseBodyAdvice<Object> {
+  public static final String HEADER = "WDS-Request-Accounting";
+
+  private final ObservationRegistry observationRegistry;
+
+  public RequestAccountingHeaderAdvice(ObservationRegistry observationRegistry) {
+    this.observationRegistry = observationRegistry;
+  }
+
+  @Override
+  public boolean supports(
+      MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(
+      @Nullable Object body,
+      MethodParameter returnType,
+      MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+      ServerHttpRequest request,
+      ServerHttpResponse response) {
+    RequestAccounting accounting = RequestAccounting.current(observationRegistry);
+    if (accounting != null) {
+      response.getHeaders().set(HEADER, accounting.toString());
+    }
+    return body;
+  }
+}
@@ -0,0 +1,85 @@
+package org.databiosphere.workspacedataservice.outbound;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Limits the number of concurrent requests from one {@link OutboundHttpClients} client. OkHttp only
+ * limits concurrency for asynchronous calls, and WDS makes synchronous calls; without this limit, a
+ * burst of calls opens an unbounded number of connections to the downstream service.
+ *
+ * <p>Requests over the limit wait for a permit, up to the given timeout, and then fail with an
+ * IOException.
+ */
+class HostConcurrencyInterceptor implements Interceptor {
+  private final String clientName;
+  private final int maxRequests;
+  private final Semaphore permits;
+  private final Duration maxWait;
+  private final Timer waitTimer;
+
+  HostConcurrencyInterceptor(
+      String clientName, int maxRequests, Duration maxWait, MeterRegistry meterRegistry) {
+    this.clientName = clientName;
+    this.maxRequests = maxRequests;
+    this.permits = new Semaphore(maxRequests, /* fair= */ true);
+    this.maxWait = maxWait;
+    Gauge.builder("wds.outbound.requests.active", () -> maxRequests - permits.availablePermits())
+        .description("Outbound requests in flight")
+        .tag("client", clientName)
+        .register(meterRegistry);
+    Gauge.builder("wds.outbound.requests.waiting", permits::getQueueLength)
+        .description("Outbound requests waiting for an in-flight request to finish")
+        .tag("client", clientName)
+        .register(meterRegistry);
+    Gauge.builder("wds.outbound.requests.limit", () -> maxRequests)
+        .description("Maximum outbound requests in flight")
+        .tag("client", clientName)
+        .register(meterRegistry);
+    this.waitTimer =
+        Timer.builder("wds.outbound.requests.wait")
+            .description("Time outbound requests waited for an in-flight request to finish")
+            .tag("client", clientName)
+            .register(meterRegistry);
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    acquire();
+    try {
+      return chain.proceed(chain.request());
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void acquire() throws IOException {
+    // don't bother timing the uncontended case
+    if (permits.tryAcquire()) {
+      waitTimer.record(Duration.ZERO);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      boolean acquired = permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+      waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      if (!acquired) {
+        throw new IOException(
+            "Timed out after %s waiting for one of %d in-flight %s requests to finish"
+                .formatted(maxWait, maxRequests, clientName));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          "Interrupted waiting to send %s request".formatted(clientName));
+    }
+  }
+}
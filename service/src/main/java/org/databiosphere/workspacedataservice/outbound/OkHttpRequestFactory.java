@@ -0,0 +1,137 @@
+package org.databiosphere.workspacedataservice.outbound;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+
+/**
+ * Adapts an OkHttpClient to Spring's {@link ClientHttpRequestFactory}, so that RestClients share
+ * the connection pools of {@link OutboundHttpClients} with the generated Sam client, which is built
+ * on OkHttp. Request bodies are buffered in memory; WDS' outbound request bodies are small.
+ */
+class OkHttpRequestFactory implements ClientHttpRequestFactory {
+  private final OkHttpClient httpClient;
+
+  OkHttpRequestFactory(OkHttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
+  @Override
+  public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+    return new OkHttpClientRequest(httpClient, uri, httpMethod);
+  }
+
+  private static class OkHttpClientRequest extends AbstractClientHttpRequest {
+    private final OkHttpClient httpClient;
+    private final URI uri;
+    private final HttpMethod method;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+    OkHttpClientRequest(OkHttpClient httpClient, URI uri, HttpMethod method) {
+      this.httpClient = httpClient;
+      this.uri = uri;
+      this.method = method;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+      return method;
+    }
+
+    @Override
+    public URI getURI() {
+      return uri;
+    }
+
+    @Override
+    protected OutputStream getBodyInternal(HttpHeaders headers) {
+      return body;
+    }
+
+    @Override
+    protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+      Request.Builder request = new Request.Builder().url(uri.toURL());
+      headers.forEach(
+          (name, values) -> {
+            // OkHttp computes the content length itself
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+              values.forEach(value -> request.addHeader(name, value));
+            }
+          });
+      request.method(method.name(), requestBody(headers));
+      return new OkHttpClientResponse(httpClient.newCall(request.build()).execute());
+    }
+
+    // OkHttp rejects bodies on GET and HEAD, and requires them on POST, PUT and PATCH
+    @Nullable
+    private RequestBody requestBody(HttpHeaders headers) {
+      if (method == HttpMethod.GET || method == HttpMethod.HEAD) {
+        return null;
+      }
+      MediaType contentType =
+          headers.getContentType() == null
+              ? null
+              : MediaType.parse(headers.getContentType().toString());
+      return RequestBody.create(body.toByteArray(), contentType);
+    }
+  }
+
+  private static class OkHttpClientResponse implements ClientHttpResponse {
+    private final Response response;
+    @Nullable private HttpHeaders headers;
+
+    OkHttpClientResponse(Response response) {
+      this.response = response;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+      return HttpStatusCode.valueOf(response.code());
+    }
+
+    @Override
+    public String getStatusText() {
+      return response.message();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      if (headers == null) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        response
+            .headers()
+            .forEach(header -> responseHeaders.add(header.getFirst(), header.getSecond()));
+        headers = responseHeaders;
+      }
+      return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+      ResponseBody body = response.body();
+      return body == null ? InputStream.nullInputStream() : body.byteStream();
+    }
+
+    // closing the response returns its connection to the pool
+    @Override
+    public void close() {
+      response.close();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package org.databiosphere.workspacedataservice.outbound;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpConnectionPoolMetrics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.databiosphere.workspacedataservice.config.OutboundHttpProperties;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * Shared HTTP clients for calls from WDS to other services. All clients share OkHttp's dispatcher
+ * and configuration, but each named client, i.e. each downstream service, gets:
+ *
+ * <p>- its own keep-alive connection pool, so a burst of calls to one service neither evicts nor
+ * waits on connections to another. Connections to a host are reused across requests and users,
+ * avoiding repeated TCP and TLS handshakes.
+ *
+ * <p>- its own limit on concurrent requests; see {@link HostConcurrencyInterceptor}.
+ *
+ * <p>- pool metrics, tagged with the client name: wds.outbound.pool.connection.count (by state,
+ * active or idle) and wds.outbound.pool.connection.limit from OkHttp's pool, and
+ * wds.outbound.requests.active, wds.outbound.requests.waiting and wds.outbound.requests.wait from
+ * the concurrency limit. Requests waiting for a permit are the signal that a pool is saturated.
+ *
+ * <p>HTTP/2 is negotiated when enabled by {@link OutboundHttpProperties#isHttp2Enabled()}.
+ */
+public class OutboundHttpClients {
+  static final String POOL_METRICS_PREFIX = "wds.outbound.pool";
+
+  private final OkHttpClient baseClient;
+  private final OutboundHttpProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+  public OutboundHttpClients(OutboundHttpProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    List<Protocol> protocols =
+        properties.isHttp2Enabled()
+            ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+            : List.of(Protocol.HTTP_1_1);
+    this.baseClient =
+        new OkHttpClient.Builder()
+            .protocols(protocols)
+            .connectTimeout(properties.getConnectTimeout())
+            .readTimeout(properties.getReadTimeout())
+            .writeTimeout(properties.getReadTimeout())
+            .callTimeout(properties.getRequestTimeout())
+            .build();
+  }
+
+  /**
+   * Get the HTTP client for the named downstream service, creating it on first use.
+   *
+   * @param clientName the downstream service, e.g. "sam"; used to tag metrics
+   * @return the client
+   */
+  public OkHttpClient httpClient(String clientName) {
+    return clients.computeIfAbsent(clientName, this::buildClient);
+  }
+
+  /**
+   * Get a request factory, for use with Spring's RestClient, which sends requests using the HTTP
+   * client for the named downstream service.
+   *
+   * @param clientName the downstream service, e.g. "rawls"; used to tag metrics
+   * @return the request factory
+   */
+  public ClientHttpRequestFactory requestFactory(String clientName) {
+    return new OkHttpRequestFactory(httpClient(clientName));
+  }
+
+  private OkHttpClient buildClient(String clientName) {
+    Tags tags = Tags.of("client", clientName);
+    ConnectionPool connectionPool =
+        new ConnectionPool(
+            properties.getMaxIdleConnectionsPerHost(),
+            properties.getKeepAlive().toMillis(),
+            TimeUnit.MILLISECONDS);
+    new OkHttpConnectionPoolMetrics(
+            connectionPool, POOL_METRICS_PREFIX, tags, properties.getMaxIdleConnectionsPerHost())
+        .bindTo(meterRegistry);
+    return baseClient
+        .newBuilder()
+        .connectionPool(connectionPool)
+        .addInterceptor(
+            new HostConcurrencyInterceptor(
+                clientName,
+                properties.getMaxRequestsPerHost(),
+                properties.getConnectTimeout(),
+                meterRegistry))
+        .build();
+  }
+}
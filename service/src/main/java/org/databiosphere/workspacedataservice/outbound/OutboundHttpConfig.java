@@ -0,0 +1,16 @@
+package org.databiosphere.workspacedataservice.outbound;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.databiosphere.workspacedataservice.config.OutboundHttpProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OutboundHttpConfig {
+
+  @Bean
+  public OutboundHttpClients outboundHttpClients(
+      OutboundHttpProperties outboundHttpProperties, MeterRegistry meterRegistry) {
+    return new OutboundHttpClients(outboundHttpProperties, meterRegistry);
+  }
+}
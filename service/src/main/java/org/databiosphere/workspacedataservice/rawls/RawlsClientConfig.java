@@ -3,6 +3,7 @@ package org.databiosphere.workspacedataservice.rawls;
 import io.micrometer.observation.ObservationRegistry;
 import java.net.MalformedURLException;
 import java.net.URL;
+import org.databiosphere.workspacedataservice.outbound.OutboundHttpClients;
 import org.databiosphere.workspacedataservice.retry.RestClientRetry;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,10 +33,11 @@ public class RawlsClientConfig {
     return httpServiceProxyFactory.createClient(RawlsApi.class);
   }
 
-  // fluent RestClient, initialized with Rawls' base url, auth from TokenContextUtil, and the
-  // current observationRegistry for Prometheus metrics
+  // fluent RestClient, initialized with Rawls' base url, auth from TokenContextUtil, the shared
+  // "rawls" connection pool, and the current observationRegistry for Prometheus metrics
   @Bean
-  public RestClient rawlsRestClient(ObservationRegistry observationRegistry)
+  public RestClient rawlsRestClient(
+      ObservationRegistry observationRegistry, OutboundHttpClients outboundHttpClients)
       throws MalformedURLException {
 
     // validate the Rawls url is well-formed.
@@ -43,6 +45,7 @@ public class RawlsClientConfig {
     new URL(rawlsUrl);
 
     return RestClient.builder()
+        .requestFactory(outboundHttpClients.requestFactory("rawls"))
         .observationRegistry(observationRegistry)
         .baseUrl(rawlsUrl)
         .requestInitializer(new BearerAuthRequestInitializer())
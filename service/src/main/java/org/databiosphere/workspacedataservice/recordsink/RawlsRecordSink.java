@@ -101,6 +101,12 @@ public class RawlsRecordSink implements RecordSink {
     throw new UnsupportedOperationException("RawlsRecordSink does not support deleteBatch");
   }
 
+  @Override
+  public boolean deliversOnSuccess() {
+    // records are written to a file, which Rawls is only told about on success
+    return true;
+  }
+
   @Override
   public void success() throws DataImportException {
     isComplete = true;
@@ -5,6 +5,7 @@ import java.util.Map;
 import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
 import org.databiosphere.workspacedataservice.service.model.exception.DataImportException;
 import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 
 /**
@@ -36,6 +37,35 @@ public interface RecordSink extends AutoCloseable {
       String primaryKey)
       throws DataImportException;
 
+  /**
+   * Create or modify the schema for a record type to accept a columnar batch of records. By
+   * default, adapts the batch to {@link Record}s.
+   *
+   * @throws DataImportException if an error occurs creating or modifying types
+   */
+  default Map<String, DataTypeMapping> createOrModifyRecordType(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      RecordBatch batch,
+      String recordTypePrimaryKey)
+      throws DataImportException {
+    return createOrModifyRecordType(recordType, schema, batch.toRecords(), recordTypePrimaryKey);
+  }
+
+  /**
+   * Upsert a columnar batch of records. By default, adapts the batch to {@link Record}s.
+   *
+   * @throws DataImportException if an error occurs while upserting the records
+   */
+  default void upsertBatch(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      RecordBatch batch,
+      String primaryKey)
+      throws DataImportException {
+    upsertBatch(recordType, schema, batch.toRecords(), primaryKey);
+  }
+
   /**
    * Delete the given batch of records.
    *
@@ -43,6 +73,27 @@ public interface RecordSink extends AutoCloseable {
    */
   void deleteBatch(RecordType recordType, List<Record> records) throws DataImportException;
 
+  /**
+   * Whether each batch written to this sink is durable as soon as its transaction commits. Only
+   * such sinks can be used by checkpointed imports, which resume from the last committed batch;
+   * sinks which deliver their records in {@link #success()} would lose the batches written before a
+   * failure.
+   *
+   * @see org.databiosphere.workspacedataservice.service.BatchWriteService#checkpointedBatchWrite
+   */
+  default boolean supportsCheckpoints() {
+    return false;
+  }
+
+  /**
+   * Whether records written to this sink reach their destination only in {@link #success()}. If so,
+   * an import can do work which must precede its records becoming visible, such as linking
+   * snapshots whose policies then apply to the workspace, alongside writing them.
+   */
+  default boolean deliversOnSuccess() {
+    return false;
+  }
+
   /**
    * Callback always invoked at the end of a series of batch operations. This should execute any
    * code to run on both success and failure, such as closing open files.
@@ -5,22 +5,25 @@ import java.util.Map;
 import org.databiosphere.workspacedataservice.dao.RecordDao;
 import org.databiosphere.workspacedataservice.service.DataTypeInferer;
 import org.databiosphere.workspacedataservice.service.RecordService;
+import org.databiosphere.workspacedataservice.service.SchemaPlanner;
 import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
 import org.databiosphere.workspacedataservice.service.model.exception.DataImportException;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
 import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 
 /**
  * {@link RecordSink} implementation that records batches of writes/deletes to the Workspace Data
- * Service storage, adjusting the schema as needed.
+ * Service storage, adjusting the schema as needed. Each sink plans the schema changes for a single
+ * import; see {@link SchemaPlanner}.
  */
 public class WdsRecordSink implements RecordSink {
 
   private final RecordService recordService;
   private final RecordDao recordDao;
-  private final DataTypeInferer inferer;
   private final CollectionId collectionId;
+  private final SchemaPlanner schemaPlanner;
 
   WdsRecordSink(
       RecordService recordService,
@@ -29,8 +32,8 @@ public class WdsRecordSink implements RecordSink {
       CollectionId collectionId) {
     this.recordService = recordService;
     this.recordDao = recordDao;
-    this.inferer = inferer;
     this.collectionId = collectionId;
+    this.schemaPlanner = new SchemaPlanner(recordService, recordDao, inferer, collectionId.id());
   }
 
   @Override
@@ -39,22 +42,8 @@ public class WdsRecordSink implements RecordSink {
       Map<String, DataTypeMapping> schema,
       List<Record> records,
       String recordTypePrimaryKey) {
-    if (!recordDao.recordTypeExists(collectionId.id(), recordType)) {
-      recordDao.createRecordType(
-          collectionId.id(),
-          schema,
-          recordType,
-          inferer.findRelations(records, schema),
-          recordTypePrimaryKey);
-    } else {
-      return recordService.addOrUpdateColumnIfNeeded(
-          collectionId.id(),
-          recordType,
-          schema,
-          recordDao.getExistingTableSchema(collectionId.id(), recordType),
-          records);
-    }
-    return schema;
+    return schemaPlanner.createOrModifyRecordType(
+        recordType, schema, records, recordTypePrimaryKey);
   }
 
   @Override
@@ -66,11 +55,34 @@ public class WdsRecordSink implements RecordSink {
     recordService.batchUpsert(collectionId.id(), recordType, records, schema, primaryKey);
   }
 
+  @Override
+  public Map<String, DataTypeMapping> createOrModifyRecordType(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      RecordBatch batch,
+      String recordTypePrimaryKey) {
+    return schemaPlanner.createOrModifyRecordType(recordType, schema, batch, recordTypePrimaryKey);
+  }
+
+  @Override
+  public void upsertBatch(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      RecordBatch batch,
+      String primaryKey) {
+    recordService.batchUpsert(collectionId.id(), recordType, batch, schema, primaryKey);
+  }
+
   @Override
   public void deleteBatch(RecordType recordType, List<Record> records) {
     recordDao.batchDelete(collectionId.id(), recordType, records);
   }
 
+  @Override
+  public boolean supportsCheckpoints() {
+    return true;
+  }
+
   @Override
   public void success() throws DataImportException {
     // noop
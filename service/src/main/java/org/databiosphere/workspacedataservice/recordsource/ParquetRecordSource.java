@@ -10,6 +10,7 @@ import org.databiosphere.workspacedataservice.dataimport.tdr.ParquetRecordConver
 import org.databiosphere.workspacedataservice.service.model.TdrManifestImportTable;
 import org.databiosphere.workspacedataservice.shared.model.OperationType;
 import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 
 public class ParquetRecordSource implements RecordSource {
 
@@ -51,6 +52,22 @@ public class ParquetRecordSource implements RecordSource {
     return new WriteStreamInfo(records, OperationType.UPSERT);
   }
 
+  @Override
+  public BatchStreamInfo readBatches(int numRecords) throws IOException {
+    // convert each avro generic record straight into the batch, as it is read
+    ParquetRecordConverter converter = new ParquetRecordConverter(table, objectMapper);
+    RecordBatch batch = new RecordBatch(table.recordType(), numRecords);
+    while (batch.size() < numRecords) {
+      GenericRecord genericRecord = parquetReader.read();
+      if (genericRecord == null) {
+        // end of the parquet input
+        break;
+      }
+      converter.convertInto(genericRecord, importMode, type -> batch);
+    }
+    return new BatchStreamInfo(List.of(batch), OperationType.UPSERT);
+  }
+
   @Override
   public void close() throws IOException {
     parquetReader.close();
@@ -2,7 +2,9 @@ package org.databiosphere.workspacedataservice.recordsource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.stream.Stream;
@@ -12,6 +14,8 @@ import org.apache.avro.generic.GenericRecord;
 import org.databiosphere.workspacedataservice.dataimport.pfb.PfbRecordConverter;
 import org.databiosphere.workspacedataservice.shared.model.OperationType;
 import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
 
 public class PfbRecordSource implements RecordSource {
 
@@ -48,6 +52,18 @@ public class PfbRecordSource implements RecordSource {
     return new WriteStreamInfo(records, OperationType.UPSERT);
   }
 
+  @Override
+  public BatchStreamInfo readBatches(int numRecords) {
+    // convert the next `numRecords` rows straight into batches, one per record type
+    PfbRecordConverter pfbRecordConverter = new PfbRecordConverter(objectMapper);
+    Map<RecordType, RecordBatch> batches = new LinkedHashMap<>();
+    for (int i = 0; i < numRecords && inputStream.hasNext(); i++) {
+      pfbRecordConverter.convertInto(
+          inputStream.next(), importMode, type -> batches.computeIfAbsent(type, RecordBatch::new));
+    }
+    return new BatchStreamInfo(List.copyOf(batches.values()), OperationType.UPSERT);
+  }
+
   @Override
   public void close() throws IOException {
     inputStream.close();
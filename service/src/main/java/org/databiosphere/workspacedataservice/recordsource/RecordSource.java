@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.util.List;
 import org.databiosphere.workspacedataservice.shared.model.OperationType;
 import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 
 public interface RecordSource extends Closeable {
 
@@ -19,6 +20,20 @@ public interface RecordSource extends Closeable {
    */
   WriteStreamInfo readRecords(int numRecords) throws IOException;
 
+  /**
+   * Reads numRecords from the stream as {@link RecordBatch}es, one per record type, under the same
+   * rules as {@link #readRecords(int)}. Sources which can build batches directly should override
+   * this; by default, records are read one by one and copied into batches.
+   *
+   * @param numRecords max number of records to read
+   * @return info about the records that were read
+   * @throws IOException on error
+   */
+  default BatchStreamInfo readBatches(int numRecords) throws IOException {
+    WriteStreamInfo info = readRecords(numRecords);
+    return new BatchStreamInfo(RecordBatch.groupByType(info.records()), info.operationType());
+  }
+
   /**
    * Enum for use by record sources that need their data imported in two passes. The first pass will
    * upsert base attributes, and the second pass will upsert relation attributes. This allows for
@@ -31,6 +46,17 @@ public interface RecordSource extends Closeable {
 
   record WriteStreamInfo(List<Record> records, OperationType operationType) {}
 
+  record BatchStreamInfo(List<RecordBatch> batches, OperationType operationType) {
+    /** the number of records read, across all batches */
+    public int size() {
+      return batches.stream().mapToInt(RecordBatch::size).sum();
+    }
+
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+  }
+
   default ImportMode importMode() {
     return ImportMode.BASE_ATTRIBUTES;
   }
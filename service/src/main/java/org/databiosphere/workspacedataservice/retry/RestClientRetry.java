@@ -6,6 +6,7 @@ import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
 import java.util.Objects;
 import java.util.Optional;
+import org.databiosphere.workspacedataservice.metrics.RequestAccounting;
 import org.databiosphere.workspacedataservice.service.model.exception.AuthenticationException;
 import org.databiosphere.workspacedataservice.service.model.exception.AuthorizationException;
 import org.databiosphere.workspacedataservice.service.model.exception.RestConnectionException;
@@ -54,7 +55,13 @@ public class RestClientRetry {
       throws RestException, AuthenticationException, AuthorizationException {
     Observation observation =
         Observation.start("wds.outbound", observations).lowCardinalityKeyValue("hint", loggerHint);
-    try {
+    RequestAccounting accounting = RequestAccounting.current(observations);
+    if (accounting != null) {
+      accounting.outboundCall();
+    }
+    // while in scope, the http client's own observations of each attempt, e.g.
+    // http.client.requests, are recorded as children of this wds.outbound observation
+    try (Observation.Scope scope = observation.openScope()) {
       LOGGER.debug("Sending {} request to REST target ...", loggerHint);
       T functionResult = restCall.run();
       if (LOGGER.isTraceEnabled()) {
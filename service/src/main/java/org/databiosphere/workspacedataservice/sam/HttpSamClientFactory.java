@@ -1,8 +1,6 @@
 package org.databiosphere.workspacedataservice.sam;
 
-import java.util.List;
 import okhttp3.OkHttpClient;
-import okhttp3.Protocol;
 import org.apache.commons.lang3.StringUtils;
 import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
 import org.broadinstitute.dsde.workbench.client.sam.api.GoogleApi;
@@ -17,6 +15,9 @@ import org.slf4j.LoggerFactory;
  * Implementation of SamClientFactory that creates a Sam ApiClient, initializes that client with the
  * url to Sam, adds the current user's access token to the client, and then returns the ResourcesApi
  * from that client. ResourcesApi is the part of the Sam client used by WDS.
+ *
+ * <p>Each ApiClient is lightweight, since it holds the current user's token; all ApiClients share
+ * the same underlying OkHttpClient and therefore the same connection pool.
  */
 public class HttpSamClientFactory implements SamClientFactory {
 
@@ -25,20 +26,17 @@ public class HttpSamClientFactory implements SamClientFactory {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(HttpSamClientFactory.class);
 
-  public HttpSamClientFactory(String samUrl) {
+  public HttpSamClientFactory(String samUrl, OkHttpClient commonHttpClient) {
     this.samUrl = samUrl;
-    // IntelliJ has a false-positive error on the following line; see
-    // https://youtrack.jetbrains.com/issue/KTIJ-26434
-    this.commonHttpClient =
-        new ApiClient().getHttpClient().newBuilder().protocols(List.of(Protocol.HTTP_1_1)).build();
+    this.commonHttpClient = commonHttpClient;
     // TODO AJ-1114: add tracing interceptor for distributed tracing to Sam.
     // this requires we import terra-common-lib
   }
 
   private ApiClient getApiClient(BearerToken authToken) {
-    // create a new Sam client
-    ApiClient apiClient = new ApiClient();
-    apiClient.setHttpClient(commonHttpClient);
+    // create a new Sam client around the shared http client; the no-arg constructor would build,
+    // and then discard, an OkHttpClient of its own
+    ApiClient apiClient = new ApiClient(commonHttpClient);
     // initialize the client with the url to Sam
     if (StringUtils.isNotBlank(samUrl)) {
       apiClient.setBasePath(samUrl);
@@ -1,5 +1,9 @@
 package org.databiosphere.workspacedataservice.sam;
 
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpObservationInterceptor;
+import io.micrometer.observation.ObservationRegistry;
+import okhttp3.OkHttpClient;
+import org.databiosphere.workspacedataservice.outbound.OutboundHttpClients;
 import org.databiosphere.workspacedataservice.retry.RestClientRetry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,7 +15,7 @@ import org.springframework.context.annotation.Configuration;
  * Bean creator for:
  *
  * <ul>
- *   <li>{@link SamClientFactory}, injecting the base url to Sam.
+ *   <li>{@link SamClientFactory}, injecting the base url to Sam and the shared "sam" http client.
  *   <li>{@link SamDao} and {@link SamAuthorizationDaoFactory}, injecting the SamClientFactory and
  *       {@link RestClientRetry}.
  * </ul>
@@ -25,7 +29,8 @@ public class SamConfig {
   private static final Logger LOGGER = LoggerFactory.getLogger(SamConfig.class);
 
   @Bean
-  SamClientFactory getSamClientFactory() {
+  SamClientFactory getSamClientFactory(
+      OutboundHttpClients outboundHttpClients, ObservationRegistry observationRegistry) {
     // TODO: AJ-898 what validation of the sam url should we do here?
     // - none
     // - check if the value is null/empty/whitespace
@@ -36,7 +41,16 @@ public class SamConfig {
     // - disable Sam integration, which could result in unauthorized access
     // - stop WDS, which would obviously prevent WDS from working at all
     LOGGER.info("Using Sam base url: '{}'", samUrl);
-    return new HttpSamClientFactory(samUrl);
+    // unlike RestClient, the generated Sam client does not record http.client.requests itself
+    OkHttpClient httpClient =
+        outboundHttpClients
+            .httpClient("sam")
+            .newBuilder()
+            .addInterceptor(
+                OkHttpObservationInterceptor.builder(observationRegistry, "http.client.requests")
+                    .build())
+            .build();
+    return new HttpSamClientFactory(samUrl, httpClient);
   }
 
   @Bean
@@ -0,0 +1,20 @@
+package org.databiosphere.workspacedataservice.search;
+
+/**
+ * How a search counts the records which match its filter, for the totalRecords of its response. Set
+ * by twds.search.count-strategy.
+ */
+public enum CountStrategy {
+  /**
+   * Count in a statement of its own, before querying for the page; a page past the last matching
+   * record is not queried at all.
+   */
+  SEPARATE,
+  /**
+   * Count in the same statement as the page, with count(*) over (). This saves a round trip, but
+   * without twds.search.count-limit the statement reads every matching record before it can return
+   * the page; with a limit, it reads at most that many. Pages beyond the limit are counted
+   * separately.
+   */
+  WINDOW
+}
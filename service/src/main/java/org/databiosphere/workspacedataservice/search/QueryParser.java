@@ -13,6 +13,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.queryparser.flexible.core.QueryNodeParseException;
 import org.apache.lucene.queryparser.flexible.core.nodes.FieldQueryNode;
@@ -24,10 +27,65 @@ public class QueryParser {
 
   public static final String DEFAULT_ALL_COLUMNS_NAME = "sys_all_columns";
 
+  /**
+   * Lower-cases each element of an array; arrays of strings and files are searched, and indexed, by
+   * this function of their column.
+   */
+  public static final String LOWER_ARRAY_FUNCTION = "sys_wds.lower_array";
+
+  /**
+   * Hashes each lower-cased element of an array; arrays of strings and files are indexed by this
+   * function of their column, so that elements of any length fit in the index.
+   */
+  public static final String LOWER_ARRAY_MD5_FUNCTION = "sys_wds.lower_array_md5";
+
   private final Map<String, DataTypeMapping> schema;
+  private final BooleanSupplier fullTextSearchEnabled;
+  private final Function<String, Optional<RelationArrayJoin>> relationArrayJoins;
 
   public QueryParser(Map<String, DataTypeMapping> schema) {
+    this(schema, () -> false);
+  }
+
+  public QueryParser(Map<String, DataTypeMapping> schema, BooleanSupplier fullTextSearchEnabled) {
+    this(schema, fullTextSearchEnabled, column -> Optional.empty());
+  }
+
+  /**
+   * @param schema the record type's columns and their datatypes
+   * @param fullTextSearchEnabled whether the record type has a full-text index, which queries that
+   *     do not specify a column search. Only called for such queries.
+   * @param relationArrayJoins the join table for a relation-array column, if known. Only called for
+   *     queries of relation-array columns; without a join table, the column's array is searched
+   *     instead.
+   */
+  public QueryParser(
+      Map<String, DataTypeMapping> schema,
+      BooleanSupplier fullTextSearchEnabled,
+      Function<String, Optional<RelationArrayJoin>> relationArrayJoins) {
     this.schema = schema;
+    this.fullTextSearchEnabled = fullTextSearchEnabled;
+    this.relationArrayJoins = relationArrayJoins;
+  }
+
+  /**
+   * The column a query filters on, or empty if it searches all columns, or does not parse. Does not
+   * validate the query; see {@link #parse}.
+   */
+  public static Optional<String> getFilteredColumn(String query) {
+    if (StringUtils.isBlank(query)) {
+      return Optional.empty();
+    }
+    try {
+      if (new StandardSyntaxParser().parse(query, DEFAULT_ALL_COLUMNS_NAME)
+              instanceof FieldQueryNode fieldQueryNode
+          && !DEFAULT_ALL_COLUMNS_NAME.equals(fieldQueryNode.getFieldAsString())) {
+        return Optional.of(fieldQueryNode.getFieldAsString());
+      }
+    } catch (QueryNodeParseException queryNodeParseException) {
+      // parse() reports the invalid query
+    }
+    return Optional.empty();
   }
 
   public WhereClausePart parse(String query) {
@@ -53,6 +111,17 @@ public class QueryParser {
       String column = fieldQueryNode.getFieldAsString();
       String value = fieldQueryNode.getTextAsString();
 
+      // bind parameter names have syntax limitations, so we use artificial ones below
+      var paramName = "filterquery0";
+
+      // a query without a column matches records with the term, or quoted phrase, in any column.
+      // The default column name is also the name of the column holding the full-text index.
+      if (DEFAULT_ALL_COLUMNS_NAME.equals(column) && fullTextSearchEnabled.getAsBoolean()) {
+        return new WhereClausePart(
+            List.of(quote(column) + " @@ phraseto_tsquery('simple', :" + paramName + ")"),
+            Map.of(paramName, value));
+      }
+
       validateColumnName(column);
 
       // determine the datatype of the column on which we are filtering.
@@ -63,19 +132,34 @@ public class QueryParser {
       List<String> clauses = new ArrayList<>();
       Map<String, Object> values = new HashMap<>();
 
-      // bind parameter names have syntax limitations, so we use artificial ones below
-      var paramName = "filterquery0";
-
       // based on the datatype of the column, build relevant SQL
       switch (datatype) {
         case STRING, FILE, RELATION -> {
-          // LOWER("mycolumn") = 'mysearchterm'
+          // md5(LOWER("mycolumn")) = md5('mysearchterm') and LOWER("mycolumn") = 'mysearchterm'
+          /* the column is indexed by the hash, which fits in an index entry however long the
+             value; comparing the values themselves rules out hash collisions.
+          */
+          clauses.add("md5(LOWER(" + quote(column) + ")) = md5(:" + paramName + ")");
           clauses.add("LOWER(" + quote(column) + ") = :" + paramName);
           values.put(paramName, value.toLowerCase());
         }
         case ARRAY_OF_STRING, ARRAY_OF_FILE -> {
-          // 'mysearchterm' ILIKE ANY("mycolumn")
-          clauses.add(":" + paramName + " ILIKE ANY(" + quote(column) + ")");
+          // sys_wds.lower_array_md5("mycolumn") @> array[md5('mysearchterm')]
+          //   and sys_wds.lower_array("mycolumn") @> array['mysearchterm']
+          /* matches elements equal to the term, ignoring case. Unlike ILIKE, this treats % and _
+             in elements as literal characters. The column is indexed by the elements' hashes,
+             which fit in a GIN index however long the elements; comparing the elements themselves
+             rules out hash collisions.
+          */
+          clauses.add(
+              LOWER_ARRAY_MD5_FUNCTION
+                  + "("
+                  + quote(column)
+                  + ") @> array[md5(:"
+                  + paramName
+                  + "::text)]");
+          clauses.add(
+              LOWER_ARRAY_FUNCTION + "(" + quote(column) + ") @> array[:" + paramName + "::text]");
           values.put(paramName, value.toLowerCase());
         }
         case NUMBER -> {
@@ -123,18 +207,39 @@ public class QueryParser {
         // they cannot contain anything. Would it be better to throw InvalidQueryException?
         clauses.add("false");
         case ARRAY_OF_RELATION -> {
-          // 'mysearchterm' IN (select split_part(unnest, '/', 3) from unnest("mycolumn")
-          /* values in the column will be of the form "terra-wds:/${targetType}/${targetId}".
-             This SQL splits the values on "/", finds the third index in the split,
-             and searches on that value.
-          */
-          clauses.add(
-              ":"
-                  + paramName
-                  + " IN (select LOWER(split_part(unnest, '/', 3)) from unnest("
-                  + quote(column)
-                  + "))");
           values.put(paramName, value.toLowerCase());
+          Optional<RelationArrayJoin> join = relationArrayJoins.apply(column);
+          if (join.isPresent()) {
+            // exists (select from "sys_mytype_mycolumn" where "from_mytype_key" = "mytype"."id"
+            //   and LOWER("to_othertype_key") = 'mysearchterm')
+            /* the join table holds one row per relation, and an index on LOWER() of its
+               to-column, so this finds the matching records without reading every array.
+            */
+            clauses.add(
+                "exists (select from "
+                    + join.get().table()
+                    + " where "
+                    + join.get().fromColumn()
+                    + " = "
+                    + join.get().recordIdColumn()
+                    + " and LOWER("
+                    + join.get().toColumn()
+                    + ") = :"
+                    + paramName
+                    + ")");
+          } else {
+            // 'mysearchterm' IN (select split_part(unnest, '/', 3) from unnest("mycolumn")
+            /* values in the column will be of the form "terra-wds:/${targetType}/${targetId}".
+               This SQL splits the values on "/", finds the third index in the split,
+               and searches on that value.
+            */
+            clauses.add(
+                ":"
+                    + paramName
+                    + " IN (select LOWER(split_part(unnest, '/', 3)) from unnest("
+                    + quote(column)
+                    + "))");
+          }
         }
         case JSON -> {
           // "mycolumn" = '{"myjson":"stuff"}'::jsonb
@@ -228,8 +333,8 @@ public class QueryParser {
   private void validateColumnName(String columnName) {
     // The Lucene query parser requires a default column name to parse a query. If the end user
     // has not specified a column, the query parser will use the default column name. In our case,
-    // if we see the default column name we consider it an error - as of this writing, we require
-    // the end user to specify a column name.
+    // if we see the default column name here, the record type has no full-text index, and we
+    // require the end user to specify a column name.
     if (DEFAULT_ALL_COLUMNS_NAME.equals(columnName)) {
       throw new InvalidQueryException("Query must specify a column name");
     }
@@ -0,0 +1,14 @@
+package org.databiosphere.workspacedataservice.search;
+
+/**
+ * The join table which mirrors a relation-array column, one row per relation, which {@link
+ * QueryParser} searches instead of the column itself. All names are quoted and, where needed,
+ * qualified.
+ *
+ * @param table the join table
+ * @param fromColumn the join table's column holding the referring record's id
+ * @param toColumn the join table's column holding the referenced record's id
+ * @param recordIdColumn the referring record type's primary key column, qualified by its table
+ */
+public record RelationArrayJoin(
+    String table, String fromColumn, String toColumn, String recordIdColumn) {}
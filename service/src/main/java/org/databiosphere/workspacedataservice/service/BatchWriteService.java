@@ -4,22 +4,25 @@ import static org.databiosphere.workspacedataservice.recordsource.RecordSource.I
 import static org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode.RELATIONS;
 
 import bio.terra.common.db.WriteTransaction;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+import org.databiosphere.workspacedataservice.dao.ImportCheckpointDao;
+import org.databiosphere.workspacedataservice.dataimport.ImportCheckpoint;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgress;
 import org.databiosphere.workspacedataservice.recordsink.RecordSink;
 import org.databiosphere.workspacedataservice.recordsource.RecordSource;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource.BatchStreamInfo;
 import org.databiosphere.workspacedataservice.recordsource.RecordSource.WriteStreamInfo;
 import org.databiosphere.workspacedataservice.service.model.BatchWriteResult;
 import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
 import org.databiosphere.workspacedataservice.service.model.exception.BadStreamingWriteRequestException;
 import org.databiosphere.workspacedataservice.shared.model.OperationType;
-import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,14 +33,18 @@ import org.springframework.stereotype.Service;
 @Service
 public class BatchWriteService {
   private final DataTypeInferer inferer;
+  private final ImportCheckpointDao importCheckpointDao;
   private final int batchSize;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BatchWriteService.class);
 
   public BatchWriteService(
-      @Value("${twds.write.batch.size:5000}") int batchSize, DataTypeInferer inf) {
+      @Value("${twds.write.batch.size:5000}") int batchSize,
+      DataTypeInferer inf,
+      ImportCheckpointDao importCheckpointDao) {
     this.batchSize = batchSize;
     this.inferer = inf;
+    this.importCheckpointDao = importCheckpointDao;
   }
 
   /**
@@ -55,8 +62,82 @@ public class BatchWriteService {
       RecordSink recordSink,
       @Nullable RecordType recordType,
       String primaryKey) {
+    return batchWrite(recordSource, recordSink, recordType, primaryKey, PrescannedSchemas.none());
+  }
+
+  /**
+   * Alternative to {@link #batchWrite(RecordSource, RecordSink, RecordType, String)} which creates
+   * columns with the wider of the types inferred from each batch and those found by a {@link
+   * SchemaPrescanner}.
+   *
+   * @param prescannedSchemas column types found by pre-scanning the source
+   */
+  @WriteTransaction
+  public BatchWriteResult batchWrite(
+      RecordSource recordSource,
+      RecordSink recordSink,
+      @Nullable RecordType recordType,
+      String primaryKey,
+      PrescannedSchemas prescannedSchemas) {
     try (recordSource) {
-      return consumeWriteStream(recordSource, recordSink, recordType, primaryKey);
+      ImportProgress.current().ifPresent(progress -> progress.startPass(recordSource.importMode()));
+      return consumeWriteStream(
+          recordSource, recordSink, recordType, primaryKey, prescannedSchemas);
+    } catch (IOException e) {
+      throw new BadStreamingWriteRequestException(e);
+    }
+  }
+
+  /**
+   * Checkpointed alternative to {@link #batchWrite(RecordSource, RecordSink, RecordType, String)}.
+   * Instead of writing the entire {@link RecordSource} in a single transaction, this commits each
+   * batch in its own transaction, together with an updated {@link ImportCheckpoint}. Records which
+   * the given checkpoint reports as already committed are read and discarded, so a retried import
+   * resumes with the first uncommitted batch. Re-writing a batch is harmless, since writes are
+   * upserts.
+   *
+   * @param recordSource the source of the records to be upserted
+   * @param recordType record type of records contained in the write handler
+   * @param primaryKey primaryKey column for the record type
+   * @param checkpoint the last checkpoint saved for this source
+   * @param prescannedSchemas column types found by pre-scanning the source, if any
+   * @return a {@link BatchWriteResult} with metadata about the records written by this invocation
+   */
+  public BatchWriteResult checkpointedBatchWrite(
+      RecordSource recordSource,
+      RecordSink recordSink,
+      @Nullable RecordType recordType,
+      String primaryKey,
+      ImportCheckpoint checkpoint,
+      PrescannedSchemas prescannedSchemas) {
+    try (recordSource) {
+      ImportProgress.current().ifPresent(progress -> progress.startPass(recordSource.importMode()));
+      skipRecords(recordSource, checkpoint.recordsCommitted());
+      BatchWriteResult result = BatchWriteResult.empty();
+      Map<RecordType, Map<String, DataTypeMapping>> typeSchemas = new HashMap<>();
+      ImportCheckpoint current = checkpoint;
+      for (BatchStreamInfo info = recordSource.readBatches(batchSize);
+          !info.isEmpty();
+          info = recordSource.readBatches(batchSize)) {
+        BatchStreamInfo batch = info;
+        current = current.advance(batch.size());
+        result.merge(
+            importCheckpointDao.commitWithCheckpoint(
+                current,
+                () ->
+                    writeBatch(
+                        batch,
+                        recordSource,
+                        recordSink,
+                        recordType,
+                        primaryKey,
+                        typeSchemas,
+                        prescannedSchemas)));
+        ImportProgress.current().ifPresent(ImportProgress::maybePersist);
+      }
+      importCheckpointDao.saveCheckpoint(current.complete());
+      logWideningsAvoided(prescannedSchemas);
+      return result;
     } catch (IOException e) {
       throw new BadStreamingWriteRequestException(e);
     }
@@ -66,7 +147,8 @@ public class BatchWriteService {
       RecordSource recordSource,
       RecordSink recordSink,
       @Nullable RecordType recordType,
-      String primaryKey)
+      String primaryKey,
+      PrescannedSchemas prescannedSchemas)
       throws IOException {
     BatchWriteResult result = BatchWriteResult.empty();
 
@@ -75,66 +157,128 @@ public class BatchWriteService {
 
     // loop through, in batches, the records provided by the RecordSource. This loops
     // until the RecordSource returns an empty batch.
-    for (WriteStreamInfo info = recordSource.readRecords(batchSize);
-        !info.records().isEmpty();
-        info = recordSource.readRecords(batchSize)) {
-      // Group the incoming records by their record types. TDR and PFB inputs expect to have
-      // multiple types within the same input stream. TSV and JSON are expected to have a single
-      // record type, so this will result in a grouping of 1.
-      Multimap<RecordType, Record> groupedRecords =
-          Multimaps.index(info.records(), Record::getRecordType);
-
-      // TSV and JSON inputs are validated against the recordType argument. PFB inputs pass
-      // a null recordType argument so there is nothing to validate.
-      assertRecordTypesMatch(recordType, groupedRecords.keySet());
-
-      // loop over all record types in this batch. For each record type, iff this is the first
-      // time we've seen this type, calculate a schema from its records and update the record type
-      // as necessary. Then, write the records into the table.
-      OperationType opType = info.operationType();
-      for (RecordType recType : groupedRecords.keySet()) {
-        // despite its name, copyOf avoids copying if possible
-        List<Record> records = ImmutableList.copyOf(groupedRecords.get(recType));
-
-        // infer and update this record type's schema, then save that schema back to the
-        // `typeSchemas` map
-        if (opType == OperationType.UPSERT) {
-          Map<String, DataTypeMapping> inferredSchema = inferer.inferTypes(records);
-          Map<String, DataTypeMapping> finalSchema =
-              recordSink.createOrModifyRecordType(recType, inferredSchema, records, primaryKey);
-          typeSchemas.put(recType, finalSchema);
-        }
+    for (BatchStreamInfo info = recordSource.readBatches(batchSize);
+        !info.isEmpty();
+        info = recordSource.readBatches(batchSize)) {
+      result.merge(
+          writeBatch(
+              info,
+              recordSource,
+              recordSink,
+              recordType,
+              primaryKey,
+              typeSchemas,
+              prescannedSchemas));
+      ImportProgress.current().ifPresent(ImportProgress::maybePersist);
+    }
+    logWideningsAvoided(prescannedSchemas);
+    return result;
+  }
+
+  /**
+   * Write a single batch of records read from a {@link RecordSource}. Records are held column by
+   * column, as {@link RecordBatch}es, from the source through to the sink.
+   *
+   * @param typeSchemas the schemas for the record types seen so far while processing this stream;
+   *     updated as record types are created or modified
+   * @param prescannedSchemas column types found by pre-scanning the source, which widen those
+   *     inferred from this batch
+   * @return a {@link BatchWriteResult} with metadata about the records in this batch
+   */
+  private BatchWriteResult writeBatch(
+      BatchStreamInfo info,
+      RecordSource recordSource,
+      RecordSink recordSink,
+      @Nullable RecordType recordType,
+      String primaryKey,
+      Map<RecordType, Map<String, DataTypeMapping>> typeSchemas,
+      PrescannedSchemas prescannedSchemas) {
+    BatchWriteResult result = BatchWriteResult.empty();
+    Optional<ImportProgress> maybeProgress = ImportProgress.current();
+    maybeProgress.ifPresent(progress -> progress.addRowsRead(info.size()));
+    // The incoming records are grouped by their record types, one batch per type. TDR and PFB
+    // inputs expect to have multiple types within the same input stream. TSV and JSON are
+    // expected to have a single record type, so this will result in a single batch.
+    List<RecordBatch> batches = info.batches();
+
+    // TSV and JSON inputs are validated against the recordType argument. PFB inputs pass
+    // a null recordType argument so there is nothing to validate.
+    assertRecordTypesMatch(
+        recordType, batches.stream().map(RecordBatch::getRecordType).collect(Collectors.toSet()));
+
+    // loop over all record types in this batch. For each record type, iff this is the first
+    // time we've seen this type, calculate a schema from its records and update the record type
+    // as necessary. Then, write the records into the table.
+    OperationType opType = info.operationType();
+    for (RecordBatch batch : batches) {
+      RecordType recType = batch.getRecordType();
+      maybeProgress.ifPresent(progress -> progress.startTable(recType.getName()));
 
-        Map<String, DataTypeMapping> schema = typeSchemas.get(recType);
-        // when updating relations only, do not update if there are no relations
-        if (recordSource.importMode() == BASE_ATTRIBUTES || !schema.isEmpty()) {
-          // For relations only, remove records that have no relations
-          var recordsToWrite =
-              recordSource.importMode() == RELATIONS ? excludeEmptyRecords(records) : records;
-
-          switch (opType) {
-            case UPSERT -> {
-              LOGGER.info(
-                  "Upserting {} records as {} for record type {}",
-                  recordsToWrite.size(),
-                  recordSource.importMode().name(),
-                  recType.getName());
-              recordSink.upsertBatch(recType, schema, recordsToWrite, primaryKey);
-            }
-            case DELETE -> recordSink.deleteBatch(recType, recordsToWrite);
-            default -> throw new UnsupportedOperationException(
-                "OperationType " + opType + " is not supported");
+      // infer and update this record type's schema, then save that schema back to the
+      // `typeSchemas` map
+      if (opType == OperationType.UPSERT) {
+        Map<String, DataTypeMapping> inferredSchema =
+            prescannedSchemas.apply(recType, inferer.inferTypes(batch));
+        Map<String, DataTypeMapping> finalSchema =
+            recordSink.createOrModifyRecordType(recType, inferredSchema, batch, primaryKey);
+        typeSchemas.put(recType, finalSchema);
+      }
+
+      Map<String, DataTypeMapping> schema = typeSchemas.get(recType);
+      // when updating relations only, do not update if there are no relations
+      if (recordSource.importMode() == BASE_ATTRIBUTES || !schema.isEmpty()) {
+        // For relations only, remove records that have no relations
+        RecordBatch recordsToWrite =
+            recordSource.importMode() == RELATIONS ? batch.withoutEmptyRecords() : batch;
+
+        switch (opType) {
+          case UPSERT -> {
+            LOGGER.info(
+                "Upserting {} records as {} for record type {}",
+                recordsToWrite.size(),
+                recordSource.importMode().name(),
+                recType.getName());
+            recordSink.upsertBatch(recType, schema, recordsToWrite, primaryKey);
           }
-          // update the result counts
-          result.increaseCount(recType, recordsToWrite.size());
-        } else {
-          LOGGER.info("Nothing to import for this batch for record type {}", recType.getName());
+          case DELETE -> recordSink.deleteBatch(recType, recordsToWrite.toRecords());
+          default -> throw new UnsupportedOperationException(
+              "OperationType " + opType + " is not supported");
         }
+        // update the result counts
+        result.increaseCount(recType, recordsToWrite.size());
+        maybeProgress.ifPresent(progress -> progress.addRowsWritten(recordsToWrite.size()));
+      } else {
+        LOGGER.info("Nothing to import for this batch for record type {}", recType.getName());
       }
     }
     return result;
   }
 
+  private static void logWideningsAvoided(PrescannedSchemas prescannedSchemas) {
+    if (!prescannedSchemas.isEmpty()) {
+      LOGGER.info(
+          "Pre-scanned column types avoided {} column type widenings",
+          prescannedSchemas.getWideningsAvoided());
+    }
+  }
+
+  /** Read and discard the first numRecords records from a {@link RecordSource}. */
+  private void skipRecords(RecordSource recordSource, long numRecords) throws IOException {
+    if (numRecords > 0) {
+      LOGGER.info("Resuming from checkpoint; skipping {} committed records", numRecords);
+    }
+    long skipped = 0;
+    while (skipped < numRecords) {
+      WriteStreamInfo info =
+          recordSource.readRecords((int) Math.min(batchSize, numRecords - skipped));
+      if (info.records().isEmpty()) {
+        break;
+      }
+      skipped += info.records().size();
+      ImportProgress.current().ifPresent(progress -> progress.addRowsRead(info.records().size()));
+    }
+  }
+
   private static void assertRecordTypesMatch(
       @Nullable RecordType recordType, Set<RecordType> recordTypes) {
     if (recordType != null && !Set.of(recordType).equals(recordTypes)) {
@@ -143,8 +287,4 @@ public class BatchWriteService {
               + "but actual records contained different record types. Cannot continue.");
     }
   }
-
-  private static List<Record> excludeEmptyRecords(List<Record> recordsForType) {
-    return recordsForType.stream().filter(rec -> !rec.attributeSet().isEmpty()).toList();
-  }
 }
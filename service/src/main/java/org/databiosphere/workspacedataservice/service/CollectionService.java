@@ -13,6 +13,7 @@ import java.util.stream.StreamSupport;
 import org.databiosphere.workspacedataservice.activitylog.ActivityLogger;
 import org.databiosphere.workspacedataservice.config.TenancyProperties;
 import org.databiosphere.workspacedataservice.config.TwdsProperties;
+import org.databiosphere.workspacedataservice.dao.ChangeTokenDao;
 import org.databiosphere.workspacedataservice.dao.CollectionRepository;
 import org.databiosphere.workspacedataservice.generated.CollectionRequestServerModel;
 import org.databiosphere.workspacedataservice.generated.CollectionServerModel;
@@ -39,6 +40,7 @@ public class CollectionService {
   private static final Logger LOGGER = LoggerFactory.getLogger(CollectionService.class);
 
   private final ActivityLogger activityLogger;
+  private final ChangeTokenDao changeTokenDao;
   private final CollectionRepository collectionRepository;
   private final DataTableTypeInspector dataTableTypeInspector;
   private final NamedParameterJdbcTemplate namedTemplate;
@@ -51,12 +53,14 @@ public class CollectionService {
 
   public CollectionService(
       ActivityLogger activityLogger,
+      ChangeTokenDao changeTokenDao,
       CollectionRepository collectionRepository,
       DataTableTypeInspector dataTableTypeInspector,
       NamedParameterJdbcTemplate namedTemplate,
       TenancyProperties tenancyProperties,
       TwdsProperties twdsProperties) {
     this.activityLogger = activityLogger;
+    this.changeTokenDao = changeTokenDao;
     this.collectionRepository = collectionRepository;
     this.dataTableTypeInspector = dataTableTypeInspector;
     this.namedTemplate = namedTemplate;
@@ -121,6 +125,33 @@ public class CollectionService {
     return save(workspaceId, collectionId, collectionRequestServerModel);
   }
 
+  /**
+   * Insert an empty copy of a collection into the workspace being cloned from the collection's
+   * workspace. The copy of the source workspace's default collection is the default collection of
+   * the target workspace; other copies get new ids. Copies keep the name and description of their
+   * source.
+   *
+   * @param sourceWorkspaceId the workspace being cloned
+   * @param sourceCollection the collection to copy
+   * @param targetWorkspaceId the workspace being created by the clone
+   * @return the created collection
+   */
+  @WriteTransaction
+  public CollectionServerModel saveCloneOf(
+      WorkspaceId sourceWorkspaceId,
+      CollectionServerModel sourceCollection,
+      WorkspaceId targetWorkspaceId) {
+    CollectionId collectionId =
+        sourceWorkspaceId.id().equals(sourceCollection.getId())
+            ? CollectionId.of(targetWorkspaceId.id())
+            : CollectionId.of(UUID.randomUUID());
+    return save(
+        targetWorkspaceId,
+        collectionId,
+        new CollectionRequestServerModel(
+            sourceCollection.getName(), sourceCollection.getDescription()));
+  }
+
   /**
    * Insert a new collection, specifying the collection id. This should only be called internally;
    * users should not be granted the ability to specify the collection id.
@@ -181,6 +212,8 @@ public class CollectionService {
     namedTemplate
         .getJdbcTemplate()
         .update("drop schema " + quote(collectionId.toString()) + " cascade");
+    // a collection recreated with the same id must not match responses cached for this one
+    changeTokenDao.collectionChanged(collectionId.id());
 
     collectionRepository.deleteById(collectionId);
 
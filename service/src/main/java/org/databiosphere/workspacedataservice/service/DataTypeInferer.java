@@ -33,6 +33,7 @@ import java.net.URISyntaxException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -45,6 +46,7 @@ import org.databiosphere.workspacedataservice.service.model.Relation;
 import org.databiosphere.workspacedataservice.service.model.RelationCollection;
 import org.databiosphere.workspacedataservice.shared.model.Record;
 import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.databiosphere.workspacedataservice.shared.model.attributes.JsonAttribute;
 import org.springframework.util.CollectionUtils;
@@ -84,6 +86,33 @@ public class DataTypeInferer {
     return result;
   }
 
+  /**
+   * Infers the schema of a columnar batch. Equivalent to {@link #inferTypes(List)} over the batch's
+   * records, but reads each column's values in turn instead of each record's attributes.
+   *
+   * @param batch the batch whose schema to infer
+   * @return the type of each of the batch's columns
+   */
+  public Map<String, DataTypeMapping> inferTypes(RecordBatch batch) {
+    Map<String, DataTypeMapping> result = new HashMap<>();
+    List<String> columnNames = batch.getColumnNames();
+    for (int column = 0; column < columnNames.size(); column++) {
+      BitSet rows = batch.getRowsWithValues(column);
+      DataTypeMapping best = null;
+      for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+        DataTypeMapping inferredType = inferType(batch.getValue(row, column));
+        best =
+            best == null || best == inferredType
+                ? inferredType
+                : selectBestType(best, inferredType);
+      }
+      if (best != null) {
+        result.put(columnNames.get(column), best);
+      }
+    }
+    return result;
+  }
+
   public DataTypeMapping selectBestType(DataTypeMapping existing, DataTypeMapping newMapping) {
     if (existing == newMapping) {
       return existing;
@@ -341,6 +370,37 @@ public class DataTypeInferer {
     return new RelationCollection(relations, relationArrays);
   }
 
+  /**
+   * Finds all attributes of a columnar batch that reference another table, as {@link
+   * #findRelations(List, Map)} does for records.
+   *
+   * @param batch the batch whose references to check
+   * @return Set of Relation for all referencing attributes
+   */
+  public RelationCollection findRelations(RecordBatch batch, Map<String, DataTypeMapping> schema) {
+    Set<Relation> relations = new HashSet<>();
+    Set<Relation> relationArrays = new HashSet<>();
+    schema.forEach(
+        (attribute, mapping) -> {
+          int column = batch.getColumnIndex(attribute);
+          if (column < 0 || (mapping != RELATION && mapping != ARRAY_OF_RELATION)) {
+            return;
+          }
+          for (int row = 0; row < batch.size(); row++) {
+            Object value = batch.getValue(row, column);
+            if (value == null) {
+              continue;
+            }
+            if (mapping == RELATION) {
+              relations.add(new Relation(attribute, RelationUtils.getTypeValue(value)));
+            } else {
+              relationArrays.add(new Relation(attribute, getMultiValueType(value)));
+            }
+          }
+        });
+    return new RelationCollection(relations, relationArrays);
+  }
+
   private RecordType getMultiValueType(Object value) {
     if (value instanceof List<?> listVal) { // from a json source
       return getTypeValueForList(listVal);
@@ -1,23 +1,75 @@
 package org.databiosphere.workspacedataservice.service;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.InstantSource;
 import java.util.List;
-import org.databiosphere.workspacedataservice.drshub.DrsHubApi;
+import org.databiosphere.workspacedataservice.drshub.DrsHubClient;
 import org.databiosphere.workspacedataservice.drshub.ResolveDrsRequest;
 import org.databiosphere.workspacedataservice.drshub.ResourceMetadataResponse;
+import org.databiosphere.workspacedataservice.drshub.SignedUrls;
+import org.databiosphere.workspacedataservice.sam.TokenContextUtil;
+import org.databiosphere.workspacedataservice.shared.model.BearerToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Resolves DRS URIs to access URLs through DrsHub, retrying failed calls as {@link
+ * org.databiosphere.workspacedataservice.retry.RestClientRetry} does.
+ *
+ * <p>Resolutions are cached per user, as DrsHub checks the user's access to each object, for
+ * twds.drs.cache-ttl. Signed access URLs are cached only until shortly before they expire, so a
+ * cached URL is always usable for at least {@link #EXPIRY_MARGIN}; signed URLs whose expiry can't
+ * be read are not cached.
+ *
+ * <p>Each resolution is timed in the wds.drs.resolve timer, tagged by whether it was cached and
+ * whether it succeeded.
+ */
 @Service
 public class DrsService {
+  /** how long a cached access URL must remain valid for it to be returned */
+  @VisibleForTesting static final Duration EXPIRY_MARGIN = Duration.ofMinutes(5);
+
+  private static final long MAX_CACHED_RESOLUTIONS = 10_000;
+
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
-  private final DrsHubApi drsHubApi;
+  private final DrsHubClient drsHubClient;
+  private final MeterRegistry meterRegistry;
+  private final InstantSource instantSource;
+  private final Duration cacheTtl;
+  private final Cache<CacheKey, Resolution> resolutions;
 
-  public DrsService(DrsHubApi drsHubApi) {
-    this.drsHubApi = drsHubApi;
+  public DrsService(
+      DrsHubClient drsHubClient,
+      MeterRegistry meterRegistry,
+      InstantSource instantSource,
+      @Value("${twds.drs.cache-ttl:PT30M}") Duration cacheTtl) {
+    this.drsHubClient = drsHubClient;
+    this.meterRegistry = meterRegistry;
+    this.instantSource = instantSource;
+    this.cacheTtl = cacheTtl;
+    this.resolutions =
+        CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_RESOLUTIONS)
+            .expireAfterWrite(cacheTtl)
+            .build();
   }
 
+  private record CacheKey(String user, URI drsUri) {}
+
+  private record Resolution(URI accessUrl, Instant usableUntil) {}
+
   /**
    * Check if the URI is a DRS URI
    *
@@ -36,12 +88,68 @@ public class DrsService {
   public URI resolveDrsUri(URI drsUri) {
     logger.info("Resolving DRS URI {}", drsUri);
     try {
-      ResolveDrsRequest drsRequest = new ResolveDrsRequest(drsUri.toString(), List.of("accessUrl"));
-      ResourceMetadataResponse resourceMetadataResponse = drsHubApi.resolveDrs(drsRequest);
+      URI accessUrl = resolve(currentUser(), drsUri);
       logger.info("Resolved DRS URI successfully");
-      return resourceMetadataResponse.accessUrl().url();
+      return accessUrl;
     } catch (Exception e) {
       throw new IllegalArgumentException("Could not resolve DRS URI: " + e.getMessage());
     }
   }
+
+  /** Discard all cached resolutions. */
+  @VisibleForTesting
+  void invalidateCache() {
+    resolutions.invalidateAll();
+  }
+
+  private URI resolve(String user, URI drsUri) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    CacheKey key = new CacheKey(user, drsUri);
+    Resolution cached = resolutions.getIfPresent(key);
+    if (cached != null && cached.usableUntil().isAfter(instantSource.instant())) {
+      sample.stop(timer("true", "success"));
+      return cached.accessUrl();
+    }
+    try {
+      ResolveDrsRequest drsRequest = new ResolveDrsRequest(drsUri.toString(), List.of("accessUrl"));
+      ResourceMetadataResponse resourceMetadataResponse = drsHubClient.resolveDrs(drsRequest);
+      URI accessUrl = resourceMetadataResponse.accessUrl().url();
+      cache(key, accessUrl);
+      sample.stop(timer("false", "success"));
+      return accessUrl;
+    } catch (RuntimeException e) {
+      sample.stop(timer("false", "error"));
+      throw e;
+    }
+  }
+
+  // caches the access URL for the TTL, or until shortly before its signature expires
+  private void cache(CacheKey key, URI accessUrl) {
+    Instant usableUntil = instantSource.instant().plus(cacheTtl);
+    Instant expiry = SignedUrls.expiry(accessUrl).orElse(null);
+    if (expiry == null && SignedUrls.isSigned(accessUrl)) {
+      // it may expire before the TTL passes
+      return;
+    }
+    if (expiry != null && expiry.minus(EXPIRY_MARGIN).isBefore(usableUntil)) {
+      usableUntil = expiry.minus(EXPIRY_MARGIN);
+    }
+    if (usableUntil.isAfter(instantSource.instant())) {
+      resolutions.put(key, new Resolution(accessUrl, usableUntil));
+    }
+  }
+
+  private Timer timer(String cached, String outcome) {
+    return Timer.builder("wds.drs.resolve")
+        .tag("cached", cached)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  // DrsHub resolves as the current user, so resolutions are cached by user; tokens are hashed,
+  // rather than held, for the lifetime of the entry
+  private static String currentUser() {
+    BearerToken token = TokenContextUtil.getToken();
+    return token.nonEmpty() ? Hashing.sha256().hashString(token.getValue(), UTF_8).toString() : "";
+  }
 }
@@ -11,7 +11,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import org.databiosphere.workspacedataservice.dao.JobDao;
-import org.databiosphere.workspacedataservice.dao.SchedulerDao;
 import org.databiosphere.workspacedataservice.dataimport.ImportJobInput;
 import org.databiosphere.workspacedataservice.dataimport.ImportValidator;
 import org.databiosphere.workspacedataservice.dataimport.pfb.PfbSchedulable;
@@ -20,6 +19,7 @@ import org.databiosphere.workspacedataservice.dataimport.tdr.TdrManifestSchedula
 import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
 import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel;
 import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel.TypeEnum;
+import org.databiosphere.workspacedataservice.jobexec.ImportAdmissionQueue;
 import org.databiosphere.workspacedataservice.sam.SamDao;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
 import org.databiosphere.workspacedataservice.shared.model.Schedulable;
@@ -40,19 +40,19 @@ public class ImportService {
   private final CollectionService collectionService;
   private final SamDao samDao;
   private final JobDao jobDao;
-  private final SchedulerDao schedulerDao;
+  private final ImportAdmissionQueue importAdmissionQueue;
   private final ImportValidator importValidator;
 
   public ImportService(
       CollectionService collectionService,
       SamDao samDao,
       JobDao jobDao,
-      SchedulerDao schedulerDao,
+      ImportAdmissionQueue importAdmissionQueue,
       ImportValidator importValidator) {
     this.collectionService = collectionService;
     this.samDao = samDao;
     this.jobDao = jobDao;
-    this.schedulerDao = schedulerDao;
+    this.importAdmissionQueue = importAdmissionQueue;
     this.importValidator = importValidator;
   }
 
@@ -94,20 +94,19 @@ public class ImportService {
       Schedulable schedulable =
           createSchedulable(importRequest.getType(), createdJob.getJobId(), arguments);
 
-      // schedule the job. after successfully scheduling, mark the job as queued
-      schedulerDao.schedule(schedulable);
-      logger.debug("Job {} scheduled", createdJob.getJobId());
+      // mark the job as queued, then submit it for scheduling. The job is marked as queued first
+      // so that it cannot overwrite the RUNNING status of a job which starts immediately.
+      // If scheduling fails, the admission queue marks the job as failed.
+      jobDao.queued(job.getJobId());
+      importAdmissionQueue.submit(CollectionId.of(collectionId), schedulable);
+      logger.debug("Job {} submitted for scheduling", createdJob.getJobId());
     } catch (Exception e) {
       // we ran into a problem scheduling the job after we inserted the row in WDS's tracking table.
       // since this job won't run, mark it as failed.
       jobDao.fail(job.getJobId(), e);
-      return createdJob;
     }
 
-    // we successfully scheduled the job; mark it as queued.
-    jobDao.queued(job.getJobId());
-
-    // return the queued job
+    // return the created job
     return createdJob;
   }
 
@@ -1,19 +1,31 @@
 package org.databiosphere.workspacedataservice.service;
 
 import static java.util.Objects.requireNonNullElse;
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_TOKEN;
 
 import com.google.common.collect.Sets;
+import java.io.Serializable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
 import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
 import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
 import org.databiosphere.workspacedataservice.pubsub.JobStatusUpdate;
+import org.databiosphere.workspacedataservice.sam.TokenContextUtil;
 import org.databiosphere.workspacedataservice.service.model.exception.MissingObjectException;
 import org.databiosphere.workspacedataservice.service.model.exception.ValidationException;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.Schedulable;
+import org.databiosphere.workspacedataservice.shared.model.job.JobListOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 
@@ -25,12 +37,50 @@ public class JobService {
   public static final Set<StatusEnum> NONTERMINAL_JOB_STATUSES =
       Sets.difference(Set.of(StatusEnum.values()), TERMINAL_JOB_STATUSES);
 
+  private static final Logger logger = LoggerFactory.getLogger(JobService.class);
+
   JobDao jobDao;
   CollectionService collectionService;
+  SchedulerDao schedulerDao;
 
-  public JobService(JobDao jobDao, CollectionService collectionService) {
+  public JobService(JobDao jobDao, CollectionService collectionService, SchedulerDao schedulerDao) {
     this.jobDao = jobDao;
     this.collectionService = collectionService;
+    this.schedulerDao = schedulerDao;
+  }
+
+  /**
+   * Schedule a created job, for work which makes no outbound requests of its own, e.g. on WDS's own
+   * database. The job runs with the caller's token, if any, and the caller's request id, in
+   * addition to the given arguments. If the job cannot be scheduled, it is failed.
+   *
+   * @param jobId the job, as created by {@link JobDao#createJob}
+   * @param arguments the job's own arguments
+   * @param schedulable creates the Quartz job to schedule, given all its arguments
+   * @return the job, QUEUED, or in ERROR if it could not be scheduled
+   */
+  public GenericJobServerModel schedule(
+      UUID jobId,
+      Map<String, Serializable> arguments,
+      Function<Map<String, Serializable>, Schedulable> schedulable) {
+    try {
+      Map<String, Serializable> allArguments = new HashMap<>(arguments);
+      allArguments.put(ARG_TOKEN, requireNonNullElse(TokenContextUtil.getToken().getValue(), ""));
+      String requestId = MDC.get(MDCServletRequestListener.MDC_KEY);
+      if (requestId != null) {
+        allArguments.put(MDCServletRequestListener.MDC_KEY, requestId);
+      }
+      Schedulable job = schedulable.apply(allArguments);
+
+      // mark the job as queued first, so that it cannot overwrite the RUNNING status of a job
+      // which starts immediately
+      GenericJobServerModel queuedJob = jobDao.queued(jobId);
+      schedulerDao.schedule(job);
+      logger.debug("Job {} scheduled: {}", jobId, job.getDescription());
+      return queuedJob;
+    } catch (Exception e) {
+      return jobDao.fail(jobId, e);
+    }
   }
 
   public GenericJobServerModel getJob(UUID jobId) {
@@ -42,8 +92,8 @@ public class JobService {
   }
 
   public List<GenericJobServerModel> getJobsForCollection(
-      CollectionId collectionId, Optional<List<String>> statuses) {
-    return jobDao.getJobsForCollection(collectionId, statuses);
+      CollectionId collectionId, Optional<List<String>> statuses, JobListOptions options) {
+    return jobDao.getJobsForCollection(collectionId, statuses, options);
   }
 
   /**
@@ -12,6 +12,10 @@ import org.springframework.web.filter.OncePerRequestFilter;
 /**
  * API responses contain potentially sensitive data and thus should not be cached. This configures a
  * filter that adds "Cache-Control: no-store" and "Pragma: no-cache" headers to API responses.
+ *
+ * <p>Endpoints which support conditional GETs relax this to "Cache-Control: private, no-cache" when
+ * they send an ETag, so that clients can revalidate their copy instead of re-downloading it; see
+ * {@link org.databiosphere.workspacedataservice.controller.ConditionalGets}.
  */
 @Component
 public class NoCacheFilter extends OncePerRequestFilter {
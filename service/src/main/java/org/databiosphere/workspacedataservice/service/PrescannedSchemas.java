@@ -0,0 +1,90 @@
+package org.databiosphere.workspacedataservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.springframework.lang.Nullable;
+
+/**
+ * Column types found by a {@link SchemaPrescanner} before a source's records are written. When a
+ * batch is written, each of its columns takes the wider of the type inferred from the batch and the
+ * pre-scanned type, so a column whose later values need a wider type than its first batch suggests
+ * is created with that type, instead of being widened on a populated table.
+ *
+ * <p>Tracks, for each record type, which columns have been written, and counts a widening avoided
+ * each time a column is first written with a wider type than its batch alone would have given it.
+ * Use one instance per write; instances are not thread-safe.
+ */
+public class PrescannedSchemas {
+  private final Map<RecordType, Map<String, DataTypeMapping>> schemas;
+  @Nullable private final DataTypeInferer inferer;
+  @Nullable private final Counter wideningsAvoidedCounter;
+  private final Map<RecordType, Set<String>> columnsWritten = new HashMap<>();
+  private int wideningsAvoided;
+
+  PrescannedSchemas(
+      Map<RecordType, Map<String, DataTypeMapping>> schemas,
+      @Nullable DataTypeInferer inferer,
+      @Nullable Counter wideningsAvoidedCounter) {
+    this.schemas = schemas;
+    this.inferer = inferer;
+    this.wideningsAvoidedCounter = wideningsAvoidedCounter;
+  }
+
+  /** no pre-scanned types; batches are written with the types inferred from them alone */
+  public static PrescannedSchemas none() {
+    return new PrescannedSchemas(
+        Map.of(), /* inferer= */ null, /* wideningsAvoidedCounter= */ null);
+  }
+
+  public boolean isEmpty() {
+    return schemas.isEmpty();
+  }
+
+  /** the pre-scanned columns and types for a record type; empty if it was not scanned */
+  public Map<String, DataTypeMapping> get(RecordType recordType) {
+    return schemas.getOrDefault(recordType, Map.of());
+  }
+
+  /**
+   * Widen the types inferred from a batch to their pre-scanned types. Only the batch's own columns
+   * are returned, so the batch doesn't write columns it has no values for.
+   *
+   * @param recordType the batch's record type
+   * @param inferredSchema the schema inferred from the batch; updated in place
+   * @return the updated schema
+   */
+  Map<String, DataTypeMapping> apply(
+      RecordType recordType, Map<String, DataTypeMapping> inferredSchema) {
+    Map<String, DataTypeMapping> scanned = schemas.get(recordType);
+    if (scanned == null || inferer == null) {
+      return inferredSchema;
+    }
+    Set<String> written = columnsWritten.computeIfAbsent(recordType, type -> new HashSet<>());
+    inferredSchema.replaceAll(
+        (column, inferred) -> {
+          DataTypeMapping prescanned = scanned.get(column);
+          if (prescanned == null) {
+            return inferred;
+          }
+          DataTypeMapping best = inferer.selectBestType(inferred, prescanned);
+          if (written.add(column) && best != inferred && inferred != DataTypeMapping.NULL) {
+            wideningsAvoided++;
+            if (wideningsAvoidedCounter != null) {
+              wideningsAvoidedCounter.increment();
+            }
+          }
+          return best;
+        });
+    return inferredSchema;
+  }
+
+  /** how many columns were first written with a wider type than their batch suggested */
+  public int getWideningsAvoided() {
+    return wideningsAvoided;
+  }
+}
@@ -15,14 +15,21 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.databiosphere.workspacedataservice.activitylog.ActivityLogger;
+import org.databiosphere.workspacedataservice.dao.ChangeTokenDao;
 import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao.RecordCount;
+import org.databiosphere.workspacedataservice.dao.RecordDao.RecordPage;
+import org.databiosphere.workspacedataservice.datatypeconversion.DataTypeConversionService;
+import org.databiosphere.workspacedataservice.fulltextsearch.FullTextSearchService;
 import org.databiosphere.workspacedataservice.generated.DeleteRecordsRequestServerModel;
 import org.databiosphere.workspacedataservice.generated.DeleteRecordsResponseServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
 import org.databiosphere.workspacedataservice.recordsink.RecordSink;
 import org.databiosphere.workspacedataservice.recordsink.RecordSinkFactory;
 import org.databiosphere.workspacedataservice.recordsource.PrimaryKeyResolver;
@@ -66,31 +73,46 @@ public class RecordOrchestratorService { // TODO give me a better name
   private static final int MAX_RECORDS = 1_000;
 
   private final RecordDao recordDao;
+  private final ChangeTokenDao changeTokenDao;
   private final RecordSourceFactory recordSourceFactory;
   private final RecordSinkFactory recordSinkFactory;
   private final BatchWriteService batchWriteService;
   private final RecordService recordService;
+  private final DataTypeConversionService dataTypeConversionService;
+  private final FullTextSearchService fullTextSearchService;
   private final ActivityLogger activityLogger;
   private final TsvSupport tsvSupport;
   private final ObservationRegistry observations;
+  private final RecordSearchService recordSearchService;
+  private final SchemaPrescanner schemaPrescanner;
 
   public RecordOrchestratorService(
       RecordDao recordDao,
+      ChangeTokenDao changeTokenDao,
       RecordSourceFactory recordSourceFactory,
       RecordSinkFactory recordSinkFactory,
       BatchWriteService batchWriteService,
       RecordService recordService,
+      DataTypeConversionService dataTypeConversionService,
+      FullTextSearchService fullTextSearchService,
       ActivityLogger activityLogger,
       TsvSupport tsvSupport,
-      ObservationRegistry observations) {
+      ObservationRegistry observations,
+      RecordSearchService recordSearchService,
+      SchemaPrescanner schemaPrescanner) {
     this.recordDao = recordDao;
+    this.changeTokenDao = changeTokenDao;
     this.recordSourceFactory = recordSourceFactory;
     this.recordSinkFactory = recordSinkFactory;
     this.batchWriteService = batchWriteService;
     this.recordService = recordService;
+    this.dataTypeConversionService = dataTypeConversionService;
+    this.fullTextSearchService = fullTextSearchService;
     this.activityLogger = activityLogger;
     this.tsvSupport = tsvSupport;
     this.observations = observations;
+    this.recordSearchService = recordSearchService;
+    this.schemaPrescanner = schemaPrescanner;
   }
 
   public RecordResponse updateSingleRecord(
@@ -134,6 +156,12 @@ public class RecordOrchestratorService { // TODO give me a better name
           Optional.of(recordService.validatePrimaryKey(collectionId, recordType, primaryKey));
     }
 
+    // uploaded files can be read more than once, so the TSV can be pre-scanned if enabled
+    PrescannedSchemas prescannedSchemas =
+        schemaPrescanner.isEnabled()
+            ? schemaPrescanner.prescan(
+                recordSourceFactory.forTsv(records.getInputStream(), recordType, primaryKey))
+            : PrescannedSchemas.none();
     TsvRecordSource recordSource =
         recordSourceFactory.forTsv(records.getInputStream(), recordType, primaryKey);
     try (RecordSink recordSink = recordSinkFactory.buildRecordSink(CollectionId.of(collectionId))) {
@@ -145,7 +173,8 @@ public class RecordOrchestratorService { // TODO give me a better name
               // the extra cast here isn't exactly necessary, but left here to call out the
               // additional tangential responsibility of the TsvRecordSource; this can be removed if
               // we can converge on using PrimaryKeyResolver more generally across all formats.
-              ((PrimaryKeyResolver) recordSource).getPrimaryKey());
+              ((PrimaryKeyResolver) recordSource).getPrimaryKey(),
+              prescannedSchemas);
       int qty = result.getUpdatedCount(recordType);
       activityLogger.saveEventForCurrentUser(
           user -> user.upserted().record().withRecordType(recordType).ofQuantity(qty));
@@ -202,33 +231,22 @@ public class RecordOrchestratorService { // TODO give me a better name
         && !schema.containsKey(searchRequest.getSortAttribute())) {
       throw new MissingObjectException("Requested sort attribute");
     }
-    int totalRecords = recordDao.countRecords(collectionId, recordType);
-    if (searchRequest.getOffset() > totalRecords) {
-      return new RecordQueryResponse(searchRequest, Collections.emptyList(), totalRecords);
-    }
 
     Observation observation =
         Observation.start("wds.queryForRecords", observations)
             .lowCardinalityKeyValues(generateSearchFilterObservationKeyValues(searchRequest));
 
     LOGGER.info("queryForEntities: {}", recordType.getName());
-    List<Record> records =
-        recordDao.queryForRecords(
-            recordType,
-            searchRequest.getLimit(),
-            searchRequest.getOffset(),
-            searchRequest.getSort().name().toLowerCase(),
-            searchRequest.getSortAttribute(),
-            searchRequest.getFilter(),
-            collectionId);
+    RecordPage page = recordSearchService.queryForRecords(collectionId, recordType, searchRequest);
 
     List<RecordResponse> recordList =
-        records.stream()
+        page.records().stream()
             .map(r -> new RecordResponse(r.getId(), r.getRecordType(), r.getAttributes()))
             .toList();
 
     observation.stop();
-    return new RecordQueryResponse(searchRequest, recordList, totalRecords);
+    RecordCount count = Objects.requireNonNull(page.count());
+    return new RecordQueryResponse(searchRequest, recordList, count.total(), count.capped());
   }
 
   private KeyValues generateSearchFilterObservationKeyValues(SearchRequest searchRequest) {
@@ -375,28 +393,69 @@ public class RecordOrchestratorService { // TODO give me a better name
     }
   }
 
+  /**
+   * Change the data type of an attribute, waiting for existing values to be converted. Reads and
+   * writes of the record type are not blocked meanwhile; see {@link DataTypeConversionService}.
+   */
   public void updateAttributeDataType(
       UUID collectionId,
       String version,
       RecordType recordType,
       String attribute,
       String newDataType) {
-    validateVersion(version);
-    checkRecordTypeExists(collectionId, recordType);
-    RecordTypeSchema schema = getSchemaDescription(collectionId, recordType);
-    if (schema.isPrimaryKey(attribute)) {
-      throw new ValidationException("Unable to update primary key attribute");
+    DataTypeMapping newDataTypeMapping =
+        validateUpdateAttributeDataType(collectionId, version, recordType, attribute, newDataType);
+    try {
+      dataTypeConversionService.convert(collectionId, recordType, attribute, newDataTypeMapping);
+    } catch (IllegalArgumentException e) {
+      throw new ValidationException(e.getMessage());
     }
+    activityLogger.saveEventForCurrentUser(
+        user -> user.updated().attribute().withRecordType(recordType).withId(attribute));
+  }
 
-    DataTypeMapping newDataTypeMapping = validateAttributeDataType(newDataType);
+  /**
+   * Start a job to change the data type of an attribute. Invalid changes fail here; values which
+   * cannot be converted fail the job.
+   */
+  public GenericJobServerModel startAttributeDataTypeConversion(
+      UUID collectionId,
+      String version,
+      RecordType recordType,
+      String attribute,
+      String newDataType) {
+    DataTypeMapping newDataTypeMapping =
+        validateUpdateAttributeDataType(collectionId, version, recordType, attribute, newDataType);
+    GenericJobServerModel job;
     try {
-      recordService.updateAttributeDataType(
-          collectionId, recordType, attribute, newDataTypeMapping);
+      job =
+          dataTypeConversionService.startConversion(
+              collectionId, recordType, attribute, newDataTypeMapping);
     } catch (IllegalArgumentException e) {
       throw new ValidationException(e.getMessage());
     }
     activityLogger.saveEventForCurrentUser(
         user -> user.updated().attribute().withRecordType(recordType).withId(attribute));
+    return job;
+  }
+
+  private DataTypeMapping validateUpdateAttributeDataType(
+      UUID collectionId,
+      String version,
+      RecordType recordType,
+      String attribute,
+      String newDataType) {
+    validateVersion(version);
+    checkRecordTypeExists(collectionId, recordType);
+    RecordTypeSchema schema = getSchemaDescription(collectionId, recordType);
+    if (schema.isPrimaryKey(attribute)) {
+      throw new ValidationException("Unable to update primary key attribute");
+    }
+    DataTypeMapping newDataTypeMapping = validateAttributeDataType(newDataType);
+    if (!schema.containsAttribute(attribute)) {
+      throw new MissingObjectException("Attribute");
+    }
+    return newDataTypeMapping;
   }
 
   private DataTypeMapping validateAttributeDataType(String dataType) {
@@ -417,6 +476,30 @@ public class RecordOrchestratorService { // TODO give me a better name
         user -> user.deleted().attribute().withRecordType(recordType).withId(attribute));
   }
 
+  /**
+   * Start a job to enable full-text search of a record type, so that search queries which do not
+   * specify a column match records with the term in any attribute. Existing records are indexed by
+   * the job; reads and writes of the record type are not blocked meanwhile. See {@link
+   * FullTextSearchService}.
+   */
+  public GenericJobServerModel enableFullTextSearch(
+      UUID collectionId, String version, RecordType recordType) {
+    validateVersion(version);
+    checkRecordTypeExists(collectionId, recordType);
+    GenericJobServerModel job = fullTextSearchService.startEnabling(collectionId, recordType);
+    activityLogger.saveEventForCurrentUser(
+        user -> user.updated().table().ofQuantity(1).withRecordType(recordType));
+    return job;
+  }
+
+  public void disableFullTextSearch(UUID collectionId, String version, RecordType recordType) {
+    validateVersion(version);
+    checkRecordTypeExists(collectionId, recordType);
+    recordService.disableFullTextSearch(collectionId, recordType);
+    activityLogger.saveEventForCurrentUser(
+        user -> user.updated().table().ofQuantity(1).withRecordType(recordType));
+  }
+
   private void validateDeleteAttribute(UUID collectionId, RecordType recordType, String attribute) {
     RecordTypeSchema schema = getSchemaDescription(collectionId, recordType);
 
@@ -428,6 +511,16 @@ public class RecordOrchestratorService { // TODO give me a better name
     }
   }
 
+  /**
+   * The change token of a record type, or of the whole collection if recordType is null. Does not
+   * touch any record tables.
+   */
+  public Optional<Long> getChangeToken(
+      UUID collectionId, String version, @Nullable RecordType recordType) {
+    validateVersion(version);
+    return changeTokenDao.getToken(collectionId, recordType);
+  }
+
   @ReadTransaction
   public RecordTypeSchema describeRecordType(
       UUID collectionId, String version, RecordType recordType) {
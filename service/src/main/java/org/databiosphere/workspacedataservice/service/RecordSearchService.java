@@ -0,0 +1,115 @@
+package org.databiosphere.workspacedataservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao.RecordCount;
+import org.databiosphere.workspacedataservice.dao.RecordDao.RecordPage;
+import org.databiosphere.workspacedataservice.search.CountStrategy;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.databiosphere.workspacedataservice.shared.model.SearchRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Queries a page of records and counts the records which match the search filter, as set by
+ * twds.search.count-strategy; see {@link CountStrategy}. If twds.search.count-limit is positive,
+ * counting stops after that many records, and the count is reported as capped, e.g. "10,000+".
+ *
+ * <p>Time spent counting is recorded in the wds.search.count timer, by strategy and whether the
+ * count was capped. For the window strategy, that is the time of the statement which also queries
+ * the page.
+ *
+ * <p>Searches request an index of the attribute they filter on; see {@link SearchIndexer}.
+ */
+@Service
+public class RecordSearchService {
+  private final RecordDao recordDao;
+  private final SearchIndexer searchIndexer;
+  private final MeterRegistry meterRegistry;
+  private final CountStrategy countStrategy;
+  private final int countLimit;
+
+  public RecordSearchService(
+      RecordDao recordDao,
+      SearchIndexer searchIndexer,
+      MeterRegistry meterRegistry,
+      @Value("${twds.search.count-strategy:separate}") CountStrategy countStrategy,
+      @Value("${twds.search.count-limit:0}") int countLimit) {
+    this.recordDao = recordDao;
+    this.searchIndexer = searchIndexer;
+    this.meterRegistry = meterRegistry;
+    this.countStrategy = countStrategy;
+    this.countLimit = countLimit;
+  }
+
+  /** Query a page of records, with the number of records which match the search filter. */
+  public RecordPage queryForRecords(
+      UUID collectionId, RecordType recordType, SearchRequest searchRequest) {
+    int pageSize = searchRequest.getLimit();
+    int offset = searchRequest.getOffset();
+    String sortDirection = searchRequest.getSort().name().toLowerCase();
+    String sortAttribute = searchRequest.getSortAttribute();
+    Optional<SearchFilter> filter = searchRequest.getFilter();
+    searchIndexer.requestIndex(collectionId, recordType, filter);
+
+    if (countStrategy == CountStrategy.WINDOW
+        && (countLimit <= 0 || offset + pageSize <= countLimit)) {
+      RecordPage page =
+          timeCount(
+              CountStrategy.WINDOW,
+              () ->
+                  recordDao.queryForRecordsWithCount(
+                      recordType,
+                      pageSize,
+                      offset,
+                      sortDirection,
+                      sortAttribute,
+                      filter,
+                      collectionId,
+                      countLimit),
+              counted -> counted.count() != null && counted.count().capped());
+      if (page.count() != null) {
+        return page;
+      }
+      // the offset is past the last matching record, so the page could not count them
+      return new RecordPage(page.records(), count(collectionId, recordType, filter));
+    }
+
+    RecordCount count = count(collectionId, recordType, filter);
+    if (!count.capped() && offset >= count.total()) {
+      return new RecordPage(List.of(), count);
+    }
+    return new RecordPage(
+        recordDao.queryForRecords(
+            recordType, pageSize, offset, sortDirection, sortAttribute, filter, collectionId),
+        count);
+  }
+
+  private RecordCount count(
+      UUID collectionId, RecordType recordType, Optional<SearchFilter> filter) {
+    return timeCount(
+        CountStrategy.SEPARATE,
+        () -> recordDao.countRecords(collectionId, recordType, filter, countLimit),
+        RecordCount::capped);
+  }
+
+  private <T> T timeCount(CountStrategy strategy, Supplier<T> counter, Predicate<T> capped) {
+    long start = System.nanoTime();
+    T result = counter.get();
+    Timer.builder("wds.search.count")
+        .description("Time spent counting the records which match a search")
+        .tag("strategy", strategy.name().toLowerCase())
+        .tag("capped", Boolean.toString(capped.test(result)))
+        .register(meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    return result;
+  }
+}
@@ -1,7 +1,5 @@
 package org.databiosphere.workspacedataservice.service;
 
-import static org.databiosphere.workspacedataservice.service.model.ReservedNames.RESERVED_NAME_PREFIX;
-
 import bio.terra.common.db.WriteTransaction;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
@@ -15,23 +13,22 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.service.SchemaPlanner.SchemaChanges;
+import org.databiosphere.workspacedataservice.service.SchemaPlanner.TypeChange;
 import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
 import org.databiosphere.workspacedataservice.service.model.Relation;
-import org.databiosphere.workspacedataservice.service.model.RelationCollection;
 import org.databiosphere.workspacedataservice.service.model.RelationValue;
 import org.databiosphere.workspacedataservice.service.model.ReservedNames;
 import org.databiosphere.workspacedataservice.service.model.exception.ConflictingPrimaryKeysException;
-import org.databiosphere.workspacedataservice.service.model.exception.InvalidNameException;
-import org.databiosphere.workspacedataservice.service.model.exception.InvalidRelationException;
 import org.databiosphere.workspacedataservice.service.model.exception.MissingObjectException;
 import org.databiosphere.workspacedataservice.service.model.exception.NewPrimaryKeyException;
 import org.databiosphere.workspacedataservice.service.model.exception.TypeMismatchException;
 import org.databiosphere.workspacedataservice.shared.model.Record;
 import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordRequest;
 import org.databiosphere.workspacedataservice.shared.model.RecordResponse;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
@@ -39,7 +36,8 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class RecordService {
@@ -152,6 +150,35 @@ public class RecordService {
     }
   }
 
+  /**
+   * Upsert a columnar batch of records. Batches with arrays of relations, whose join tables are
+   * written from {@link Record}s, are upserted as records.
+   */
+  public void batchUpsert(
+      UUID collectionId,
+      RecordType recordType,
+      RecordBatch batch,
+      Map<String, DataTypeMapping> schema,
+      String primaryKey) {
+    if (schema.containsValue(DataTypeMapping.ARRAY_OF_RELATION)) {
+      batchUpsert(collectionId, recordType, batch.toRecords(), schema, primaryKey);
+      return;
+    }
+    try {
+      recordDao.batchUpsert(collectionId, recordType, batch, schema, primaryKey);
+    } catch (DataAccessException e) {
+      if (isDataMismatchException(e)) {
+        Map<String, DataTypeMapping> recordTypeSchemaWithoutId = new HashMap<>(schema);
+        recordTypeSchemaWithoutId.remove(primaryKey);
+        List<String> rowErrors = checkEachRow(batch.toRecords(), recordTypeSchemaWithoutId);
+        if (!rowErrors.isEmpty()) {
+          throw new TypeMismatchException(rowErrors);
+        }
+      }
+      throw e;
+    }
+  }
+
   private List<String> checkEachRow(
       List<Record> records, Map<String, DataTypeMapping> recordTypeSchema) {
     List<String> result = new ArrayList<>();
@@ -196,113 +223,62 @@ public class RecordService {
       Map<String, DataTypeMapping> schema,
       Map<String, DataTypeMapping> existingTableSchema,
       List<Record> records) {
-    MapDifference<String, DataTypeMapping> difference =
-        Maps.difference(existingTableSchema, schema);
-    Map<String, DataTypeMapping> colsToAdd = difference.entriesOnlyOnRight();
-    colsToAdd.keySet().stream()
-        .filter(s -> s.startsWith(RESERVED_NAME_PREFIX))
-        .findAny()
-        .ifPresent(
-            s -> {
-              throw new InvalidNameException(InvalidNameException.NameType.ATTRIBUTE);
-            });
-    validateRelationsAndAddColumns(
-        collectionId, recordType, schema, records, colsToAdd, existingTableSchema);
-    Map<String, MapDifference.ValueDifference<DataTypeMapping>> differenceMap =
-        difference.entriesDiffering();
-    for (Map.Entry<String, MapDifference.ValueDifference<DataTypeMapping>> entry :
-        differenceMap.entrySet()) {
-      String column = entry.getKey();
-      MapDifference.ValueDifference<DataTypeMapping> valueDifference = entry.getValue();
-      // Don't allow updating relation columns
-      if (valueDifference.leftValue() == DataTypeMapping.ARRAY_OF_RELATION
-          || valueDifference.leftValue() == DataTypeMapping.RELATION) {
-        throw new InvalidRelationException(
-            "Unable to update a relation or array of relation attribute type");
-      }
-      DataTypeMapping updatedColType =
-          inferer.selectBestType(valueDifference.leftValue(), valueDifference.rightValue());
-
-      // time the schema change and record some high cardinality tracing details
-      Observation.createNotStarted(METRIC_COL_CHANGE, observationRegistry)
-          .lowCardinalityKeyValue(TAG_OLD_DATATYPE, valueDifference.leftValue().toString())
-          .lowCardinalityKeyValue(TAG_NEW_DATATYPE, updatedColType.toString())
-          .highCardinalityKeyValue(TAG_RECORD_TYPE, recordType.getName())
-          .highCardinalityKeyValue(TAG_ATTRIBUTE_NAME, column)
-          .highCardinalityKeyValue(TAG_COLLECTION, collectionId.toString())
-          .observe(() -> recordDao.changeColumn(collectionId, recordType, column, updatedColType));
-
-      schema.put(column, updatedColType);
+    SchemaChanges changes =
+        SchemaPlanner.plan(
+            inferer,
+            schema,
+            existingTableSchema,
+            SchemaPlanner.existingRelations(recordDao, collectionId, recordType),
+            records);
+    if (!changes.isEmpty()) {
+      alterRecordType(collectionId, recordType, changes);
     }
     return schema;
   }
 
-  public void validateRelations(
-      Set<Relation> existingRelations,
-      Set<Relation> newRelations,
-      Map<String, DataTypeMapping> existingSchema) {
-    Set<String> existingRelationCols =
-        existingRelations.stream().map(Relation::relationColName).collect(Collectors.toSet());
-    // look for case where requested relation column already exists as a
-    // non-relational column
-    for (Relation relation : newRelations) {
-      String col = relation.relationColName();
-      if (!existingRelationCols.contains(col) && existingSchema.containsKey(col)) {
-        throw new InvalidRelationException(
-            "It looks like you're attempting to assign a relation "
-                + "to an existing attribute that was not configured for relations");
-      }
-    }
-  }
-
-  public void validateRelationsAndAddColumns(
-      UUID collectionId,
-      RecordType recordType,
-      Map<String, DataTypeMapping> requestSchema,
-      List<Record> records,
-      Map<String, DataTypeMapping> colsToAdd,
-      Map<String, DataTypeMapping> existingSchema) {
-    RelationCollection relations = inferer.findRelations(records, requestSchema);
-    RelationCollection existingRelations =
-        new RelationCollection(
-            Set.copyOf(recordDao.getRelationCols(collectionId, recordType)),
-            Set.copyOf(recordDao.getRelationArrayCols(collectionId, recordType)));
-    // look for case where requested relation column already exists as a
-    // non-relational column
-    validateRelations(existingRelations.relations(), relations.relations(), existingSchema);
-    // same for relation-array columns
-    validateRelations(
-        existingRelations.relationArrays(), relations.relationArrays(), existingSchema);
-    relations.relations().addAll(existingRelations.relations());
-    relations.relationArrays().addAll(existingRelations.relationArrays());
-    Map<String, List<Relation>> allRefCols =
-        relations.relations().stream().collect(Collectors.groupingBy(Relation::relationColName));
-    if (allRefCols.values().stream().anyMatch(l -> l.size() > 1)) {
-      throw new ResponseStatusException(
-          HttpStatus.BAD_REQUEST, "Relation attribute can only be assigned to one record type");
-    }
-    Map<String, List<Relation>> allRefArrCols =
-        relations.relationArrays().stream()
-            .collect(Collectors.groupingBy(Relation::relationColName));
-    if (allRefArrCols.values().stream().anyMatch(l -> l.size() > 1)) {
-      throw new ResponseStatusException(
-          HttpStatus.BAD_REQUEST,
-          "Relation array attribute can only be assigned to one record type");
-    }
-    for (Map.Entry<String, DataTypeMapping> entry : colsToAdd.entrySet()) {
-      RecordType referencedRecordType = null;
-      String col = entry.getKey();
-      DataTypeMapping dataType = entry.getValue();
-      if (allRefCols.containsKey(col)) {
-        referencedRecordType = allRefCols.get(col).get(0).relationRecordType();
-      }
-      recordDao.addColumn(collectionId, recordType, col, dataType, referencedRecordType);
-      if (allRefArrCols.containsKey(col)) {
-        referencedRecordType = allRefArrCols.get(col).get(0).relationRecordType();
-        recordDao.createRelationJoinTable(collectionId, col, recordType, referencedRecordType);
-      }
-      requestSchema.put(col, dataType);
+  /**
+   * Apply planned changes to a record type's table, in a single ALTER TABLE statement. Within a
+   * transaction, the changes are made under a savepoint, so that should they fail, the transaction
+   * can continue and the changes can be re-planned.
+   *
+   * @see SchemaPlanner#plan
+   */
+  @Transactional(propagation = Propagation.NESTED)
+  public void alterRecordType(UUID collectionId, RecordType recordType, SchemaChanges changes) {
+    // time the schema change and record some high cardinality tracing details for each column
+    // whose type changes
+    List<Observation> observations =
+        changes.columnsToChange().entrySet().stream()
+            .map(
+                change ->
+                    Observation.createNotStarted(METRIC_COL_CHANGE, observationRegistry)
+                        .lowCardinalityKeyValue(
+                            TAG_OLD_DATATYPE, change.getValue().from().toString())
+                        .lowCardinalityKeyValue(TAG_NEW_DATATYPE, change.getValue().to().toString())
+                        .highCardinalityKeyValue(TAG_RECORD_TYPE, recordType.getName())
+                        .highCardinalityKeyValue(TAG_ATTRIBUTE_NAME, change.getKey())
+                        .highCardinalityKeyValue(TAG_COLLECTION, collectionId.toString())
+                        .start())
+            .toList();
+    try {
+      recordDao.alterColumns(
+          collectionId,
+          recordType,
+          changes.columnsToAdd(),
+          changes.referencedTypes(),
+          Maps.transformValues(changes.columnsToChange(), TypeChange::to));
+    } catch (RuntimeException e) {
+      observations.forEach(observation -> observation.error(e));
+      throw e;
+    } finally {
+      observations.forEach(Observation::stop);
     }
+    changes
+        .relationArrayTypes()
+        .forEach(
+            (column, referencedType) ->
+                recordDao.createRelationJoinTable(
+                    collectionId, column, recordType, referencedType));
   }
 
   @WriteTransaction
@@ -427,13 +403,33 @@ public class RecordService {
   }
 
   @WriteTransaction
-  public void updateAttributeDataType(
-      UUID collectionId, RecordType recordType, String attribute, DataTypeMapping newDataType) {
-    recordDao.updateAttributeDataType(collectionId, recordType, attribute, newDataType);
+  public void prepareDataTypeConversion(
+      UUID collectionId,
+      RecordType recordType,
+      String attribute,
+      DataTypeMapping newDataType,
+      UUID jobId) {
+    recordDao.prepareDataTypeConversion(collectionId, recordType, attribute, newDataType, jobId);
+  }
+
+  @WriteTransaction
+  public void completeDataTypeConversion(
+      UUID collectionId, RecordType recordType, String attribute) {
+    recordDao.completeDataTypeConversion(collectionId, recordType, attribute);
   }
 
   @WriteTransaction
   public void deleteAttribute(UUID collectionId, RecordType recordType, String attribute) {
     recordDao.deleteAttribute(collectionId, recordType, attribute);
   }
+
+  @WriteTransaction
+  public void prepareFullTextSearch(UUID collectionId, RecordType recordType) {
+    recordDao.prepareFullTextSearch(collectionId, recordType);
+  }
+
+  @WriteTransaction
+  public void disableFullTextSearch(UUID collectionId, RecordType recordType) {
+    recordDao.disableFullTextSearch(collectionId, recordType);
+  }
 }
@@ -0,0 +1,305 @@
+package org.databiosphere.workspacedataservice.service;
+
+import static org.databiosphere.workspacedataservice.service.model.ReservedNames.RESERVED_NAME_PREFIX;
+
+import com.google.common.collect.MapDifference;
+import com.google.common.collect.Maps;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgress;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.Relation;
+import org.databiosphere.workspacedataservice.service.model.RelationCollection;
+import org.databiosphere.workspacedataservice.service.model.exception.InvalidNameException;
+import org.databiosphere.workspacedataservice.service.model.exception.InvalidRelationException;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Evolves the schemas of the record types an import writes, batch by batch. A planner reads each
+ * record type's columns and relations from the database once, then keeps them in memory for the
+ * rest of the import, so batches which fit the table as it stands - typically most of them - issue
+ * no schema queries and no DDL. A batch which brings new columns, or values which need wider column
+ * types, changes the table in a single ALTER TABLE statement.
+ *
+ * <p>Each import should use its own planner, which is not thread-safe. Another writer may change a
+ * table's schema while the import runs: columns are added only if they don't already exist, and
+ * should a change fail nonetheless, the planner reads the table again and re-plans the batch, once.
+ */
+public class SchemaPlanner {
+  private final RecordService recordService;
+  private final RecordDao recordDao;
+  private final DataTypeInferer inferer;
+  private final UUID collectionId;
+  private final Map<RecordType, TableSchema> tables = new HashMap<>();
+
+  public SchemaPlanner(
+      RecordService recordService,
+      RecordDao recordDao,
+      DataTypeInferer inferer,
+      UUID collectionId) {
+    this.recordService = recordService;
+    this.recordDao = recordDao;
+    this.inferer = inferer;
+    this.collectionId = collectionId;
+  }
+
+  /** the columns and relations of a record type's table, as this import has left them */
+  private record TableSchema(Map<String, DataTypeMapping> columns, RelationCollection relations) {}
+
+  /**
+   * A change in a column's type.
+   *
+   * @param from the column's current type
+   * @param to the column's new type
+   */
+  public record TypeChange(DataTypeMapping from, DataTypeMapping to) {}
+
+  /**
+   * The changes to a record type's table needed before a batch of records can be written to it.
+   *
+   * @param columnsToAdd new columns and their types
+   * @param referencedTypes the record types referenced by those new columns which are relations
+   * @param relationArrayTypes the record types referenced by those new columns which are arrays of
+   *     relations, each of which needs a join table
+   * @param columnsToChange existing columns whose types must widen
+   * @param relations the table's relations, once the changes are applied
+   */
+  public record SchemaChanges(
+      Map<String, DataTypeMapping> columnsToAdd,
+      Map<String, RecordType> referencedTypes,
+      Map<String, RecordType> relationArrayTypes,
+      Map<String, TypeChange> columnsToChange,
+      RelationCollection relations) {
+    public boolean isEmpty() {
+      return columnsToAdd.isEmpty() && columnsToChange.isEmpty();
+    }
+  }
+
+  /**
+   * Create the record type, or change its table as needed, to accept a batch of records.
+   *
+   * @param recordType the record type
+   * @param schema the schema inferred from the batch; updated with the table's type for any column
+   *     whose existing type already accommodates the batch's values
+   * @param records the batch of records
+   * @param primaryKey the primary key column, should the record type need creating
+   * @return the schema with which to write the batch
+   */
+  public Map<String, DataTypeMapping> createOrModifyRecordType(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      List<Record> records,
+      String primaryKey) {
+    return createOrModifyRecordType(
+        recordType, schema, inferer.findRelations(records, schema), primaryKey);
+  }
+
+  /**
+   * Create the record type, or change its table as needed, to accept a columnar batch of records.
+   *
+   * @see #createOrModifyRecordType(RecordType, Map, List, String)
+   */
+  public Map<String, DataTypeMapping> createOrModifyRecordType(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      RecordBatch batch,
+      String primaryKey) {
+    return createOrModifyRecordType(
+        recordType, schema, inferer.findRelations(batch, schema), primaryKey);
+  }
+
+  private Map<String, DataTypeMapping> createOrModifyRecordType(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      RelationCollection relations,
+      String primaryKey) {
+    TableSchema table = tables.get(recordType);
+    if (table == null) {
+      boolean created = false;
+      if (!recordDao.recordTypeExists(collectionId, recordType)) {
+        recordDao.createRecordType(collectionId, schema, recordType, relations, primaryKey);
+        created = true;
+      }
+      table = readTable(recordType);
+      if (created) {
+        return schema;
+      }
+    }
+    // planning adds the table's relations to those found in the batch, so plan with a copy
+    SchemaChanges changes =
+        plan(inferer, schema, table.columns(), table.relations(), copyOf(relations));
+    if (changes.isEmpty()) {
+      return schema;
+    }
+    try {
+      alter(recordType, table, changes);
+    } catch (DataAccessException e) {
+      // another writer may have changed the table since it was read; forget it and re-plan
+      tables.remove(recordType);
+      table = readTable(recordType);
+      changes = plan(inferer, schema, table.columns(), table.relations(), relations);
+      if (!changes.isEmpty()) {
+        alter(recordType, table, changes);
+      }
+    }
+    return schema;
+  }
+
+  private TableSchema readTable(RecordType recordType) {
+    TableSchema table =
+        new TableSchema(
+            new HashMap<>(recordDao.getExistingTableSchema(collectionId, recordType)),
+            existingRelations(recordDao, collectionId, recordType));
+    tables.put(recordType, table);
+    return table;
+  }
+
+  private void alter(RecordType recordType, TableSchema table, SchemaChanges changes) {
+    recordService.alterRecordType(collectionId, recordType, changes);
+    ImportProgress.current().ifPresent(ImportProgress::addSchemaAlter);
+    Map<String, DataTypeMapping> columns = table.columns();
+    columns.putAll(changes.columnsToAdd());
+    changes.columnsToChange().forEach((column, change) -> columns.put(column, change.to()));
+    tables.put(recordType, new TableSchema(columns, changes.relations()));
+  }
+
+  private static RelationCollection copyOf(RelationCollection relations) {
+    return new RelationCollection(
+        new HashSet<>(relations.relations()), new HashSet<>(relations.relationArrays()));
+  }
+
+  /**
+   * Work out the changes a record type's table needs to accept a batch of records: the batch's new
+   * columns, and the widened types of columns whose values in the batch don't fit their existing
+   * types. Columns whose existing types already fit the batch's values are left alone.
+   *
+   * @param schema the schema inferred from the batch; updated with the type each column will have
+   * @param existingSchema the table's current columns
+   * @param existingRelations the table's current relations
+   * @param records the batch of records
+   * @return the changes to apply; empty if the table already accepts the batch
+   * @throws InvalidNameException if a new column has a reserved name
+   * @throws InvalidRelationException if the batch changes a relation column, or assigns a relation
+   *     to an existing non-relation column
+   * @throws ResponseStatusException if a relation column would reference more than one record type
+   */
+  static SchemaChanges plan(
+      DataTypeInferer inferer,
+      Map<String, DataTypeMapping> schema,
+      Map<String, DataTypeMapping> existingSchema,
+      RelationCollection existingRelations,
+      List<Record> records) {
+    return plan(
+        inferer, schema, existingSchema, existingRelations, inferer.findRelations(records, schema));
+  }
+
+  /**
+   * As {@link #plan(DataTypeInferer, Map, Map, RelationCollection, List)}, given the relations
+   * already found in the batch.
+   *
+   * @param relations the relations found in the batch; updated with the existing relations
+   */
+  static SchemaChanges plan(
+      DataTypeInferer inferer,
+      Map<String, DataTypeMapping> schema,
+      Map<String, DataTypeMapping> existingSchema,
+      RelationCollection existingRelations,
+      RelationCollection relations) {
+    MapDifference<String, DataTypeMapping> difference = Maps.difference(existingSchema, schema);
+    Map<String, DataTypeMapping> columnsToAdd =
+        new LinkedHashMap<>(difference.entriesOnlyOnRight());
+    if (columnsToAdd.keySet().stream().anyMatch(s -> s.startsWith(RESERVED_NAME_PREFIX))) {
+      throw new InvalidNameException(InvalidNameException.NameType.ATTRIBUTE);
+    }
+
+    // look for case where requested relation column already exists as a
+    // non-relational column
+    validateRelations(existingRelations.relations(), relations.relations(), existingSchema);
+    // same for relation-array columns
+    validateRelations(
+        existingRelations.relationArrays(), relations.relationArrays(), existingSchema);
+    relations.relations().addAll(existingRelations.relations());
+    relations.relationArrays().addAll(existingRelations.relationArrays());
+    Map<String, List<Relation>> allRefCols =
+        relations.relations().stream().collect(Collectors.groupingBy(Relation::relationColName));
+    if (allRefCols.values().stream().anyMatch(l -> l.size() > 1)) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Relation attribute can only be assigned to one record type");
+    }
+    Map<String, List<Relation>> allRefArrCols =
+        relations.relationArrays().stream()
+            .collect(Collectors.groupingBy(Relation::relationColName));
+    if (allRefArrCols.values().stream().anyMatch(l -> l.size() > 1)) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST,
+          "Relation array attribute can only be assigned to one record type");
+    }
+    Map<String, RecordType> referencedTypes = new HashMap<>();
+    Map<String, RecordType> relationArrayTypes = new HashMap<>();
+    for (String column : columnsToAdd.keySet()) {
+      if (allRefCols.containsKey(column)) {
+        referencedTypes.put(column, allRefCols.get(column).get(0).relationRecordType());
+      }
+      if (allRefArrCols.containsKey(column)) {
+        relationArrayTypes.put(column, allRefArrCols.get(column).get(0).relationRecordType());
+      }
+    }
+
+    Map<String, TypeChange> columnsToChange = new LinkedHashMap<>();
+    difference
+        .entriesDiffering()
+        .forEach(
+            (column, valueDifference) -> {
+              DataTypeMapping existing = valueDifference.leftValue();
+              // Don't allow updating relation columns
+              if (existing == DataTypeMapping.ARRAY_OF_RELATION
+                  || existing == DataTypeMapping.RELATION) {
+                throw new InvalidRelationException(
+                    "Unable to update a relation or array of relation attribute type");
+              }
+              DataTypeMapping updated =
+                  inferer.selectBestType(existing, valueDifference.rightValue());
+              if (updated != existing) {
+                columnsToChange.put(column, new TypeChange(existing, updated));
+              }
+              schema.put(column, updated);
+            });
+    return new SchemaChanges(
+        columnsToAdd, referencedTypes, relationArrayTypes, columnsToChange, relations);
+  }
+
+  static RelationCollection existingRelations(
+      RecordDao recordDao, UUID collectionId, RecordType recordType) {
+    return new RelationCollection(
+        Set.copyOf(recordDao.getRelationCols(collectionId, recordType)),
+        Set.copyOf(recordDao.getRelationArrayCols(collectionId, recordType)));
+  }
+
+  private static void validateRelations(
+      Set<Relation> existingRelations,
+      Set<Relation> newRelations,
+      Map<String, DataTypeMapping> existingSchema) {
+    Set<String> existingRelationCols =
+        existingRelations.stream().map(Relation::relationColName).collect(Collectors.toSet());
+    for (Relation relation : newRelations) {
+      String col = relation.relationColName();
+      if (!existingRelationCols.contains(col) && existingSchema.containsKey(col)) {
+        throw new InvalidRelationException(
+            "It looks like you're attempting to assign a relation "
+                + "to an existing attribute that was not configured for relations");
+      }
+    }
+  }
+}
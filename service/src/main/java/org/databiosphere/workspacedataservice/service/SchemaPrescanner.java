@@ -0,0 +1,124 @@
+package org.databiosphere.workspacedataservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource.BatchStreamInfo;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.exception.BadStreamingWriteRequestException;
+import org.databiosphere.workspacedataservice.shared.model.OperationType;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optionally reads a {@link RecordSource} before it is written, to find the types its columns will
+ * need. {@link BatchWriteService} infers column types one batch at a time, so a column whose later
+ * values don't fit the type inferred from its first batch is widened on a table which already holds
+ * rows. Pre-scanning fixes the types up front, using the same {@link
+ * DataTypeInferer#selectBestType} rules, at the cost of reading the source twice.
+ *
+ * <p>Enabled by {@code twds.write.prescan.enabled}. {@code twds.write.prescan.max-rows} caps how
+ * many rows are scanned; zero scans the whole source.
+ */
+@Component
+public class SchemaPrescanner {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaPrescanner.class);
+
+  private final DataTypeInferer inferer;
+  private final boolean enabled;
+  private final long maxRows;
+  private final int batchSize;
+  private final Counter wideningsAvoidedCounter;
+
+  public SchemaPrescanner(
+      DataTypeInferer inferer,
+      MeterRegistry meterRegistry,
+      @Value("${twds.write.prescan.enabled:false}") boolean enabled,
+      @Value("${twds.write.prescan.max-rows:0}") long maxRows,
+      @Value("${twds.write.batch.size:5000}") int batchSize) {
+    this.inferer = inferer;
+    this.enabled = enabled;
+    this.maxRows = maxRows;
+    this.batchSize = batchSize;
+    this.wideningsAvoidedCounter =
+        Counter.builder("wds.write.prescan.wideningsAvoided")
+            .description(
+                "Columns created with their pre-scanned type instead of being widened later")
+            .register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Opens one of the record sources to be pre-scanned. */
+  @FunctionalInterface
+  public interface RecordSourceOpener {
+    RecordSource open() throws IOException;
+  }
+
+  /**
+   * Read a record source to find the types of its columns, then close it. The source should yield
+   * the same records as the one to be written.
+   *
+   * @param recordSource the source to scan
+   * @return the types found, or {@link PrescannedSchemas#none()} if pre-scanning is disabled
+   */
+  public PrescannedSchemas prescan(RecordSource recordSource) {
+    return prescan(List.of(() -> recordSource));
+  }
+
+  /**
+   * Read several record sources, one at a time, to find the types of their columns, such as the
+   * files which together make up a table. Each source is closed once read.
+   *
+   * @param openers opens each of the sources to scan
+   * @return the types found, or {@link PrescannedSchemas#none()} if pre-scanning is disabled
+   */
+  public PrescannedSchemas prescan(List<RecordSourceOpener> openers) {
+    if (!enabled) {
+      return PrescannedSchemas.none();
+    }
+    Map<RecordType, Map<String, DataTypeMapping>> schemas = new HashMap<>();
+    long scanned = 0;
+    for (RecordSourceOpener opener : openers) {
+      if (maxRows > 0 && scanned >= maxRows) {
+        break;
+      }
+      try (RecordSource recordSource = opener.open()) {
+        while (maxRows <= 0 || scanned < maxRows) {
+          int toRead = maxRows <= 0 ? batchSize : (int) Math.min(batchSize, maxRows - scanned);
+          BatchStreamInfo info = recordSource.readBatches(toRead);
+          if (info.isEmpty()) {
+            break;
+          }
+          scanned += info.size();
+          if (info.operationType() == OperationType.UPSERT) {
+            info.batches().forEach(batch -> mergeBatch(schemas, batch));
+          }
+        }
+      } catch (IOException e) {
+        throw new BadStreamingWriteRequestException(e);
+      }
+    }
+    LOGGER.info("Pre-scanned {} rows for {} record types", scanned, schemas.size());
+    return new PrescannedSchemas(schemas, inferer, wideningsAvoidedCounter);
+  }
+
+  private void mergeBatch(
+      Map<RecordType, Map<String, DataTypeMapping>> schemas, RecordBatch batch) {
+    Map<String, DataTypeMapping> schema =
+        schemas.computeIfAbsent(batch.getRecordType(), type -> new HashMap<>());
+    inferer
+        .inferTypes(batch)
+        .forEach((column, type) -> schema.merge(column, type, inferer::selectBestType));
+  }
+}
@@ -0,0 +1,101 @@
+package org.databiosphere.workspacedataservice.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.search.QueryParser;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds search indexes on demand. If twds.search.index-string-attributes is true, the first search
+ * filtering on an attribute indexes it in the background, without blocking writes to its record
+ * type; see {@link RecordDao#createSearchIndexConcurrently}. The search itself does not wait for
+ * the index. Attributes that are never filtered on are never indexed.
+ *
+ * <p>Indexes are built one at a time, and only a few requests wait to be built; others are dropped,
+ * to be requested again by a later search. An attribute requested recently is not requested again
+ * until {@link #REREQUEST_AFTER} has passed.
+ */
+@Service
+public class SearchIndexer {
+  private static final Logger logger = LoggerFactory.getLogger(SearchIndexer.class);
+
+  static final Duration REREQUEST_AFTER = Duration.ofMinutes(1);
+
+  private record Attribute(UUID collectionId, RecordType recordType, String attribute) {}
+
+  private final RecordDao recordDao;
+  @Nullable private final ThreadPoolExecutor executor;
+  private final Cache<Attribute, Boolean> requested =
+      CacheBuilder.newBuilder().expireAfterWrite(REREQUEST_AFTER).maximumSize(10_000).build();
+
+  public SearchIndexer(
+      RecordDao recordDao,
+      @Value("${twds.search.index-string-attributes:false}") boolean indexStringAttributes) {
+    this.recordDao = recordDao;
+    this.executor =
+        indexStringAttributes
+            ? new ThreadPoolExecutor(
+                1,
+                1,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                runnable -> {
+                  Thread thread = new Thread(runnable, "search-indexer");
+                  thread.setDaemon(true);
+                  return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy())
+            : null;
+  }
+
+  /** Index the attribute a search filters on, if it has one and is not already indexed. */
+  public void requestIndex(
+      UUID collectionId, RecordType recordType, Optional<SearchFilter> filter) {
+    if (executor == null) {
+      return;
+    }
+    filter
+        .flatMap(SearchFilter::query)
+        .flatMap(QueryParser::getFilteredColumn)
+        .map(column -> new Attribute(collectionId, recordType, column))
+        .filter(attribute -> requested.asMap().putIfAbsent(attribute, true) == null)
+        .ifPresent(attribute -> executor.execute(() -> index(attribute)));
+  }
+
+  private void index(Attribute attribute) {
+    try {
+      recordDao.createSearchIndexConcurrently(
+          attribute.collectionId(), attribute.recordType(), attribute.attribute());
+    } catch (RuntimeException e) {
+      // e.g. the record type was deleted since the search
+      logger.warn(
+          "Could not index {}.{} for searches: {}",
+          attribute.recordType().getName(),
+          attribute.attribute(),
+          e.getMessage());
+    }
+  }
+
+  /** Stop indexing, discarding any indexes waiting to be built. */
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -1,5 +1,10 @@
 package org.databiosphere.workspacedataservice.service;
 
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_COLLECTION;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 import org.databiosphere.workspacedataservice.dao.JobDao;
 import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
 import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
@@ -12,31 +17,41 @@ import org.databiosphere.workspacedataservice.shared.model.job.JobInput;
 import org.databiosphere.workspacedataservice.shared.model.job.JobResult;
 import org.databiosphere.workspacedataservice.shared.model.job.JobType;
 import org.databiosphere.workspacedataservice.workspace.DataTableTypeInspector;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceCloner;
 import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
 import org.databiosphere.workspacedataservice.workspace.WorkspaceInitJobInput;
 import org.databiosphere.workspacedataservice.workspace.WorkspaceInitJobResult;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceInitSchedulable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 @Service
 public class WorkspaceService {
+  // key for job data arguments
+  public static final String ARG_SOURCE_WORKSPACE = "sourceWorkspaceId";
 
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
   private final JobDao jobDao;
   private final CollectionService collectionService;
   private final DataTableTypeInspector dataTableTypeInspector;
   private final WorkspaceRepository workspaceRepository;
+  private final WorkspaceCloner workspaceCloner;
+  private final JobService jobService;
 
   public WorkspaceService(
       JobDao jobDao,
       CollectionService collectionService,
       DataTableTypeInspector dataTableTypeInspector,
-      WorkspaceRepository workspaceRepository) {
+      WorkspaceRepository workspaceRepository,
+      WorkspaceCloner workspaceCloner,
+      JobService jobService) {
     this.jobDao = jobDao;
     this.collectionService = collectionService;
     this.dataTableTypeInspector = dataTableTypeInspector;
     this.workspaceRepository = workspaceRepository;
+    this.workspaceCloner = workspaceCloner;
+    this.jobService = jobService;
   }
 
   public WorkspaceDataTableType getDataTableType(WorkspaceId workspaceId) {
@@ -47,9 +62,8 @@ public class WorkspaceService {
    * Initialize WDS for a given workspace. As of this writing, initialization will create an empty
    * default collection for new workspaces, and clone collections for cloned workspaces.
    *
-   * <p>This implementation is synchronous. However, it returns a reference to an async job. We may
-   * need to move to an async implementation, so we're using the async payload to allow future
-   * change.
+   * <p>Initialization of new workspaces is synchronous, though it returns a reference to an async
+   * job. Clones, which copy all of the source workspace's records, run asynchronously in that job.
    *
    * @param workspaceId the workspace to initialize
    * @param workspaceInitServerModel initialization arguments, including information about clone
@@ -119,13 +133,53 @@ public class WorkspaceService {
   }
 
   /**
-   * Initialization steps for clones. TODO AJ-1952 add doc explaining the implementation
+   * Initialization steps for clones. Starts a job which copies every collection of the source
+   * workspace, with all of its record types and records, into this workspace; see {@link
+   * #runCloneJob}.
+   *
+   * <p>Progress of the copy is tracked in sys_wds.clone under the id of the returned job.
    *
    * @param jobInput initialization arguments
-   * @return reference to the initialization job
+   * @return reference to the initialization job, which is QUEUED
    */
   private GenericJobServerModel initClone(WorkspaceInitJobInput jobInput) {
-    // TODO AJ-1952: implement cloning
-    throw new RuntimeException("not implemented");
+    WorkspaceId workspaceId = jobInput.workspaceId();
+    WorkspaceId sourceWorkspaceId = Objects.requireNonNull(jobInput.sourceWorkspaceId());
+
+    // create a job to represent this initialization.
+    Job<JobInput, JobResult> job =
+        Job.newJob(CollectionId.of(workspaceId.id()), JobType.WORKSPACE_INIT, jobInput);
+    jobDao.createJob(job);
+
+    return jobService.schedule(
+        job.getJobId(),
+        Map.of(
+            ARG_COLLECTION,
+            workspaceId.toString(),
+            ARG_SOURCE_WORKSPACE,
+            sourceWorkspaceId.toString()),
+        arguments ->
+            new WorkspaceInitSchedulable(job.getJobId().toString(), "workspace clone", arguments));
+  }
+
+  /**
+   * Run the job started by {@link #initWorkspace} for a clone; see {@link WorkspaceCloner}. Creates
+   * an empty default collection if the source workspace has none. If the copy fails, the
+   * collections it created are deleted.
+   *
+   * @param jobId the initialization job, under whose id progress is tracked in sys_wds.clone
+   * @param workspaceId the workspace being initialized
+   * @param sourceWorkspaceId the workspace being cloned
+   */
+  public void runCloneJob(UUID jobId, WorkspaceId workspaceId, WorkspaceId sourceWorkspaceId) {
+    boolean defaultCollectionCreated =
+        workspaceCloner.cloneWorkspace(jobId, sourceWorkspaceId, workspaceId)
+            || collectionService.createDefaultCollection(workspaceId).created();
+    // as for non-clones, the job result is not persisted to the database; see AJ-1401
+    logger.info(
+        "Cloned workspace {} to {}; default collection created: {}",
+        sourceWorkspaceId,
+        workspaceId,
+        defaultCollectionCreated);
   }
 }
@@ -5,4 +5,8 @@ public class CloningException extends RuntimeException {
   public CloningException(String message) {
     super(message);
   }
+
+  public CloningException(String message, Throwable cause) {
+    super(message, cause);
+  }
 }
@@ -8,5 +8,10 @@ public enum CloneStatus {
   BACKUPERROR, // backup job failed
   RESTOREQUEUED, // restore job has been created but not yet started
   RESTORESUCCEEDED, // restore job completed as expected
-  RESTOREERROR // restore job failed
+  RESTOREERROR, // restore job failed
+  COPYQUEUED, // in-database copy has been created but not yet started
+  COPYINGDATA, // in-database copy is creating tables and copying their rows
+  ADDINGCONSTRAINTS, // in-database copy is adding keys and indexes to the copied tables
+  COPYSUCCEEDED, // in-database copy completed as expected
+  COPYERROR // in-database copy failed
 }
@@ -0,0 +1,332 @@
+package org.databiosphere.workspacedataservice.shared.model;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
+
+/**
+ * A batch of records of a single record type, held column by column rather than as a {@link Record}
+ * per row. Attribute names are kept once, in a column dictionary shared by every row, and each
+ * column keeps its values in a single array; a {@link Record} per row would instead hold a map with
+ * an entry, and a copy of the name, for each of its attributes.
+ *
+ * <p>Each column tracks which rows have a value for it, which rows' values are null, and stores its
+ * values by type: booleans in a bitmap, whole numbers which fit in a {@code long} in a {@code
+ * long[]}, anything else in an {@code Object[]}. A column starts out typed by its first non-null
+ * value and falls back to an {@code Object[]} the first time a value of another type is added, so
+ * values read back are equal to, and of the same type as, those added.
+ *
+ * <p>{@link #toRecords()} and {@link #of(RecordType, List)} adapt to and from the {@link Record}
+ * API, for callers which need it. Batches are not thread-safe.
+ */
+public class RecordBatch {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private final RecordType recordType;
+  private final List<String> columnNames = new ArrayList<>();
+  private final Map<String, Integer> columnIndexes = new HashMap<>();
+  private final List<Column> columns = new ArrayList<>();
+  private String[] ids;
+  private int size;
+
+  public RecordBatch(RecordType recordType) {
+    this(recordType, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param recordType the record type of every record in this batch
+   * @param expectedSize how many records the batch is expected to hold; it grows as needed
+   */
+  public RecordBatch(RecordType recordType, int expectedSize) {
+    this.recordType = recordType;
+    this.ids = new String[Math.max(expectedSize, 1)];
+  }
+
+  /** Copy records of a single record type into a new batch. */
+  public static RecordBatch of(RecordType recordType, List<Record> records) {
+    RecordBatch batch = new RecordBatch(recordType, records.size());
+    for (Record rec : records) {
+      Preconditions.checkArgument(
+          recordType.equals(rec.getRecordType()),
+          "Record %s is not of type %s",
+          rec.getId(),
+          recordType.getName());
+      int row = batch.addRecord(rec.getId());
+      if (rec.getAttributes() != null) {
+        rec.attributeSet().forEach(entry -> batch.put(row, entry.getKey(), entry.getValue()));
+      }
+    }
+    return batch;
+  }
+
+  /**
+   * Copy records into batches, one per record type, in the order each record type first appears.
+   */
+  public static List<RecordBatch> groupByType(List<Record> records) {
+    Map<RecordType, List<Record>> byType = new LinkedHashMap<>();
+    records.forEach(
+        rec -> byType.computeIfAbsent(rec.getRecordType(), type -> new ArrayList<>()).add(rec));
+    return byType.entrySet().stream().map(entry -> of(entry.getKey(), entry.getValue())).toList();
+  }
+
+  // ========== writing
+
+  /**
+   * Add a record with no attributes to the end of the batch.
+   *
+   * @param id the record's id
+   * @return the record's row in the batch, with which to {@link #put} its attributes
+   */
+  public int addRecord(String id) {
+    Preconditions.checkArgument(StringUtils.isNotBlank(id), "Record id can't be null or empty");
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, ids.length * 2);
+    }
+    ids[size] = id;
+    return size++;
+  }
+
+  /**
+   * Set an attribute of a record in the batch.
+   *
+   * @param row the record's row, as returned by {@link #addRecord}
+   * @param attributeName the attribute's name
+   * @param value the attribute's value, which may be null
+   */
+  public RecordBatch put(int row, String attributeName, @Nullable Object value) {
+    Preconditions.checkElementIndex(row, size, "row");
+    Integer index = columnIndexes.get(attributeName);
+    if (index == null) {
+      index = columns.size();
+      columnIndexes.put(attributeName, index);
+      columnNames.add(attributeName);
+      columns.add(new Column());
+    }
+    columns.get(index).set(row, value, ids.length);
+    return this;
+  }
+
+  // ========== reading
+
+  public RecordType getRecordType() {
+    return recordType;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public String getId(int row) {
+    Preconditions.checkElementIndex(row, size, "row");
+    return ids[row];
+  }
+
+  /** the names of every attribute set on any record in the batch, in the order first set */
+  public List<String> getColumnNames() {
+    return Collections.unmodifiableList(columnNames);
+  }
+
+  /**
+   * @return the index of the named column, or -1 if no record in the batch has that attribute
+   */
+  public int getColumnIndex(String attributeName) {
+    return columnIndexes.getOrDefault(attributeName, -1);
+  }
+
+  /** whether a record has the attribute at the given column index, even if its value is null */
+  public boolean hasValue(int row, int column) {
+    return columns.get(column).present.get(row);
+  }
+
+  /** the value of the attribute at the given column index, or null if the record hasn't one */
+  @Nullable
+  public Object getValue(int row, int column) {
+    return columns.get(column).get(row);
+  }
+
+  /** whether a record has any attributes */
+  public boolean hasAttributes(int row) {
+    return columns.stream().anyMatch(column -> column.present.get(row));
+  }
+
+  /** the rows of a column which have a value for it, even if that value is null */
+  public BitSet getRowsWithValues(int column) {
+    return (BitSet) columns.get(column).present.clone();
+  }
+
+  /** A copy of this batch without the records which have no attributes. */
+  public RecordBatch withoutEmptyRecords() {
+    RecordBatch result = new RecordBatch(recordType, size);
+    for (int row = 0; row < size; row++) {
+      if (hasAttributes(row)) {
+        int copy = result.addRecord(ids[row]);
+        for (int column = 0; column < columns.size(); column++) {
+          if (hasValue(row, column)) {
+            result.put(copy, columnNames.get(column), getValue(row, column));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  // ========== adapters
+
+  /** Creates a {@link Record}, with its own attributes, from a row of the batch. */
+  public Record getRecord(int row) {
+    RecordAttributes attributes = RecordAttributes.empty();
+    for (int column = 0; column < columns.size(); column++) {
+      if (hasValue(row, column)) {
+        attributes.putAttribute(columnNames.get(column), getValue(row, column));
+      }
+    }
+    return new Record(getId(row), recordType, attributes);
+  }
+
+  /**
+   * Copies the batch into a list of {@link Record}s, for callers which need the {@link Record} API.
+   * This allocates a map per record; prefer reading the batch directly where possible.
+   */
+  public List<Record> toRecords() {
+    return IntStream.range(0, size).mapToObj(this::getRecord).toList();
+  }
+
+  @VisibleForTesting
+  ColumnStorage getColumnStorage(String attributeName) {
+    return columns.get(columnIndexes.get(attributeName)).storage;
+  }
+
+  @Override
+  public String toString() {
+    return "RecordBatch{recordType=%s, size=%d, columns=%s}"
+        .formatted(recordType, size, columnNames);
+  }
+
+  // ========== columns
+
+  @VisibleForTesting
+  enum ColumnStorage {
+    /** only nulls so far */
+    UNTYPED,
+    BOOLEAN,
+    LONG,
+    OBJECT
+  }
+
+  private static final class Column {
+    // rows which have this attribute, even if null
+    private final BitSet present = new BitSet();
+    // rows whose value for this attribute is not null
+    private final BitSet nonNull = new BitSet();
+    private ColumnStorage storage = ColumnStorage.UNTYPED;
+    @Nullable private BitSet booleans;
+    @Nullable private long[] longs;
+    @Nullable private Object[] objects;
+
+    void set(int row, @Nullable Object value, int capacity) {
+      present.set(row);
+      if (value == null) {
+        nonNull.clear(row);
+        if (objects != null && row < objects.length) {
+          objects[row] = null;
+        }
+        return;
+      }
+      if (storage == ColumnStorage.UNTYPED) {
+        storage = storageFor(value);
+      }
+      switch (storage) {
+        case BOOLEAN -> {
+          if (value instanceof Boolean bool) {
+            if (booleans == null) {
+              booleans = new BitSet();
+            }
+            booleans.set(row, bool);
+          } else {
+            setObject(row, value, capacity);
+          }
+        }
+        case LONG -> {
+          if (isCompactInteger(value)) {
+            if (longs == null) {
+              longs = new long[capacity];
+            } else if (row >= longs.length) {
+              longs = Arrays.copyOf(longs, capacity);
+            }
+            longs[row] = ((BigDecimal) value).longValue();
+          } else {
+            setObject(row, value, capacity);
+          }
+        }
+        default -> setObject(row, value, capacity);
+      }
+      nonNull.set(row);
+    }
+
+    @Nullable
+    Object get(int row) {
+      if (!nonNull.get(row)) {
+        return null;
+      }
+      return switch (storage) {
+        case BOOLEAN -> booleans != null && booleans.get(row);
+        case LONG -> BigDecimal.valueOf(longs[row]);
+        case OBJECT -> objects[row];
+        case UNTYPED -> null;
+      };
+    }
+
+    // store a value in the Object[], moving any typed values there first
+    private void setObject(int row, Object value, int capacity) {
+      if (storage != ColumnStorage.OBJECT || objects == null) {
+        Object[] boxed = new Object[capacity];
+        nonNull.stream().forEach(typedRow -> boxed[typedRow] = get(typedRow));
+        objects = boxed;
+        booleans = null;
+        longs = null;
+        storage = ColumnStorage.OBJECT;
+      } else if (row >= objects.length) {
+        objects = Arrays.copyOf(objects, capacity);
+      }
+      objects[row] = value;
+    }
+
+    private static ColumnStorage storageFor(Object value) {
+      if (value instanceof Boolean) {
+        return ColumnStorage.BOOLEAN;
+      }
+      if (isCompactInteger(value)) {
+        return ColumnStorage.LONG;
+      }
+      return ColumnStorage.OBJECT;
+    }
+
+    // whole numbers which survive a round trip through a long, scale included
+    private static boolean isCompactInteger(Object value) {
+      if (value instanceof BigDecimal decimal && decimal.scale() == 0) {
+        try {
+          decimal.longValueExact();
+          return true;
+        } catch (ArithmeticException e) {
+          return false;
+        }
+      }
+      return false;
+    }
+  }
+}
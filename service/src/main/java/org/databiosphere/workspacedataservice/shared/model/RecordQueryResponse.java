@@ -2,5 +2,13 @@ package org.databiosphere.workspacedataservice.shared.model;
 
 import java.util.List;
 
+/**
+ * @param totalRecords the number of records which match the search filter
+ * @param totalRecordsCapped whether more than totalRecords records match; counting stopped at
+ *     twds.search.count-limit
+ */
 public record RecordQueryResponse(
-    SearchRequest searchRequest, List<RecordResponse> records, int totalRecords) {}
+    SearchRequest searchRequest,
+    List<RecordResponse> records,
+    int totalRecords,
+    boolean totalRecordsCapped) {}
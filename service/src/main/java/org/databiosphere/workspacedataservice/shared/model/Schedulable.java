@@ -71,6 +71,9 @@ public class Schedulable {
         .withIdentity(new JobKey(id, group))
         .setJobData(new JobDataMap(arguments))
         .storeDurably(false) // delete from the quartz table after the job finishes
+        // when using a clustered job store, re-run this job on another replica if the replica
+        // executing it dies. Has no effect with the in-memory job store.
+        .requestRecovery(true)
         .withDescription(getDescription())
         .build();
   }
@@ -0,0 +1,21 @@
+package org.databiosphere.workspacedataservice.shared.model.job;
+
+import java.util.UUID;
+import org.springframework.lang.Nullable;
+
+/**
+ * Options for listing a collection's jobs. Jobs are listed newest first, ordered by (created, id).
+ *
+ * @param pageSize the maximum number of jobs to list, or null to list all jobs
+ * @param afterJobId if specified, list only jobs ordered after this job, i.e. the next page after a
+ *     page ending with this job
+ * @param includeInput whether to include each job's input, which can be large
+ */
+public record JobListOptions(
+    @Nullable Integer pageSize, @Nullable UUID afterJobId, boolean includeInput) {
+
+  /** List all jobs, including their inputs. */
+  public static JobListOptions all() {
+    return new JobListOptions(null, null, true);
+  }
+}
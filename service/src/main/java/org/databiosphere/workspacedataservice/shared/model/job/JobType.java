@@ -4,6 +4,8 @@ package org.databiosphere.workspacedataservice.shared.model.job;
 public enum JobType {
   DATA_IMPORT, // async data import jobs
   WORKSPACE_INIT, // synchronous workspace initialization
+  DATA_TYPE_CONVERSION, // async attribute data type conversions
+  FULL_TEXT_SEARCH, // async enabling of full-text search
   SYNC_BACKUP, // legacy synchronous backups
   SYNC_CLONE, // legacy synchronous clones
   SYNC_RESTORE // legacy synchronous restores
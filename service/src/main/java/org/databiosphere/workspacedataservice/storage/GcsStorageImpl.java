@@ -29,6 +29,8 @@ public class GcsStorageImpl implements GcsStorage {
   private final Storage storage;
   private final String bucketName;
   private final DataSize blobWriterChunkSize;
+  private final int uploadParallelism;
+  private final DataSize uploadPartSize;
 
   private static final DataSize MIN_CHUNK_SIZE = DataSize.ofKilobytes(256);
 
@@ -47,15 +49,34 @@ public class GcsStorageImpl implements GcsStorage {
             .setCredentials(GoogleCredentials.getApplicationDefault())
             .build()
             .getService(),
-        requireNonNull(properties.getRawlsBucketName()));
+        requireNonNull(properties.getRawlsBucketName()),
+        DEFAULT_CHUNK_SIZE,
+        properties.getUploadParallelism(),
+        properties.getUploadPartSize());
   }
 
   // primarily here for tests, but also allows this class to be used with values other than
   // the ones provided in the config, if needed
   GcsStorageImpl(Storage storage, String bucketName, DataSize blobWriterChunkSize) {
+    this(storage, bucketName, blobWriterChunkSize, 1, blobWriterChunkSize);
+  }
+
+  /**
+   * @param uploadParallelism how many parts of a blob to upload at once; 1 writes each blob in a
+   *     single resumable upload instead
+   * @param uploadPartSize the size of the first parts of a parallel upload
+   */
+  GcsStorageImpl(
+      Storage storage,
+      String bucketName,
+      DataSize blobWriterChunkSize,
+      int uploadParallelism,
+      DataSize uploadPartSize) {
     this.storage = storage;
     this.bucketName = bucketName;
     this.blobWriterChunkSize = blobWriterChunkSize;
+    this.uploadParallelism = uploadParallelism;
+    this.uploadPartSize = uploadPartSize;
   }
 
   @VisibleForTesting
@@ -69,7 +90,10 @@ public class GcsStorageImpl implements GcsStorage {
   }
 
   /**
-   * Creates and returns an {@link OutputStream} to write to the given {@link Blob}.
+   * Creates and returns an {@link OutputStream} to write to the given {@link Blob}. When configured
+   * with an upload parallelism above 1, the blob is written as a {@link
+   * ParallelCompositeOutputStream parallel composite upload}, and its contents are in place once
+   * the stream is closed.
    *
    * @return an {@link OutputStream} to write to the given {@link Blob}
    */
@@ -146,6 +170,10 @@ public class GcsStorageImpl implements GcsStorage {
   }
 
   private OutputStream createOutputStream(Blob blob) {
+    if (uploadParallelism > 1) {
+      return new ParallelCompositeOutputStream(
+          storage, blob.getBlobId(), uploadParallelism, uploadPartSize);
+    }
     WriteChannel writeChannel = blob.writer();
     writeChannel.setChunkSize((int) blobWriterChunkSize.toBytes());
     return Channels.newOutputStream(writeChannel);
@@ -0,0 +1,305 @@
+package org.databiosphere.workspacedataservice.storage;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.cloud.storage.StorageException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Writes a blob as a parallel composite upload: the stream is cut into parts, which are uploaded as
+ * temporary blobs several at once, then composed into the target blob when the stream is closed.
+ * See <a href="https://cloud.google.com/storage/docs/parallel-composite-uploads">parallel composite
+ * uploads</a>.
+ *
+ * <p>Parts start at the configured part size and double after each round of {@code parallelism}
+ * parts, up to {@link #MAX_PART_SIZE_GROWTH} times that size, so small blobs are still split across
+ * uploaders while large ones aren't split into more parts than they need. A blob which fits in its
+ * first part is uploaded directly, without composing.
+ *
+ * <p>Up to {@code parallelism + 1} parts are held in memory at once: one being written, and the
+ * rest uploading. Size the part size and parallelism for that, e.g. 8MB parts 4 at a time hold up
+ * to 160MB once parts have grown.
+ *
+ * <p>Each part is uploaded, and if need be retried, on its own, so a transient failure re-sends
+ * only that part rather than the whole blob. At most {@code parallelism} parts are uploading at
+ * once; writers block until a part finishes rather than buffering the rest of the stream.
+ *
+ * <p>Temporary blobs are deleted when the stream is closed, whether or not the upload succeeded.
+ */
+class ParallelCompositeOutputStream extends OutputStream {
+  /** how many sources GCS allows in a single compose request */
+  @VisibleForTesting static final int MAX_COMPOSE_SOURCES = 32;
+
+  /** how much larger than the configured part size parts may grow */
+  @VisibleForTesting static final int MAX_PART_SIZE_GROWTH = 4;
+
+  @VisibleForTesting static final int MAX_PART_ATTEMPTS = 3;
+
+  private static final Duration PART_RETRY_DELAY = Duration.ofSeconds(1);
+  private static final Duration UPLOADER_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+  private final Storage storage;
+  private final BlobId target;
+  private final int parallelism;
+  private final int partSize;
+  private final String temporaryPrefix;
+  private final Semaphore uploadPermits;
+  private final List<Future<BlobId>> parts = new ArrayList<>();
+  private final List<BlobId> temporaryBlobs = Collections.synchronizedList(new ArrayList<>());
+
+  @Nullable private ExecutorService executor;
+  @Nullable private byte[] buffer;
+  private int count;
+  private boolean closed;
+
+  ParallelCompositeOutputStream(
+      Storage storage, BlobId target, int parallelism, DataSize partSize) {
+    this.storage = storage;
+    this.target = target;
+    this.parallelism = parallelism;
+    this.partSize = (int) partSize.toBytes();
+    this.temporaryPrefix = "%s.upload-%s/".formatted(target.getName(), UUID.randomUUID());
+    this.uploadPermits = new Semaphore(parallelism);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (buffer == null) {
+      buffer = new byte[partSize(parts.size())];
+    }
+    buffer[count++] = (byte) b;
+    if (count == buffer.length) {
+      uploadPart();
+    }
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    ensureOpen();
+    while (length > 0) {
+      if (buffer == null) {
+        buffer = new byte[partSize(parts.size())];
+      }
+      int copied = Math.min(length, buffer.length - count);
+      System.arraycopy(bytes, offset, buffer, count, copied);
+      count += copied;
+      offset += copied;
+      length -= copied;
+      if (count == buffer.length) {
+        uploadPart();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (parts.isEmpty()) {
+        // the whole blob fits in one part; there is nothing to compose
+        storage.create(
+            BlobInfo.newBuilder(target).build(), buffer == null ? new byte[0] : buffer, 0, count);
+        return;
+      }
+      if (count > 0) {
+        uploadPart();
+      }
+      compose(awaitParts());
+      logger.info("Uploaded {} in {} parts", target, parts.size());
+    } catch (StorageException e) {
+      throw new IOException("Failed to upload %s: %s".formatted(target, e.getMessage()), e);
+    } finally {
+      buffer = null;
+      shutdownUploaders();
+      deleteTemporaryBlobs();
+    }
+  }
+
+  @VisibleForTesting
+  int partSize(int partIndex) {
+    int growth = Math.min(1 << Math.min(partIndex / parallelism, 30), MAX_PART_SIZE_GROWTH);
+    return (int) Math.min((long) partSize * growth, Integer.MAX_VALUE - 8);
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  // hands the buffered part to an uploader, waiting for one to be free
+  private void uploadPart() throws IOException {
+    failIfAnyPartFailed();
+    if (executor == null) {
+      executor =
+          Executors.newFixedThreadPool(
+              parallelism,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("gcs-part-upload-%d")
+                  .setDaemon(true)
+                  .build());
+    }
+    byte[] part = buffer;
+    int length = count;
+    BlobId partId =
+        BlobId.of(target.getBucket(), temporaryPrefix + "part-%05d".formatted(parts.size()));
+    buffer = null;
+    count = 0;
+    try {
+      uploadPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while uploading " + target);
+    }
+    parts.add(
+        executor.submit(
+            () -> {
+              try {
+                return upload(partId, part, length);
+              } finally {
+                uploadPermits.release();
+              }
+            }));
+  }
+
+  private BlobId upload(BlobId partId, byte[] part, int length) throws InterruptedException {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        storage.create(BlobInfo.newBuilder(partId).build(), part, 0, length);
+        temporaryBlobs.add(partId);
+        return partId;
+      } catch (StorageException e) {
+        if (attempt >= MAX_PART_ATTEMPTS || !isRetryable(e)) {
+          throw e;
+        }
+        logger.warn(
+            "Failed to upload {} (attempt {} of {}), retrying: {}",
+            partId.getName(),
+            attempt,
+            MAX_PART_ATTEMPTS,
+            e.getMessage());
+        Thread.sleep(PART_RETRY_DELAY.toMillis() * attempt);
+      }
+    }
+  }
+
+  private static boolean isRetryable(StorageException e) {
+    return e.isRetryable() || e.getCode() == 429 || e.getCode() >= 500;
+  }
+
+  // fail fast, rather than uploading the rest of the stream, once any part has failed
+  private void failIfAnyPartFailed() throws IOException {
+    for (Future<BlobId> part : parts) {
+      if (part.isDone()) {
+        getPart(part);
+      }
+    }
+  }
+
+  private List<BlobId> awaitParts() throws IOException {
+    List<BlobId> uploaded = new ArrayList<>(parts.size());
+    for (Future<BlobId> part : parts) {
+      uploaded.add(getPart(part));
+    }
+    return uploaded;
+  }
+
+  private BlobId getPart(Future<BlobId> part) throws IOException {
+    try {
+      return part.get();
+    } catch (ExecutionException e) {
+      parts.forEach(future -> future.cancel(true));
+      throw new IOException(
+          "Failed to upload part of %s: %s".formatted(target, e.getCause().getMessage()),
+          e.getCause());
+    } catch (InterruptedException e) {
+      parts.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while uploading " + target);
+    }
+  }
+
+  // GCS composes at most MAX_COMPOSE_SOURCES blobs at once, so larger uploads are composed in
+  // rounds
+  private void compose(List<BlobId> sources) {
+    for (int round = 0; sources.size() > MAX_COMPOSE_SOURCES; round++) {
+      List<BlobId> composed = new ArrayList<>();
+      for (List<BlobId> group : Lists.partition(sources, MAX_COMPOSE_SOURCES)) {
+        BlobId intermediate =
+            BlobId.of(
+                target.getBucket(),
+                temporaryPrefix + "compose-%d-%05d".formatted(round, composed.size()));
+        compose(group, intermediate);
+        temporaryBlobs.add(intermediate);
+        composed.add(intermediate);
+      }
+      sources = composed;
+    }
+    compose(sources, target);
+  }
+
+  private void compose(List<BlobId> sources, BlobId composeTarget) {
+    storage.compose(
+        ComposeRequest.newBuilder()
+            .addSource(sources.stream().map(BlobId::getName).toList())
+            .setTarget(BlobInfo.newBuilder(composeTarget).build())
+            .build());
+  }
+
+  // after a failure, parts may still be uploading; wait for them so they are deleted too
+  private void shutdownUploaders() {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(UPLOADER_SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+        logger.warn("Parts of {} were still uploading after {}", target, UPLOADER_SHUTDOWN_TIMEOUT);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void deleteTemporaryBlobs() {
+    List<BlobId> toDelete;
+    synchronized (temporaryBlobs) {
+      toDelete = List.copyOf(temporaryBlobs);
+      temporaryBlobs.clear();
+    }
+    for (BlobId temporaryBlob : toDelete) {
+      try {
+        storage.delete(temporaryBlob);
+      } catch (StorageException e) {
+        logger.warn("Failed to delete temporary blob {}: {}", temporaryBlob, e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package org.databiosphere.workspacedataservice.workspace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.databiosphere.workspacedataservice.dao.CloneDao;
+import org.databiosphere.workspacedataservice.dao.CollectionCopyDao;
+import org.databiosphere.workspacedataservice.dao.CollectionCopyDao.ConstraintDefinition;
+import org.databiosphere.workspacedataservice.dao.CollectionCopyDao.ConstraintType;
+import org.databiosphere.workspacedataservice.dao.CollectionCopyDao.ExportedSnapshot;
+import org.databiosphere.workspacedataservice.dao.CollectionCopyDao.TableDefinition;
+import org.databiosphere.workspacedataservice.generated.CollectionServerModel;
+import org.databiosphere.workspacedataservice.jobexec.ParallelTasks;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.model.exception.CloningException;
+import org.databiosphere.workspacedataservice.shared.model.CloneStatus;
+import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clones the collections of one workspace into another, entirely inside Postgres; see {@link
+ * CollectionCopyDao}. For each collection of the source workspace, this creates a collection in the
+ * target workspace and its empty tables, then copies all tables' rows, then adds their keys and
+ * indexes.
+ *
+ * <p>Rows are copied by up to twds.clone.parallelism tables at once, each on its own database
+ * connection, plus one connection which holds the snapshot they all read from; see {@link
+ * #maxParallelism} for the cap on these. Primary keys, unique constraints and indexes are then
+ * built in parallel too; foreign keys are added one at a time, since adding one locks both the
+ * referencing and the referenced table.
+ *
+ * <p>Progress is tracked in the sys_wds.clone table, under the id of the workspace initialization
+ * job. If the clone fails, the collections it created are deleted.
+ */
+@Component
+public class WorkspaceCloner {
+  private static final Logger LOGGER = LoggerFactory.getLogger(WorkspaceCloner.class);
+
+  private final CloneDao cloneDao;
+  private final CollectionCopyDao collectionCopyDao;
+  private final CollectionService collectionService;
+  private final int parallelism;
+
+  public WorkspaceCloner(
+      CloneDao cloneDao,
+      CollectionCopyDao collectionCopyDao,
+      CollectionService collectionService,
+      @Value("${twds.clone.parallelism:2}") int parallelism,
+      @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+    this.cloneDao = cloneDao;
+    this.collectionCopyDao = collectionCopyDao;
+    this.collectionService = collectionService;
+    this.parallelism = maxParallelism(parallelism, poolSize);
+  }
+
+  /**
+   * The number of tables to copy at once, given the configured parallelism and the size of the
+   * connection pool. A clone holds a connection per table it copies, plus one for the snapshot, for
+   * its whole run; cap these at half of the pool, so that requests and other jobs can still get
+   * connections.
+   */
+  static int maxParallelism(int parallelism, int poolSize) {
+    int max = Math.max(1, poolSize / 2 - 1);
+    if (parallelism > max) {
+      LOGGER.warn(
+          "twds.clone.parallelism {} leaves too few of {} pooled connections; using {}",
+          parallelism,
+          poolSize,
+          max);
+      return max;
+    }
+    return Math.max(1, parallelism);
+  }
+
+  private record CollectionCopy(CollectionId source, CollectionId target) {}
+
+  private record TableCopy(CollectionCopy collections, TableDefinition table) {}
+
+  /**
+   * Clone all collections of the source workspace into the target workspace.
+   *
+   * @param trackingId id under which to track progress in sys_wds.clone
+   * @param sourceWorkspaceId the workspace being cloned
+   * @param targetWorkspaceId the workspace being created
+   * @return whether this created the target workspace's default collection
+   */
+  public boolean cloneWorkspace(
+      UUID trackingId, WorkspaceId sourceWorkspaceId, WorkspaceId targetWorkspaceId) {
+    cloneDao.createCopyEntry(trackingId, sourceWorkspaceId, targetWorkspaceId);
+    List<CollectionId> created = new ArrayList<>();
+    try {
+      cloneDao.updateCloneEntryStatus(trackingId, CloneStatus.COPYINGDATA);
+      List<CollectionCopy> collections = new ArrayList<>();
+      List<TableCopy> tables = new ArrayList<>();
+      for (CollectionServerModel source : collectionService.list(sourceWorkspaceId)) {
+        CollectionServerModel target =
+            collectionService.saveCloneOf(sourceWorkspaceId, source, targetWorkspaceId);
+        created.add(CollectionId.of(target.getId()));
+        CollectionCopy copy =
+            new CollectionCopy(CollectionId.of(source.getId()), CollectionId.of(target.getId()));
+        collections.add(copy);
+        for (TableDefinition table : collectionCopyDao.getTables(copy.source())) {
+          collectionCopyDao.createTable(copy.target(), table);
+          tables.add(new TableCopy(copy, table));
+        }
+      }
+      LOGGER.info(
+          "Cloning {} tables in {} collections from workspace {} to workspace {}",
+          tables.size(),
+          collections.size(),
+          sourceWorkspaceId,
+          targetWorkspaceId);
+      cloneDao.updateCopyProgress(trackingId, tables.size(), 0, 0);
+
+      ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+      try {
+        copyRows(trackingId, tables, executor);
+        // after copying rows, which already hold their full-text values
+        tables.stream()
+            .filter(copy -> copy.table().hasFullTextColumn())
+            .forEach(
+                copy ->
+                    collectionCopyDao.createFullTextTrigger(
+                        copy.collections().target(), copy.table()));
+        cloneDao.updateCloneEntryStatus(trackingId, CloneStatus.ADDINGCONSTRAINTS);
+        addConstraints(collections, executor);
+      } finally {
+        executor.shutdownNow();
+      }
+      cloneDao.updateCloneEntryStatus(trackingId, CloneStatus.COPYSUCCEEDED);
+      return created.contains(CollectionId.of(targetWorkspaceId.id()));
+    } catch (RuntimeException e) {
+      LOGGER.error("Failed to clone workspace {}: {}", sourceWorkspaceId, e.getMessage(), e);
+      cloneDao.terminateCopyToError(trackingId, e.getMessage());
+      deleteCollections(targetWorkspaceId, created);
+      throw e;
+    }
+  }
+
+  // copy all tables' rows from one snapshot, reporting progress as each table completes
+  private void copyRows(UUID trackingId, List<TableCopy> tables, ExecutorService executor) {
+    long[] rowsCopied = {0};
+    int[] tablesCopied = {0};
+    try (ExportedSnapshot snapshot = collectionCopyDao.exportSnapshot()) {
+      ParallelTasks.runAll(
+          executor,
+          tables.stream()
+              .<Callable<Long>>map(
+                  copy ->
+                      () ->
+                          collectionCopyDao.copyRows(
+                              snapshot,
+                              copy.collections().source(),
+                              copy.collections().target(),
+                              copy.table()))
+              .toList(),
+          rows -> {
+            rowsCopied[0] += rows;
+            tablesCopied[0]++;
+            cloneDao.updateCopyProgress(trackingId, tables.size(), tablesCopied[0], rowsCopied[0]);
+          },
+          CloningException::new);
+    }
+  }
+
+  // build primary keys, unique constraints and indexes in parallel, then add foreign keys
+  private void addConstraints(List<CollectionCopy> collections, ExecutorService executor) {
+    List<Callable<Void>> keysAndIndexes = new ArrayList<>();
+    List<Runnable> foreignKeys = new ArrayList<>();
+    for (CollectionCopy copy : collections) {
+      for (ConstraintDefinition constraint : collectionCopyDao.getConstraints(copy.source())) {
+        Runnable add = () -> collectionCopyDao.addConstraint(copy.target(), constraint);
+        if (constraint.type() == ConstraintType.FOREIGN_KEY) {
+          foreignKeys.add(add);
+        } else {
+          keysAndIndexes.add(asCallable(add));
+        }
+      }
+      for (String index : collectionCopyDao.getIndexDefinitions(copy.source(), copy.target())) {
+        keysAndIndexes.add(asCallable(() -> collectionCopyDao.createIndex(index)));
+      }
+    }
+    ParallelTasks.runAll(executor, keysAndIndexes, done -> {}, CloningException::new);
+    foreignKeys.forEach(Runnable::run);
+  }
+
+  private static Callable<Void> asCallable(Runnable runnable) {
+    return () -> {
+      runnable.run();
+      return null;
+    };
+  }
+
+  // best-effort cleanup of a failed clone, so that it can be retried
+  private void deleteCollections(WorkspaceId workspaceId, List<CollectionId> collectionIds) {
+    for (CollectionId collectionId : collectionIds) {
+      try {
+        collectionService.delete(workspaceId, collectionId);
+      } catch (RuntimeException e) {
+        LOGGER.warn(
+            "Failed to delete collection {} of failed clone: {}", collectionId, e.getMessage());
+      }
+    }
+  }
+}
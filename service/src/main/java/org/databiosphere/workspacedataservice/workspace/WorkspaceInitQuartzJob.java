@@ -0,0 +1,53 @@
+package org.databiosphere.workspacedataservice.workspace;
+
+import static org.databiosphere.workspacedataservice.service.WorkspaceService.ARG_SOURCE_WORKSPACE;
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_COLLECTION;
+import static org.databiosphere.workspacedataservice.shared.model.job.JobType.WORKSPACE_INIT;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.jobexec.JobDataMapReader;
+import org.databiosphere.workspacedataservice.jobexec.QuartzJob;
+import org.databiosphere.workspacedataservice.service.WorkspaceService;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+/** Clones a workspace, as started by {@link WorkspaceService#initWorkspace}. */
+@Component
+public class WorkspaceInitQuartzJob extends QuartzJob {
+  private final WorkspaceService workspaceService;
+
+  public WorkspaceInitQuartzJob(
+      DataImportProperties dataImportProperties,
+      ObservationRegistry observationRegistry,
+      JobDao jobDao,
+      WorkspaceService workspaceService) {
+    super(jobDao, observationRegistry, dataImportProperties);
+    this.workspaceService = workspaceService;
+  }
+
+  @Override
+  protected void annotateObservation(Observation observation) {
+    observation.lowCardinalityKeyValue("jobType", WORKSPACE_INIT.toString());
+  }
+
+  @Override
+  protected void executeInternal(UUID jobId, JobExecutionContext context) {
+    JobDataMapReader jobData = JobDataMapReader.fromContext(context);
+    // a workspace's default collection has the workspace's id
+    workspaceService.runCloneJob(
+        jobId,
+        WorkspaceId.of(jobData.getUUID(ARG_COLLECTION)),
+        WorkspaceId.of(jobData.getUUID(ARG_SOURCE_WORKSPACE)));
+  }
+
+  // unlike data imports, clones are not completed by any other service
+  @Override
+  protected boolean succeedOnCompletion() {
+    return true;
+  }
+}
@@ -0,0 +1,15 @@
+package org.databiosphere.workspacedataservice.workspace;
+
+import static org.databiosphere.workspacedataservice.shared.model.job.JobType.WORKSPACE_INIT;
+
+import java.io.Serializable;
+import java.util.Map;
+import org.databiosphere.workspacedataservice.shared.model.Schedulable;
+
+public class WorkspaceInitSchedulable extends Schedulable {
+
+  public WorkspaceInitSchedulable(
+      String name, String description, Map<String, Serializable> arguments) {
+    super(WORKSPACE_INIT.name(), name, WorkspaceInitQuartzJob.class, description, arguments);
+  }
+}
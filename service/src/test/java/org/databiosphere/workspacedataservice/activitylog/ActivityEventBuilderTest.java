@@ -1,6 +1,7 @@
 package org.databiosphere.workspacedataservice.activitylog;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.when;
@@ -72,9 +73,14 @@ class ActivityEventBuilderTest extends ControlPlaneTestBase {
     UUID collectionId = collectionServerModel.getId();
 
     // did we log the
-    assertThat(output.getOut())
-        .contains(
-            "user userid-for-unit-tests-hello! created 1 collection(s) with id(s) [%s]"
-                .formatted(collectionId));
+    assertLogged(
+        output,
+        "user userid-for-unit-tests-hello! created 1 collection(s) with id(s) [%s]"
+            .formatted(collectionId));
+  }
+
+  // entries are written by a background thread; see ActivityLogger
+  private void assertLogged(CapturedOutput output, String expected) {
+    await().untilAsserted(() -> assertThat(output.getOut()).contains(expected));
   }
 }
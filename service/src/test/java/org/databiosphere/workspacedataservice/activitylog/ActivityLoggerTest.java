@@ -0,0 +1,118 @@
+package org.databiosphere.workspacedataservice.activitylog;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import org.databiosphere.workspacedataservice.sam.SamDao;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.MDC;
+
+class ActivityLoggerTest {
+
+  private final SamDao samDao = Mockito.mock(SamDao.class);
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void truncatesIds() {
+    List<ActivityEvent> written = new CopyOnWriteArrayList<>();
+    String[] ids = IntStream.range(0, 1000).mapToObj(i -> "id" + i).toArray(String[]::new);
+
+    try (ActivityLogger activityLogger =
+        new ActivityLogger(samDao, written::add, 10, 3, meterRegistry)) {
+      activityLogger.saveEvent(event(ids));
+      await().until(() -> written.size() == 1);
+    }
+
+    ActivityEvent event = written.get(0);
+    assertEquals(List.of("id0", "id1", "id2"), List.of(event.ids()));
+    assertEquals(997, event.omittedIds());
+    assertEquals(1000, event.count());
+    assertEquals(
+        "user me deleted 1000 record(s) of type thing with id(s) [id0, id1, id2, ... and 997 more]",
+        TextActivityEventSink.format(event));
+  }
+
+  @Test
+  void dropsEventsWhenQueueIsFull() throws InterruptedException {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<ActivityEvent> written = new CopyOnWriteArrayList<>();
+    ActivityEventSink slowSink =
+        event -> {
+          blocked.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          written.add(event);
+        };
+
+    try (ActivityLogger activityLogger =
+        new ActivityLogger(samDao, slowSink, 2, 100, meterRegistry)) {
+      // the writer takes the first event, then blocks; two more fill the queue
+      activityLogger.saveEvent(event(new String[] {"a"}));
+      blocked.await();
+      activityLogger.saveEvent(event(new String[] {"b"}));
+      activityLogger.saveEvent(event(new String[] {"c"}));
+      activityLogger.saveEvent(event(new String[] {"d"}));
+
+      assertEquals(2, meterRegistry.get("wds.activitylog.queue.depth").gauge().value());
+      assertEquals(1, meterRegistry.get("wds.activitylog.dropped").counter().count());
+      release.countDown();
+    }
+
+    // closing waits for queued events to be written
+    assertEquals(List.of("a", "b", "c"), written.stream().map(event -> event.ids()[0]).toList());
+  }
+
+  @Test
+  void writesWithTheCallersMdc() {
+    List<String> requestIds = new CopyOnWriteArrayList<>();
+    ActivityEventSink sink = event -> requestIds.add(MDC.get("requestId"));
+
+    try (ActivityLogger activityLogger = new ActivityLogger(samDao, sink, 10, 100, meterRegistry)) {
+      MDC.put("requestId", "request-1");
+      activityLogger.saveEvent(event(new String[] {"a"}));
+      MDC.put("requestId", "request-2");
+      activityLogger.saveEvent(event(new String[] {"b"}));
+      MDC.remove("requestId");
+      activityLogger.saveEvent(event(new String[] {"c"}));
+      await().until(() -> requestIds.size() == 3);
+    } finally {
+      MDC.clear();
+    }
+
+    assertEquals(Arrays.asList("request-1", "request-2", null), requestIds);
+  }
+
+  @Test
+  void formatsJson() {
+    ActivityEvent event = event(new String[] {"a", "b", "c"}).withIdsTruncatedTo(2);
+
+    assertEquals(
+        "{\"subject\":\"me\",\"action\":\"deleted\",\"thing\":\"record\",\"recordType\":\"thing\","
+            + "\"count\":3,\"ids\":[\"a\",\"b\"],\"omittedIds\":1}",
+        new JsonActivityEventSink(new ObjectMapper()).format(event));
+  }
+
+  private static ActivityEvent event(String[] ids) {
+    return new ActivityEvent(
+        "me",
+        ActivityModels.Action.DELETE,
+        ActivityModels.Thing.RECORD,
+        RecordType.valueOf("thing"),
+        0,
+        ids);
+  }
+}
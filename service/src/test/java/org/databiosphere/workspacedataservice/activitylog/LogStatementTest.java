@@ -1,6 +1,7 @@
 package org.databiosphere.workspacedataservice.activitylog;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.when;
 
 import bio.terra.datarepo.api.RepositoryApi;
@@ -88,10 +89,10 @@ class LogStatementTest extends ControlPlaneTestBase {
     CollectionId collectionId = CollectionId.of(saved.getId());
 
     collectionService.delete(workspaceId, collectionId);
-    assertThat(output.getOut())
-        .contains("user anonymous created 1 collection(s) with id(s) [%s]".formatted(collectionId));
-    assertThat(output.getOut())
-        .contains("user anonymous deleted 1 collection(s) with id(s) [%s]".formatted(collectionId));
+    assertLogged(
+        output, "user anonymous created 1 collection(s) with id(s) [%s]".formatted(collectionId));
+    assertLogged(
+        output, "user anonymous deleted 1 collection(s) with id(s) [%s]".formatted(collectionId));
   }
 
   @Test
@@ -113,14 +114,14 @@ class LogStatementTest extends ControlPlaneTestBase {
           Optional.empty(),
           new RecordRequest(RecordAttributes.empty()));
     }
-    assertThat(output.getOut())
-        .contains(
-            "user anonymous created 1 record(s) of type %s with id(s) [%s]"
-                .formatted(recordType.getName(), recordId));
-    assertThat(output.getOut())
-        .contains(
-            "user anonymous updated 1 record(s) of type %s with id(s) [%s]"
-                .formatted(recordType.getName(), recordId));
+    assertLogged(
+        output,
+        "user anonymous created 1 record(s) of type %s with id(s) [%s]"
+            .formatted(recordType.getName(), recordId));
+    assertLogged(
+        output,
+        "user anonymous updated 1 record(s) of type %s with id(s) [%s]"
+            .formatted(recordType.getName(), recordId));
   }
 
   @Test
@@ -146,10 +147,10 @@ class LogStatementTest extends ControlPlaneTestBase {
         recordType,
         recordId,
         new RecordRequest(RecordAttributes.empty()));
-    assertThat(output.getOut())
-        .contains(
-            "user anonymous updated 1 record(s) of type %s with id(s) [%s]"
-                .formatted(recordType.getName(), recordId));
+    assertLogged(
+        output,
+        "user anonymous updated 1 record(s) of type %s with id(s) [%s]"
+            .formatted(recordType.getName(), recordId));
   }
 
   @Test
@@ -170,10 +171,10 @@ class LogStatementTest extends ControlPlaneTestBase {
         new RecordRequest(RecordAttributes.empty()));
     // now delete the record - this is the method under test
     recordOrchestratorService.deleteSingleRecord(collectionId.id(), VERSION, recordType, recordId);
-    assertThat(output.getOut())
-        .contains(
-            "user anonymous deleted 1 record(s) of type %s with id(s) [%s]"
-                .formatted(recordType.getName(), recordId));
+    assertLogged(
+        output,
+        "user anonymous deleted 1 record(s) of type %s with id(s) [%s]"
+            .formatted(recordType.getName(), recordId));
   }
 
   @Test
@@ -194,8 +195,8 @@ class LogStatementTest extends ControlPlaneTestBase {
         new RecordRequest(RecordAttributes.empty()));
     // now delete the entire record type - this is the method under test
     recordOrchestratorService.deleteRecordType(collectionId.id(), VERSION, recordType);
-    assertThat(output.getOut())
-        .contains("user anonymous deleted 1 table(s) of type %s".formatted(recordType.getName()));
+    assertLogged(
+        output, "user anonymous deleted 1 table(s) of type %s".formatted(recordType.getName()));
   }
 
   @Test
@@ -210,9 +211,8 @@ class LogStatementTest extends ControlPlaneTestBase {
       MultipartFile upload = new MockMultipartFile("myupload", tsvStream);
       recordOrchestratorService.tsvUpload(
           collectionId.id(), VERSION, recordType, Optional.empty(), upload);
-      assertThat(output.getOut())
-          .contains(
-              "user anonymous upserted 2 record(s) of type %s".formatted(recordType.getName()));
+      assertLogged(
+          output, "user anonymous upserted 2 record(s) of type %s".formatted(recordType.getName()));
     }
   }
 
@@ -238,7 +238,12 @@ class LogStatementTest extends ControlPlaneTestBase {
 
     recordOrchestratorService.streamingWrite(
         collectionId.id(), VERSION, recordType, Optional.empty(), upload);
-    assertThat(output.getOut())
-        .contains("user anonymous modified 3 record(s) of type %s".formatted(recordType.getName()));
+    assertLogged(
+        output, "user anonymous modified 3 record(s) of type %s".formatted(recordType.getName()));
+  }
+
+  // entries are written by a background thread; see ActivityLogger
+  private void assertLogged(CapturedOutput output, String expected) {
+    await().untilAsserted(() -> assertThat(output.getOut()).contains(expected));
   }
 }
@@ -0,0 +1,79 @@
+package org.databiosphere.workspacedataservice.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.SchedulerConfigException;
+
+class VirtualThreadPoolTest {
+  // virtual threads need Java 21, so run the pool's jobs on platform threads
+  private final VirtualThreadPool pool = new VirtualThreadPool(Thread::new);
+  private final CountDownLatch finish = new CountDownLatch(1);
+
+  @AfterEach
+  void afterEach() {
+    finish.countDown();
+    pool.shutdown(true);
+  }
+
+  @Test
+  void blocksUntilAThreadIsAvailable() throws Exception {
+    pool.setThreadCount(2);
+    pool.initialize();
+    CountDownLatch started = new CountDownLatch(2);
+
+    assertTrue(pool.runInThread(() -> awaitFinish(started)));
+    assertEquals(1, pool.blockForAvailableThreads());
+    assertTrue(pool.runInThread(() -> awaitFinish(started)));
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+
+    CompletableFuture<Integer> availableThreads =
+        CompletableFuture.supplyAsync(pool::blockForAvailableThreads);
+    assertThrows(TimeoutException.class, () -> availableThreads.get(200, TimeUnit.MILLISECONDS));
+
+    finish.countDown();
+    assertEquals(2, pool.getPoolSize());
+    assertTrue(availableThreads.get(10, TimeUnit.SECONDS) >= 1);
+  }
+
+  @Test
+  void stopsRunningJobsOnShutdown() throws Exception {
+    pool.setThreadCount(1);
+    pool.initialize();
+    AtomicBoolean ran = new AtomicBoolean();
+    CompletableFuture<Integer> availableThreads = new CompletableFuture<>();
+
+    assertTrue(pool.runInThread(() -> awaitFinish(new CountDownLatch(1))));
+    CompletableFuture.runAsync(() -> availableThreads.complete(pool.blockForAvailableThreads()));
+    pool.shutdown(false);
+
+    assertEquals(0, availableThreads.get(10, TimeUnit.SECONDS));
+    assertFalse(pool.runInThread(() -> ran.set(true)));
+    assertFalse(ran.get());
+  }
+
+  @Test
+  void rejectsAnEmptyPool() {
+    pool.setThreadCount(0);
+
+    assertThrows(SchedulerConfigException.class, pool::initialize);
+  }
+
+  private void awaitFinish(CountDownLatch started) {
+    started.countDown();
+    try {
+      finish.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package org.databiosphere.workspacedataservice.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.TestUtils.generateRandomAttributes;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Objects;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.generated.CollectionRequestServerModel;
+import org.databiosphere.workspacedataservice.shared.model.RecordRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/** Tests for ETags and conditional GETs on schema and record reads; see {@link ConditionalGets} */
+@DirtiesContext
+@ActiveProfiles(profiles = "mock-sam")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ConditionalGetTest extends ControlPlaneTestBase {
+  private static final String VERSION = "v0.2";
+
+  @Autowired private ObjectMapper mapper;
+  @Autowired private TestRestTemplate restTemplate;
+  @Autowired private MeterRegistry meterRegistry;
+
+  private UUID collectionId;
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    ResponseEntity<String> createCollectionResponse =
+        restTemplate.exchange(
+            "/collections/v1/{workspaceId}",
+            HttpMethod.POST,
+            new HttpEntity<>(
+                mapper.writeValueAsString(
+                    new CollectionRequestServerModel("etags", "conditional get test")),
+                headers),
+            String.class,
+            UUID.randomUUID());
+    assertEquals(HttpStatus.CREATED, createCollectionResponse.getStatusCode());
+    collectionId =
+        TestUtils.getCollectionId(
+            mapper, Objects.requireNonNull(createCollectionResponse.getBody()));
+  }
+
+  @Test
+  void unchangedRecordTypeIsNotModified() throws Exception {
+    upsertRecord("thing", "a");
+    String url = "/{instanceId}/types/{version}/thing";
+
+    ResponseEntity<String> first = get(url, null);
+    assertEquals(HttpStatus.OK, first.getStatusCode());
+    String etag = first.getHeaders().getETag();
+    assertThat(etag).isNotNull();
+
+    ResponseEntity<String> second = get(url, etag);
+    assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+    assertThat(second.getBody()).isNull();
+    assertEquals(etag, second.getHeaders().getETag());
+  }
+
+  @Test
+  void writesChangeTheETag() throws Exception {
+    upsertRecord("thing", "a");
+    String typeUrl = "/{instanceId}/types/{version}/thing";
+    String recordUrl = "/{instanceId}/records/{version}/thing/a";
+    String typeEtag = get(typeUrl, null).getHeaders().getETag();
+    String recordEtag = get(recordUrl, null).getHeaders().getETag();
+
+    upsertRecord("thing", "b");
+
+    ResponseEntity<String> typeResponse = get(typeUrl, typeEtag);
+    assertEquals(HttpStatus.OK, typeResponse.getStatusCode());
+    assertThat(typeResponse.getHeaders().getETag()).isNotEqualTo(typeEtag);
+    assertEquals(HttpStatus.OK, get(recordUrl, recordEtag).getStatusCode());
+  }
+
+  @Test
+  void writesToOtherRecordTypesChangeOnlyTheCollectionETag() throws Exception {
+    upsertRecord("thing", "a");
+    String typeUrl = "/{instanceId}/types/{version}/thing";
+    String allTypesUrl = "/{instanceId}/types/{version}";
+    String typeEtag = get(typeUrl, null).getHeaders().getETag();
+    String allTypesEtag = get(allTypesUrl, null).getHeaders().getETag();
+
+    upsertRecord("other", "a");
+
+    assertEquals(HttpStatus.NOT_MODIFIED, get(typeUrl, typeEtag).getStatusCode());
+    assertEquals(HttpStatus.OK, get(allTypesUrl, allTypesEtag).getStatusCode());
+  }
+
+  @Test
+  void schemaChangesChangeTheETag() throws Exception {
+    upsertRecord("thing", "a");
+    String typeUrl = "/{instanceId}/types/{version}/thing";
+    String typeEtag = get(typeUrl, null).getHeaders().getETag();
+
+    ResponseEntity<Void> deleteResponse =
+        restTemplate.exchange(
+            "/{instanceId}/types/{version}/thing/{attribute}",
+            HttpMethod.DELETE,
+            null,
+            Void.class,
+            collectionId,
+            VERSION,
+            "attr1");
+    assertEquals(HttpStatus.NO_CONTENT, deleteResponse.getStatusCode());
+
+    assertEquals(HttpStatus.OK, get(typeUrl, typeEtag).getStatusCode());
+  }
+
+  @Test
+  void notModifiedResponsesAreCounted() throws Exception {
+    upsertRecord("thing", "a");
+    String url = "/{instanceId}/records/{version}/thing/a";
+    String etag = get(url, null).getHeaders().getETag();
+    double before = notModifiedCount();
+
+    get(url, etag);
+
+    assertEquals(before + 1, notModifiedCount());
+  }
+
+  private double notModifiedCount() {
+    return meterRegistry
+        .find("wds.http.conditional.requests")
+        .tag("endpoint", "getSingleRecord")
+        .tag("result", "not-modified")
+        .counters()
+        .stream()
+        .mapToDouble(Counter::count)
+        .sum();
+  }
+
+  private ResponseEntity<String> get(String url, @Nullable String ifNoneMatch) {
+    HttpHeaders headers = new HttpHeaders();
+    if (ifNoneMatch != null) {
+      headers.setIfNoneMatch(ifNoneMatch);
+    }
+    return restTemplate.exchange(
+        url, HttpMethod.GET, new HttpEntity<>(headers), String.class, collectionId, VERSION);
+  }
+
+  private void upsertRecord(String recordType, String recordId) throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    ResponseEntity<String> response =
+        restTemplate.exchange(
+            "/{instanceId}/records/{version}/{recordType}/{recordId}",
+            HttpMethod.PUT,
+            new HttpEntity<>(
+                mapper.writeValueAsString(new RecordRequest(generateRandomAttributes())), headers),
+            String.class,
+            collectionId,
+            VERSION,
+            recordType,
+            recordId);
+    assertThat(response.getStatusCode()).isIn(HttpStatus.CREATED, HttpStatus.OK);
+  }
+}
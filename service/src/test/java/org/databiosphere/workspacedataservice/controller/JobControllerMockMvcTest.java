@@ -2,6 +2,7 @@ package org.databiosphere.workspacedataservice.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -18,6 +19,7 @@ import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
 import org.databiosphere.workspacedataservice.service.CollectionService;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
 import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.shared.model.job.JobListOptions;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -90,7 +92,8 @@ class JobControllerMockMvcTest extends MockMvcTestBase {
             GenericJobServerModel.StatusEnum.RUNNING,
             time,
             time));
-    when(jobDao.getJobsForCollection(collectionId, Optional.of(List.of("RUNNING"))))
+    when(jobDao.getJobsForCollection(
+            collectionId, Optional.of(List.of("RUNNING")), JobListOptions.all()))
         .thenReturn(expected);
 
     // calling the API should result in 200 OK
@@ -111,4 +114,39 @@ class JobControllerMockMvcTest extends MockMvcTestBase {
     // all jobs in both lists should have the same collectionId
     assertEquals(expected.get(0).getInstanceId(), actual[1].getInstanceId());
   }
+
+  @Test
+  void jobsInCollectionV1PassesPagingOptions() throws Exception {
+    CollectionId collectionId = new CollectionId(UUID.randomUUID());
+    UUID afterJobId = UUID.randomUUID();
+    when(collectionService.getWorkspaceId(collectionId))
+        .thenReturn(WorkspaceId.of(UUID.randomUUID()));
+    when(jobDao.getJobsForCollection(
+            collectionId, Optional.empty(), new JobListOptions(10, afterJobId, false)))
+        .thenReturn(List.of());
+
+    mockMvc
+        .perform(
+            get(
+                "/job/v1/instance/{instanceUuid}?pageSize={pageSize}&afterJobId={afterJobId}"
+                    + "&includeInput={includeInput}",
+                collectionId,
+                10,
+                afterJobId,
+                false))
+        .andExpect(status().isOk());
+
+    verify(jobDao)
+        .getJobsForCollection(
+            collectionId, Optional.empty(), new JobListOptions(10, afterJobId, false));
+  }
+
+  @Test
+  void jobsInCollectionV1RejectsInvalidPageSize() throws Exception {
+    CollectionId collectionId = new CollectionId(UUID.randomUUID());
+
+    mockMvc
+        .perform(get("/job/v1/instance/{instanceUuid}?pageSize={pageSize}", collectionId, 1001))
+        .andExpect(status().isBadRequest());
+  }
 }
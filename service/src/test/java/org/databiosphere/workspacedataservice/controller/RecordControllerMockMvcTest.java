@@ -1,6 +1,7 @@
 package org.databiosphere.workspacedataservice.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.databiosphere.workspacedataservice.TestUtils.generateRandomAttributes;
 import static org.databiosphere.workspacedataservice.service.model.ReservedNames.RECORD_ID;
 import static org.hamcrest.Matchers.*;
@@ -11,6 +12,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -24,6 +26,8 @@ import org.databiosphere.workspacedataservice.TestUtils;
 import org.databiosphere.workspacedataservice.dao.TestDao;
 import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
 import org.databiosphere.workspacedataservice.generated.CollectionServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.JobTypeEnum;
 import org.databiosphere.workspacedataservice.service.CollectionService;
 import org.databiosphere.workspacedataservice.service.RelationUtils;
 import org.databiosphere.workspacedataservice.service.model.AttributeSchema;
@@ -1986,22 +1990,30 @@ class RecordControllerMockMvcTest extends MockMvcTestBase {
                         attributeToUpdate)
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(toJson(new AttributeSchema(null, "STRING"))))
-            .andExpect(status().isOk())
+            .andExpect(status().isAccepted())
             .andReturn();
 
     // Assert
-    AttributeSchema updatedAttributeSchema =
-        fromJson(updateAttributeDataTypeResult, AttributeSchema.class);
-    assertEquals("STRING", updatedAttributeSchema.datatype());
-
-    MvcResult finalGetSchemaResult =
-        mockMvc
-            .perform(get("/{instanceId}/types/{v}/{type}", instanceId, versionId, recordType))
-            .andReturn();
-    RecordTypeSchema finalRecordTypeSchema = fromJson(finalGetSchemaResult, RecordTypeSchema.class);
-    AttributeSchema finalAttributeSchema =
-        finalRecordTypeSchema.getAttributeSchema(attributeToUpdate);
-    assertEquals("STRING", finalAttributeSchema.datatype());
+    GenericJobServerModel job =
+        fromJson(updateAttributeDataTypeResult, GenericJobServerModel.class);
+    assertEquals(JobTypeEnum.DATA_TYPE_CONVERSION, job.getJobType());
+
+    // the data type changes once the job finishes
+    await()
+        .atMost(Duration.ofSeconds(30))
+        .untilAsserted(
+            () -> {
+              MvcResult finalGetSchemaResult =
+                  mockMvc
+                      .perform(
+                          get("/{instanceId}/types/{v}/{type}", instanceId, versionId, recordType))
+                      .andReturn();
+              RecordTypeSchema finalRecordTypeSchema =
+                  fromJson(finalGetSchemaResult, RecordTypeSchema.class);
+              AttributeSchema finalAttributeSchema =
+                  finalRecordTypeSchema.getAttributeSchema(attributeToUpdate);
+              assertEquals("STRING", finalAttributeSchema.datatype());
+            });
   }
 
   @Test
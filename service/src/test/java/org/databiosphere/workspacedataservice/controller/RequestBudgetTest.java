@@ -0,0 +1,219 @@
+package org.databiosphere.workspacedataservice.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.service.RelationUtils.createRelationString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.generated.CollectionRequestServerModel;
+import org.databiosphere.workspacedataservice.metrics.RequestAccountingHeaderAdvice;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.workspace.DataTableTypeInspector;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Statement budgets for key endpoints, read from the response header added by {@link
+ * RequestAccountingHeaderAdvice}. A failure here likely means an endpoint started issuing a
+ * statement per record or per record type; if the increase is intended, raise the budget.
+ */
+@DirtiesContext
+@ActiveProfiles(profiles = "mock-sam")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(
+    properties = {
+      "twds.request-accounting.header-enabled=true",
+      "twds.request-accounting.database-enabled=true"
+    })
+class RequestBudgetTest extends ControlPlaneTestBase {
+  private static final String VERSION = "v0.2";
+
+  @Autowired private ObjectMapper mapper;
+  @Autowired private TestRestTemplate restTemplate;
+  @Autowired private MeterRegistry meterRegistry;
+  @MockitoBean private DataTableTypeInspector dataTableTypeInspector;
+
+  private UUID collectionId;
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    when(dataTableTypeInspector.getWorkspaceDataTableType(any()))
+        .thenReturn(WorkspaceDataTableType.WDS);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    ResponseEntity<String> createCollectionResponse =
+        restTemplate.exchange(
+            "/collections/v1/{workspaceId}",
+            HttpMethod.POST,
+            new HttpEntity<>(
+                mapper.writeValueAsString(
+                    new CollectionRequestServerModel("budgets", "request budget test")),
+                headers),
+            String.class,
+            UUID.randomUUID());
+    assertEquals(HttpStatus.CREATED, createCollectionResponse.getStatusCode());
+    collectionId =
+        TestUtils.getCollectionId(
+            mapper, Objects.requireNonNull(createCollectionResponse.getBody()));
+  }
+
+  @Test
+  void describeAllRecordTypes() throws Exception {
+    createRecordTypes(3);
+    long threeTypes = statements(get("/{instanceId}/types/{version}"));
+    createRecordTypes(6);
+    long sixTypes = statements(get("/{instanceId}/types/{version}"));
+
+    assertThat(threeTypes).isLessThanOrEqualTo(18);
+    // each record type costs a fixed number of statements, however many records it has
+    assertThat(sixTypes - threeTypes).isLessThanOrEqualTo(3 * 5);
+  }
+
+  @Test
+  void queryRecords() throws Exception {
+    createRecordTypes(3);
+
+    ResponseEntity<String> response =
+        restTemplate.exchange(
+            "/{instanceId}/search/{version}/{recordType}",
+            HttpMethod.POST,
+            jsonEntity("{\"limit\": 100}"),
+            String.class,
+            collectionId,
+            VERSION,
+            "type2");
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+
+    assertThat(statements(response)).isLessThanOrEqualTo(12);
+  }
+
+  @Test
+  void getRecord() throws Exception {
+    createRecordTypes(3);
+
+    assertThat(statements(get("/{instanceId}/records/{version}/type2/record-0")))
+        .isLessThanOrEqualTo(9);
+  }
+
+  @Test
+  void publishesPerRequestMetrics() throws Exception {
+    createRecordTypes(1);
+
+    get("/{instanceId}/types/{version}");
+
+    assertThat(
+            meterRegistry
+                .get("wds.request.statements")
+                .tag("method", "GET")
+                .tag("uri", "/{instanceId}/types/{v}")
+                .summary()
+                .totalAmount())
+        .isPositive();
+    assertThat(
+            meterRegistry
+                .get("wds.request.rows")
+                .tag("method", "GET")
+                .tag("uri", "/{instanceId}/types/{v}")
+                .summary()
+                .totalAmount())
+        .isPositive();
+  }
+
+  /**
+   * Create record types type0 .. type{count - 1}, each with 10 records which refer to a record of
+   * the previous type. Types which already exist are upserted again.
+   */
+  private void createRecordTypes(int count) throws Exception {
+    for (int type = 0; type < count; type++) {
+      StringBuilder batch = new StringBuilder("[");
+      for (int record = 0; record < 10; record++) {
+        RecordAttributes attributes =
+            RecordAttributes.empty()
+                .putAttribute("name", "record " + record)
+                .putAttribute("value", record);
+        if (type > 0) {
+          attributes.putAttribute(
+              "parent" + type,
+              createRelationString(RecordType.valueOf("type" + (type - 1)), "record-0"));
+        }
+        if (record > 0) {
+          batch.append(",");
+        }
+        batch.append(
+            mapper.writeValueAsString(
+                Map.of(
+                    "operation",
+                    "upsert",
+                    "record",
+                    Map.of(
+                        "id",
+                        "record-" + record,
+                        "type",
+                        "type" + type,
+                        "attributes",
+                        attributes))));
+      }
+      batch.append("]");
+      ResponseEntity<String> response =
+          restTemplate.exchange(
+              "/{instanceId}/batch/{version}/{recordType}",
+              HttpMethod.POST,
+              jsonEntity(batch.toString()),
+              String.class,
+              collectionId,
+              VERSION,
+              "type" + type);
+      assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+    }
+  }
+
+  private ResponseEntity<String> get(String url) {
+    ResponseEntity<String> response =
+        restTemplate.exchange(url, HttpMethod.GET, null, String.class, collectionId, VERSION);
+    assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+    return response;
+  }
+
+  private HttpEntity<String> jsonEntity(String json) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    return new HttpEntity<>(json, headers);
+  }
+
+  // parse "statements=12, rows=340, bytes=20480, outbound=2"
+  private static long statements(ResponseEntity<?> response) {
+    String header = response.getHeaders().getFirst(RequestAccountingHeaderAdvice.HEADER);
+    assertNotNull(header, "missing " + RequestAccountingHeaderAdvice.HEADER + " header");
+    Map<String, Long> counts =
+        Arrays.stream(header.split(", "))
+            .map(count -> count.split("="))
+            .collect(Collectors.toMap(count -> count[0], count -> Long.parseLong(count[1])));
+    return counts.get("statements");
+  }
+}
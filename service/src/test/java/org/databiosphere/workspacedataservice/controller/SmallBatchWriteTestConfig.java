@@ -1,5 +1,6 @@
 package org.databiosphere.workspacedataservice.controller;
 
+import org.databiosphere.workspacedataservice.dao.ImportCheckpointDao;
 import org.databiosphere.workspacedataservice.service.BatchWriteService;
 import org.databiosphere.workspacedataservice.service.DataTypeInferer;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -13,7 +14,8 @@ import org.springframework.context.annotation.Bean;
 class SmallBatchWriteTestConfig {
 
   @Bean
-  public BatchWriteService batchWriteService(DataTypeInferer dataTypeInferer) {
-    return new BatchWriteService(/* batchSize= */ 1, dataTypeInferer);
+  public BatchWriteService batchWriteService(
+      DataTypeInferer dataTypeInferer, ImportCheckpointDao importCheckpointDao) {
+    return new BatchWriteService(/* batchSize= */ 1, dataTypeInferer, importCheckpointDao);
   }
 }
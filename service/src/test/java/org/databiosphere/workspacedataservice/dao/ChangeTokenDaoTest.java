@@ -0,0 +1,92 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ChangeTokenDaoTest {
+  private static final RecordType THING = RecordType.valueOf("thing");
+
+  private final NamedParameterJdbcTemplate namedTemplate =
+      Mockito.mock(NamedParameterJdbcTemplate.class);
+  private final ChangeTokenDao changeTokenDao =
+      new ChangeTokenDao(namedTemplate, Mockito.mock(PlatformTransactionManager.class));
+
+  @Test
+  void retriesAssigningTokens() {
+    UUID collectionId = UUID.randomUUID();
+    when(namedTemplate.update(startsWith("insert"), any(SqlParameterSource.class)))
+        .thenThrow(new DataAccessResourceFailureException("connection lost"))
+        .thenReturn(1);
+    stubToken(5L);
+
+    changeTokenDao.recordTypeChanged(collectionId, THING);
+
+    verify(namedTemplate, times(3)).update(startsWith("insert"), any(SqlParameterSource.class));
+    verify(namedTemplate, never()).update(startsWith("delete"), any(SqlParameterSource.class));
+    assertEquals(Optional.of(5L), changeTokenDao.getToken(collectionId, THING));
+  }
+
+  @Test
+  void removesTokensWhenTheyCannotBeAssigned() {
+    UUID collectionId = UUID.randomUUID();
+    when(namedTemplate.update(startsWith("insert"), any(SqlParameterSource.class)))
+        .thenThrow(new DataAccessResourceFailureException("connection lost"));
+    stubToken(5L);
+
+    changeTokenDao.recordTypeChanged(collectionId, THING);
+
+    verify(namedTemplate, times(3)).update(startsWith("insert"), any(SqlParameterSource.class));
+    verify(namedTemplate)
+        .update(startsWith("delete from sys_wds.change_token"), any(SqlParameterSource.class));
+    assertTrue(changeTokenDao.getToken(collectionId, THING).isEmpty());
+    assertTrue(changeTokenDao.getToken(collectionId, null).isEmpty());
+  }
+
+  @Test
+  void stopsServingTokensWhenTheyCannotBeRemoved() {
+    UUID collectionId = UUID.randomUUID();
+    UUID otherCollectionId = UUID.randomUUID();
+    doThrow(new DataAccessResourceFailureException("connection lost"))
+        .when(namedTemplate)
+        .update(anyString(), any(SqlParameterSource.class));
+    stubToken(5L);
+
+    changeTokenDao.collectionChanged(collectionId);
+
+    assertTrue(changeTokenDao.getToken(collectionId, null).isEmpty());
+    assertEquals(Optional.of(5L), changeTokenDao.getToken(otherCollectionId, null));
+
+    // once a later write assigns new tokens, they are served again
+    Mockito.reset(namedTemplate);
+    stubToken(6L);
+    changeTokenDao.collectionChanged(collectionId);
+
+    assertEquals(Optional.of(6L), changeTokenDao.getToken(collectionId, null));
+  }
+
+  private void stubToken(long token) {
+    when(namedTemplate.queryForList(
+            startsWith("select token"), any(SqlParameterSource.class), eq(Long.class)))
+        .thenReturn(List.of(token));
+  }
+}
@@ -75,6 +75,41 @@ public class MockCloneDao implements CloneDao {
     }
   }
 
+  @Override
+  public void createCopyEntry(
+      UUID trackingId, WorkspaceId sourceWorkspaceId, WorkspaceId targetWorkspaceId) {
+    LocalDateTime now = Timestamp.from(Instant.now()).toLocalDateTime();
+    var cloneEntry = new CloneResponse(sourceWorkspaceId.id(), CloneStatus.COPYQUEUED);
+    clone.add(
+        new Job<>(
+            trackingId,
+            SYNC_CLONE,
+            /* collectionId= */ null,
+            JobStatus.QUEUED,
+            "",
+            now,
+            now,
+            JobInput.empty(),
+            cloneEntry));
+  }
+
+  @Override
+  public void updateCopyProgress(
+      UUID trackingId, int tablesTotal, int tablesCopied, long rowsCopied) {
+    // progress is not tracked in memory
+  }
+
+  @Override
+  public void terminateCopyToError(UUID trackingId, String error) {
+    var cloneEntry = findCloneEntry(trackingId);
+    if (cloneEntry != null) {
+      clone.remove(cloneEntry);
+      cloneEntry.setErrorMessage(error);
+      clone.add(cloneEntry);
+      updateCloneEntryStatus(trackingId, CloneStatus.COPYERROR);
+    }
+  }
+
   @Override
   public Job<JobInput, CloneResponse> getCloneStatus() {
     return clone.stream().max(Comparator.comparing(Job::getUpdated)).orElse(null);
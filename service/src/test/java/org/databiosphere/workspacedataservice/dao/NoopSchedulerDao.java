@@ -1,5 +1,7 @@
 package org.databiosphere.workspacedataservice.dao;
 
+import java.util.Collection;
+import java.util.List;
 import org.databiosphere.workspacedataservice.shared.model.Schedulable;
 
 /**
@@ -14,4 +16,29 @@ public class NoopSchedulerDao implements SchedulerDao {
   public void schedule(Schedulable schedulable) {
     // do nothing.
   }
+
+  @Override
+  public void store(Schedulable schedulable) {
+    // do nothing.
+  }
+
+  @Override
+  public boolean trigger(Schedulable schedulable) {
+    return true;
+  }
+
+  @Override
+  public void delete(Schedulable schedulable) {
+    // do nothing.
+  }
+
+  @Override
+  public boolean exists(String group, String id) {
+    return false;
+  }
+
+  @Override
+  public List<Schedulable> getStoredJobs(Collection<String> groups) {
+    return List.of();
+  }
 }
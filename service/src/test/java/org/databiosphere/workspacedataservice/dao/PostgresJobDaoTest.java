@@ -7,6 +7,7 @@ import static org.databiosphere.workspacedataservice.generated.GenericJobServerM
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -19,7 +20,11 @@ import io.micrometer.core.instrument.Timer;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
@@ -29,9 +34,12 @@ import org.databiosphere.workspacedataservice.dataimport.ImportJobInput;
 import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
 import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel;
 import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel.TypeEnum;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel.PassEnum;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
 import org.databiosphere.workspacedataservice.shared.model.job.Job;
 import org.databiosphere.workspacedataservice.shared.model.job.JobInput;
+import org.databiosphere.workspacedataservice.shared.model.job.JobListOptions;
 import org.databiosphere.workspacedataservice.shared.model.job.JobResult;
 import org.databiosphere.workspacedataservice.shared.model.job.JobType;
 import org.junit.jupiter.api.AfterEach;
@@ -372,6 +380,127 @@ class PostgresJobDaoTest extends ControlPlaneTestBase {
     assertEquals(2, jobs.size());
   }
 
+  @Test
+  void updateProgress() {
+    GenericJobServerModel job = assertJobCreation(JobType.DATA_IMPORT);
+    assertNull(job.getProgress());
+
+    JobProgressServerModel progress =
+        new JobProgressServerModel()
+            .pass(PassEnum.RELATIONS)
+            .table("sample")
+            .rowsRead(12L)
+            .rowsWritten(10L)
+            .rowsTotal(20L)
+            .bytesDownloaded(2048L)
+            .estimatedCompletion(OffsetDateTime.parse("2024-01-02T03:04:05Z"));
+    jobDao.updateProgress(job.getJobId(), progress);
+
+    GenericJobServerModel actual = jobDao.getJob(job.getJobId());
+    assertEquals(progress, actual.getProgress());
+    // updating progress does not change status
+    assertEquals(StatusEnum.CREATED, actual.getStatus());
+  }
+
+  @Test
+  void listJobsNewestFirst() {
+    CollectionId collectionId = CollectionId.of(UUID.randomUUID());
+    createJobs(collectionId, 5);
+    // a job in another collection is never listed
+    createJobs(CollectionId.of(UUID.randomUUID()), 1);
+
+    List<GenericJobServerModel> actual =
+        jobDao.getJobsForCollection(collectionId, Optional.empty(), JobListOptions.all());
+
+    assertEquals(5, actual.size());
+    assertThat(actual)
+        .extracting(GenericJobServerModel::getInstanceId)
+        .containsOnly(collectionId.id());
+    assertThat(actual)
+        .extracting(GenericJobServerModel::getCreated)
+        .isSortedAccordingTo(Comparator.reverseOrder());
+    assertEquals(makeJobInput(TEST_IMPORT_URI, TypeEnum.PFB), actual.get(0).getInput());
+  }
+
+  @Test
+  void listJobsByPage() {
+    CollectionId collectionId = CollectionId.of(UUID.randomUUID());
+    createJobs(collectionId, 5);
+    List<GenericJobServerModel> allJobs =
+        jobDao.getJobsForCollection(collectionId, Optional.empty(), JobListOptions.all());
+
+    // page through the jobs two at a time, starting each page after the last job of the previous
+    List<GenericJobServerModel> paged = new ArrayList<>();
+    List<Integer> pageSizes = new ArrayList<>();
+    UUID afterJobId = null;
+    List<GenericJobServerModel> page;
+    do {
+      page =
+          jobDao.getJobsForCollection(
+              collectionId, Optional.empty(), new JobListOptions(2, afterJobId, true));
+      pageSizes.add(page.size());
+      paged.addAll(page);
+      afterJobId = page.isEmpty() ? null : page.get(page.size() - 1).getJobId();
+    } while (!page.isEmpty());
+
+    assertEquals(List.of(2, 2, 1, 0), pageSizes);
+    assertEquals(allJobs, paged);
+  }
+
+  @Test
+  void listJobsFiltersByStatus() {
+    CollectionId collectionId = CollectionId.of(UUID.randomUUID());
+    List<UUID> jobIds = createJobs(collectionId, 3);
+    jobDao.running(jobIds.get(0));
+    jobDao.succeeded(jobIds.get(1));
+
+    List<GenericJobServerModel> actual =
+        jobDao.getJobsForCollection(
+            collectionId,
+            Optional.of(List.of(StatusEnum.RUNNING.name(), StatusEnum.CREATED.name())),
+            JobListOptions.all());
+
+    assertThat(actual)
+        .extracting(GenericJobServerModel::getJobId)
+        .containsExactlyInAnyOrder(jobIds.get(0), jobIds.get(2));
+  }
+
+  @Test
+  void listJobsWithoutInput() {
+    CollectionId collectionId = CollectionId.of(UUID.randomUUID());
+    createJobs(collectionId, 2);
+
+    List<GenericJobServerModel> actual =
+        jobDao.getJobsForCollection(
+            collectionId, Optional.empty(), new JobListOptions(null, null, false));
+
+    assertEquals(2, actual.size());
+    assertThat(actual).extracting(GenericJobServerModel::getInput).containsOnlyNulls();
+  }
+
+  @Test
+  void listJobsAfterUnknownJob() {
+    CollectionId collectionId = CollectionId.of(UUID.randomUUID());
+    createJobs(collectionId, 2);
+    // a job which exists, but in another collection, does not start a page in this collection
+    UUID otherJobId = createJobs(CollectionId.of(UUID.randomUUID()), 1).get(0);
+
+    assertThat(
+            jobDao.getJobsForCollection(
+                collectionId, Optional.empty(), new JobListOptions(10, otherJobId, true)))
+        .isEmpty();
+  }
+
+  private List<UUID> createJobs(CollectionId collectionId, int count) {
+    ImportJobInput jobInput = makeJobInput(TEST_IMPORT_URI, TypeEnum.PFB);
+    List<UUID> jobIds = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Job<JobInput, JobResult> job = Job.newJob(collectionId, JobType.DATA_IMPORT, jobInput);
+      jobIds.add(jobDao.createJob(job).getJobId());
+    }
+    return jobIds;
+  }
+
   private static ImportJobInput makeJobInput(String testImportUri, TypeEnum importType) {
     try {
       return ImportJobInput.from(new ImportRequestServerModel(importType, new URI(testImportUri)));
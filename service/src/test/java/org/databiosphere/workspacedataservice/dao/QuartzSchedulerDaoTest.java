@@ -2,7 +2,14 @@ package org.databiosphere.workspacedataservice.dao;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.Serializable;
 import java.util.Date;
@@ -15,9 +22,12 @@ import org.mockito.ArgumentCaptor;
 import org.quartz.Job;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
+import org.quartz.TriggerKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
@@ -59,6 +69,7 @@ class QuartzSchedulerDaoTest extends ControlPlaneTestBase {
     assertEquals("my-group", actualJobDetail.getKey().getGroup());
     assertEquals(FakeJob.class, actualJobDetail.getJobClass());
     assertEquals("my-description", actualJobDetail.getDescription());
+    assertTrue(actualJobDetail.requestsRecovery());
     // verify contents of that Quartz job's data map
     assertEquals(Set.of("first", "second"), actualJobDetail.getJobDataMap().keySet());
     assertEquals("one", actualJobDetail.getJobDataMap().getString("first"));
@@ -77,4 +88,45 @@ class QuartzSchedulerDaoTest extends ControlPlaneTestBase {
         .as("actual trigger should be within the last 2 seconds")
         .isLessThan(2000);
   }
+
+  @Test
+  void storesJobWithoutTriggeringIt() throws SchedulerException {
+    Schedulable schedulable = new Schedulable("my-group", "my-id", FakeJob.class, "desc", Map.of());
+
+    schedulerDao.store(schedulable);
+
+    // store the non-durable job even though it has no trigger yet
+    ArgumentCaptor<JobDetail> jobDetailArgument = ArgumentCaptor.forClass(JobDetail.class);
+    verify(scheduler).addJob(jobDetailArgument.capture(), eq(false), eq(true));
+    assertEquals(new JobKey("my-id", "my-group"), jobDetailArgument.getValue().getKey());
+    verify(scheduler, never()).scheduleJob(any(Trigger.class));
+  }
+
+  @Test
+  void triggersStoredJobOnce() throws SchedulerException {
+    Schedulable schedulable = new Schedulable("my-group", "my-id", FakeJob.class, "desc", Map.of());
+    JobKey jobKey = new JobKey("my-id", "my-group");
+    when(scheduler.checkExists(jobKey)).thenReturn(true);
+    when(scheduler.scheduleJob(any(Trigger.class)))
+        .thenReturn(new Date())
+        .thenThrow(new ObjectAlreadyExistsException("already triggered"));
+
+    assertTrue(schedulerDao.trigger(schedulable));
+    assertFalse(schedulerDao.trigger(schedulable));
+
+    // the trigger is named after the job, so that only one replica can trigger it
+    ArgumentCaptor<Trigger> triggerArgument = ArgumentCaptor.forClass(Trigger.class);
+    verify(scheduler, times(2)).scheduleJob(triggerArgument.capture());
+    assertEquals(new TriggerKey("my-id", "my-group"), triggerArgument.getValue().getKey());
+    assertEquals(jobKey, triggerArgument.getValue().getJobKey());
+  }
+
+  @Test
+  void doesNotTriggerMissingJob() throws SchedulerException {
+    Schedulable schedulable = new Schedulable("my-group", "my-id", FakeJob.class, "desc", Map.of());
+    when(scheduler.checkExists(new JobKey("my-id", "my-group"))).thenReturn(false);
+
+    assertFalse(schedulerDao.trigger(schedulable));
+    verify(scheduler, never()).scheduleJob(any(Trigger.class));
+  }
 }
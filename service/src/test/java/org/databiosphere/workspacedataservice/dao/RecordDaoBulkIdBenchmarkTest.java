@@ -0,0 +1,116 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static java.util.Collections.emptyMap;
+import static org.databiosphere.workspacedataservice.TestTags.SLOW;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.model.RelationCollection;
+import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Benchmarks RecordDao's bulk-id predicates at increasing numbers of ids, logging the elapsed time
+ * of each. Each id list is bound as a single array parameter; bound as one parameter per id, lists
+ * above 32767 ids would fail outright.
+ */
+@SpringBootTest
+class RecordDaoBulkIdBenchmarkTest extends ControlPlaneTestBase {
+  private static final Logger logger = LoggerFactory.getLogger(RecordDaoBulkIdBenchmarkTest.class);
+  private static final String PRIMARY_KEY = "row_id";
+  private static final int INSERT_BATCH_SIZE = 5000;
+
+  @Autowired RecordDao recordDao;
+  @Autowired CollectionService collectionService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+
+  private final RecordType recordType = RecordType.valueOf("benchmark");
+  private UUID collectionUuid;
+
+  @BeforeEach
+  void setUp() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionUuid = collectionService.save(workspaceId, "name", "desc").getId();
+    recordDao.createRecordType(
+        collectionUuid, emptyMap(), recordType, RelationCollection.empty(), PRIMARY_KEY);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @Tag(SLOW)
+  @ParameterizedTest(name = "{0} ids")
+  @ValueSource(ints = {1_000, 50_000, 500_000})
+  void bulkIdPredicates(int numIds) {
+    List<String> recordIds = IntStream.range(0, numIds).mapToObj(i -> "record-" + i).toList();
+    for (int i = 0; i < numIds; i += INSERT_BATCH_SIZE) {
+      List<Record> batch =
+          recordIds.subList(i, Math.min(i + INSERT_BATCH_SIZE, numIds)).stream()
+              .map(id -> new Record(id, recordType, RecordAttributes.empty()))
+              .toList();
+      recordDao.batchUpsert(collectionUuid, recordType, batch, emptyMap());
+    }
+    // lookup: = any(:filterIds)
+    long start = System.nanoTime();
+    List<Record> found =
+        recordDao.queryForRecords(
+            recordType,
+            numIds,
+            0,
+            "ASC",
+            null,
+            Optional.of(new SearchFilter(Optional.of(recordIds), Optional.empty())),
+            collectionUuid);
+    logElapsed("queryForRecords by id", numIds, start);
+    assertEquals(numIds, found.size());
+
+    // delete all except: anti-join against unnest(:recordIds); every record is excluded
+    start = System.nanoTime();
+    int deletedExcept =
+        recordDao.deleteAllRecords(CollectionId.of(collectionUuid), recordType, recordIds);
+    logElapsed("deleteAllRecords excluding ids", numIds, start);
+    assertEquals(0, deletedExcept);
+
+    // delete by id: = any(:recordIds)
+    start = System.nanoTime();
+    int deleted = recordDao.deleteRecords(collectionUuid, recordType, recordIds);
+    logElapsed("deleteRecords by id", numIds, start);
+    assertEquals(numIds, deleted);
+  }
+
+  private static void logElapsed(String operation, int numIds, long startNanos) {
+    logger.info(
+        "{} with {} ids took {} ms",
+        operation,
+        numIds,
+        (System.nanoTime() - startNanos) / 1_000_000);
+  }
+}
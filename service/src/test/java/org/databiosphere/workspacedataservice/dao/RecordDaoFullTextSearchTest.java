@@ -0,0 +1,218 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.dao.SqlUtils.getQualifiedTableName;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.fulltextsearch.FullTextSearchService;
+import org.databiosphere.workspacedataservice.search.InvalidQueryException;
+import org.databiosphere.workspacedataservice.search.WhereClause;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.RecordService;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.RelationCollection;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/** Tests for full-text search of a record type; see {@link RecordDao#prepareFullTextSearch}. */
+@SpringBootTest
+class RecordDaoFullTextSearchTest extends ControlPlaneTestBase {
+  private static final String PRIMARY_KEY = "sample_id";
+
+  @Autowired RecordDao recordDao;
+  @Autowired RecordService recordService;
+  @Autowired FullTextSearchService fullTextSearchService;
+  @Autowired CollectionService collectionService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+
+  private final RecordType recordType = RecordType.valueOf("sample");
+  private UUID collectionUuid;
+
+  @BeforeEach
+  void setUp() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionUuid = collectionService.save(workspaceId, "name", "desc").getId();
+    recordDao.createRecordType(
+        collectionUuid,
+        Map.of(
+            "name", DataTypeMapping.STRING,
+            "depth", DataTypeMapping.NUMBER,
+            "tags", DataTypeMapping.ARRAY_OF_STRING,
+            "metadata", DataTypeMapping.JSON),
+        recordType,
+        RelationCollection.empty(),
+        PRIMARY_KEY);
+    upsert(
+        "s1",
+        RecordAttributes.empty()
+            .putAttribute("name", "liver biopsy")
+            .putAttribute("depth", 12)
+            .putAttribute("tags", List.of("frozen", "archived"))
+            .putAttribute("metadata", Map.of("site", "chicago")));
+    upsert(
+        "s2",
+        RecordAttributes.empty()
+            .putAttribute("name", "blood draw")
+            .putAttribute("metadata", Map.of("site", "boston")));
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @Test
+  void queryWithoutColumnRequiresFullTextSearch() {
+    assertFalse(recordDao.isFullTextSearchEnabled(collectionUuid, recordType));
+    assertThrows(InvalidQueryException.class, () -> search("biopsy"));
+
+    fullTextSearchService.enable(collectionUuid, recordType);
+    assertTrue(recordDao.isFullTextSearchEnabled(collectionUuid, recordType));
+    assertThat(search("biopsy")).containsExactly("s1");
+
+    recordService.disableFullTextSearch(collectionUuid, recordType);
+    assertFalse(recordDao.isFullTextSearchEnabled(collectionUuid, recordType));
+    assertThrows(InvalidQueryException.class, () -> search("biopsy"));
+  }
+
+  @Test
+  void matchesAnyAttribute() {
+    fullTextSearchService.enable(collectionUuid, recordType);
+
+    // strings, words within them, and quoted phrases
+    assertThat(search("\"blood draw\"")).containsExactly("s2");
+    assertThat(search("draw")).containsExactly("s2");
+    assertThat(search("\"draw blood\"")).isEmpty();
+    // numbers, arrays, json values and record ids
+    assertThat(search("12")).containsExactly("s1");
+    assertThat(search("archived")).containsExactly("s1");
+    assertThat(search("boston")).containsExactly("s2");
+    assertThat(search("s2")).containsExactly("s2");
+    // but not attribute names
+    assertThat(search("site")).isEmpty();
+    // column queries are unaffected
+    assertThat(search("name:\"liver biopsy\"")).containsExactly("s1");
+  }
+
+  @Test
+  void indexIsKeptInSyncWithWrites() {
+    fullTextSearchService.enable(collectionUuid, recordType);
+
+    // inserts
+    upsert("s3", RecordAttributes.empty().putAttribute("name", "liver resection"));
+    assertThat(search("liver")).containsExactly("s1", "s3");
+
+    // partial updates, which leave other attributes as they were
+    upsert("s1", RecordAttributes.empty().putAttribute("name", "kidney biopsy"));
+    assertThat(search("liver")).containsExactly("s3");
+    assertThat(search("kidney")).containsExactly("s1");
+    assertThat(search("frozen")).containsExactly("s1");
+
+    // deleted attributes
+    recordDao.deleteAttribute(collectionUuid, recordType, "tags");
+    assertThat(search("frozen")).isEmpty();
+  }
+
+  @Test
+  void fullTextColumnIsNotPartOfTheSchema() {
+    fullTextSearchService.enable(collectionUuid, recordType);
+
+    assertThat(recordDao.getExistingTableSchema(collectionUuid, recordType))
+        .doesNotContainKey(RecordDao.FULL_TEXT_COLUMN);
+    assertThat(recordDao.getAllAttributeNames(collectionUuid, recordType))
+        .doesNotContain(RecordDao.FULL_TEXT_COLUMN);
+    assertThat(
+            recordDao
+                .getSingleRecord(collectionUuid, recordType, "s1")
+                .orElseThrow()
+                .attributeSet())
+        .extracting(Map.Entry::getKey)
+        .doesNotContain(RecordDao.FULL_TEXT_COLUMN);
+  }
+
+  @Test
+  void largeTablesUseTheIndex() {
+    // rows inserted in bulk are indexed by the trigger, just as those written by batchUpsert
+    fullTextSearchService.enable(collectionUuid, recordType);
+    String table = getQualifiedTableName(recordType, collectionUuid);
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "insert into "
+                + table
+                + " (sample_id, name, depth, tags) "
+                + "select 'sample-' || i, md5(i::text), i, array[md5((i + 1)::text), 'common'] "
+                + "from generate_series(1, 50000) i");
+    namedTemplate.getJdbcTemplate().update("analyze " + table);
+    String needle =
+        namedTemplate.queryForObject(
+            "select md5(25000::text)", new MapSqlParameterSource(), String.class);
+
+    assertThat(search(needle)).containsExactly("sample-24999", "sample-25000");
+
+    WhereClause where =
+        RecordDao.generateQueryWhereClause(
+            PRIMARY_KEY,
+            recordDao.getExistingTableSchema(collectionUuid, recordType),
+            Optional.of(new SearchFilter(Optional.empty(), Optional.of(needle))),
+            () -> true);
+    String plan =
+        String.join(
+            "\n",
+            namedTemplate.queryForList(
+                "explain select * from " + table + where.sql(), where.params(), String.class));
+    assertThat(plan).contains("Bitmap Index Scan on").contains(RecordDao.FULL_TEXT_COLUMN);
+  }
+
+  // writes only the given attributes, as RecordService does
+  private void upsert(String recordId, RecordAttributes attributes) {
+    Map<String, DataTypeMapping> schema =
+        recordDao.getExistingTableSchemaLessPrimaryKey(collectionUuid, recordType);
+    schema.keySet().retainAll(attributes.attributeSet().stream().map(Map.Entry::getKey).toList());
+    recordDao.batchUpsert(
+        collectionUuid,
+        recordType,
+        List.of(new Record(recordId, recordType, attributes)),
+        schema,
+        PRIMARY_KEY);
+  }
+
+  private List<String> search(String query) {
+    return recordDao
+        .queryForRecords(
+            recordType,
+            100,
+            0,
+            "ASC",
+            null,
+            Optional.of(new SearchFilter(Optional.empty(), Optional.of(query))),
+            collectionUuid)
+        .stream()
+        .map(Record::getId)
+        .toList();
+  }
+}
@@ -0,0 +1,240 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.TestTags.SLOW;
+import static org.databiosphere.workspacedataservice.dao.SqlUtils.getQualifiedTableName;
+import static org.databiosphere.workspacedataservice.service.RelationUtils.createRelationString;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.search.WhereClause;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.RecordService;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.Relation;
+import org.databiosphere.workspacedataservice.service.model.RelationCollection;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/** Tests for searching relation-array columns, which uses their join tables. */
+@SpringBootTest
+class RecordDaoRelationArraySearchTest extends ControlPlaneTestBase {
+  private static final Logger logger =
+      LoggerFactory.getLogger(RecordDaoRelationArraySearchTest.class);
+  private static final RecordType DONOR = RecordType.valueOf("donor");
+  private static final RecordType SAMPLE = RecordType.valueOf("sample");
+  private static final String PRIMARY_KEY = "sample_id";
+
+  @Autowired RecordDao recordDao;
+  @Autowired RecordService recordService;
+  @Autowired CollectionService collectionService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+
+  private UUID collectionUuid;
+
+  @BeforeEach
+  void setUp() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionUuid = collectionService.save(workspaceId, "name", "desc").getId();
+    recordDao.createRecordType(
+        collectionUuid, Map.of(), DONOR, RelationCollection.empty(), "donor_id");
+    recordDao.batchUpsert(
+        collectionUuid,
+        DONOR,
+        IntStream.range(0, 100)
+            .mapToObj(i -> new Record("d" + i, DONOR, RecordAttributes.empty()))
+            .toList(),
+        Map.of());
+    Map<String, DataTypeMapping> schema = Map.of("donors", DataTypeMapping.ARRAY_OF_RELATION);
+    recordDao.createRecordType(
+        collectionUuid,
+        schema,
+        SAMPLE,
+        new RelationCollection(Set.of(), Set.of(new Relation("donors", DONOR))),
+        PRIMARY_KEY);
+    recordService.batchUpsert(
+        collectionUuid,
+        SAMPLE,
+        List.of(sample("s1", "d1", "d2"), sample("s2", "d2", "d3"), sample("s3", "d4")),
+        schema,
+        PRIMARY_KEY);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @Test
+  void matchesRecordsWhichReferenceTheTerm() {
+    assertThat(search("donors:d2")).containsExactly("s1", "s2");
+    // case-insensitive, as for other string columns
+    assertThat(search("donors:D3")).containsExactly("s2");
+    assertThat(search("donors:d4")).containsExactly("s3");
+    assertThat(search("donors:d5")).isEmpty();
+
+    // replacing a record's relations replaces the matches
+    recordService.batchUpsert(
+        collectionUuid,
+        SAMPLE,
+        List.of(sample("s1", "d5")),
+        Map.of("donors", DataTypeMapping.ARRAY_OF_RELATION),
+        PRIMARY_KEY);
+    assertThat(search("donors:d2")).containsExactly("s2");
+    assertThat(search("donors:d5")).containsExactly("s1");
+  }
+
+  @Test
+  void largeTablesUseTheJoinTableIndex() {
+    // 20,000 samples, each referencing 10 of donors d0 to d89
+    insertSamples(20_000);
+    String table = getQualifiedTableName(SAMPLE, collectionUuid);
+    String joinTable = recordDao.getQualifiedJoinTableName(collectionUuid, "donors", SAMPLE);
+    // and one referencing a donor no other sample references
+    recordService.batchUpsert(
+        collectionUuid,
+        SAMPLE,
+        List.of(sample("rare", "d0", "d99")),
+        Map.of("donors", DataTypeMapping.ARRAY_OF_RELATION),
+        PRIMARY_KEY);
+    namedTemplate.getJdbcTemplate().update("analyze " + table);
+    namedTemplate.getJdbcTemplate().update("analyze " + joinTable);
+
+    assertThat(search("donors:D99")).containsExactly("rare");
+
+    WhereClause where =
+        recordDao.getWhereClause(
+            collectionUuid,
+            SAMPLE,
+            Optional.of(new SearchFilter(Optional.empty(), Optional.of("donors:d99"))));
+    String plan =
+        String.join(
+            "\n",
+            namedTemplate.queryForList(
+                "explain select * from " + table + where.sql(), where.params(), String.class));
+    assertThat(plan).contains("Index Scan").contains("sys_sample_donors_lower_idx");
+  }
+
+  /**
+   * Benchmarks searching a relation-array column through its join table, as queryForRecords does,
+   * against searching the arrays themselves, logging the elapsed time of each.
+   */
+  @Tag(SLOW)
+  @ParameterizedTest(name = "{0} samples")
+  @ValueSource(ints = {10_000, 200_000})
+  void joinTableSearchBenchmark(int numSamples) {
+    insertSamples(numSamples);
+    String table = getQualifiedTableName(SAMPLE, collectionUuid);
+    namedTemplate.getJdbcTemplate().update("analyze " + table);
+    namedTemplate
+        .getJdbcTemplate()
+        .update("analyze " + recordDao.getQualifiedJoinTableName(collectionUuid, "donors", SAMPLE));
+    Optional<SearchFilter> searchFilter =
+        Optional.of(new SearchFilter(Optional.empty(), Optional.of("donors:d2")));
+
+    long start = System.nanoTime();
+    int joined =
+        countMatches(table, recordDao.getWhereClause(collectionUuid, SAMPLE, searchFilter));
+    logElapsed("join table", numSamples, start);
+
+    start = System.nanoTime();
+    int unnested =
+        countMatches(
+            table,
+            RecordDao.generateQueryWhereClause(
+                PRIMARY_KEY,
+                recordDao.getExistingTableSchema(collectionUuid, SAMPLE),
+                searchFilter,
+                () -> false));
+    logElapsed("unnest", numSamples, start);
+
+    assertThat(joined).isPositive().isEqualTo(unnested);
+  }
+
+  // samples sample-1 to sample-{numSamples}, each referencing 10 of donors d0 to d89, written as
+  // RecordService would
+  private void insertSamples(int numSamples) {
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "insert into "
+                + getQualifiedTableName(SAMPLE, collectionUuid)
+                + " (sample_id, donors) select 'sample-' || i, array(select 'terra-wds:/donor/d' ||"
+                + " ((i + j) % 90) from generate_series(1, 10) j) from generate_series(1, ?) i",
+            numSamples);
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "insert into "
+                + recordDao.getQualifiedJoinTableName(collectionUuid, "donors", SAMPLE)
+                + " select 'sample-' || i, 'd' || ((i + j) % 90) "
+                + "from generate_series(1, ?) i, generate_series(1, 10) j",
+            numSamples);
+  }
+
+  private int countMatches(String table, WhereClause where) {
+    return namedTemplate.queryForObject(
+        "select count(*) from " + table + where.sql(), where.params(), Integer.class);
+  }
+
+  private static void logElapsed(String search, int numSamples, long startNanos) {
+    logger.info(
+        "Relation-array search by {} of {} samples took {} ms",
+        search,
+        numSamples,
+        (System.nanoTime() - startNanos) / 1_000_000);
+  }
+
+  private Record sample(String id, String... donorIds) {
+    return new Record(
+        id,
+        SAMPLE,
+        RecordAttributes.empty()
+            .putAttribute(
+                "donors",
+                List.of(donorIds).stream()
+                    .map(donorId -> createRelationString(DONOR, donorId))
+                    .toList()));
+  }
+
+  private List<String> search(String query) {
+    return recordDao
+        .queryForRecords(
+            SAMPLE,
+            100,
+            0,
+            "ASC",
+            null,
+            Optional.of(new SearchFilter(Optional.empty(), Optional.of(query))),
+            collectionUuid)
+        .stream()
+        .map(Record::getId)
+        .toList();
+  }
+}
@@ -0,0 +1,241 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.databiosphere.workspacedataservice.dao.SqlUtils.getQualifiedTableName;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.search.WhereClause;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.SearchIndexer;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.RelationCollection;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/** Tests for the indexes RecordDao builds, on demand, for searches of string attributes. */
+@SpringBootTest
+class RecordDaoSearchIndexTest extends ControlPlaneTestBase {
+  private static final RecordType SAMPLE = RecordType.valueOf("sample");
+  private static final String PRIMARY_KEY = "sample_id";
+  private static final Map<String, DataTypeMapping> SCHEMA =
+      Map.of(
+          "name", DataTypeMapping.STRING,
+          "tags", DataTypeMapping.ARRAY_OF_STRING,
+          "depth", DataTypeMapping.NUMBER);
+
+  @Autowired RecordDao recordDao;
+  @Autowired CollectionService collectionService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+
+  private UUID collectionUuid;
+
+  @BeforeEach
+  void setUp() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionUuid = collectionService.save(workspaceId, "name", "desc").getId();
+    recordDao.createRecordType(
+        collectionUuid, SCHEMA, SAMPLE, RelationCollection.empty(), PRIMARY_KEY);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @Test
+  void writesDoNotIndex() {
+    recordDao.addColumn(collectionUuid, SAMPLE, "data", DataTypeMapping.FILE);
+    recordDao.changeColumn(collectionUuid, SAMPLE, "depth", DataTypeMapping.STRING);
+
+    assertThat(getIndexDefinitions()).hasSize(1); // the primary key
+  }
+
+  @Test
+  void indexesStringAttributes() {
+    recordDao.addColumn(collectionUuid, SAMPLE, "data", DataTypeMapping.FILE);
+    recordDao.addColumn(collectionUuid, SAMPLE, "moreData", DataTypeMapping.ARRAY_OF_FILE);
+    recordDao.addColumn(collectionUuid, SAMPLE, "flags", DataTypeMapping.ARRAY_OF_BOOLEAN);
+    for (String attribute : List.of("name", "tags", "depth", "data", "moreData", "flags")) {
+      recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, attribute);
+    }
+    // indexing again does nothing
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "name");
+
+    assertThat(getIndexDefinitions())
+        .hasSize(5) // the primary key, and one for each string attribute
+        .anyMatch(index -> index.contains("btree (md5(lower(name)))"))
+        .anyMatch(index -> index.contains("gin (sys_wds.lower_array_md5(tags))"))
+        .anyMatch(index -> index.contains("btree (md5(lower((data)::text)))"))
+        .anyMatch(index -> index.contains("gin (sys_wds.lower_array_md5((\"moreData\")::text[]))"));
+  }
+
+  @Test
+  void reindexesChangedAttributes() {
+    recordDao.addColumn(collectionUuid, SAMPLE, "data", DataTypeMapping.FILE);
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "data");
+    recordDao.changeColumn(collectionUuid, SAMPLE, "data", DataTypeMapping.STRING);
+
+    // the index of the old data type is dropped with it
+    assertThat(getIndexDefinitions()).hasSize(1);
+
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "data");
+
+    assertThat(getIndexDefinitions())
+        .hasSize(2)
+        .anyMatch(index -> index.contains("btree (md5(lower(data)))"));
+  }
+
+  @Test
+  void renamedAttributesKeepTheirIndex() {
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "name");
+    recordDao.renameAttribute(collectionUuid, SAMPLE, "name", "title");
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "title");
+
+    assertThat(getIndexDefinitions())
+        .hasSize(2)
+        .anyMatch(index -> index.contains("btree (md5(lower(title)))"));
+  }
+
+  @Test
+  void indexesOnTheFirstSearchOfAnAttribute() {
+    SearchIndexer searchIndexer = new SearchIndexer(recordDao, true);
+    try {
+      searchIndexer.requestIndex(collectionUuid, SAMPLE, filter("tags:common"));
+      searchIndexer.requestIndex(collectionUuid, SAMPLE, filter("depth:1"));
+      // full-text searches have no attribute to index
+      searchIndexer.requestIndex(collectionUuid, SAMPLE, filter("common"));
+
+      await()
+          .atMost(Duration.ofSeconds(30))
+          .untilAsserted(
+              () ->
+                  assertThat(getIndexDefinitions())
+                      .hasSize(2)
+                      .anyMatch(index -> index.contains("gin (sys_wds.lower_array_md5(tags))")));
+    } finally {
+      searchIndexer.shutdown();
+    }
+  }
+
+  @Test
+  void arrayElementsAreNotPatterns() {
+    recordDao.batchUpsert(
+        collectionUuid,
+        SAMPLE,
+        List.of(
+            new Record(
+                "s1",
+                SAMPLE,
+                RecordAttributes.empty().putAttribute("tags", List.of("Batch_1", "100%"))),
+            new Record(
+                "s2",
+                SAMPLE,
+                RecordAttributes.empty().putAttribute("tags", List.of("batchX1", "100 percent")))),
+        SCHEMA);
+
+    // _ and % match only themselves, ignoring case as other characters do
+    assertThat(search("tags:batch_1")).containsExactly("s1");
+    assertThat(search("tags:batchX1")).containsExactly("s2");
+    assertThat(search("tags:100%")).containsExactly("s1");
+    assertThat(search("tags:\"100 percent\"")).containsExactly("s2");
+    assertThat(search("tags:batch")).isEmpty();
+  }
+
+  @Test
+  void indexesValuesTooLongForAnIndexEntry() {
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "name");
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "tags");
+    // random, so that compression can't shrink it below Postgres's limit of about 2.7 KB
+    String longValue = RandomStringUtils.randomAlphanumeric(10_000);
+    recordDao.batchUpsert(
+        collectionUuid,
+        SAMPLE,
+        List.of(
+            new Record(
+                "s1",
+                SAMPLE,
+                RecordAttributes.empty()
+                    .putAttribute("name", longValue)
+                    .putAttribute("tags", List.of(longValue, "short")))),
+        SCHEMA);
+
+    assertThat(search("name:\"" + longValue.toUpperCase() + "\"")).containsExactly("s1");
+    assertThat(search("tags:\"" + longValue + "\"")).containsExactly("s1");
+    assertThat(search("tags:short")).containsExactly("s1");
+  }
+
+  @Test
+  void largeTablesUseTheIndexes() {
+    String table = getQualifiedTableName(SAMPLE, collectionUuid);
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "insert into "
+                + table
+                + " (sample_id, name, tags) select 'sample-' || i, 'Name ' || i,"
+                + " array['Tag ' || i, 'common'] from generate_series(1, 50000) i");
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "name");
+    recordDao.createSearchIndexConcurrently(collectionUuid, SAMPLE, "tags");
+    namedTemplate.getJdbcTemplate().update("analyze " + table);
+
+    assertThat(search("name:\"NAME 25000\"")).containsExactly("sample-25000");
+    assertThat(search("tags:\"tag 25000\"")).containsExactly("sample-25000");
+
+    assertThat(explain("name:\"name 25000\"")).contains("Index Scan using sys_search_");
+    assertThat(explain("tags:\"tag 25000\"")).contains("Bitmap Index Scan on sys_search_");
+  }
+
+  private List<String> getIndexDefinitions() {
+    return namedTemplate.queryForList(
+        "select indexdef from pg_indexes where schemaname = :schema and tablename = :table",
+        new MapSqlParameterSource("schema", collectionUuid.toString())
+            .addValue("table", SAMPLE.getName()),
+        String.class);
+  }
+
+  private String explain(String query) {
+    WhereClause where = recordDao.getWhereClause(collectionUuid, SAMPLE, filter(query));
+    return String.join(
+        "\n",
+        namedTemplate.queryForList(
+            "explain select * from " + getQualifiedTableName(SAMPLE, collectionUuid) + where.sql(),
+            where.params(),
+            String.class));
+  }
+
+  private static Optional<SearchFilter> filter(String query) {
+    return Optional.of(new SearchFilter(Optional.empty(), Optional.of(query)));
+  }
+
+  private List<String> search(String query) {
+    return recordDao
+        .queryForRecords(SAMPLE, 100, 0, "ASC", null, filter(query), collectionUuid)
+        .stream()
+        .map(Record::getId)
+        .toList();
+  }
+}
@@ -1,5 +1,6 @@
 package org.databiosphere.workspacedataservice.dao;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.List;
@@ -12,8 +13,8 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 /**
- * Tests for RecordDao.generateQueryWhereClause() These tests don't require any Spring context, so
- * it's nice to have them in their own class
+ * Tests for RecordDao.generateQueryWhereClause(, () -> false) These tests don't require any Spring
+ * context, so it's nice to have them in their own class
  *
  * <p>See also org.databiosphere.workspacedataservice.search.QueryParserTest. QueryParserTest has
  * detailed tests for the filter.query portion of the where clause, and we don't need to replicate
@@ -25,7 +26,7 @@ class RecordDaoWhereClauseTest {
   @Test
   void emptyClause() {
     WhereClause actual =
-        RecordDao.generateQueryWhereClause("my-pk-col", Map.of(), Optional.empty());
+        RecordDao.generateQueryWhereClause("my-pk-col", Map.of(), Optional.empty(), () -> false);
     assertEquals("", actual.sql());
     assertEquals(Map.of(), actual.params().getValues());
   }
@@ -36,9 +37,10 @@ class RecordDaoWhereClauseTest {
     SearchFilter searchFilter = new SearchFilter(Optional.of(ids), Optional.empty());
 
     WhereClause actual =
-        RecordDao.generateQueryWhereClause("my-pk-col", Map.of(), Optional.of(searchFilter));
-    assertEquals(" where \"my-pk-col\" in (:filterIds)", actual.sql());
-    assertEquals(Map.of("filterIds", ids), actual.params().getValues());
+        RecordDao.generateQueryWhereClause(
+            "my-pk-col", Map.of(), Optional.of(searchFilter), () -> false);
+    assertEquals(" where \"my-pk-col\" = any(:filterIds)", actual.sql());
+    assertFilterIds(ids, actual);
   }
 
   @Test
@@ -47,9 +49,10 @@ class RecordDaoWhereClauseTest {
     SearchFilter searchFilter = new SearchFilter(Optional.of(ids), Optional.empty());
 
     WhereClause actual =
-        RecordDao.generateQueryWhereClause("my-pk-col", Map.of(), Optional.of(searchFilter));
-    assertEquals(" where \"my-pk-col\" in (:filterIds)", actual.sql());
-    assertEquals(Map.of("filterIds", ids), actual.params().getValues());
+        RecordDao.generateQueryWhereClause(
+            "my-pk-col", Map.of(), Optional.of(searchFilter), () -> false);
+    assertEquals(" where \"my-pk-col\" = any(:filterIds)", actual.sql());
+    assertFilterIds(ids, actual);
   }
 
   @Test
@@ -57,7 +60,8 @@ class RecordDaoWhereClauseTest {
     SearchFilter searchFilter = new SearchFilter(Optional.empty(), Optional.of(""));
 
     WhereClause actual =
-        RecordDao.generateQueryWhereClause("my-pk-col", Map.of(), Optional.of(searchFilter));
+        RecordDao.generateQueryWhereClause(
+            "my-pk-col", Map.of(), Optional.of(searchFilter), () -> false);
     assertEquals("", actual.sql());
     assertEquals(Map.of(), actual.params().getValues());
   }
@@ -68,8 +72,13 @@ class RecordDaoWhereClauseTest {
 
     WhereClause actual =
         RecordDao.generateQueryWhereClause(
-            "my-pk-col", Map.of("col1", DataTypeMapping.STRING), Optional.of(searchFilter));
-    assertEquals(" where LOWER(\"col1\") = :filterquery0", actual.sql());
+            "my-pk-col",
+            Map.of("col1", DataTypeMapping.STRING),
+            Optional.of(searchFilter),
+            () -> false);
+    assertEquals(
+        " where md5(LOWER(\"col1\")) = md5(:filterquery0) and LOWER(\"col1\") = :filterquery0",
+        actual.sql());
     assertEquals(Map.of("filterquery0", "col1value"), actual.params().getValues());
   }
 
@@ -80,11 +89,35 @@ class RecordDaoWhereClauseTest {
 
     WhereClause actual =
         RecordDao.generateQueryWhereClause(
-            "my-pk-col", Map.of("col1", DataTypeMapping.STRING), Optional.of(searchFilter));
+            "my-pk-col",
+            Map.of("col1", DataTypeMapping.STRING),
+            Optional.of(searchFilter),
+            () -> false);
     assertEquals(
-        " where \"my-pk-col\" in (:filterIds) and LOWER(\"col1\") = :filterquery0", actual.sql());
+        " where \"my-pk-col\" = any(:filterIds) and md5(LOWER(\"col1\")) = md5(:filterquery0)"
+            + " and LOWER(\"col1\") = :filterquery0",
+        actual.sql());
+    assertFilterIds(ids, actual);
+    assertEquals("col1value", actual.params().getValue("filterquery0"));
+  }
+
+  @Test
+  void idsAndFullTextFilterQuery() {
+    List<String> ids = List.of("one", "two", "three");
+    SearchFilter searchFilter = new SearchFilter(Optional.of(ids), Optional.of("searchterm"));
+
+    WhereClause actual =
+        RecordDao.generateQueryWhereClause(
+            "my-pk-col",
+            Map.of("col1", DataTypeMapping.STRING),
+            Optional.of(searchFilter),
+            () -> true);
     assertEquals(
-        Map.of("filterIds", ids, "filterquery0", "col1value"), actual.params().getValues());
+        " where \"my-pk-col\" = any(:filterIds) and \"sys_all_columns\" @@"
+            + " phraseto_tsquery('simple', :filterquery0)",
+        actual.sql());
+    assertFilterIds(ids, actual);
+    assertEquals("searchterm", actual.params().getValue("filterquery0"));
   }
 
   @Disabled("we don't support multiple columns yet")
@@ -96,20 +129,19 @@ class RecordDaoWhereClauseTest {
             Optional.of(ids), Optional.of("col1:col1value AND col2:col2value AND col3:col3value"));
 
     WhereClause actual =
-        RecordDao.generateQueryWhereClause("my-pk-col", Map.of(), Optional.of(searchFilter));
+        RecordDao.generateQueryWhereClause(
+            "my-pk-col", Map.of(), Optional.of(searchFilter), () -> false);
     assertEquals(
-        " where \"my-pk-col\" in (:filterIds) and \"col1\" = :filter0 and \"col2\" = :filter1 and \"col3\" = :filter2",
+        " where \"my-pk-col\" = any(:filterIds) and \"col1\" = :filter0 and \"col2\" = :filter1 and"
+            + " \"col3\" = :filter2",
         actual.sql());
-    assertEquals(
-        Map.of(
-            "filterIds",
-            ids,
-            "filter0",
-            "col1value",
-            "filter1",
-            "col2value",
-            "filter2",
-            "col3value"),
-        actual.params().getValues());
+    assertFilterIds(ids, actual);
+    Map.of("filter0", "col1value", "filter1", "col2value", "filter2", "col3value")
+        .forEach((name, value) -> assertEquals(value, actual.params().getValue(name)));
+  }
+
+  // filter.ids are bound as a single array parameter, regardless of how many ids there are
+  private static void assertFilterIds(List<String> expected, WhereClause actual) {
+    assertArrayEquals(expected.toArray(), (Object[]) actual.params().getValue("filterIds"));
   }
 }
@@ -0,0 +1,308 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.common.MockInstantSource;
+import org.databiosphere.workspacedataservice.common.MockInstantSourceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests for {@link ReplicaRoutingDataSource}. The "replica" is the test database itself, connected
+ * to under a different application name so that tests can tell which pool served a query. To test
+ * replica lag, {@link #readsOwnWritesDespiteReplicaLag} uses a stub replica instead, which reads
+ * from a snapshot taken before its writes.
+ */
+@DirtiesContext
+@SpringBootTest(
+    properties = {
+      "twds.datasource.replica.enabled=true",
+      "twds.datasource.replica.hikari.jdbc-url=jdbc:postgresql://${env.wds.db.host}:${env.wds.db.port}/${env.wds.db.name}?ApplicationName="
+          + ReplicaRoutingDataSourceTest.REPLICA_APPLICATION_NAME,
+      "twds.datasource.replica.hikari.maximum-pool-size=2",
+      "twds.datasource.replica.hikari.minimum-idle=0"
+    })
+@Import(MockInstantSourceConfig.class)
+class ReplicaRoutingDataSourceTest extends ControlPlaneTestBase {
+  static final String REPLICA_APPLICATION_NAME = "wds-replica";
+
+  @Autowired DataSource dataSource;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired ReplicaDatabase replicaDatabase;
+  @Autowired MockInstantSource mockInstantSource;
+  @Autowired MeterRegistry meterRegistry;
+
+  @Value("${spring.datasource.hikari.jdbc-url}")
+  String primaryUrl;
+
+  @Value("${spring.datasource.hikari.username}")
+  String username;
+
+  @Value("${spring.datasource.hikari.password}")
+  String password;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void beforeEach() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    replicaDatabase.checkLag();
+    // forget any writes made by earlier tests
+    mockInstantSource.add(Duration.ofHours(1));
+  }
+
+  @Test
+  void replacesPrimaryDataSource() {
+    assertInstanceOf(ReplicaRoutingDataSource.class, dataSource);
+  }
+
+  @Test
+  void readOnlyTransactionsRunOnReplica() {
+    assertTrue(replicaDatabase.isUsable());
+    assertEquals(Duration.ZERO, replicaDatabase.getLag());
+    assertEquals(
+        REPLICA_APPLICATION_NAME, inTransaction(transactionManager, true, "application_name"));
+    // a hot standby would reject serializable transactions
+    assertEquals(
+        "repeatable read", inTransaction(transactionManager, true, "transaction_isolation"));
+    assertEquals(0.0, meterRegistry.get("wds.db.replica.lag").gauge().value());
+  }
+
+  @Test
+  void readWriteTransactionsRunOnPrimary() {
+    assertPrimary(inTransaction(transactionManager, false, "application_name"));
+    assertEquals("serializable", inTransaction(transactionManager, false, "transaction_isolation"));
+  }
+
+  @Test
+  void nonTransactionalQueriesRunOnPrimary() {
+    assertPrimary(jdbcTemplate.queryForObject("show application_name", String.class));
+  }
+
+  @Test
+  void readsOwnWritesFromPrimary() {
+    // a write, in auto-commit mode
+    jdbcTemplate.execute("create temporary table replica_routing_test (id int)");
+
+    assertPrimary(inTransaction(transactionManager, true, "application_name"));
+    assertEquals("serializable", inTransaction(transactionManager, true, "transaction_isolation"));
+
+    // once the replica has had time to catch up, reads go back to the replica
+    mockInstantSource.add(Duration.ofSeconds(11));
+    assertEquals(
+        REPLICA_APPLICATION_NAME, inTransaction(transactionManager, true, "application_name"));
+  }
+
+  @Test
+  void readsFromPrimaryWhenReplicaUnreachable() {
+    HikariDataSource unreachablePool = new HikariDataSource();
+    unreachablePool.setJdbcUrl("jdbc:postgresql://localhost:1/nowhere");
+    unreachablePool.setConnectionTimeout(250);
+    unreachablePool.setInitializationFailTimeout(-1);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    try (ReplicaDatabase unreachable =
+        new ReplicaDatabase(unreachablePool, Duration.ofSeconds(5), registry)) {
+      unreachable.checkLag();
+      assertFalse(unreachable.isReachable());
+      assertFalse(unreachable.isUsable());
+      assertNull(unreachable.getLag());
+      assertTrue(Double.isNaN(registry.get("wds.db.replica.lag").gauge().value()));
+
+      DataSource primary = new DriverManagerDataSource(primaryUrl, username, password);
+      ReplicaRoutingDataSource routing =
+          new ReplicaRoutingDataSource(
+              primary,
+              unreachable,
+              new RecentWrites(mockInstantSource, Duration.ZERO),
+              registry,
+              ObservationRegistry.NOOP);
+      PlatformTransactionManager routingTransactions = new DataSourceTransactionManager(routing);
+
+      assertPrimary(inTransaction(routingTransactions, true, "application_name"));
+      assertEquals(
+          1.0,
+          registry
+              .get("wds.db.replica.reads")
+              .tag("target", "primary")
+              .tag("reason", "unavailable")
+              .counter()
+              .count());
+    }
+  }
+
+  @Test
+  void readsFromPrimaryWhenReplicaLags() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // any lag at all exceeds a negative maximum
+    try (ReplicaDatabase lagging =
+        new ReplicaDatabase(
+            new DriverManagerDataSource(primaryUrl, username, password),
+            Duration.ofSeconds(-1),
+            registry)) {
+      lagging.checkLag();
+      assertTrue(lagging.isReachable());
+      assertFalse(lagging.isUsable());
+
+      DataSource primary = new DriverManagerDataSource(primaryUrl, username, password);
+      ReplicaRoutingDataSource routing =
+          new ReplicaRoutingDataSource(
+              primary,
+              lagging,
+              new RecentWrites(mockInstantSource, Duration.ZERO),
+              registry,
+              ObservationRegistry.NOOP);
+      PlatformTransactionManager routingTransactions = new DataSourceTransactionManager(routing);
+
+      assertPrimary(inTransaction(routingTransactions, true, "application_name"));
+      assertEquals(
+          1.0,
+          registry
+              .get("wds.db.replica.reads")
+              .tag("target", "primary")
+              .tag("reason", "lag")
+              .counter()
+              .count());
+    }
+  }
+
+  @Test
+  void readsOwnWritesDespiteReplicaLag() throws Exception {
+    JdbcTemplate primaryTemplate =
+        new JdbcTemplate(new DriverManagerDataSource(primaryUrl, username, password));
+    primaryTemplate.execute("create table replica_lag_test (id int)");
+    try (Connection snapshot = DriverManager.getConnection(primaryUrl, username, password)) {
+      // a replica which has not yet replayed anything written after this point
+      snapshot.setAutoCommit(false);
+      snapshot.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      try (Statement statement = snapshot.createStatement()) {
+        statement.executeQuery("select count(*) from replica_lag_test").close();
+      }
+      SimpleMeterRegistry registry = new SimpleMeterRegistry();
+      ReplicaDatabase lagging =
+          new ReplicaDatabase(laggingReplica(snapshot), Duration.ofSeconds(5), registry);
+      lagging.checkLag();
+      assertTrue(lagging.isUsable());
+
+      DataSource primary = new DriverManagerDataSource(primaryUrl, username, password);
+      ReplicaRoutingDataSource routing =
+          new ReplicaRoutingDataSource(
+              primary,
+              lagging,
+              new RecentWrites(mockInstantSource, Duration.ofSeconds(10)),
+              registry,
+              ObservationRegistry.NOOP);
+      PlatformTransactionManager routingTransactions = new DataSourceTransactionManager(routing);
+
+      new JdbcTemplate(routing).update("insert into replica_lag_test values (1)");
+
+      // the writer reads its write from the primary...
+      assertEquals(1L, countInReadOnlyTransaction(routingTransactions));
+      assertEquals(
+          1.0,
+          registry
+              .get("wds.db.replica.reads")
+              .tag("target", "primary")
+              .tag("reason", "recent-write")
+              .counter()
+              .count());
+      // ...while other sessions read the lagging replica, which has not seen it yet
+      assertEquals(
+          0L,
+          CompletableFuture.supplyAsync(() -> countInReadOnlyTransaction(routingTransactions))
+              .get(10, TimeUnit.SECONDS));
+
+      // once the window has passed, the writer reads from the replica too
+      mockInstantSource.add(Duration.ofSeconds(11));
+      assertEquals(0L, countInReadOnlyTransaction(routingTransactions));
+      assertEquals(
+          2.0,
+          registry
+              .get("wds.db.replica.reads")
+              .tag("target", "replica")
+              .tag("reason", "ok")
+              .counter()
+              .count());
+      snapshot.rollback();
+    } finally {
+      primaryTemplate.execute("drop table replica_lag_test");
+    }
+  }
+
+  // a replica which serves every connection from one open snapshot, which its callers can neither
+  // commit nor close, so that it never sees later writes to the primary
+  private static DataSource laggingReplica(Connection snapshot) {
+    Set<String> ignored =
+        Set.of(
+            "close",
+            "commit",
+            "rollback",
+            "setAutoCommit",
+            "setReadOnly",
+            "setTransactionIsolation");
+    Connection pinned =
+        JdbcProxies.proxy(
+            Connection.class,
+            snapshot,
+            (method, args) ->
+                ignored.contains(method.getName()) ? null : method.invoke(snapshot, args));
+    return new SingleConnectionDataSource(pinned, true);
+  }
+
+  private Long countInReadOnlyTransaction(PlatformTransactionManager transactions) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactions);
+    transactionTemplate.setReadOnly(true);
+    DataSource transactionDataSource =
+        ((DataSourceTransactionManager) transactions).getDataSource();
+    return transactionTemplate.execute(
+        status ->
+            new JdbcTemplate(transactionDataSource)
+                .queryForObject("select count(*) from replica_lag_test", Long.class));
+  }
+
+  // run "show <setting>" in a serializable transaction, like @ReadTransaction or @WriteTransaction
+  private String inTransaction(
+      PlatformTransactionManager transactions, boolean readOnly, String setting) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactions);
+    transactionTemplate.setReadOnly(readOnly);
+    transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    DataSource transactionDataSource =
+        ((DataSourceTransactionManager) transactions).getDataSource();
+    return transactionTemplate.execute(
+        status ->
+            new JdbcTemplate(transactionDataSource)
+                .queryForObject("show " + setting, String.class));
+  }
+
+  private static void assertPrimary(String applicationName) {
+    assertFalse(REPLICA_APPLICATION_NAME.equals(applicationName), "expected the primary");
+  }
+}
@@ -0,0 +1,129 @@
+package org.databiosphere.workspacedataservice.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+class StatementTimerTest {
+
+  private final NamedParameterJdbcTemplate namedTemplate =
+      Mockito.mock(NamedParameterJdbcTemplate.class);
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void fingerprintIgnoresCollectionsLiteralsAndParameterCounts() {
+    String first =
+        """
+        insert into "1c5f6a3e-2a4b-4f5e-9d2c-0b1a2c3d4e5f"."sample" ("sys_name", "depth")
+            values (?, ?) on conflict do nothing limit 10 offset 20 -- 'note'""";
+    String second =
+        """
+        insert into "9f8e7d6c-5b4a-4c3d-8e2f-1a0b9c8d7e6f"."sample" ("sys_name", "depth")
+          values (?, ?, ?) on conflict do nothing limit 500 offset 0 -- 'other'""";
+
+    assertEquals(StatementTimer.fingerprint(first), StatementTimer.fingerprint(second));
+    assertEquals(
+        "insert into \"?\".\"sample\" (\"sys_name\", \"depth\") values (?, ...) "
+            + "on conflict do nothing limit ? offset ? -- ?",
+        StatementTimer.fingerprint(first));
+  }
+
+  @ParameterizedTest(name = "{0} rows are in bucket {1}")
+  @CsvSource({"0,0", "1,1", "2,2-10", "10,2-10", "11,11-100", "1000,101-1000", "1001,1000+"})
+  void rowsBuckets(int rows, String bucket) {
+    assertEquals(bucket, StatementTimer.rowsBucket(rows));
+  }
+
+  @Test
+  void timesByStatementRowsAndOutcome() {
+    StatementTimer statementTimer = statementTimer(Duration.ofSeconds(1), false);
+
+    statementTimer.time("batchUpsert", "insert", rowCounts -> rowCounts.length, () -> new int[50]);
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            statementTimer.<int[]>time(
+                "batchUpsert",
+                "insert",
+                rowCounts -> rowCounts.length,
+                () -> {
+                  throw new IllegalStateException("boom");
+                }));
+
+    assertEquals(
+        1,
+        meterRegistry
+            .get("wds.db.statement")
+            .tags("statement", "batchUpsert", "rows", "11-100", "outcome", "success")
+            .timer()
+            .count());
+    assertEquals(
+        1,
+        meterRegistry
+            .get("wds.db.statement")
+            .tags("statement", "batchUpsert", "rows", "unknown", "outcome", "error")
+            .timer()
+            .count());
+  }
+
+  @Test
+  void explainsSlowQueries() {
+    when(namedTemplate.queryForList(any(String.class), any(MapSqlParameterSource.class), any()))
+        .thenReturn(List.of("Seq Scan on sample"));
+    StatementTimer statementTimer = statementTimer(Duration.ZERO, true);
+    MapSqlParameterSource params = new MapSqlParameterSource("id", "s1");
+
+    statementTimer.timeQuery(
+        "queryForRecords", "select * from sample where id = :id", params, List::size, List::of);
+
+    verify(namedTemplate, timeout(5000))
+        .queryForList(
+            "explain (analyze, buffers) select * from sample where id = :id", params, String.class);
+  }
+
+  @Test
+  void neverExplainsWrites() {
+    StatementTimer statementTimer = statementTimer(Duration.ZERO, true);
+
+    statementTimer.time("batchUpsert", "insert", rowCounts -> rowCounts.length, () -> new int[1]);
+
+    verify(namedTemplate, never())
+        .queryForList(any(String.class), any(MapSqlParameterSource.class), eq(String.class));
+  }
+
+  @Test
+  void stopsExplainingOnShutdown() {
+    StatementTimer statementTimer = statementTimer(Duration.ZERO, true);
+
+    statementTimer.shutdown();
+    statementTimer.timeQuery(
+        "queryForRecords",
+        "select * from sample where id = :id",
+        new MapSqlParameterSource("id", "s1"),
+        List::size,
+        List::of);
+
+    verify(namedTemplate, never())
+        .queryForList(any(String.class), any(MapSqlParameterSource.class), eq(String.class));
+  }
+
+  private StatementTimer statementTimer(Duration slowThreshold, boolean explain) {
+    return new StatementTimer(namedTemplate, meterRegistry, slowThreshold, explain, 1.0);
+  }
+}
@@ -0,0 +1,164 @@
+package org.databiosphere.workspacedataservice.dataimport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode.BASE_ATTRIBUTES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.common.MockInstantSource;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel.PassEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ImportProgressTest {
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+  private static final Duration PERSIST_INTERVAL = Duration.ofSeconds(10);
+
+  private final UUID jobId = UUID.randomUUID();
+  private final JobDao jobDao = mock(JobDao.class);
+  private final ImportProgressWriter progressWriter = new ImportProgressWriter(jobDao);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private MockInstantSource instantSource;
+  private ImportProgress progress;
+
+  @AfterEach
+  void afterEach() {
+    progressWriter.shutdown();
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    instantSource = new MockInstantSource(START);
+    progress =
+        new ImportProgress(
+            jobId,
+            progressWriter,
+            instantSource,
+            PERSIST_INTERVAL,
+            meterRegistry.counter("rowsRead"),
+            meterRegistry.counter("rowsWritten"),
+            meterRegistry.counter("bytesDownloaded"),
+            meterRegistry.counter("schemaAlters"),
+            () -> {});
+  }
+
+  @Test
+  void reportsProgress() {
+    progress.startPass(BASE_ATTRIBUTES);
+    progress.startTable("sample");
+    progress.addBytesDownloaded(1024);
+    progress.addRowsRead(5);
+    progress.addRowsRead(5);
+    progress.addRowsWritten(8);
+    progress.addSchemaAlter();
+
+    JobProgressServerModel actual = progress.toServerModel();
+    assertEquals(PassEnum.BASE_ATTRIBUTES, actual.getPass());
+    assertEquals("sample", actual.getTable());
+    assertEquals(10L, actual.getRowsRead());
+    assertEquals(8L, actual.getRowsWritten());
+    assertEquals(1024L, actual.getBytesDownloaded());
+
+    // counters are updated immediately
+    assertEquals(10, counterValue("rowsRead"));
+    assertEquals(8, counterValue("rowsWritten"));
+    assertEquals(1024, counterValue("bytesDownloaded"));
+    assertEquals(1, counterValue("schemaAlters"));
+    assertEquals(1, progress.getSchemaAlters());
+  }
+
+  @Test
+  void noEstimateWithoutTotal() {
+    instantSource.add(Duration.ofMinutes(1));
+    progress.addRowsRead(10);
+
+    JobProgressServerModel actual = progress.toServerModel();
+    assertThat(actual.getRowsTotal()).isNull();
+    assertThat(actual.getEstimatedCompletion()).isNull();
+  }
+
+  @Test
+  void estimatesCompletionFromReadRate() {
+    progress.addRowsTotal(100);
+    progress.addRowsTotal(100);
+    // nothing read yet, so no rate to extrapolate from
+    assertThat(progress.estimateCompletion()).isEmpty();
+
+    // a quarter of the rows in one minute means three more minutes to go
+    instantSource.add(Duration.ofMinutes(1));
+    progress.addRowsRead(50);
+
+    JobProgressServerModel actual = progress.toServerModel();
+    assertEquals(200L, actual.getRowsTotal());
+    assertEquals(
+        START.plus(Duration.ofMinutes(4)).atOffset(ZoneOffset.UTC),
+        actual.getEstimatedCompletion());
+  }
+
+  @Test
+  void persistIsThrottled() {
+    progress.addRowsRead(1);
+    progress.maybePersist();
+    verify(jobDao, never()).updateProgress(any(), any());
+
+    instantSource.add(PERSIST_INTERVAL);
+    progress.maybePersist();
+    verify(jobDao, timeout(1000).times(1)).updateProgress(eq(jobId), any());
+
+    // the interval restarts after each save
+    instantSource.add(PERSIST_INTERVAL.dividedBy(2));
+    progress.maybePersist();
+    verify(jobDao, times(1)).updateProgress(eq(jobId), any());
+  }
+
+  @Test
+  void persistFailureDoesNotThrow() {
+    doThrow(new RuntimeException("intentional failure for unit test"))
+        .when(jobDao)
+        .updateProgress(any(), any());
+    progress.addRowsRead(1);
+    progress.persist();
+    verify(jobDao, timeout(1000)).updateProgress(eq(jobId), any());
+  }
+
+  @Test
+  void closePersistsFinalProgress() {
+    Counter closed = meterRegistry.counter("closed");
+    ImportProgress closeable =
+        new ImportProgress(
+            jobId,
+            progressWriter,
+            instantSource,
+            PERSIST_INTERVAL,
+            meterRegistry.counter("rowsRead"),
+            meterRegistry.counter("rowsWritten"),
+            meterRegistry.counter("bytesDownloaded"),
+            meterRegistry.counter("schemaAlters"),
+            closed::increment);
+    closeable.addRowsRead(3);
+    closeable.close();
+
+    verify(jobDao).updateProgress(eq(jobId), eq(closeable.toServerModel()));
+    assertEquals(1, closed.count());
+  }
+
+  private double counterValue(String name) {
+    return meterRegistry.get(name).counter().count();
+  }
+}
@@ -0,0 +1,90 @@
+package org.databiosphere.workspacedataservice.dataimport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class ImportProgressWriterTest {
+  private final UUID jobId = UUID.randomUUID();
+  private final JobDao jobDao = mock(JobDao.class);
+  private final ImportProgressWriter progressWriter = new ImportProgressWriter(jobDao);
+
+  @AfterEach
+  void afterEach() {
+    progressWriter.shutdown();
+  }
+
+  @Test
+  void savesOnlyTheLatestProgress() throws InterruptedException {
+    // hold the writer thread on another job's save while this job reports progress twice
+    UUID otherJobId = UUID.randomUUID();
+    CountDownLatch saving = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              saving.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return null;
+            })
+        .when(jobDao)
+        .updateProgress(eq(otherJobId), any());
+    progressWriter.write(otherJobId, progress(0));
+    saving.await(5, TimeUnit.SECONDS);
+
+    progressWriter.write(jobId, progress(1));
+    progressWriter.write(jobId, progress(2));
+    release.countDown();
+
+    verify(jobDao, timeout(1000)).updateProgress(jobId, progress(2));
+    verify(jobDao, never()).updateProgress(jobId, progress(1));
+  }
+
+  @Test
+  void finalProgressReplacesUnsavedProgress() throws InterruptedException {
+    UUID otherJobId = UUID.randomUUID();
+    CountDownLatch saving = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              saving.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return null;
+            })
+        .when(jobDao)
+        .updateProgress(eq(otherJobId), any());
+    progressWriter.write(otherJobId, progress(0));
+    saving.await(5, TimeUnit.SECONDS);
+
+    progressWriter.write(jobId, progress(1));
+    release.countDown();
+    progressWriter.writeNow(jobId, progress(2));
+
+    // once the writer thread has caught up, the final progress is still the last one saved
+    UUID sentinelJobId = UUID.randomUUID();
+    progressWriter.write(sentinelJobId, progress(0));
+    verify(jobDao, timeout(1000)).updateProgress(eq(sentinelJobId), any());
+    ArgumentCaptor<JobProgressServerModel> saved =
+        ArgumentCaptor.forClass(JobProgressServerModel.class);
+    verify(jobDao, atLeastOnce()).updateProgress(eq(jobId), saved.capture());
+    assertThat(saved.getValue()).isEqualTo(progress(2));
+  }
+
+  private static JobProgressServerModel progress(long rowsRead) {
+    return new JobProgressServerModel().rowsRead(rowsRead);
+  }
+}
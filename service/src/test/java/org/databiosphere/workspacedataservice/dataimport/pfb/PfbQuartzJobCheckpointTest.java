@@ -0,0 +1,222 @@
+package org.databiosphere.workspacedataservice.dataimport.pfb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.dataimport.pfb.PfbTestUtils.stubJobContext;
+import static org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode.BASE_ATTRIBUTES;
+import static org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode.RELATIONS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.DataPlaneTestBase;
+import org.databiosphere.workspacedataservice.config.TwdsProperties;
+import org.databiosphere.workspacedataservice.dao.ImportCheckpointDao;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dataimport.ImportCheckpoint;
+import org.databiosphere.workspacedataservice.dataimport.ImportDetails;
+import org.databiosphere.workspacedataservice.dataimport.ImportValidator;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
+import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel;
+import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel.TypeEnum;
+import org.databiosphere.workspacedataservice.rawls.RawlsClient;
+import org.databiosphere.workspacedataservice.rawls.SnapshotListResponse;
+import org.databiosphere.workspacedataservice.recordsink.FaultInjectingRecordSink;
+import org.databiosphere.workspacedataservice.recordsink.RecordSink;
+import org.databiosphere.workspacedataservice.recordsink.RecordSinkFactory;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource.ImportMode;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.ImportService;
+import org.databiosphere.workspacedataservice.service.RecordOrchestratorService;
+import org.databiosphere.workspacedataservice.service.RelationUtils;
+import org.databiosphere.workspacedataservice.service.model.RecordTypeSchema;
+import org.databiosphere.workspacedataservice.shared.model.RecordResponse;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.workspace.DataTableTypeInspector;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+/**
+ * Tests for checkpointed PFB imports. These inject a failure partway through an import, then
+ * re-execute the same job and verify it resumes from its last checkpoint. Each record is its own
+ * batch, via a twds.write.batch.size of 1.
+ *
+ * <p>forward_relations.avro contains 3 data_release records and 1 submitted_aligned_reads record;
+ * one data_release record relates to the submitted_aligned_reads record. A full import therefore
+ * upserts 4 records in the BASE_ATTRIBUTES pass, then 1 record in the RELATIONS pass.
+ */
+@ActiveProfiles(profiles = {"mock-sam", "noop-scheduler-dao"})
+@DirtiesContext
+@SpringBootTest
+@TestPropertySource(
+    properties = {"twds.write.batch.size=1", "twds.data-import.checkpointing-enabled=true"})
+class PfbQuartzJobCheckpointTest extends DataPlaneTestBase {
+  @Autowired TwdsProperties twdsProperties;
+  @Autowired RecordOrchestratorService recordOrchestratorService;
+  @Autowired CollectionService collectionService;
+  @Autowired ImportService importService;
+  @Autowired JobDao jobDao;
+  @Autowired ImportCheckpointDao importCheckpointDao;
+  @Autowired PfbTestSupport testSupport;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+  @MockitoBean RawlsClient rawlsClient;
+  // Mock ImportValidator to allow importing test data from a file:// URL.
+  @MockitoBean ImportValidator importValidator;
+  @MockitoBean DataTableTypeInspector dataTableTypeInspector;
+  @MockitoSpyBean RecordSinkFactory recordSinkFactory;
+
+  @Value("classpath:avro/forward_relations.avro")
+  Resource forwardRelationsAvroResource;
+
+  UUID collectionId;
+  FaultInjectingRecordSink recordSink;
+
+  @BeforeEach
+  void beforeEach() {
+    collectionId =
+        TestUtils.createCollection(collectionService, twdsProperties.workspaceId()).getId();
+
+    // stub out Rawls to report no snapshots already linked to this workspace
+    when(rawlsClient.enumerateDataRepoSnapshotReferences(any(), anyInt(), anyInt()))
+        .thenReturn(new SnapshotListResponse(List.of()));
+
+    // dataTableTypeInspector says ok to use data tables
+    when(dataTableTypeInspector.getWorkspaceDataTableType(any()))
+        .thenReturn(WorkspaceDataTableType.WDS);
+  }
+
+  @AfterEach
+  void afterEach() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+  }
+
+  @Test
+  void resumesBaseAttributesPassFromCheckpoint() throws IOException, JobExecutionException {
+    UUID jobId = createImport();
+
+    // first attempt fails while writing the third record
+    executeImport(jobId, /* failOnUpsertNumber= */ 3);
+    assertEquals(StatusEnum.ERROR, jobDao.getJob(jobId).getStatus());
+    // the failed batch was rolled back; the two before it were committed and checkpointed
+    assertThat(countRecords()).isEqualTo(2);
+    assertThat(getCheckpoint(jobId, BASE_ATTRIBUTES).recordsCommitted()).isEqualTo(2);
+
+    // retry resumes with the third record
+    executeImport(jobId, /* failOnUpsertNumber= */ 0);
+    assertEquals(StatusEnum.SUCCEEDED, jobDao.getJob(jobId).getStatus());
+    // 2 remaining records in the BASE_ATTRIBUTES pass, plus 1 in the RELATIONS pass
+    assertThat(recordSink.getUpsertedRecords()).hasSize(3);
+    assertImportedContents();
+  }
+
+  @Test
+  void resumesRelationsPassFromCheckpoint() throws IOException, JobExecutionException {
+    UUID jobId = createImport();
+
+    // first attempt fails while writing the only record with relations
+    executeImport(jobId, /* failOnUpsertNumber= */ 5);
+    assertEquals(StatusEnum.ERROR, jobDao.getJob(jobId).getStatus());
+    assertThat(getCheckpoint(jobId, BASE_ATTRIBUTES).completed()).isTrue();
+    assertThat(getCheckpoint(jobId, RELATIONS).completed()).isFalse();
+
+    // retry skips the completed BASE_ATTRIBUTES pass entirely
+    executeImport(jobId, /* failOnUpsertNumber= */ 0);
+    assertEquals(StatusEnum.SUCCEEDED, jobDao.getJob(jobId).getStatus());
+    assertThat(recordSink.getUpsertedRecords()).hasSize(1);
+    assertImportedContents();
+  }
+
+  @Test
+  void deletesCheckpointsOnSuccess() throws IOException, JobExecutionException {
+    UUID jobId = createImport();
+
+    executeImport(jobId, /* failOnUpsertNumber= */ 0);
+
+    assertEquals(StatusEnum.SUCCEEDED, jobDao.getJob(jobId).getStatus());
+    assertThat(recordSink.getUpsertedRecords()).hasSize(5);
+    assertThat(getCheckpoint(jobId, BASE_ATTRIBUTES))
+        .isEqualTo(ImportCheckpoint.start(jobId, BASE_ATTRIBUTES, checkpointSource()));
+    assertImportedContents();
+  }
+
+  private UUID createImport() throws IOException {
+    ImportRequestServerModel importRequest =
+        new ImportRequestServerModel(TypeEnum.PFB, forwardRelationsAvroResource.getURI());
+    // because we have a mock scheduler dao, this won't trigger Quartz
+    return importService.createImport(collectionId, importRequest).getJobId();
+  }
+
+  /** Execute an import job, using a record sink which fails on the given upsert. */
+  private void executeImport(UUID jobId, int failOnUpsertNumber)
+      throws IOException, JobExecutionException {
+    doAnswer(
+            invocation -> {
+              recordSink =
+                  new FaultInjectingRecordSink(
+                      (RecordSink) invocation.callRealMethod(), failOnUpsertNumber);
+              return recordSink;
+            })
+        .when(recordSinkFactory)
+        .buildRecordSink(any(ImportDetails.class));
+
+    testSupport
+        .buildPfbQuartzJob()
+        .execute(stubJobContext(jobId, forwardRelationsAvroResource, collectionId));
+  }
+
+  private String checkpointSource() throws IOException {
+    return forwardRelationsAvroResource.getURI().toString();
+  }
+
+  private ImportCheckpoint getCheckpoint(UUID jobId, ImportMode importMode) throws IOException {
+    return importCheckpointDao.getCheckpoint(jobId, importMode, checkpointSource());
+  }
+
+  private int countRecords() {
+    return recordOrchestratorService.describeAllRecordTypes(collectionId, "v0.2").stream()
+        .mapToInt(RecordTypeSchema::count)
+        .sum();
+  }
+
+  /** the end result should match an uninterrupted import */
+  private void assertImportedContents() {
+    Map<String, Integer> actualCounts =
+        recordOrchestratorService.describeAllRecordTypes(collectionId, "v0.2").stream()
+            .collect(
+                Collectors.toMap(
+                    recordTypeSchema -> recordTypeSchema.name().getName(),
+                    RecordTypeSchema::count));
+    assertEquals(Map.of("data_release", 3, "submitted_aligned_reads", 1), actualCounts);
+
+    RecordResponse relatedRecord =
+        recordOrchestratorService.getSingleRecord(
+            collectionId,
+            "v0.2",
+            RecordType.valueOf("data_release"),
+            "data_release.4622cdbf-9836-64a2-c743-e17b0708cbb6.2");
+    assertEquals(
+        RelationUtils.createRelationString(
+            RecordType.valueOf("submitted_aligned_reads"), "HG01102_cram"),
+        relatedRecord.recordAttributes().getAttributeValue("submitted_aligned_reads"));
+  }
+}
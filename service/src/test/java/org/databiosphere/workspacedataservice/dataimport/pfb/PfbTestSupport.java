@@ -7,8 +7,10 @@ import java.io.IOException;
 import java.util.UUID;
 import org.databiosphere.workspacedataservice.activitylog.ActivityLogger;
 import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.ImportCheckpointDao;
 import org.databiosphere.workspacedataservice.dao.JobDao;
 import org.databiosphere.workspacedataservice.dataimport.ImportDetailsRetriever;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgressFactory;
 import org.databiosphere.workspacedataservice.dataimport.snapshotsupport.SnapshotSupportFactory;
 import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
 import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel;
@@ -19,6 +21,7 @@ import org.databiosphere.workspacedataservice.recordsource.RecordSourceFactory;
 import org.databiosphere.workspacedataservice.service.BatchWriteService;
 import org.databiosphere.workspacedataservice.service.DrsService;
 import org.databiosphere.workspacedataservice.service.ImportService;
+import org.databiosphere.workspacedataservice.service.SchemaPrescanner;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +33,9 @@ import org.springframework.stereotype.Component;
 @Component
 class PfbTestSupport {
   @Autowired private JobDao jobDao;
+  @Autowired private ImportCheckpointDao importCheckpointDao;
+  @Autowired private ImportProgressFactory importProgressFactory;
+  @Autowired private SchemaPrescanner schemaPrescanner;
   @Autowired private RecordSourceFactory recordSourceFactory;
   @Autowired private RecordSinkFactory recordSinkFactory;
   @Autowired private BatchWriteService batchWriteService;
@@ -71,6 +77,9 @@ class PfbTestSupport {
         snapshotSupportFactory,
         dataImportProperties,
         importDetailsRetriever,
-        drsService);
+        drsService,
+        importCheckpointDao,
+        importProgressFactory,
+        schemaPrescanner);
   }
 }
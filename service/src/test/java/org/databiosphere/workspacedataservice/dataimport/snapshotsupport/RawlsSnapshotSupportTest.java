@@ -1,8 +1,13 @@
 package org.databiosphere.workspacedataservice.dataimport.snapshotsupport;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.sam.BearerTokenFilter.ATTRIBUTE_NAME_TOKEN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,15 +17,26 @@ import bio.terra.workspace.model.DataRepoSnapshotResource;
 import bio.terra.workspace.model.ResourceList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.databiosphere.workspacedataservice.activitylog.ActivityLogger;
 import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.jobexec.JobContextHolder;
 import org.databiosphere.workspacedataservice.rawls.RawlsClient;
 import org.databiosphere.workspacedataservice.rawls.SnapshotListResponse;
+import org.databiosphere.workspacedataservice.service.model.exception.DataImportException;
+import org.databiosphere.workspacedataservice.service.model.exception.RestException;
 import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
@@ -32,7 +48,7 @@ class RawlsSnapshotSupportTest extends ControlPlaneTestBase {
   @MockitoBean ActivityLogger activityLogger;
 
   @ParameterizedTest(name = "paginates through results when Rawls has {0} references")
-  @ValueSource(ints = {0, 1, 49, 50, 51, 99, 100, 101, 456})
+  @ValueSource(ints = {0, 1, 49, 50, 51, 99, 100, 101, 456, 2345, 5000})
   void paginateExistingSnapshots(int count) {
     int testPageSize = 50; // page size to use during this test
 
@@ -73,9 +89,92 @@ class RawlsSnapshotSupportTest extends ControlPlaneTestBase {
             .distinct()
             .toList();
     assertEquals(count, snapshotInstanceNames.size());
-    // assert the number of requests made to Rawls to generate the list
-    double expectedInvocations = Math.floor((double) count / testPageSize) + 1;
-    verify(rawlsClient, times((int) expectedInvocations))
+    // assert the number of requests made to Rawls to generate the list; each full page doubles the
+    // size of the next, up to the maximum
+    int expectedInvocations = 1;
+    for (int offset = 0, pageSize = testPageSize;
+        count - offset >= pageSize;
+        offset += pageSize, pageSize = Math.min(pageSize * 2, SnapshotSupport.MAX_PAGE_SIZE)) {
+      expectedInvocations++;
+    }
+    verify(rawlsClient, times(expectedInvocations))
         .enumerateDataRepoSnapshotReferences(any(), anyInt(), anyInt());
   }
+
+  @Test
+  void linksSnapshotsConcurrently() {
+    int parallelism = 4;
+    Set<UUID> snapshotIds =
+        IntStream.range(0, 20).mapToObj(i -> UUID.randomUUID()).collect(Collectors.toSet());
+    when(rawlsClient.enumerateDataRepoSnapshotReferences(any(), anyInt(), anyInt()))
+        .thenReturn(new SnapshotListResponse(List.of()));
+    // each reference takes Rawls 100ms to create
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    Set<Object> tokens = ConcurrentHashMap.newKeySet();
+    doAnswer(
+            invocation -> {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              tokens.add(JobContextHolder.getAttribute(ATTRIBUTE_NAME_TOKEN));
+              Thread.sleep(100);
+              inFlight.decrementAndGet();
+              return null;
+            })
+        .when(rawlsClient)
+        .createSnapshotReference(any(), any());
+
+    JobContextHolder.init();
+    JobContextHolder.setAttribute(ATTRIBUTE_NAME_TOKEN, "job-token");
+    long start = System.nanoTime();
+    SnapshotLinkResult result;
+    try {
+      result = snapshotSupport(parallelism).linkSnapshots(snapshotIds);
+    } finally {
+      JobContextHolder.destroy();
+    }
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+    assertEquals(new SnapshotLinkResult(20, 20), result);
+    ArgumentCaptor<UUID> linked = ArgumentCaptor.forClass(UUID.class);
+    verify(rawlsClient, times(20)).createSnapshotReference(any(), linked.capture());
+    assertEquals(snapshotIds, Set.copyOf(linked.getAllValues()));
+    verify(activityLogger, times(20)).saveEventForCurrentUser(any());
+    // never more than the configured number at once, each with the job's token
+    assertEquals(parallelism, maxInFlight.get());
+    assertEquals(Set.of("job-token"), tokens);
+    // 20 links at 100ms each take 2 seconds one at a time; 4 at a time, about half a second
+    assertThat(elapsedMillis).isLessThan(1500);
+  }
+
+  @Test
+  void stopsLinkingWhenALinkFails() {
+    Set<UUID> snapshotIds =
+        IntStream.range(0, 20).mapToObj(i -> UUID.randomUUID()).collect(Collectors.toSet());
+    UUID conflicting = snapshotIds.iterator().next();
+    when(rawlsClient.enumerateDataRepoSnapshotReferences(any(), anyInt(), anyInt()))
+        .thenReturn(new SnapshotListResponse(List.of()));
+    // Rawls rejects one snapshot, e.g. because its policies conflict with the workspace's
+    doAnswer(
+            invocation -> {
+              Thread.sleep(100);
+              if (conflicting.equals(invocation.getArgument(1))) {
+                throw new RestException(HttpStatus.CONFLICT, "policy conflict");
+              }
+              return null;
+            })
+        .when(rawlsClient)
+        .createSnapshotReference(any(), any());
+
+    SnapshotSupport snapshotSupport = snapshotSupport(4);
+    DataImportException thrown =
+        assertThrows(DataImportException.class, () -> snapshotSupport.linkSnapshots(snapshotIds));
+
+    assertThat(thrown.getMessage()).contains("policy conflict");
+    verify(rawlsClient, atMost(8)).createSnapshotReference(any(), any());
+  }
+
+  private SnapshotSupport snapshotSupport(int linkParallelism) {
+    return new RawlsSnapshotSupport(
+        WorkspaceId.of(UUID.randomUUID()), rawlsClient, activityLogger, linkParallelism);
+  }
 }
@@ -0,0 +1,178 @@
+package org.databiosphere.workspacedataservice.dataimport.tdr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.dataimport.tdr.TdrManifestTestUtils.stubJobContext;
+import static org.databiosphere.workspacedataservice.generated.ImportRequestServerModel.TypeEnum.TDRMANIFEST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.DataPlaneTestBase;
+import org.databiosphere.workspacedataservice.config.TwdsProperties;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dataimport.ImportDetails;
+import org.databiosphere.workspacedataservice.dataimport.ImportValidator;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
+import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel;
+import org.databiosphere.workspacedataservice.rawls.RawlsClient;
+import org.databiosphere.workspacedataservice.rawls.SnapshotListResponse;
+import org.databiosphere.workspacedataservice.recordsink.FaultInjectingRecordSink;
+import org.databiosphere.workspacedataservice.recordsink.RecordSink;
+import org.databiosphere.workspacedataservice.recordsink.RecordSinkFactory;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.ImportService;
+import org.databiosphere.workspacedataservice.service.RecordOrchestratorService;
+import org.databiosphere.workspacedataservice.service.model.RecordTypeSchema;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.workspace.DataTableTypeInspector;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+/**
+ * Tests for checkpointed TdrManifest imports. These inject a failure partway through an import,
+ * then re-execute the same job and verify it resumes from its last checkpoint.
+ *
+ * <p>with-entity-reference-lists.json references one parquet file for its 3 person records and one
+ * for its 5 sample records; person records relate to sample records. With a twds.write.batch.size
+ * of 2, the BASE_ATTRIBUTES pass upserts person in 2 batches and then sample in 3 batches.
+ */
+@ActiveProfiles(profiles = {"mock-sam", "noop-scheduler-dao"})
+@DirtiesContext
+@SpringBootTest
+@TestPropertySource(
+    properties = {"twds.write.batch.size=2", "twds.data-import.checkpointing-enabled=true"})
+class TdrManifestQuartzJobCheckpointTest extends DataPlaneTestBase {
+  @Autowired private RecordOrchestratorService recordOrchestratorService;
+  @Autowired private ImportService importService;
+  @Autowired private CollectionService collectionService;
+  @Autowired private JobDao jobDao;
+  @Autowired private TdrTestSupport testSupport;
+  @Autowired private NamedParameterJdbcTemplate namedTemplate;
+  @Autowired private TwdsProperties twdsProperties;
+
+  // Mock ImportValidator to allow importing test data from a file:// URL.
+  @MockitoBean ImportValidator importValidator;
+  @MockitoBean RawlsClient rawlsClient;
+  @MockitoBean DataTableTypeInspector dataTableTypeInspector;
+  @MockitoSpyBean RecordSinkFactory recordSinkFactory;
+
+  @Value("classpath:tdrmanifest/with-entity-reference-lists.json")
+  Resource withEntityReferenceListsResource;
+
+  UUID collectionId;
+  FaultInjectingRecordSink recordSink;
+
+  @BeforeEach
+  void beforeEach() {
+    collectionId =
+        TestUtils.createCollection(collectionService, twdsProperties.workspaceId()).getId();
+    // dataTableTypeInspector says ok to use data tables
+    when(dataTableTypeInspector.getWorkspaceDataTableType(any()))
+        .thenReturn(WorkspaceDataTableType.WDS);
+    // Rawls should report no snapshots already linked to this workspace
+    when(rawlsClient.enumerateDataRepoSnapshotReferences(any(), anyInt(), anyInt()))
+        .thenReturn(new SnapshotListResponse(List.of()));
+  }
+
+  @AfterEach
+  void afterEach() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+  }
+
+  @Test
+  void resumesFromCheckpoint() throws IOException, JobExecutionException {
+    UUID jobId = createImport();
+
+    // first attempt fails on the second batch of samples, after completing the person file
+    executeImport(jobId, /* failOnUpsertNumber= */ 4);
+    assertEquals(StatusEnum.ERROR, jobDao.getJob(jobId).getStatus());
+    // the failed batch was rolled back
+    assertThat(countRecords()).isEqualTo(Map.of("person", 3, "sample", 2));
+    assertThat(countCheckpoints(jobId, /* completed= */ true)).isEqualTo(1);
+    assertThat(countCheckpoints(jobId, /* completed= */ false)).isEqualTo(1);
+
+    // retry skips the person file and resumes with the third sample
+    executeImport(jobId, /* failOnUpsertNumber= */ 0);
+    assertEquals(StatusEnum.SUCCEEDED, jobDao.getJob(jobId).getStatus());
+    assertThat(countUpserted("sample")).isEqualTo(3);
+    // person records are only upserted during the RELATIONS pass
+    assertThat(recordSink.getUpsertedRecords())
+        .filteredOn(rec -> rec.getRecordType().getName().equals("person"))
+        .allSatisfy(rec -> assertThat(rec.attributeSet()).hasSize(1));
+
+    // the end result should match an uninterrupted import, and checkpoints are cleaned up
+    assertThat(countRecords()).isEqualTo(Map.of("person", 3, "sample", 5));
+    assertThat(countCheckpoints(jobId, /* completed= */ true)).isZero();
+    assertThat(countCheckpoints(jobId, /* completed= */ false)).isZero();
+  }
+
+  private UUID createImport() throws IOException {
+    var importRequest =
+        new ImportRequestServerModel(TDRMANIFEST, withEntityReferenceListsResource.getURI());
+    // because we have a mock scheduler dao, this won't trigger Quartz
+    return importService.createImport(collectionId, importRequest).getJobId();
+  }
+
+  /** Execute an import job, using a record sink which fails on the given upsert. */
+  private void executeImport(UUID jobId, int failOnUpsertNumber)
+      throws IOException, JobExecutionException {
+    doAnswer(
+            invocation -> {
+              recordSink =
+                  new FaultInjectingRecordSink(
+                      (RecordSink) invocation.callRealMethod(), failOnUpsertNumber);
+              return recordSink;
+            })
+        .when(recordSinkFactory)
+        .buildRecordSink(any(ImportDetails.class));
+
+    testSupport
+        .buildTdrManifestQuartzJob()
+        .execute(stubJobContext(jobId, withEntityReferenceListsResource, collectionId));
+  }
+
+  private Map<String, Integer> countRecords() {
+    return recordOrchestratorService.describeAllRecordTypes(collectionId, "v0.2").stream()
+        .collect(
+            Collectors.toMap(
+                recordTypeSchema -> recordTypeSchema.name().getName(), RecordTypeSchema::count));
+  }
+
+  private long countUpserted(String recordType) {
+    return recordSink.getUpsertedRecords().stream()
+        .map(Record::getRecordType)
+        .filter(RecordType.valueOf(recordType)::equals)
+        .count();
+  }
+
+  private Integer countCheckpoints(UUID jobId, boolean completed) {
+    return namedTemplate.queryForObject(
+        "select count(*) from sys_wds.import_checkpoint where job_id = :jobId and import_mode ="
+            + " 'BASE_ATTRIBUTES' and completed = :completed",
+        new MapSqlParameterSource("jobId", jobId.toString()).addValue("completed", completed),
+        Integer.class);
+  }
+}
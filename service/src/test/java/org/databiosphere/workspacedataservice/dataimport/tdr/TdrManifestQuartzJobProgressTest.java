@@ -0,0 +1,145 @@
+package org.databiosphere.workspacedataservice.dataimport.tdr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.dataimport.tdr.TdrManifestTestUtils.stubJobContext;
+import static org.databiosphere.workspacedataservice.generated.ImportRequestServerModel.TypeEnum.TDRMANIFEST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.DataPlaneTestBase;
+import org.databiosphere.workspacedataservice.config.TwdsProperties;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dataimport.ImportValidator;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
+import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel.PassEnum;
+import org.databiosphere.workspacedataservice.rawls.RawlsClient;
+import org.databiosphere.workspacedataservice.rawls.SnapshotListResponse;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.ImportService;
+import org.databiosphere.workspacedataservice.workspace.DataTableTypeInspector;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Tests for progress reporting by TdrManifest imports. with-entity-reference-lists.json references
+ * one parquet file for its 3 person records and one for its 5 sample records; person records relate
+ * to sample records.
+ */
+@ActiveProfiles(profiles = {"mock-sam", "noop-scheduler-dao"})
+@DirtiesContext
+@SpringBootTest
+class TdrManifestQuartzJobProgressTest extends DataPlaneTestBase {
+  @Autowired private ImportService importService;
+  @Autowired private CollectionService collectionService;
+  @Autowired private JobDao jobDao;
+  @Autowired private TdrTestSupport testSupport;
+  @Autowired private NamedParameterJdbcTemplate namedTemplate;
+  @Autowired private TwdsProperties twdsProperties;
+  @Autowired private MeterRegistry meterRegistry;
+
+  // Mock ImportValidator to allow importing test data from a file:// URL.
+  @MockitoBean ImportValidator importValidator;
+  @MockitoBean RawlsClient rawlsClient;
+  @MockitoBean DataTableTypeInspector dataTableTypeInspector;
+
+  @Value("classpath:tdrmanifest/with-entity-reference-lists.json")
+  Resource withEntityReferenceListsResource;
+
+  UUID collectionId;
+
+  @BeforeEach
+  void beforeEach() {
+    collectionId =
+        TestUtils.createCollection(collectionService, twdsProperties.workspaceId()).getId();
+    // dataTableTypeInspector says ok to use data tables
+    when(dataTableTypeInspector.getWorkspaceDataTableType(any()))
+        .thenReturn(WorkspaceDataTableType.WDS);
+    // Rawls should report no snapshots already linked to this workspace
+    when(rawlsClient.enumerateDataRepoSnapshotReferences(any(), anyInt(), anyInt()))
+        .thenReturn(new SnapshotListResponse(List.of()));
+  }
+
+  @AfterEach
+  void afterEach() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+  }
+
+  @Test
+  void savesProgressToJob() throws IOException, JobExecutionException {
+    UUID jobId = createImport();
+    assertThat(jobDao.getJob(jobId).getProgress()).isNull();
+
+    testSupport
+        .buildTdrManifestQuartzJob()
+        .execute(stubJobContext(jobId, withEntityReferenceListsResource, collectionId));
+
+    GenericJobServerModel job = jobDao.getJob(jobId);
+    assertEquals(StatusEnum.SUCCEEDED, job.getStatus());
+    JobProgressServerModel progress = job.getProgress();
+    assertNotNull(progress);
+    // every row is read once in each of the two passes
+    assertEquals(16L, progress.getRowsTotal());
+    assertEquals(16L, progress.getRowsRead());
+    // all rows are written in the BASE_ATTRIBUTES pass; only person rows have relations
+    assertEquals(11L, progress.getRowsWritten());
+    assertEquals(PassEnum.RELATIONS, progress.getPass());
+    assertThat(progress.getBytesDownloaded()).isPositive();
+    assertNotNull(progress.getEstimatedCompletion());
+  }
+
+  @Test
+  void updatesMetrics() throws IOException, JobExecutionException {
+    double rowsReadBefore = counterValue("wds.import.rowsRead");
+    double rowsWrittenBefore = counterValue("wds.import.rowsWritten");
+    double bytesDownloadedBefore = counterValue("wds.import.bytesDownloaded");
+
+    UUID jobId = createImport();
+    testSupport
+        .buildTdrManifestQuartzJob()
+        .execute(stubJobContext(jobId, withEntityReferenceListsResource, collectionId));
+
+    assertEquals(16, counterValue("wds.import.rowsRead") - rowsReadBefore);
+    assertEquals(11, counterValue("wds.import.rowsWritten") - rowsWrittenBefore);
+    assertThat(counterValue("wds.import.bytesDownloaded")).isGreaterThan(bytesDownloadedBefore);
+    // the import is no longer running
+    Gauge active = meterRegistry.find("wds.import.active").gauge();
+    assertNotNull(active);
+    assertEquals(0, active.value());
+  }
+
+  private UUID createImport() throws IOException {
+    var importRequest =
+        new ImportRequestServerModel(TDRMANIFEST, withEntityReferenceListsResource.getURI());
+    // because we have a mock scheduler dao, this won't trigger Quartz
+    return importService.createImport(collectionId, importRequest).getJobId();
+  }
+
+  private double counterValue(String name) {
+    Counter counter = meterRegistry.find(name).tag("importType", TDRMANIFEST.toString()).counter();
+    return counter == null ? 0 : counter.count();
+  }
+}
@@ -62,6 +62,7 @@ import org.databiosphere.workspacedataservice.service.model.exception.TdrManifes
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
 import org.databiosphere.workspacedataservice.shared.model.Record;
 import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
 import org.databiosphere.workspacedataservice.workspace.DataTableTypeInspector;
@@ -72,6 +73,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.quartz.JobExecutionContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -127,7 +129,10 @@ class TdrManifestQuartzJobTest extends ControlPlaneTestBase {
     // set up recordService and recordDao to be noops
     when(recordService.addOrUpdateColumnIfNeeded(any(), any(), any(), any(), any()))
         .thenReturn(Map.of());
-    doNothing().when(recordService).batchUpsert(any(), any(), any(), any(), any());
+    doNothing()
+        .when(recordService)
+        .batchUpsert(any(), any(), ArgumentMatchers.<List<Record>>any(), any(), any());
+    doNothing().when(recordService).batchUpsert(any(), any(), any(RecordBatch.class), any(), any());
 
     when(recordDao.recordTypeExists(any(), any())).thenReturn(false);
     doNothing().when(recordDao).createRecordType(any(), any(), any(), any(), any());
@@ -424,9 +429,10 @@ class TdrManifestQuartzJobTest extends ControlPlaneTestBase {
 
     // ASSERT
     // Get all records written to sink.
-    ArgumentCaptor<List<Record>> captor = ArgumentCaptor.forClass(List.class);
+    ArgumentCaptor<RecordBatch> captor = ArgumentCaptor.forClass(RecordBatch.class);
     verify(recordService, atLeastOnce()).batchUpsert(any(), any(), captor.capture(), any(), any());
-    List<Record> allRecords = captor.getAllValues().stream().flatMap(List::stream).toList();
+    List<Record> allRecords =
+        captor.getAllValues().stream().flatMap(batch -> batch.toRecords().stream()).toList();
 
     if (shouldAddImportMetadata) {
       // All records should have the same value for metadata fields.
@@ -6,14 +6,17 @@ import java.net.URL;
 import java.time.InstantSource;
 import org.databiosphere.workspacedataservice.activitylog.ActivityLogger;
 import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.ImportCheckpointDao;
 import org.databiosphere.workspacedataservice.dao.JobDao;
 import org.databiosphere.workspacedataservice.dataimport.ImportDetailsRetriever;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgressFactory;
 import org.databiosphere.workspacedataservice.dataimport.snapshotsupport.SnapshotSupportFactory;
 import org.databiosphere.workspacedataservice.metrics.ImportMetrics;
 import org.databiosphere.workspacedataservice.recordsink.RecordSinkFactory;
 import org.databiosphere.workspacedataservice.recordsource.RecordSourceFactory;
 import org.databiosphere.workspacedataservice.sam.SamDao;
 import org.databiosphere.workspacedataservice.service.BatchWriteService;
+import org.databiosphere.workspacedataservice.service.SchemaPrescanner;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
@@ -22,6 +25,9 @@ import org.springframework.stereotype.Component;
 @Component
 class TdrTestSupport {
   @Autowired private JobDao jobDao;
+  @Autowired private ImportCheckpointDao importCheckpointDao;
+  @Autowired private ImportProgressFactory importProgressFactory;
+  @Autowired private SchemaPrescanner schemaPrescanner;
   @Autowired private SamDao samDao;
   @Autowired private RecordSourceFactory recordSourceFactory;
   @Autowired private RecordSinkFactory recordSinkFactory;
@@ -50,7 +56,10 @@ class TdrTestSupport {
         snapshotSupportFactory,
         samDao,
         importDetailsRetriever,
-        instantSource) {
+        instantSource,
+        importCheckpointDao,
+        importProgressFactory,
+        schemaPrescanner) {
       @Override
       protected URL parseUrl(String path) {
         if (path.startsWith("classpath:")) {
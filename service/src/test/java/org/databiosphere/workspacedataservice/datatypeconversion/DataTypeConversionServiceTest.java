@@ -0,0 +1,254 @@
+package org.databiosphere.workspacedataservice.datatypeconversion;
+
+import static org.databiosphere.workspacedataservice.dao.SqlUtils.getQualifiedTableName;
+import static org.databiosphere.workspacedataservice.service.RecordUtils.VERSION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
+import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.RecordOrchestratorService;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.exception.ConflictException;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordRequest;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.shared.model.job.JobType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DirtiesContext
+@SpringBootTest(properties = "twds.data-type-conversion.batch-size=2")
+class DataTypeConversionServiceTest extends ControlPlaneTestBase {
+  private static final RecordType TEST_TYPE = RecordType.valueOf("test");
+  private static final String PRIMARY_KEY = "id";
+  private static final String ATTRIBUTE = "attr";
+
+  @Autowired private DataTypeConversionService dataTypeConversionService;
+  @Autowired private RecordOrchestratorService recordOrchestratorService;
+  @Autowired private RecordDao recordDao;
+  @Autowired private JobDao jobDao;
+  @Autowired private CollectionService collectionService;
+  @Autowired private WorkspaceRepository workspaceRepository;
+  @Autowired private NamedParameterJdbcTemplate namedTemplate;
+  // jobs are run by the tests, rather than by Quartz
+  @MockitoBean private SchedulerDao schedulerDao;
+
+  private UUID collectionId;
+
+  @BeforeEach
+  void setUp() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionId = collectionService.save(workspaceId, "name", "desc").getId();
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @Test
+  void convertsAllRecordsInBatches() {
+    for (int i = 1; i <= 5; i++) {
+      upsert("row_" + i, String.valueOf(i));
+    }
+
+    dataTypeConversionService.convert(collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.NUMBER);
+
+    assertEquals(DataTypeMapping.NUMBER, currentDataType());
+    for (int i = 1; i <= 5; i++) {
+      assertEquals(BigDecimal.valueOf(i), getValue("row_" + i));
+    }
+    assertFalse(recordDao.isDataTypeConversionInProgress(collectionId, TEST_TYPE, ATTRIBUTE));
+  }
+
+  @Test
+  void reportsRecordsWhichCannotBeConverted() {
+    upsert("row_1", "1");
+    upsert("row_2", "2");
+    upsert("row_3", "three");
+    upsert("row_4", "4");
+    upsert("row_5", "five");
+
+    ConflictException e =
+        assertThrows(
+            ConflictException.class,
+            () ->
+                dataTypeConversionService.convert(
+                    collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.NUMBER));
+
+    // conversion stops at the first batch with unconvertible values
+    assertEquals(
+        "Unable to convert values for attribute attr to NUMBER for records: row_3", e.getMessage());
+    assertEquals(DataTypeMapping.STRING, currentDataType());
+    assertEquals("three", getValue("row_3"));
+    assertFalse(recordDao.isDataTypeConversionInProgress(collectionId, TEST_TYPE, ATTRIBUTE));
+  }
+
+  @Test
+  void jobConvertsWritesMadeDuringConversion() {
+    for (int i = 1; i <= 3; i++) {
+      upsert("row_" + i, String.valueOf(i));
+    }
+
+    GenericJobServerModel job =
+        dataTypeConversionService.startConversion(
+            collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.NUMBER);
+    verify(schedulerDao).schedule(any(DataTypeConversionSchedulable.class));
+    assertEquals(StatusEnum.CREATED, job.getStatus());
+    assertEquals(StatusEnum.QUEUED, jobDao.getJob(job.getJobId()).getStatus());
+
+    // until the job runs, the attribute keeps its data type and can still be written
+    assertEquals(DataTypeMapping.STRING, currentDataType());
+    assertEquals(
+        Set.of(PRIMARY_KEY, ATTRIBUTE),
+        recordDao.getExistingTableSchema(collectionId, TEST_TYPE).keySet());
+    upsert("row_2", "22");
+    upsert("row_4", "4");
+    // but not renamed or converted again
+    assertThrows(
+        ConflictException.class,
+        () ->
+            recordOrchestratorService.renameAttribute(
+                collectionId, VERSION, TEST_TYPE, ATTRIBUTE, "renamed"));
+    assertThrows(
+        ConflictException.class,
+        () ->
+            dataTypeConversionService.startConversion(
+                collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.BOOLEAN));
+
+    dataTypeConversionService.runJob(
+        job.getJobId(), collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.NUMBER);
+
+    assertEquals(DataTypeMapping.NUMBER, currentDataType());
+    assertEquals(BigDecimal.valueOf(1), getValue("row_1"));
+    assertEquals(BigDecimal.valueOf(22), getValue("row_2"));
+    assertEquals(BigDecimal.valueOf(4), getValue("row_4"));
+    JobProgressServerModel progress = jobDao.getJob(job.getJobId()).getProgress();
+    assertEquals(TEST_TYPE.getName(), progress.getTable());
+    assertEquals(4L, progress.getRowsWritten());
+    assertEquals(4L, progress.getRowsTotal());
+  }
+
+  @Test
+  void reindexesTheConvertedAttributeOnDemand() {
+    upsert("row_1", "1");
+    recordDao.createSearchIndexConcurrently(collectionId, TEST_TYPE, ATTRIBUTE);
+
+    // the index of the old column is dropped with it, and the attribute can be indexed again
+    dataTypeConversionService.convert(collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.NUMBER);
+    assertEquals(List.of(), getSearchIndexes());
+    dataTypeConversionService.convert(collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.STRING);
+    recordDao.createSearchIndexConcurrently(collectionId, TEST_TYPE, ATTRIBUTE);
+    assertEquals(List.of("btree (md5(lower(attr)))"), getSearchIndexes());
+  }
+
+  @Test
+  void abortsConversionAbandonedMidBatch() {
+    for (int i = 1; i <= 5; i++) {
+      upsert("row_" + i, String.valueOf(i));
+    }
+    GenericJobServerModel job =
+        dataTypeConversionService.startConversion(
+            collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.NUMBER);
+    // the job starts converting, then its replica dies after the first batch
+    jobDao.running(job.getJobId());
+    recordDao.convertDataTypeBatch(
+        collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.NUMBER, null, 2);
+    assertThrows(RuntimeException.class, () -> upsert("row_1", "one"));
+
+    // while Quartz still holds the job, or the job has made recent progress, it is left alone
+    when(schedulerDao.exists(JobType.DATA_TYPE_CONVERSION.name(), job.getJobId().toString()))
+        .thenReturn(true);
+    dataTypeConversionService.abortAbandonedConversions(Duration.ZERO);
+    when(schedulerDao.exists(JobType.DATA_TYPE_CONVERSION.name(), job.getJobId().toString()))
+        .thenReturn(false);
+    dataTypeConversionService.abortAbandonedConversions(Duration.ofHours(1));
+    assertTrue(recordDao.isDataTypeConversionInProgress(collectionId, TEST_TYPE, ATTRIBUTE));
+
+    dataTypeConversionService.abortAbandonedConversions(Duration.ZERO);
+
+    assertFalse(recordDao.isDataTypeConversionInProgress(collectionId, TEST_TYPE, ATTRIBUTE));
+    assertEquals(StatusEnum.ERROR, jobDao.getJob(job.getJobId()).getStatus());
+    assertEquals(DataTypeMapping.STRING, currentDataType());
+    // the attribute accepts any string again, and can be converted again
+    upsert("row_1", "one");
+    upsert("row_1", "1");
+    dataTypeConversionService.convert(collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.NUMBER);
+    assertEquals(DataTypeMapping.NUMBER, currentDataType());
+    assertEquals(BigDecimal.valueOf(5), getValue("row_5"));
+  }
+
+  @Test
+  void unchangedDataTypeSucceedsWithoutAJob() {
+    upsert("row_1", "1");
+
+    GenericJobServerModel job =
+        dataTypeConversionService.startConversion(
+            collectionId, TEST_TYPE, ATTRIBUTE, DataTypeMapping.STRING);
+
+    assertEquals(StatusEnum.SUCCEEDED, job.getStatus());
+    assertTrue(job.getInput() instanceof DataTypeConversionJobInput);
+  }
+
+  private void upsert(String recordId, String value) {
+    recordOrchestratorService.upsertSingleRecord(
+        collectionId,
+        VERSION,
+        TEST_TYPE,
+        recordId,
+        Optional.of(PRIMARY_KEY),
+        new RecordRequest(RecordAttributes.empty().putAttribute(ATTRIBUTE, value)));
+  }
+
+  private Object getValue(String recordId) {
+    return recordOrchestratorService
+        .getSingleRecord(collectionId, VERSION, TEST_TYPE, recordId)
+        .recordAttributes()
+        .getAttributeValue(ATTRIBUTE);
+  }
+
+  private DataTypeMapping currentDataType() {
+    return recordDao.getExistingTableSchema(collectionId, TEST_TYPE).get(ATTRIBUTE);
+  }
+
+  private List<String> getSearchIndexes() {
+    return namedTemplate.queryForList(
+        "select substring(pg_get_indexdef(indexrelid) from 'btree .*') from pg_index"
+            + " where indrelid = :table::regclass and indisvalid and not indisprimary",
+        new MapSqlParameterSource("table", getQualifiedTableName(TEST_TYPE, collectionId)),
+        String.class);
+  }
+}
@@ -0,0 +1,65 @@
+package org.databiosphere.workspacedataservice.drshub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class SignedUrlsTest {
+
+  static Stream<Arguments> signedUrls() {
+    return Stream.of(
+        Arguments.of(
+            "GCS V4",
+            "https://storage.googleapis.com/bucket/file?X-Goog-Algorithm=GOOG4-RSA-SHA256"
+                + "&X-Goog-Date=20261019T120000Z&X-Goog-Expires=3600&X-Goog-Signature=abc",
+            Optional.of(Instant.parse("2026-10-19T13:00:00Z"))),
+        Arguments.of(
+            "GCS V2",
+            "https://storage.googleapis.com/bucket/file?GoogleAccessId=sa&Expires=1792411200"
+                + "&Signature=abc",
+            Optional.of(Instant.ofEpochSecond(1792411200))),
+        Arguments.of(
+            "S3",
+            "https://bucket.s3.amazonaws.com/file?X-Amz-Algorithm=AWS4-HMAC-SHA256"
+                + "&X-Amz-Date=20261019T120000Z&X-Amz-Expires=900&X-Amz-Signature=abc",
+            Optional.of(Instant.parse("2026-10-19T12:15:00Z"))),
+        Arguments.of(
+            "Azure",
+            "https://account.blob.core.windows.net/container/file?sp=r"
+                + "&se=2026-10-19T12%3A30%3A00Z&sig=abc",
+            Optional.of(Instant.parse("2026-10-19T12:30:00Z"))),
+        Arguments.of(
+            "Azure, by date",
+            "https://account.blob.core.windows.net/container/file?sp=r&se=2026-10-20&sig=abc",
+            Optional.of(Instant.parse("2026-10-20T00:00:00Z"))),
+        Arguments.of("unsigned", "https://example.com/file?version=2", Optional.empty()),
+        Arguments.of(
+            "unreadable",
+            "https://example.com/file?Expires=tomorrow&Signature=abc",
+            Optional.empty()));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("signedUrls")
+  void readsExpiry(String description, String url, Optional<Instant> expected) {
+    assertEquals(expected, SignedUrls.expiry(URI.create(url)));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("signedUrls")
+  void detectsSignatures(String description, String url, Optional<Instant> expiry) {
+    if (description.equals("unsigned")) {
+      assertFalse(SignedUrls.isSigned(URI.create(url)));
+    } else {
+      assertTrue(SignedUrls.isSigned(URI.create(url)));
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package org.databiosphere.workspacedataservice.fulltextsearch;
+
+import static org.databiosphere.workspacedataservice.service.RecordUtils.VERSION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
+import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
+import org.databiosphere.workspacedataservice.generated.JobProgressServerModel;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.RecordOrchestratorService;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordRequest;
+import org.databiosphere.workspacedataservice.shared.model.RecordResponse;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.databiosphere.workspacedataservice.shared.model.SearchRequest;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DirtiesContext
+@SpringBootTest(properties = "twds.full-text-search.batch-size=2")
+class FullTextSearchServiceTest extends ControlPlaneTestBase {
+  private static final RecordType TEST_TYPE = RecordType.valueOf("test");
+  private static final String PRIMARY_KEY = "id";
+  private static final String ATTRIBUTE = "attr";
+
+  @Autowired private FullTextSearchService fullTextSearchService;
+  @Autowired private RecordOrchestratorService recordOrchestratorService;
+  @Autowired private RecordDao recordDao;
+  @Autowired private JobDao jobDao;
+  @Autowired private CollectionService collectionService;
+  @Autowired private WorkspaceRepository workspaceRepository;
+  @Autowired private NamedParameterJdbcTemplate namedTemplate;
+  // jobs are run by the tests, rather than by Quartz
+  @MockitoBean private SchedulerDao schedulerDao;
+
+  private UUID collectionId;
+
+  @BeforeEach
+  void setUp() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionId = collectionService.save(workspaceId, "name", "desc").getId();
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @Test
+  void jobIndexesRecordsInBatches() {
+    for (int i = 1; i <= 3; i++) {
+      upsert("row_" + i, "sample " + i);
+    }
+
+    GenericJobServerModel job =
+        recordOrchestratorService.enableFullTextSearch(collectionId, VERSION, TEST_TYPE);
+    verify(schedulerDao).schedule(any(FullTextSearchSchedulable.class));
+    assertEquals(StatusEnum.CREATED, job.getStatus());
+    assertEquals(StatusEnum.QUEUED, jobDao.getJob(job.getJobId()).getStatus());
+    assertFalse(recordDao.isFullTextSearchEnabled(collectionId, TEST_TYPE));
+
+    // records written before the job runs are indexed too
+    upsert("row_4", "sample 4");
+    fullTextSearchService.runJob(job.getJobId(), collectionId, TEST_TYPE);
+
+    assertTrue(recordDao.isFullTextSearchEnabled(collectionId, TEST_TYPE));
+    assertEquals(List.of("row_1", "row_2", "row_3", "row_4"), search("sample"));
+    assertEquals(List.of("row_4"), search("4"));
+    JobProgressServerModel progress = jobDao.getJob(job.getJobId()).getProgress();
+    assertEquals(TEST_TYPE.getName(), progress.getTable());
+    assertEquals(4L, progress.getRowsWritten());
+    assertEquals(4L, progress.getRowsTotal());
+  }
+
+  @Test
+  void enabledSearchSucceedsWithoutAJob() {
+    upsert("row_1", "sample 1");
+    fullTextSearchService.enable(collectionId, TEST_TYPE);
+
+    GenericJobServerModel job = fullTextSearchService.startEnabling(collectionId, TEST_TYPE);
+
+    assertEquals(StatusEnum.SUCCEEDED, job.getStatus());
+    assertTrue(job.getInput() instanceof FullTextSearchJobInput);
+  }
+
+  private void upsert(String recordId, String value) {
+    recordOrchestratorService.upsertSingleRecord(
+        collectionId,
+        VERSION,
+        TEST_TYPE,
+        recordId,
+        Optional.of(PRIMARY_KEY),
+        new RecordRequest(RecordAttributes.empty().putAttribute(ATTRIBUTE, value)));
+  }
+
+  private List<String> search(String term) {
+    SearchRequest searchRequest = new SearchRequest();
+    searchRequest.setFilter(Optional.of(new SearchFilter(Optional.empty(), Optional.of(term))));
+    return recordOrchestratorService
+        .queryForRecords(collectionId, TEST_TYPE, VERSION, searchRequest)
+        .records()
+        .stream()
+        .map(RecordResponse::recordId)
+        .toList();
+  }
+}
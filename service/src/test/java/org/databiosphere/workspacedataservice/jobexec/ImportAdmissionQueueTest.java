@@ -0,0 +1,327 @@
+package org.databiosphere.workspacedataservice.jobexec;
+
+import static org.databiosphere.workspacedataservice.shared.model.Schedulable.ARG_COLLECTION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel.StatusEnum;
+import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.Schedulable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+class ImportAdmissionQueueTest {
+  private final CollectionId collectionA = CollectionId.of(UUID.randomUUID());
+  private final CollectionId collectionB = CollectionId.of(UUID.randomUUID());
+  private final CollectionId collectionC = CollectionId.of(UUID.randomUUID());
+
+  private final JobDao jobDao = mock(JobDao.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  // the ids of jobs, in the order they were scheduled
+  private final List<UUID> scheduled = new ArrayList<>();
+  private FakeSchedulerDao schedulerDao;
+
+  /** Stores jobs in memory, in place of the Quartz job store shared by every replica */
+  private class FakeSchedulerDao implements SchedulerDao {
+    private final Map<String, Schedulable> stored = new LinkedHashMap<>();
+
+    @Override
+    public void schedule(Schedulable schedulable) {
+      throw new UnsupportedOperationException("imports are stored, then triggered");
+    }
+
+    @Override
+    public void store(Schedulable schedulable) {
+      stored.put(schedulable.getId(), schedulable);
+    }
+
+    @Override
+    public boolean trigger(Schedulable schedulable) {
+      // a triggered job runs, then is deleted from the job store
+      if (stored.remove(schedulable.getId()) == null) {
+        return false;
+      }
+      scheduled.add(UUID.fromString(schedulable.getId()));
+      return true;
+    }
+
+    @Override
+    public void delete(Schedulable schedulable) {
+      stored.remove(schedulable.getId());
+    }
+
+    @Override
+    public boolean exists(String group, String id) {
+      return stored.containsKey(id);
+    }
+
+    @Override
+    public List<Schedulable> getStoredJobs(Collection<String> groups) {
+      return stored.values().stream().filter(s -> groups.contains(s.getGroup())).toList();
+    }
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    scheduled.clear();
+    schedulerDao = new FakeSchedulerDao();
+  }
+
+  @Test
+  void unlimitedByDefault() {
+    ImportAdmissionQueue queue = buildQueue(0, 0);
+
+    List<UUID> submitted = submitAll(queue, collectionA, 5);
+
+    assertEquals(submitted, scheduled);
+    assertEquals(0, queue.getNumWaiting());
+  }
+
+  @Test
+  void respectsGlobalLimit() {
+    ImportAdmissionQueue queue = buildQueue(2, 0);
+
+    List<UUID> submitted = submitAll(queue, collectionA, 5);
+
+    assertEquals(submitted.subList(0, 2), scheduled);
+    assertEquals(3, queue.getNumWaiting());
+    assertEquals(2, queue.getNumAdmitted());
+
+    // finishing a job admits the next one, in submission order
+    queue.release(submitted.get(0));
+    assertEquals(submitted.subList(0, 3), scheduled);
+    assertEquals(2, queue.getNumWaiting());
+    assertEquals(2, queue.getNumAdmitted());
+  }
+
+  @Test
+  void respectsPerCollectionLimit() {
+    ImportAdmissionQueue queue = buildQueue(0, 1);
+
+    List<UUID> submittedA = submitAll(queue, collectionA, 3);
+    List<UUID> submittedB = submitAll(queue, collectionB, 3);
+
+    // one job from each collection is running; collection A's backlog does not block collection B
+    assertEquals(List.of(submittedA.get(0), submittedB.get(0)), scheduled);
+    assertEquals(4, queue.getNumWaiting());
+
+    // releasing a job in collection B only admits another job from collection B
+    queue.release(submittedB.get(0));
+    assertEquals(List.of(submittedA.get(0), submittedB.get(0), submittedB.get(1)), scheduled);
+  }
+
+  @Test
+  void admitsRoundRobinAcrossCollections() {
+    ImportAdmissionQueue queue = buildQueue(1, 0);
+
+    // a mixed workload: one collection floods the queue, then two others each submit jobs
+    List<UUID> submittedA = submitAll(queue, collectionA, 4);
+    List<UUID> submittedB = submitAll(queue, collectionB, 2);
+    List<UUID> submittedC = submitAll(queue, collectionC, 1);
+
+    // run every job to completion, one at a time
+    for (int i = 0; i < 7; i++) {
+      queue.release(scheduled.get(i));
+    }
+
+    // collections take turns, rather than collection A's jobs all running first. A's second job
+    // runs next because A was already waiting for a slot before B and C submitted their jobs.
+    assertEquals(
+        List.of(
+            submittedA.get(0),
+            submittedA.get(1),
+            submittedB.get(0),
+            submittedC.get(0),
+            submittedA.get(2),
+            submittedB.get(1),
+            submittedA.get(3)),
+        scheduled);
+    assertEquals(0, queue.getNumWaiting());
+    assertEquals(0, queue.getNumAdmitted());
+  }
+
+  @Test
+  void combinesGlobalAndPerCollectionLimits() {
+    ImportAdmissionQueue queue = buildQueue(3, 2);
+
+    List<UUID> submittedA = submitAll(queue, collectionA, 4);
+    List<UUID> submittedB = submitAll(queue, collectionB, 4);
+
+    // collection A is at its own limit, and collection B takes the remaining global slot
+    assertEquals(List.of(submittedA.get(0), submittedA.get(1), submittedB.get(0)), scheduled);
+
+    // collection A is at its limit, so B gets the freed slot
+    queue.release(submittedB.get(0));
+    assertEquals(submittedB.get(1), scheduled.get(3));
+
+    // A is next in the rotation, so freeing a slot in A admits the next job from A
+    queue.release(submittedA.get(0));
+    assertEquals(submittedA.get(2), scheduled.get(4));
+    assertEquals(3, queue.getNumAdmitted());
+  }
+
+  @Test
+  void ignoresUnknownJobs() {
+    ImportAdmissionQueue queue = buildQueue(1, 0);
+    List<UUID> submitted = submitAll(queue, collectionA, 2);
+
+    queue.release(UUID.randomUUID());
+
+    assertEquals(submitted.subList(0, 1), scheduled);
+    assertEquals(1, queue.getNumWaiting());
+  }
+
+  @Test
+  void failsJobsWhichCannotBeScheduled() {
+    SchedulerDao failingSchedulerDao = mock(SchedulerDao.class);
+    doThrow(new RuntimeException("intentional failure for unit test"))
+        .when(failingSchedulerDao)
+        .trigger(any());
+    ImportAdmissionQueue queue =
+        new ImportAdmissionQueue(
+            failingSchedulerDao, jobDao, dataImportProperties(1, 0), meterRegistry);
+
+    List<UUID> submitted = submitAll(queue, collectionA, 2);
+
+    // both jobs were failed, and neither holds a slot
+    verify(jobDao).fail(eq(submitted.get(0)), any(Exception.class));
+    verify(jobDao).fail(eq(submitted.get(1)), any(Exception.class));
+    assertEquals(0, queue.getNumAdmitted());
+    assertEquals(0, queue.getNumWaiting());
+    verify(failingSchedulerDao, times(2)).delete(any());
+  }
+
+  @Test
+  void failsJobsWhichCannotBeStored() {
+    SchedulerDao failingSchedulerDao = mock(SchedulerDao.class);
+    doThrow(new RuntimeException("intentional failure for unit test"))
+        .when(failingSchedulerDao)
+        .store(any());
+    ImportAdmissionQueue queue =
+        new ImportAdmissionQueue(
+            failingSchedulerDao, jobDao, dataImportProperties(1, 0), meterRegistry);
+
+    UUID jobId = submitAll(queue, collectionA, 1).get(0);
+
+    verify(jobDao).fail(eq(jobId), any(Exception.class));
+    verify(failingSchedulerDao, never()).trigger(any());
+    assertEquals(0, queue.getNumWaiting());
+  }
+
+  @Test
+  void recoversStoredJobs() {
+    ImportAdmissionQueue queue = buildQueue(1, 0);
+    List<UUID> submittedA = submitAll(queue, collectionA, 2);
+    List<UUID> submittedB = submitAll(queue, collectionB, 2);
+    // jobs were created in submission order; B's first job has since been cancelled
+    OffsetDateTime created = OffsetDateTime.now();
+    when(jobDao.getJob(submittedA.get(1)))
+        .thenReturn(jobWithStatus(StatusEnum.QUEUED).created(created));
+    when(jobDao.getJob(submittedB.get(0)))
+        .thenReturn(jobWithStatus(StatusEnum.CANCELLED).created(created.plusSeconds(1)));
+    when(jobDao.getJob(submittedB.get(1)))
+        .thenReturn(jobWithStatus(StatusEnum.QUEUED).created(created.plusSeconds(2)));
+
+    // e.g. this replica restarts, losing its in-memory queue
+    ImportAdmissionQueue recoveringQueue = buildQueue(1, 0);
+    recoveringQueue.recoverWaiting();
+
+    // the oldest waiting job is admitted, and the cancelled job is deleted rather than waiting
+    assertEquals(List.of(submittedA.get(0), submittedA.get(1)), scheduled);
+    assertEquals(1, recoveringQueue.getNumWaiting());
+    assertEquals(List.of(submittedB.get(1).toString()), storedJobIds());
+
+    // recovering again does not adopt jobs which are already waiting
+    recoveringQueue.recoverWaiting();
+    assertEquals(1, recoveringQueue.getNumWaiting());
+    recoveringQueue.release(submittedA.get(1));
+    assertEquals(submittedB.get(1), scheduled.get(2));
+    assertEquals(0, recoveringQueue.getNumWaiting());
+  }
+
+  @Test
+  void releasesFinishedJobs() {
+    ImportAdmissionQueue queue = buildQueue(3, 0);
+    List<UUID> submitted = submitAll(queue, collectionA, 4);
+    // e.g. the first job finished on another replica, and the second job's row was deleted
+    when(jobDao.getJob(submitted.get(0))).thenReturn(jobWithStatus(StatusEnum.SUCCEEDED));
+    when(jobDao.getJob(submitted.get(1))).thenThrow(new EmptyResultDataAccessException(1));
+    when(jobDao.getJob(submitted.get(2))).thenReturn(jobWithStatus(StatusEnum.RUNNING));
+
+    queue.releaseFinished();
+
+    assertEquals(submitted, scheduled);
+    assertEquals(2, queue.getNumAdmitted());
+    verify(jobDao, never()).getJob(submitted.get(3));
+  }
+
+  @Test
+  void reportsWaitingGauge() {
+    ImportAdmissionQueue queue = buildQueue(1, 0);
+    submitAll(queue, collectionA, 3);
+
+    assertEquals(2, meterRegistry.get("wds.import.waiting").gauge().value());
+  }
+
+  private ImportAdmissionQueue buildQueue(int maxConcurrent, int maxConcurrentPerCollection) {
+    return new ImportAdmissionQueue(
+        schedulerDao,
+        jobDao,
+        dataImportProperties(maxConcurrent, maxConcurrentPerCollection),
+        meterRegistry);
+  }
+
+  private DataImportProperties dataImportProperties(
+      int maxConcurrent, int maxConcurrentPerCollection) {
+    DataImportProperties dataImportProperties = new DataImportProperties();
+    dataImportProperties.setMaxConcurrentImports(maxConcurrent);
+    dataImportProperties.setMaxConcurrentImportsPerCollection(maxConcurrentPerCollection);
+    return dataImportProperties;
+  }
+
+  private List<UUID> submitAll(ImportAdmissionQueue queue, CollectionId collectionId, int count) {
+    List<UUID> jobIds = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      UUID jobId = UUID.randomUUID();
+      jobIds.add(jobId);
+      queue.submit(
+          collectionId,
+          new Schedulable(
+              "PFB",
+              jobId.toString(),
+              Job.class,
+              "unit test",
+              Map.of(ARG_COLLECTION, collectionId.toString())));
+    }
+    return jobIds;
+  }
+
+  private List<String> storedJobIds() {
+    return schedulerDao.getStoredJobs(List.of("PFB")).stream().map(Schedulable::getId).toList();
+  }
+
+  private GenericJobServerModel jobWithStatus(StatusEnum status) {
+    return new GenericJobServerModel().status(status);
+  }
+}
@@ -2,12 +2,16 @@ package org.databiosphere.workspacedataservice.jobexec;
 
 import static org.assertj.core.api.Fail.fail;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 import org.apache.commons.lang3.RandomStringUtils;
@@ -92,4 +96,24 @@ class JobContextHolderTest {
     // finally, assert that the values found by the threads were the same as the inputs
     assertEquals(new HashSet<>(randomStrings), actualValues);
   }
+
+  @Test
+  void propagateToExecutorThreads() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      JobContextHolder.init();
+      JobContextHolder.setAttribute("unitTestKey", "propagated");
+      Callable<Object> task =
+          JobContextHolder.propagate(() -> JobContextHolder.getAttribute("unitTestKey"));
+      JobContextHolder.setAttribute("unitTestKey", "changed after propagating");
+
+      // the executor's thread sees the attributes as they were when the task was wrapped ...
+      assertEquals("propagated", executor.submit(task).get());
+      // ... and nothing once the task completes
+      assertNull(executor.submit(JobContextHolder::getAttributes).get());
+    } finally {
+      JobContextHolder.destroy();
+      executor.shutdownNow();
+    }
+  }
 }
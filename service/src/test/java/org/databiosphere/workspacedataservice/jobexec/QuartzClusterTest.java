@@ -0,0 +1,246 @@
+package org.databiosphere.workspacedataservice.jobexec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.quartz.TriggerBuilder.newTrigger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.databiosphere.workspacedataservice.common.DataPlaneTestBase;
+import org.databiosphere.workspacedataservice.dao.QuartzSchedulerDao;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
+import org.databiosphere.workspacedataservice.shared.model.Schedulable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+
+/**
+ * Runs two in-process Quartz schedulers, configured via {@link QuartzClusterConfig}, against the
+ * shared test database to verify the clustered job store: jobs are visible to every replica, each
+ * job runs exactly once, and jobs held by a dead replica are recovered by a surviving one.
+ */
+@SpringBootTest
+class QuartzClusterTest extends DataPlaneTestBase {
+
+  @Autowired DataSource dataSource;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+
+  // jobKey name -> instance ids of every scheduler that executed it
+  private static final Map<String, List<String>> executions = new ConcurrentHashMap<>();
+  // jobKey names of executions that Quartz flagged as recovering
+  private static final List<String> recoveries = new CopyOnWriteArrayList<>();
+  private static CountDownLatch blockingJobLatch = new CountDownLatch(1);
+
+  private String schedulerName;
+  private final List<SchedulerFactoryBean> factories = new ArrayList<>();
+
+  /** records which scheduler executed it */
+  public static class RecordingJob implements Job {
+    @Override
+    public void execute(JobExecutionContext context) {
+      recordExecution(context);
+    }
+  }
+
+  /** blocks until released, unless it is being recovered */
+  public static class BlockingJob implements Job {
+    @Override
+    public void execute(JobExecutionContext context) {
+      recordExecution(context);
+      if (context.isRecovering()) {
+        recoveries.add(context.getJobDetail().getKey().getName());
+        return;
+      }
+      try {
+        blockingJobLatch.await(60, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static void recordExecution(JobExecutionContext context) {
+    try {
+      String instanceId = context.getScheduler().getSchedulerInstanceId();
+      executions
+          .computeIfAbsent(
+              context.getJobDetail().getKey().getName(), k -> new CopyOnWriteArrayList<>())
+          .add(instanceId);
+    } catch (SchedulerException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    // unique scheduler name per test, so tests cannot see each other's rows
+    schedulerName = "cluster-test-" + UUID.randomUUID();
+    executions.clear();
+    recoveries.clear();
+    blockingJobLatch = new CountDownLatch(1);
+  }
+
+  @AfterEach
+  void afterEach() throws Exception {
+    blockingJobLatch.countDown();
+    for (SchedulerFactoryBean factory : factories) {
+      factory.destroy();
+    }
+    factories.clear();
+    for (String table :
+        List.of(
+            "fired_triggers",
+            "simple_triggers",
+            "triggers",
+            "job_details",
+            "scheduler_state",
+            "locks")) {
+      namedTemplate.update(
+          "delete from sys_wds.qrtz_" + table + " where sched_name = :schedName",
+          new MapSqlParameterSource("schedName", schedulerName));
+    }
+  }
+
+  @Test
+  void jobsScheduledOnOneReplicaRunOnAnother() throws Exception {
+    Scheduler replicaA = createScheduler("replica-a");
+    Scheduler replicaB = createScheduler("replica-b");
+    // replica A only accepts requests; replica B is the only one executing jobs
+    replicaB.start();
+
+    List<String> jobNames = scheduleJobs(replicaA, RecordingJob.class, 10);
+
+    await()
+        .atMost(Duration.ofSeconds(30))
+        .untilAsserted(() -> assertThat(executions).containsOnlyKeys(jobNames));
+    executions.values().forEach(instances -> assertThat(instances).containsExactly("replica-b"));
+  }
+
+  @Test
+  void eachJobRunsExactlyOnceAcrossReplicas() throws Exception {
+    Scheduler replicaA = createScheduler("replica-a");
+    Scheduler replicaB = createScheduler("replica-b");
+    replicaA.start();
+    replicaB.start();
+
+    List<String> jobNames = scheduleJobs(replicaA, RecordingJob.class, 40);
+
+    await()
+        .atMost(Duration.ofSeconds(30))
+        .untilAsserted(() -> assertThat(executions).containsOnlyKeys(jobNames));
+    // give any erroneous duplicate executions a chance to happen before asserting
+    TimeUnit.SECONDS.sleep(2);
+    executions.values().forEach(instances -> assertThat(instances).hasSize(1));
+  }
+
+  @Test
+  void orphanedJobIsRecoveredBySurvivingReplica() throws Exception {
+    Scheduler replicaA = createScheduler("replica-a");
+    replicaA.start();
+
+    String jobName = scheduleJobs(replicaA, BlockingJob.class, 1).get(0);
+    await()
+        .atMost(Duration.ofSeconds(30))
+        .untilAsserted(() -> assertThat(executions).containsKey(jobName));
+
+    // simulate replica A dying mid-job: it stops heartbeating but never completes the job
+    replicaA.shutdown(/* waitForJobsToComplete= */ false);
+
+    Scheduler replicaB = createScheduler("replica-b");
+    replicaB.start();
+
+    await()
+        .atMost(Duration.ofSeconds(60))
+        .untilAsserted(() -> assertThat(recoveries).containsExactly(jobName));
+    assertThat(executions.get(jobName)).containsExactly("replica-a", "replica-b");
+  }
+
+  @Test
+  void storedJobSurvivesRestartAndIsTriggeredOnce() throws Exception {
+    Scheduler replicaA = createScheduler("replica-a");
+    String jobName = UUID.randomUUID().toString();
+    Schedulable schedulable =
+        new Schedulable(
+            "cluster-test",
+            jobName,
+            RecordingJob.class,
+            "cluster test job",
+            Map.of("arg", "value"));
+    new QuartzSchedulerDao(replicaA).store(schedulable);
+    // replica A stops before the job is triggered
+    replicaA.shutdown();
+
+    Scheduler replicaB = createScheduler("replica-b");
+    Scheduler replicaC = createScheduler("replica-c");
+    SchedulerDao schedulerDaoB = new QuartzSchedulerDao(replicaB);
+    SchedulerDao schedulerDaoC = new QuartzSchedulerDao(replicaC);
+    List<Schedulable> storedJobs = schedulerDaoC.getStoredJobs(List.of("cluster-test"));
+    assertThat(storedJobs).extracting(Schedulable::getId).containsExactly(jobName);
+    assertThat(storedJobs.get(0).getArguments()).containsEntry("arg", "value");
+
+    // both replicas try to trigger the job, but only the first succeeds
+    assertThat(schedulerDaoB.trigger(storedJobs.get(0))).isTrue();
+    assertThat(schedulerDaoC.trigger(storedJobs.get(0))).isFalse();
+    assertThat(schedulerDaoC.getStoredJobs(List.of("cluster-test"))).isEmpty();
+    replicaB.start();
+    replicaC.start();
+
+    await()
+        .atMost(Duration.ofSeconds(30))
+        .untilAsserted(() -> assertThat(executions).containsOnlyKeys(jobName));
+    TimeUnit.SECONDS.sleep(2);
+    assertThat(executions.get(jobName)).hasSize(1);
+    // once the job finishes, it cannot be triggered again
+    assertThat(schedulerDaoB.trigger(storedJobs.get(0))).isFalse();
+  }
+
+  private Scheduler createScheduler(String instanceId) throws Exception {
+    SchedulerFactoryBean factory = new SchedulerFactoryBean();
+    factory.setDataSource(dataSource);
+    factory.setSchedulerName(schedulerName);
+    factory.setAutoStartup(false);
+    factory.setQuartzProperties(
+        QuartzClusterConfig.clusteredJobStoreProperties(
+            Map.of(
+                "org.quartz.scheduler.instanceId", instanceId,
+                // heartbeat often, so failure detection is fast enough for a unit test
+                "org.quartz.jobStore.clusterCheckinInterval", "1000",
+                "org.quartz.threadPool.threadCount", "3")));
+    factory.afterPropertiesSet();
+    factories.add(factory);
+    return factory.getScheduler();
+  }
+
+  private List<String> scheduleJobs(Scheduler scheduler, Class<? extends Job> jobClass, int count)
+      throws SchedulerException {
+    List<String> jobNames = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String jobName = UUID.randomUUID().toString();
+      // use Schedulable to build the JobDetail, so the test honors its recovery settings
+      JobDetail jobDetail =
+          new Schedulable("cluster-test", jobName, jobClass, "cluster test job", Map.of())
+              .getJobDetail();
+      scheduler.scheduleJob(jobDetail, newTrigger().forJob(jobDetail).startNow().build());
+      jobNames.add(jobName);
+    }
+    return jobNames;
+  }
+}
@@ -0,0 +1,223 @@
+package org.databiosphere.workspacedataservice.outbound;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.databiosphere.workspacedataservice.config.OutboundHttpProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+/** Tests for {@link OutboundHttpClients}, against an in-process HTTP server. */
+class OutboundHttpClientsTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+  // the client port of each request the server received
+  private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+  // requests to /slow block until this is released
+  private final CountDownLatch slowRequests = new CountDownLatch(1);
+  private HttpServer server;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(serverExecutor);
+    server.createContext("/echo", this::echo);
+    server.createContext(
+        "/slow",
+        exchange -> {
+          try {
+            slowRequests.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          echo(exchange);
+        });
+    server.createContext(
+        "/missing",
+        exchange -> {
+          exchange.sendResponseHeaders(404, -1);
+          exchange.close();
+        });
+    server.start();
+  }
+
+  @AfterEach
+  void stopServer() {
+    slowRequests.countDown();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Test
+  void reusesConnections() {
+    OutboundHttpClients clients = new OutboundHttpClients(properties(), meterRegistry);
+    RestClient restClient = restClient(clients, "sam");
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals("GET ", restClient.get().uri("/echo").retrieve().body(String.class));
+    }
+
+    // every request used the same keep-alive connection, which is now idle in the pool
+    assertEquals(3, clientPorts.size());
+    assertEquals(1, clientPorts.stream().distinct().count());
+    assertEquals(1, poolConnections("sam", "idle"));
+    assertEquals(0, poolConnections("sam", "active"));
+  }
+
+  @Test
+  void sendsBodiesAndHeaders() {
+    OutboundHttpClients clients = new OutboundHttpClients(properties(), meterRegistry);
+    RestClient restClient = restClient(clients, "rawls");
+
+    String response =
+        restClient
+            .post()
+            .uri("/echo")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body("{\"hello\":\"world\"}")
+            .retrieve()
+            .body(String.class);
+
+    assertEquals("POST application/json {\"hello\":\"world\"}", response);
+  }
+
+  @Test
+  void surfacesErrorStatus() {
+    OutboundHttpClients clients = new OutboundHttpClients(properties(), meterRegistry);
+    RestClient restClient = restClient(clients, "rawls");
+
+    HttpClientErrorException e =
+        assertThrows(
+            HttpClientErrorException.class,
+            () -> restClient.get().uri("/missing").retrieve().body(String.class));
+    assertEquals(404, e.getStatusCode().value());
+  }
+
+  @Test
+  void separatePoolPerClient() {
+    OutboundHttpClients clients = new OutboundHttpClients(properties(), meterRegistry);
+
+    assertSame(clients.httpClient("sam"), clients.httpClient("sam"));
+    assertNotSame(
+        clients.httpClient("sam").connectionPool(), clients.httpClient("rawls").connectionPool());
+    // both clients share a dispatcher
+    assertSame(clients.httpClient("sam").dispatcher(), clients.httpClient("rawls").dispatcher());
+  }
+
+  @Test
+  void limitsConcurrentRequestsPerClient() {
+    OutboundHttpProperties properties = properties();
+    properties.setMaxRequestsPerHost(1);
+    OutboundHttpClients clients = new OutboundHttpClients(properties, meterRegistry);
+    RestClient restClient = restClient(clients, "drshub");
+
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(
+            () -> restClient.get().uri("/slow").retrieve().body(String.class));
+    await().atMost(Duration.ofSeconds(5)).until(() -> requestGauge("active") == 1);
+    CompletableFuture<String> second =
+        CompletableFuture.supplyAsync(
+            () -> restClient.get().uri("/echo").retrieve().body(String.class));
+
+    // the second request waits for the first, rather than opening another connection
+    await().atMost(Duration.ofSeconds(5)).until(() -> requestGauge("waiting") == 1);
+    assertTrue(clientPorts.isEmpty());
+
+    slowRequests.countDown();
+    assertEquals("GET ", first.join());
+    assertEquals("GET ", second.join());
+    assertEquals(0, requestGauge("active"));
+    assertEquals(0, requestGauge("waiting"));
+    assertEquals(
+        2, meterRegistry.get("wds.outbound.requests.wait").tag("client", "drshub").timer().count());
+  }
+
+  @Test
+  void failsRequestsWhichWaitTooLong() {
+    OutboundHttpProperties properties = properties();
+    properties.setMaxRequestsPerHost(1);
+    properties.setConnectTimeout(Duration.ofMillis(200));
+    OutboundHttpClients clients = new OutboundHttpClients(properties, meterRegistry);
+    RestClient restClient = restClient(clients, "drshub");
+
+    CompletableFuture.runAsync(() -> restClient.get().uri("/slow").retrieve().toBodilessEntity());
+    await().atMost(Duration.ofSeconds(5)).until(() -> requestGauge("active") == 1);
+
+    ResourceAccessException e =
+        assertThrows(
+            ResourceAccessException.class,
+            () -> restClient.get().uri("/echo").retrieve().body(String.class));
+    assertTrue(e.getMessage().contains("Timed out"), e.getMessage());
+  }
+
+  private OutboundHttpProperties properties() {
+    OutboundHttpProperties properties = new OutboundHttpProperties();
+    properties.setConnectTimeout(Duration.ofSeconds(5));
+    properties.setReadTimeout(Duration.ofSeconds(15));
+    properties.setRequestTimeout(Duration.ofSeconds(20));
+    return properties;
+  }
+
+  private RestClient restClient(OutboundHttpClients clients, String clientName) {
+    return RestClient.builder()
+        .requestFactory(clients.requestFactory(clientName))
+        .baseUrl("http://localhost:" + server.getAddress().getPort())
+        .build();
+  }
+
+  private double poolConnections(String clientName, String state) {
+    return meterRegistry
+        .get(OutboundHttpClients.POOL_METRICS_PREFIX + ".connection.count")
+        .tags("client", clientName, "state", state)
+        .gauge()
+        .value();
+  }
+
+  private double requestGauge(String name) {
+    return meterRegistry
+        .get("wds.outbound.requests." + name)
+        .tag("client", "drshub")
+        .gauge()
+        .value();
+  }
+
+  // responds with the request's method, content type and body
+  private void echo(HttpExchange exchange) throws IOException {
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+    String requestBody = new String(exchange.getRequestBody().readAllBytes(), UTF_8);
+    String response =
+        exchange.getRequestMethod()
+            + " "
+            + (contentType == null ? "" : contentType)
+            + (requestBody.isEmpty() ? "" : " " + requestBody);
+    byte[] bytes = response.getBytes(UTF_8);
+    exchange.sendResponseHeaders(200, bytes.length);
+    exchange.getResponseBody().write(bytes);
+    exchange.close();
+  }
+}
@@ -14,6 +14,7 @@ import au.com.dius.pact.core.model.RequestResponsePact;
 import au.com.dius.pact.core.model.annotations.Pact;
 import io.micrometer.observation.tck.TestObservationRegistry;
 import java.util.Map;
+import okhttp3.OkHttpClient;
 import org.broadinstitute.dsde.workbench.client.sam.model.SystemStatus;
 import org.databiosphere.workspacedataservice.retry.RestClientRetry;
 import org.databiosphere.workspacedataservice.sam.*;
@@ -263,13 +264,13 @@ class SamPactTest {
 
   private SamDao getSamDao(MockServer mockServer) {
     return new HttpSamDao(
-        new HttpSamClientFactory(mockServer.getUrl()),
+        new HttpSamClientFactory(mockServer.getUrl(), new OkHttpClient()),
         new RestClientRetry(TestObservationRegistry.create()));
   }
 
   private SamAuthorizationDaoFactory samAuthorizationDaoFactory(MockServer mockServer) {
     return new SamAuthorizationDaoFactory(
-        new HttpSamClientFactory(mockServer.getUrl()),
+        new HttpSamClientFactory(mockServer.getUrl(), new OkHttpClient()),
         new RestClientRetry(TestObservationRegistry.create()));
   }
 
@@ -0,0 +1,79 @@
+package org.databiosphere.workspacedataservice.recordsink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.exception.DataImportException;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+
+/**
+ * {@link RecordSink} for tests which delegates to another sink, remembers the records upserted
+ * through it, and optionally fails partway through an import. The failing batch is written to the
+ * delegate before the failure is thrown, so tests can verify that it is rolled back.
+ */
+public class FaultInjectingRecordSink implements RecordSink {
+  private final RecordSink delegate;
+  private final int failOnUpsertNumber;
+  private final List<Record> upsertedRecords = new ArrayList<>();
+  private int numUpserts = 0;
+
+  /**
+   * @param delegate the sink to write to
+   * @param failOnUpsertNumber fail on this upsertBatch call, counting from 1; 0 to never fail
+   */
+  public FaultInjectingRecordSink(RecordSink delegate, int failOnUpsertNumber) {
+    this.delegate = delegate;
+    this.failOnUpsertNumber = failOnUpsertNumber;
+  }
+
+  /** The records upserted through this sink, including any in the failed batch. */
+  public List<Record> getUpsertedRecords() {
+    return upsertedRecords;
+  }
+
+  @Override
+  public Map<String, DataTypeMapping> createOrModifyRecordType(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      List<Record> records,
+      String recordTypePrimaryKey)
+      throws DataImportException {
+    return delegate.createOrModifyRecordType(recordType, schema, records, recordTypePrimaryKey);
+  }
+
+  @Override
+  public void upsertBatch(
+      RecordType recordType,
+      Map<String, DataTypeMapping> schema,
+      List<Record> records,
+      String primaryKey)
+      throws DataImportException {
+    delegate.upsertBatch(recordType, schema, records, primaryKey);
+    upsertedRecords.addAll(records);
+    if (++numUpserts == failOnUpsertNumber) {
+      throw new DataImportException("Injected failure on upsert #%d".formatted(numUpserts));
+    }
+  }
+
+  @Override
+  public void deleteBatch(RecordType recordType, List<Record> records) throws DataImportException {
+    delegate.deleteBatch(recordType, records);
+  }
+
+  @Override
+  public boolean supportsCheckpoints() {
+    return delegate.supportsCheckpoints();
+  }
+
+  @Override
+  public void close() throws DataImportException {
+    delegate.close();
+  }
+
+  @Override
+  public void success() throws DataImportException {
+    delegate.success();
+  }
+}
@@ -1,6 +1,7 @@
 package org.databiosphere.workspacedataservice.retry;
 
 import static io.micrometer.observation.tck.TestObservationRegistryAssert.assertThat;
+import static java.util.Objects.requireNonNull;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -342,6 +343,20 @@ class RestClientRetryTest extends ControlPlaneTestBase {
         .hasMessageStartingWith("Message: Not Found");
   }
 
+  @Test
+  void outboundObservationIsCurrentDuringRestCall() {
+    // http client observations made during the rest call, such as http.client.requests, nest
+    // under the current observation
+    RestCall<String> restCall =
+        () -> requireNonNull(observations.getCurrentObservation()).getContext().getName();
+
+    String currentObservation =
+        restClientRetry.withRetryAndErrorHandling(restCall, "RestCall-unittest");
+
+    assertEquals("wds.outbound", currentObservation);
+    assertThat(observations.getCurrentObservation()).isNull();
+  }
+
   @Test
   void doesNotCountSingleAttemptAsRetry() {
     // arrange
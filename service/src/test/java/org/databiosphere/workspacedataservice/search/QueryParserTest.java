@@ -7,8 +7,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Stream;
 import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.EnumSource;
@@ -26,8 +28,8 @@ class QueryParserTest {
         Arguments.of("fo?o", "fo?o"),
         // Wildcards can be escaped
         Arguments.of("fo\\?o\\*", "fo?o*"),
-        // SQL "like" uses % as a wildcard. The SQL we currently generate does not use "like", so
-        // end users can input a wildcard, but it won't have the effect they may have wanted
+        // SQL "like" uses % as a wildcard. The SQL we generate does not use "like", so a % in the
+        // term, or in the values searched, only matches a literal %
         Arguments.of("%foo%", "%foo%"),
         // whitespace in terms requires quoting the term
         Arguments.of("\"this is a phrase\"", "this is a phrase"),
@@ -58,7 +60,9 @@ class QueryParserTest {
 
     WhereClausePart expected =
         new WhereClausePart(
-            List.of("LOWER(\"column1\") = :filterquery0"),
+            List.of(
+                "md5(LOWER(\"column1\")) = md5(:filterquery0)",
+                "LOWER(\"column1\") = :filterquery0"),
             Map.of("filterquery0", expectedResult.toLowerCase()));
 
     assertEquals(expected, actual);
@@ -73,7 +77,9 @@ class QueryParserTest {
 
     WhereClausePart expected =
         new WhereClausePart(
-            List.of(":filterquery0 ILIKE ANY(\"column1\")"),
+            List.of(
+                "sys_wds.lower_array_md5(\"column1\") @> array[md5(:filterquery0::text)]",
+                "sys_wds.lower_array(\"column1\") @> array[:filterquery0::text]"),
             Map.of("filterquery0", expectedResult.toLowerCase()));
 
     assertEquals(expected, actual);
@@ -135,7 +141,33 @@ class QueryParserTest {
     WhereClausePart expected =
         new WhereClausePart(
             List.of(
-                ":filterquery0 IN (select LOWER(split_part(unnest, '/', 3)) from unnest(\"column1\"))"),
+                ":filterquery0 IN (select LOWER(split_part(unnest, '/', 3)) from"
+                    + " unnest(\"column1\"))"),
+            Map.of("filterquery0", expectedResult.toLowerCase()));
+
+    assertEquals(expected, actual);
+  }
+
+  @ParameterizedTest(name = "Valid query `column1:{0}`")
+  @MethodSource("relationTerms")
+  void parseArrayOfRelationColumnTermWithJoinTable(String queryTerm, String expectedResult) {
+    String query = "column1:" + queryTerm;
+    RelationArrayJoin join =
+        new RelationArrayJoin(
+            "\"c\".\"sys_t_column1\"", "\"from_t_key\"", "\"to_u_key\"", "\"c\".\"t\".\"id\"");
+
+    WhereClausePart actual =
+        new QueryParser(
+                Map.of("column1", DataTypeMapping.ARRAY_OF_RELATION),
+                () -> false,
+                column -> Optional.of(join).filter(j -> column.equals("column1")))
+            .parse(query);
+
+    WhereClausePart expected =
+        new WhereClausePart(
+            List.of(
+                "exists (select from \"c\".\"sys_t_column1\" where \"from_t_key\" ="
+                    + " \"c\".\"t\".\"id\" and LOWER(\"to_u_key\") = :filterquery0)"),
             Map.of("filterquery0", expectedResult.toLowerCase()));
 
     assertEquals(expected, actual);
@@ -364,13 +396,57 @@ class QueryParserTest {
     assertEquals(expected, actual);
   }
 
+  // ========== table-wide search, i.e. no column specified
+
+  private static Stream<Arguments> fullTextTerms() {
+    return Stream.of(
+        Arguments.of("searchterm", "searchterm"),
+        Arguments.of("\"two words\"", "two words"),
+        Arguments.of("sys_all_columns:searchterm", "searchterm"));
+  }
+
+  // test expected parsing for a query without a column, against a record type with full-text
+  // search enabled
+  @ParameterizedTest(name = "Valid full-text query `{0}`")
+  @MethodSource("fullTextTerms")
+  void parseFullTextTerm(String query, String expectedResult) {
+    WhereClausePart actual =
+        new QueryParser(Map.of("column1", DataTypeMapping.STRING), () -> true).parse(query);
+
+    WhereClausePart expected =
+        new WhereClausePart(
+            List.of("\"sys_all_columns\" @@ phraseto_tsquery('simple', :filterquery0)"),
+            Map.of("filterquery0", expectedResult));
+
+    assertEquals(expected, actual);
+  }
+
+  // queries on a column do not need to know whether full-text search is enabled
+  @Test
+  void columnQueryDoesNotCheckFullTextSearch() {
+    QueryParser queryParser =
+        new QueryParser(
+            Map.of("column1", DataTypeMapping.STRING),
+            () -> {
+              throw new AssertionError("checked whether full-text search is enabled");
+            });
+
+    assertEquals(
+        new WhereClausePart(
+            List.of(
+                "md5(LOWER(\"column1\")) = md5(:filterquery0)",
+                "LOWER(\"column1\") = :filterquery0"),
+            Map.of("filterquery0", "foo")),
+        queryParser.parse("column1:foo"));
+  }
+
   private static Stream<String> invalidQuerySyntax() {
     return Stream.of(
         // ranges
         "column1:[23 TO 45]",
         // multi-column search
         "column1:foo AND column2:bar",
-        // table-wide search, i.e. no column specified
+        // table-wide search, i.e. no column specified, without full-text search enabled
         "searchterm");
   }
 
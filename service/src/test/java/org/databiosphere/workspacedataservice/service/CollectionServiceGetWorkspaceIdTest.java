@@ -11,6 +11,7 @@ import java.util.UUID;
 import org.databiosphere.workspacedataservice.TestUtils;
 import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
 import org.databiosphere.workspacedataservice.config.DataImportProperties;
+import org.databiosphere.workspacedataservice.config.OutboundHttpProperties;
 import org.databiosphere.workspacedataservice.config.TenancyProperties;
 import org.databiosphere.workspacedataservice.config.TwdsProperties;
 import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
@@ -28,6 +29,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
@@ -52,6 +56,16 @@ class CollectionServiceGetWorkspaceIdTest extends ControlPlaneTestBase {
   @MockitoBean ImportValidator importValidator;
   @MockitoBean DataImportProperties dataImportProperties;
 
+  // the mocked TwdsProperties provides a null OutboundHttpProperties
+  @TestConfiguration
+  static class OutboundHttpTestConfiguration {
+    @Bean
+    @Primary
+    OutboundHttpProperties testOutboundHttpProperties() {
+      return new OutboundHttpProperties();
+    }
+  }
+
   @BeforeEach
   void beforeEach() {
     TestUtils.cleanAllCollections(collectionService, namedTemplate);
@@ -21,6 +21,7 @@ import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
 import org.databiosphere.workspacedataservice.service.model.Relation;
 import org.databiosphere.workspacedataservice.shared.model.Record;
 import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -271,6 +272,34 @@ class DataTypeInfererTest extends ControlPlaneTestBase {
     assertThat(relation.relationRecordType()).isEqualTo(RecordType.valueOf("thing"));
   }
 
+  @Test
+  void batchesInferTheSameTypesAsRecords() {
+    RecordType thing = RecordType.valueOf("thing");
+    List<Record> records =
+        List.of(
+            new Record(
+                "1",
+                thing,
+                RecordAttributes.empty()
+                    .putAttribute("date", "2001-11-03")
+                    .putAttribute("num", BigDecimal.ONE)
+                    .putAttribute("rel", null)),
+            new Record(
+                "2",
+                thing,
+                RecordAttributes.empty()
+                    .putAttribute("date", "2001-11-03T10:00:00")
+                    .putAttribute("num", "not a number")
+                    .putAttribute("rel", createRelationString(thing, "1"))
+                    .putAttribute("rel_arr", List.of(createRelationString(thing, "2")))),
+            new Record("3", thing, getSomeAttrs()));
+    RecordBatch batch = RecordBatch.of(thing, records);
+
+    Map<String, DataTypeMapping> schema = inferer.inferTypes(records);
+    assertEquals(schema, inferer.inferTypes(batch));
+    assertEquals(inferer.findRelations(records, schema), inferer.findRelations(batch, schema));
+  }
+
   private static RecordAttributes getSomeAttrs() {
     return new RecordAttributes(
         ofEntries(
@@ -1,29 +1,56 @@
 package org.databiosphere.workspacedataservice.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.sam.BearerTokenFilter.ATTRIBUTE_NAME_TOKEN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
 import org.databiosphere.workspacedataservice.drshub.DrsHubApi;
+import org.databiosphere.workspacedataservice.drshub.DrsHubClient;
 import org.databiosphere.workspacedataservice.drshub.ResolveDrsRequest;
 import org.databiosphere.workspacedataservice.drshub.ResourceMetadataResponse;
+import org.databiosphere.workspacedataservice.jobexec.JobContextHolder;
+import org.databiosphere.workspacedataservice.retry.RestClientRetry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.HttpServerErrorException;
 
 @SpringBootTest
 class DrsServiceTest extends ControlPlaneTestBase {
 
   @Autowired DrsService drsService;
+  @Autowired RestClientRetry restClientRetry;
   @MockitoBean DrsHubApi mockDrsHubApi;
 
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicReference<Instant> now = new AtomicReference<>(Instant.now());
+  private final FakeDrsHub fakeDrsHub = new FakeDrsHub();
+
+  @BeforeEach
+  void beforeEach() {
+    drsService.invalidateCache();
+  }
+
   @Test
   void testIsDrsUri() {
     URI drsUri = URI.create("drs://example.com/file");
@@ -59,6 +86,159 @@ class DrsServiceTest extends ControlPlaneTestBase {
     IllegalArgumentException exception =
         assertThrows(IllegalArgumentException.class, () -> drsService.resolveDrsUri(drsUri));
 
-    assertEquals("Could not resolve DRS URI: Resolution failed", exception.getMessage());
+    assertThat(exception.getMessage())
+        .startsWith("Could not resolve DRS URI: ")
+        .contains("Resolution failed");
+  }
+
+  @Test
+  void cachesResolutions() {
+    URI drsUri = URI.create("drs://example.com/cached");
+    DrsService service = drsService(Duration.ofMinutes(30));
+
+    URI first = service.resolveDrsUri(drsUri);
+    URI second = service.resolveDrsUri(drsUri);
+
+    assertEquals(first, second);
+    assertEquals(1, fakeDrsHub.resolutions(drsUri));
+    assertEquals(1, resolveTimer("false", "success").count());
+    assertEquals(1, resolveTimer("true", "success").count());
+
+    // until the TTL passes
+    now.set(now.get().plus(Duration.ofMinutes(31)));
+    service.resolveDrsUri(drsUri);
+    assertEquals(2, fakeDrsHub.resolutions(drsUri));
+  }
+
+  @Test
+  void cachesSignedUrlsUntilShortlyBeforeTheyExpire() {
+    URI drsUri = URI.create("drs://example.com/signed");
+    DrsService service = drsService(Duration.ofMinutes(30));
+    // DrsHub signs URLs for 10 minutes
+    fakeDrsHub.signFor(Duration.ofMinutes(10));
+
+    service.resolveDrsUri(drsUri);
+    now.set(now.get().plus(Duration.ofMinutes(10)).minus(DrsService.EXPIRY_MARGIN).minusSeconds(1));
+    service.resolveDrsUri(drsUri);
+    assertEquals(1, fakeDrsHub.resolutions(drsUri));
+
+    // a URL about to expire is resolved again, though the TTL has not passed
+    now.set(now.get().plusSeconds(2));
+    service.resolveDrsUri(drsUri);
+    assertEquals(2, fakeDrsHub.resolutions(drsUri));
+  }
+
+  @Test
+  void doesNotCacheSignedUrlsWithUnreadableExpiry() {
+    URI drsUri = URI.create("drs://example.com/unreadable");
+    DrsService service = drsService(Duration.ofMinutes(30));
+    fakeDrsHub.signWithUnreadableExpiry();
+
+    service.resolveDrsUri(drsUri);
+    service.resolveDrsUri(drsUri);
+
+    assertEquals(2, fakeDrsHub.resolutions(drsUri));
+  }
+
+  @Test
+  void cachesByUser() {
+    URI drsUri = URI.create("drs://example.com/private");
+    DrsService service = drsService(Duration.ofMinutes(30));
+
+    resolveAs("token-1", service, drsUri);
+    resolveAs("token-1", service, drsUri);
+    resolveAs("token-2", service, drsUri);
+
+    assertEquals(2, fakeDrsHub.resolutions(drsUri));
+    assertEquals(Set.of("token-1", "token-2"), fakeDrsHub.tokens());
+  }
+
+  @Test
+  void retriesDrsHubErrors() {
+    URI drsUri = URI.create("drs://example.com/flaky");
+    DrsService service = drsService(Duration.ofMinutes(30));
+    // DrsHub fails once, then succeeds; tests allow 2 attempts
+    fakeDrsHub.failNext(1);
+
+    assertEquals(FakeDrsHub.accessUrl(drsUri), service.resolveDrsUri(drsUri));
+    assertEquals(2, fakeDrsHub.resolutions(drsUri));
+  }
+
+  private DrsService drsService(Duration cacheTtl) {
+    return new DrsService(
+        new DrsHubClient(fakeDrsHub, restClientRetry), meterRegistry, now::get, cacheTtl);
+  }
+
+  private Timer resolveTimer(String cached, String outcome) {
+    return meterRegistry.get("wds.drs.resolve").tags("cached", cached, "outcome", outcome).timer();
+  }
+
+  // resolves as a job would, with the job's token
+  private static void resolveAs(String token, DrsService service, URI drsUri) {
+    JobContextHolder.init();
+    JobContextHolder.setAttribute(ATTRIBUTE_NAME_TOKEN, token);
+    try {
+      service.resolveDrsUri(drsUri);
+    } finally {
+      JobContextHolder.destroy();
+    }
+  }
+
+  /** An in-process DrsHub, which resolves each DRS URI to an https URL on the same path. */
+  static class FakeDrsHub implements DrsHubApi {
+    private final Map<URI, AtomicInteger> resolutions = new ConcurrentHashMap<>();
+    private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile Duration signedFor;
+    private volatile boolean unreadableExpiry;
+
+    static URI accessUrl(URI drsUri) {
+      return URI.create("https://storage.example.com" + drsUri.getPath());
+    }
+
+    @Override
+    public ResourceMetadataResponse resolveDrs(ResolveDrsRequest resolveDrsRequest) {
+      URI drsUri = URI.create(resolveDrsRequest.url());
+      resolutions.computeIfAbsent(drsUri, uri -> new AtomicInteger()).incrementAndGet();
+      Object token = JobContextHolder.getAttribute(ATTRIBUTE_NAME_TOKEN);
+      if (token != null) {
+        tokens.add(token.toString());
+      }
+      if (failures.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0) {
+        throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+      }
+      URI accessUrl = accessUrl(drsUri);
+      if (signedFor != null) {
+        // a GCS V2 signed URL
+        accessUrl =
+            URI.create(
+                "%s?Expires=%d&Signature=abc"
+                    .formatted(accessUrl, Instant.now().plus(signedFor).getEpochSecond()));
+      } else if (unreadableExpiry) {
+        accessUrl = URI.create(accessUrl + "?Expires=soon&Signature=abc");
+      }
+      return new ResourceMetadataResponse(
+          new ResourceMetadataResponse.AccessUrl(accessUrl, Map.of()));
+    }
+
+    int resolutions(URI drsUri) {
+      return resolutions.getOrDefault(drsUri, new AtomicInteger()).get();
+    }
+
+    Set<String> tokens() {
+      return tokens;
+    }
+
+    void signFor(Duration signedFor) {
+      this.signedFor = signedFor;
+    }
+
+    void failNext(int count) {
+      failures.set(count);
+    }
+
+    void signWithUnreadableExpiry() {
+      this.unreadableExpiry = true;
+    }
   }
 }
@@ -83,7 +83,7 @@ class ImportServiceTest extends ControlPlaneTestBase {
 
   private WorkspaceId workspaceId;
 
-  /** ArgumentCaptor for the Schedulable passed to {@link SchedulerDao#schedule(Schedulable)}. */
+  /** ArgumentCaptor for the Schedulable passed to {@link SchedulerDao#store(Schedulable)}. */
   @Captor private ArgumentCaptor<Schedulable> schedulableCaptor;
 
   GoogleApi mockSamGoogleApi = Mockito.mock(GoogleApi.class);
@@ -168,8 +168,8 @@ class ImportServiceTest extends ControlPlaneTestBase {
       names = {"RAWLSJSON"},
       mode = Mode.EXCLUDE)
   void persistsJobAsQueued(TypeEnum importType) {
-    // schedulerDao.schedule(), which returns void, returns successfully
-    doNothing().when(schedulerDao).schedule(any(Schedulable.class));
+    // schedulerDao.store(), which returns void, returns successfully
+    doNothing().when(schedulerDao).store(any(Schedulable.class));
     // define the import request
     ImportRequestServerModel importRequest = new ImportRequestServerModel(importType, importUri);
     // perform the import request
@@ -191,15 +191,15 @@ class ImportServiceTest extends ControlPlaneTestBase {
       names = {"RAWLSJSON"},
       mode = Mode.EXCLUDE)
   void addsJobToScheduler(TypeEnum importType) {
-    // schedulerDao.schedule(), which returns void, returns successfully
-    doNothing().when(schedulerDao).schedule(any(Schedulable.class));
+    // schedulerDao.store(), which returns void, returns successfully
+    doNothing().when(schedulerDao).store(any(Schedulable.class));
     // define the import request
     ImportRequestServerModel importRequest = new ImportRequestServerModel(importType, importUri);
     // perform the import request
     GenericJobServerModel createdJob =
         importService.createImport(defaultCollectionId().id(), importRequest);
     // assert that importService.createImport properly calls schedulerDao
-    verify(schedulerDao).schedule(schedulableCaptor.capture());
+    verify(schedulerDao).store(schedulableCaptor.capture());
     Schedulable actual = schedulableCaptor.getValue();
     assertEquals(createdJob.getJobId().toString(), actual.getId(), "scheduled job had wrong id");
     assertEquals(importType.name(), actual.getGroup(), "scheduled job had wrong group");
@@ -222,10 +222,10 @@ class ImportServiceTest extends ControlPlaneTestBase {
       names = {"RAWLSJSON"},
       mode = Mode.EXCLUDE)
   void failsJobIfSchedulingFails(TypeEnum importType) {
-    // schedulerDao.schedule(), which returns void, returns successfully
+    // schedulerDao.store() throws
     doThrow(new RuntimeException("unit test failme"))
         .when(schedulerDao)
-        .schedule(any(Schedulable.class));
+        .store(any(Schedulable.class));
     // define the import request
     ImportRequestServerModel importRequest = new ImportRequestServerModel(importType, importUri);
     // perform the import request; this will internally hit the exception from the schedulerDao
@@ -251,8 +251,8 @@ class ImportServiceTest extends ControlPlaneTestBase {
     given(mockSamGoogleApi.getArbitraryPetServiceAccountToken(any()))
         .willThrow(new ApiException("token failure for unit test"));
 
-    // schedulerDao.schedule(), which returns void, returns successfully
-    doNothing().when(schedulerDao).schedule(any(Schedulable.class));
+    // schedulerDao.store(), which returns void, returns successfully
+    doNothing().when(schedulerDao).store(any(Schedulable.class));
 
     // define the import request
     ImportRequestServerModel importRequest = new ImportRequestServerModel(importType, importUri);
@@ -271,8 +271,8 @@ class ImportServiceTest extends ControlPlaneTestBase {
       mode = Mode.EXCLUDE)
   void doesNotCreateJobIfImportSourceValidationFails(TypeEnum importType) {
     // Arrange
-    // schedulerDao.schedule(), which returns void, returns successfully
-    doNothing().when(schedulerDao).schedule(any(Schedulable.class));
+    // schedulerDao.store(), which returns void, returns successfully
+    doNothing().when(schedulerDao).store(any(Schedulable.class));
 
     // Act/Assert
     URI importUri =
@@ -300,7 +300,7 @@ class ImportServiceTest extends ControlPlaneTestBase {
     importService.createImport(defaultCollectionId().id(), importRequest);
 
     // Assert
-    verify(schedulerDao).schedule(schedulableCaptor.capture());
+    verify(schedulerDao).store(schedulableCaptor.capture());
     Map<String, Serializable> actualArguments = schedulableCaptor.getValue().getArguments();
 
     ImportJobInput importJobInput = (ImportJobInput) actualArguments.get(ARG_IMPORT_JOB_INPUT);
@@ -22,6 +22,7 @@ import org.databiosphere.workspacedataservice.pubsub.JobStatusUpdate;
 import org.databiosphere.workspacedataservice.service.model.exception.MissingObjectException;
 import org.databiosphere.workspacedataservice.service.model.exception.ValidationException;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.job.JobListOptions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -90,12 +91,13 @@ class JobServiceTest extends JobServiceTestBase {
     // Arrange
     CollectionId collectionId = CollectionId.of(randomUUID());
     // return some jobs when listing this collection
-    when(jobDao.getJobsForCollection(eq(collectionId), any()))
+    when(jobDao.getJobsForCollection(eq(collectionId), any(), any()))
         .thenReturn(makeJobList(collectionId, 2));
 
     // Act
     List<GenericJobServerModel> actual =
-        jobService.getJobsForCollection(collectionId, Optional.of(allStatuses));
+        jobService.getJobsForCollection(
+            collectionId, Optional.of(allStatuses), JobListOptions.all());
 
     // Assert
     // this is verifying permissions only; only smoke-testing correctness of the result
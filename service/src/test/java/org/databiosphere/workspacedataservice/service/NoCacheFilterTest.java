@@ -45,13 +45,38 @@ class NoCacheFilterTest extends ControlPlaneTestBase {
   private UUID instanceId;
 
   @ParameterizedTest(name = "Responses from {0} should not be cached")
+  @ValueSource(strings = {"/${instanceId}/tsv/${version}/${recordType}"})
+  void apiResponsesAreNotCached(String urlTemplate) throws Exception {
+    ResponseEntity<String> response = getApiResponse(urlTemplate);
+
+    // Assert
+    List<String> cacheControlHeaders = response.getHeaders().get("Cache-Control");
+    List<String> pragmaHeaders = response.getHeaders().get("Pragma");
+
+    assertThat(cacheControlHeaders).isEqualTo(List.of("no-store"));
+    assertThat(pragmaHeaders).isEqualTo(List.of("no-cache"));
+  }
+
+  @ParameterizedTest(name = "Responses from {0} should be revalidated before reuse")
   @ValueSource(
       strings = {
         "/${instanceId}/types/${version}",
-        "/${instanceId}/tsv/${version}/${recordType}",
+        "/${instanceId}/types/${version}/${recordType}",
         "/${instanceId}/records/${version}/${recordType}/${recordId}"
       })
-  void apiResponsesAreNotCached(String urlTemplate) throws Exception {
+  void conditionalApiResponsesAreRevalidated(String urlTemplate) throws Exception {
+    ResponseEntity<String> response = getApiResponse(urlTemplate);
+
+    // Assert
+    List<String> cacheControlHeaders = response.getHeaders().get("Cache-Control");
+    List<String> pragmaHeaders = response.getHeaders().get("Pragma");
+
+    assertThat(cacheControlHeaders).isEqualTo(List.of("private, no-cache"));
+    assertThat(pragmaHeaders).isEqualTo(List.of("no-cache"));
+    assertThat(response.getHeaders().getETag()).isNotNull();
+  }
+
+  private ResponseEntity<String> getApiResponse(String urlTemplate) throws Exception {
     // Arrange
     String recordType = "record";
     String recordId = "record_1";
@@ -71,15 +96,8 @@ class NoCacheFilterTest extends ControlPlaneTestBase {
     // Act
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_JSON);
-    ResponseEntity<String> response =
-        restTemplate.exchange(requestUri, HttpMethod.GET, new HttpEntity<>(headers), String.class);
-
-    // Assert
-    List<String> cacheControlHeaders = response.getHeaders().get("Cache-Control");
-    List<String> pragmaHeaders = response.getHeaders().get("Pragma");
-
-    assertThat(cacheControlHeaders).isEqualTo(List.of("no-store"));
-    assertThat(pragmaHeaders).isEqualTo(List.of("no-cache"));
+    return restTemplate.exchange(
+        requestUri, HttpMethod.GET, new HttpEntity<>(headers), String.class);
   }
 
   @ParameterizedTest(name = "Responses from {0} should be cached")
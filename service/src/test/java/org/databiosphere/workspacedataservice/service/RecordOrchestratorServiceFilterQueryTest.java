@@ -481,14 +481,28 @@ class RecordOrchestratorServiceFilterQueryTest extends ControlPlaneTestBase {
     fail("not implemented yet");
   }
 
-  // the "totalRecords" value in the response is the *unfiltered* count. Should it be the filtered
-  // count? Should we add a new value in the response for the filtered count? If a new value,
-  // should we wait for a v1 API to add that?
-  @Disabled("need decisions on the response payload")
+  // "totalRecords" counts the records which match the filter, not all records of the type
   @Test
   void totalRecordsIsCorrect() {
-    // TODO AJ-1238
-    fail("need decisions on the response payload");
+    loadTestData();
+
+    SearchRequest searchRequest = new SearchRequest();
+    searchRequest.setLimit(1);
+    searchRequest.setFilter(
+        Optional.of(new SearchFilter(Optional.empty(), Optional.of("str:\"hello world\""))));
+    RecordQueryResponse resp =
+        recordOrchestratorService.queryForRecords(
+            testCollectionId, TEST_TYPE, VERSION, searchRequest);
+    assertEquals(1, resp.records().size());
+    assertEquals(2, resp.totalRecords());
+
+    searchRequest.setFilter(
+        Optional.of(new SearchFilter(Optional.of(List.of("1", "3", "99")), Optional.empty())));
+    assertEquals(
+        2,
+        recordOrchestratorService
+            .queryForRecords(testCollectionId, TEST_TYPE, VERSION, searchRequest)
+            .totalRecords());
   }
 
   private void filterAndExpect(List<String> expectedIds, SearchRequest searchRequest) {
@@ -1006,7 +1006,8 @@ class RecordOrchestratorServiceTest extends ControlPlaneTestBase {
             "updateAttributeDataType should have thrown an error");
 
     assertEquals(
-        "Unable to convert values for attribute %s to NUMBER".formatted(attributeName),
+        "Unable to convert values for attribute %s to NUMBER for records: row_2"
+            .formatted(attributeName),
         e.getMessage());
 
     assertAttributeDataType(
@@ -1040,7 +1041,8 @@ class RecordOrchestratorServiceTest extends ControlPlaneTestBase {
             "updateAttributeDataType should have thrown an error");
 
     assertEquals(
-        "Unable to convert values for attribute %s to %s".formatted(attributeName, newDataType),
+        "Unable to convert values for attribute %s to %s for records: %s"
+            .formatted(attributeName, newDataType, RECORD_ID),
         e.getMessage());
   }
 
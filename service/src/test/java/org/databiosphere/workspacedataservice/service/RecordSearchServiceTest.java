@@ -0,0 +1,181 @@
+package org.databiosphere.workspacedataservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.RecordDao.RecordCount;
+import org.databiosphere.workspacedataservice.dao.RecordDao.RecordPage;
+import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
+import org.databiosphere.workspacedataservice.search.CountStrategy;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.RelationCollection;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.databiosphere.workspacedataservice.shared.model.SearchRequest;
+import org.databiosphere.workspacedataservice.shared.model.SortDirection;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/** Tests for counting search results with each {@link CountStrategy}. */
+@SpringBootTest
+class RecordSearchServiceTest extends ControlPlaneTestBase {
+  private static final RecordType SAMPLE = RecordType.valueOf("sample");
+  // 20 samples, s00 to s19, of which the 10 with even numbers are frozen
+  private static final int NUM_SAMPLES = 20;
+
+  @Autowired RecordDao recordDao;
+  @Autowired CollectionService collectionService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private UUID collectionId;
+
+  @BeforeEach
+  void setUp() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionId = collectionService.save(workspaceId, "name", "desc").getId();
+    Map<String, DataTypeMapping> schema = Map.of("state", DataTypeMapping.STRING);
+    recordDao.createRecordType(
+        collectionId, schema, SAMPLE, RelationCollection.empty(), "sample_id");
+    List<Record> samples =
+        IntStream.range(0, NUM_SAMPLES)
+            .mapToObj(
+                i ->
+                    new Record(
+                        "s%02d".formatted(i),
+                        SAMPLE,
+                        RecordAttributes.empty()
+                            .putAttribute("state", i % 2 == 0 ? "frozen" : "fresh")))
+            .toList();
+    recordDao.batchUpsert(collectionId, SAMPLE, samples, schema);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @EnumSource(CountStrategy.class)
+  void countsMatchingRecords(CountStrategy strategy) {
+    RecordPage page = search(strategy, 0, "state:frozen", 3, 0);
+
+    assertThat(ids(page)).containsExactly("s00", "s02", "s04");
+    assertEquals(new RecordCount(10, false), page.count());
+    assertEquals(new RecordCount(NUM_SAMPLES, false), search(strategy, 0, null, 3, 0).count());
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @EnumSource(CountStrategy.class)
+  void countsFilterIds(CountStrategy strategy) {
+    SearchRequest searchRequest = searchRequest(10, 0);
+    searchRequest.setFilter(
+        Optional.of(
+            new SearchFilter(Optional.of(List.of("s01", "s05", "nope")), Optional.empty())));
+    RecordPage page =
+        searchService(strategy, 0).queryForRecords(collectionId, SAMPLE, searchRequest);
+
+    assertThat(ids(page)).containsExactly("s01", "s05");
+    assertEquals(new RecordCount(2, false), page.count());
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @EnumSource(CountStrategy.class)
+  void capsCounts(CountStrategy strategy) {
+    RecordPage page = search(strategy, 5, "state:frozen", 3, 0);
+
+    assertThat(ids(page)).containsExactly("s00", "s02", "s04");
+    assertEquals(new RecordCount(5, true), page.count());
+    // exactly at the limit is not capped
+    assertEquals(new RecordCount(10, false), search(strategy, 10, "state:frozen", 3, 0).count());
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @EnumSource(CountStrategy.class)
+  void pagesBeyondTheCountLimit(CountStrategy strategy) {
+    RecordPage page = search(strategy, 5, "state:frozen", 3, 6);
+
+    assertThat(ids(page)).containsExactly("s12", "s14", "s16");
+    assertEquals(new RecordCount(5, true), page.count());
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @EnumSource(CountStrategy.class)
+  void pagesPastTheLastRecord(CountStrategy strategy) {
+    RecordPage page = search(strategy, 0, "state:frozen", 3, 12);
+
+    assertThat(page.records()).isEmpty();
+    assertEquals(new RecordCount(10, false), page.count());
+  }
+
+  @Test
+  void timesCounting() {
+    search(CountStrategy.SEPARATE, 5, "state:frozen", 3, 0);
+    search(CountStrategy.WINDOW, 0, "state:frozen", 3, 0);
+
+    assertEquals(
+        1,
+        meterRegistry
+            .get("wds.search.count")
+            .tags("strategy", "separate", "capped", "true")
+            .timer()
+            .count());
+    assertEquals(
+        1,
+        meterRegistry
+            .get("wds.search.count")
+            .tags("strategy", "window", "capped", "false")
+            .timer()
+            .count());
+  }
+
+  private RecordPage search(
+      CountStrategy strategy, int countLimit, String query, int limit, int offset) {
+    SearchRequest searchRequest = searchRequest(limit, offset);
+    searchRequest.setFilter(
+        Optional.of(new SearchFilter(Optional.empty(), Optional.ofNullable(query))));
+    RecordPage page =
+        searchService(strategy, countLimit).queryForRecords(collectionId, SAMPLE, searchRequest);
+    assertNotNull(page.count());
+    return page;
+  }
+
+  private static SearchRequest searchRequest(int limit, int offset) {
+    return new SearchRequest(limit, offset, SortDirection.ASC);
+  }
+
+  private RecordSearchService searchService(CountStrategy strategy, int countLimit) {
+    return new RecordSearchService(
+        recordDao, new SearchIndexer(recordDao, false), meterRegistry, strategy, countLimit);
+  }
+
+  private static List<String> ids(RecordPage page) {
+    return page.records().stream().map(Record::getId).toList();
+  }
+}
@@ -0,0 +1,199 @@
+package org.databiosphere.workspacedataservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgress;
+import org.databiosphere.workspacedataservice.dataimport.ImportProgressFactory;
+import org.databiosphere.workspacedataservice.generated.ImportRequestServerModel.TypeEnum;
+import org.databiosphere.workspacedataservice.jobexec.JobContextHolder;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.service.model.exception.InvalidRelationException;
+import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class SchemaPlannerTest extends ControlPlaneTestBase {
+  private static final RecordType RECORD_TYPE = RecordType.valueOf("planned");
+  private static final String PRIMARY_KEY = "pk";
+
+  @Autowired DataTypeInferer inferer;
+  @Autowired CollectionService collectionService;
+  @MockitoSpyBean RecordDao recordDao;
+  @Autowired RecordService recordService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+  @Autowired ImportProgressFactory importProgressFactory;
+  @Autowired PlatformTransactionManager transactionManager;
+
+  private UUID collectionId;
+  private SchemaPlanner planner;
+
+  @BeforeEach
+  void beforeEach() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionId = TestUtils.createCollection(collectionService, workspaceId).getId();
+    planner = new SchemaPlanner(recordService, recordDao, inferer, collectionId);
+  }
+
+  @AfterEach
+  void afterEach() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @Test
+  void batchesWhichFitTheTableNeedNoDdlOrSchemaQueries() {
+    writeBatch(Map.of("num", BigDecimal.ONE, "str", "a"));
+    writeBatch(Map.of("num", BigDecimal.TEN, "str", "b"));
+    writeBatch(Map.of("str", "c"));
+
+    // the schema is read once, when the record type is created
+    verify(recordDao, times(1)).getExistingTableSchema(collectionId, RECORD_TYPE);
+    verify(recordDao, never()).alterColumns(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void newColumnsAndWideningsShareOneAlter() {
+    writeBatch(Map.of("num", BigDecimal.ONE));
+
+    Map<String, DataTypeMapping> schema =
+        writeBatch(Map.of("num", "no longer a number", "added", BigDecimal.ONE, "flag", true));
+
+    verify(recordDao, times(1)).alterColumns(any(), any(), any(), any(), any());
+    Map<String, DataTypeMapping> expected =
+        Map.of(
+            "num", DataTypeMapping.STRING,
+            "added", DataTypeMapping.NUMBER,
+            "flag", DataTypeMapping.BOOLEAN);
+    assertEquals(expected, schema);
+    assertEquals(
+        Map.of(
+            PRIMARY_KEY,
+            DataTypeMapping.STRING,
+            "num",
+            DataTypeMapping.STRING,
+            "added",
+            DataTypeMapping.NUMBER,
+            "flag",
+            DataTypeMapping.BOOLEAN),
+        recordDao.getExistingTableSchema(collectionId, RECORD_TYPE));
+  }
+
+  @Test
+  void columnsWhoseTypesFitAreNotAltered() {
+    writeBatch(Map.of("str", "a string"));
+
+    // a number fits in the existing string column
+    Map<String, DataTypeMapping> schema = writeBatch(Map.of("str", BigDecimal.ONE));
+
+    verify(recordDao, never()).alterColumns(any(), any(), any(), any(), any());
+    assertEquals(Map.of("str", DataTypeMapping.STRING), schema);
+  }
+
+  @Test
+  void remembersChangesAcrossBatches() {
+    writeBatch(Map.of("num", BigDecimal.ONE));
+    writeBatch(Map.of("added", "x"));
+    writeBatch(Map.of("num", BigDecimal.TEN, "added", "y"));
+
+    verify(recordDao, times(1)).alterColumns(any(), any(), any(), any(), any());
+    verify(recordDao, times(1)).getExistingTableSchema(collectionId, RECORD_TYPE);
+  }
+
+  @Test
+  void rejectsRelationsToExistingColumns() {
+    writeBatch(Map.of("ref", "plain string"));
+
+    assertThrows(
+        InvalidRelationException.class, () -> writeBatch(Map.of("ref", "terra-wds:/other/1")));
+    verify(recordDao, never()).alterColumns(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void countsAltersForTheImport() {
+    JobContextHolder.init();
+    try (ImportProgress progress = importProgressFactory.start(UUID.randomUUID(), TypeEnum.PFB)) {
+      writeBatch(Map.of("num", BigDecimal.ONE));
+      writeBatch(Map.of("added", "x"));
+      writeBatch(Map.of("another", "y", "num", "widened"));
+      writeBatch(Map.of("num", "z"));
+
+      assertEquals(2, progress.getSchemaAlters());
+    } finally {
+      JobContextHolder.destroy();
+    }
+  }
+
+  @Test
+  void skipsColumnsAnotherWriterAdded() {
+    writeBatch(Map.of("num", BigDecimal.ONE));
+    recordDao.addColumn(collectionId, RECORD_TYPE, "added", DataTypeMapping.STRING);
+
+    Map<String, DataTypeMapping> schema = writeBatch(Map.of("added", "x"));
+
+    assertEquals(Map.of("added", DataTypeMapping.STRING), schema);
+    verify(recordDao, times(1)).getExistingTableSchema(collectionId, RECORD_TYPE);
+  }
+
+  @Test
+  void replansWhenAnotherWriterChangedTheTable() {
+    writeBatch(Map.of("num", BigDecimal.ONE));
+    namedTemplate
+        .getJdbcTemplate()
+        .update(
+            "alter table \"%s\".\"%s\" drop column num"
+                .formatted(collectionId, RECORD_TYPE.getName()));
+
+    // widening the dropped column fails, but leaves the batch's transaction usable
+    Map<String, DataTypeMapping> schema =
+        new TransactionTemplate(transactionManager)
+            .execute(status -> writeBatch(Map.of("num", "no longer a number")));
+
+    assertEquals(Map.of("num", DataTypeMapping.STRING), schema);
+    verify(recordDao, times(2)).alterColumns(any(), any(), any(), any(), any());
+    verify(recordDao, times(2)).getExistingTableSchema(collectionId, RECORD_TYPE);
+    assertEquals(
+        Map.of(PRIMARY_KEY, DataTypeMapping.STRING, "num", DataTypeMapping.STRING),
+        recordDao.getExistingTableSchema(collectionId, RECORD_TYPE));
+  }
+
+  private Map<String, DataTypeMapping> writeBatch(Map<String, Object> attributes) {
+    List<Record> records =
+        List.of(
+            new Record(
+                UUID.randomUUID().toString(), RECORD_TYPE, new RecordAttributes(attributes)));
+    Map<String, DataTypeMapping> schema =
+        planner.createOrModifyRecordType(
+            RECORD_TYPE, inferer.inferTypes(records), records, PRIMARY_KEY);
+    recordDao.batchUpsert(collectionId, RECORD_TYPE, records, schema, PRIMARY_KEY);
+    return schema;
+  }
+}
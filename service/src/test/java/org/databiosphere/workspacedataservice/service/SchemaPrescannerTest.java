@@ -0,0 +1,129 @@
+package org.databiosphere.workspacedataservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.dao.RecordDao;
+import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
+import org.databiosphere.workspacedataservice.recordsink.RecordSink;
+import org.databiosphere.workspacedataservice.recordsink.RecordSinkFactory;
+import org.databiosphere.workspacedataservice.recordsource.RecordSource;
+import org.databiosphere.workspacedataservice.recordsource.RecordSourceFactory;
+import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
+import org.databiosphere.workspacedataservice.shared.model.CollectionId;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
+import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+@DirtiesContext
+@SpringBootTest
+@TestPropertySource(properties = {"twds.write.batch.size=2", "twds.write.prescan.enabled=true"})
+class SchemaPrescannerTest extends ControlPlaneTestBase {
+  private static final RecordType THING_TYPE = RecordType.valueOf("thing");
+  private static final String PRIMARY_KEY = "id";
+  // "num" looks numeric until the third row, which is in the second batch
+  private static final String TSV =
+      """
+      id\tnum\tflag
+      1\t1\ttrue
+      2\t2\tfalse
+      3\tthree\ttrue
+      """;
+
+  @Autowired SchemaPrescanner schemaPrescanner;
+  @Autowired BatchWriteService batchWriteService;
+  @Autowired RecordSourceFactory recordSourceFactory;
+  @Autowired RecordSinkFactory recordSinkFactory;
+  @Autowired CollectionService collectionService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+  @MockitoSpyBean RecordDao recordDao;
+
+  private CollectionId collectionId;
+
+  @BeforeEach
+  void setUp() {
+    WorkspaceId workspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(workspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    collectionId =
+        CollectionId.of(TestUtils.createCollection(collectionService, workspaceId).getId());
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+  }
+
+  @Test
+  void findsTypesAcrossBatches() {
+    PrescannedSchemas prescannedSchemas = schemaPrescanner.prescan(tsvSource());
+
+    assertEquals(
+        Map.of("num", DataTypeMapping.STRING, "flag", DataTypeMapping.BOOLEAN),
+        prescannedSchemas.get(THING_TYPE));
+  }
+
+  @Test
+  void prescannedTypesAvoidWidening() {
+    PrescannedSchemas prescannedSchemas = schemaPrescanner.prescan(tsvSource());
+
+    batchWrite(prescannedSchemas);
+
+    verify(recordDao, never()).alterColumns(any(), any(), any(), any(), any());
+    assertEquals(1, prescannedSchemas.getWideningsAvoided());
+    assertEquals(
+        Map.of(
+            PRIMARY_KEY,
+            DataTypeMapping.STRING,
+            "num",
+            DataTypeMapping.STRING,
+            "flag",
+            DataTypeMapping.BOOLEAN),
+        recordDao.getExistingTableSchema(collectionId.id(), THING_TYPE));
+  }
+
+  @Test
+  void withoutPrescanColumnsAreWidened() {
+    batchWrite(PrescannedSchemas.none());
+
+    verify(recordDao, times(1)).alterColumns(any(), any(), any(), any(), any());
+    assertEquals(
+        DataTypeMapping.STRING,
+        recordDao.getExistingTableSchema(collectionId.id(), THING_TYPE).get("num"));
+  }
+
+  private void batchWrite(PrescannedSchemas prescannedSchemas) {
+    try (RecordSink recordSink = recordSinkFactory.buildRecordSink(collectionId)) {
+      batchWriteService.batchWrite(
+          tsvSource(), recordSink, THING_TYPE, PRIMARY_KEY, prescannedSchemas);
+    }
+  }
+
+  private RecordSource tsvSource() {
+    InputStream inputStream = new ByteArrayInputStream(TSV.getBytes(StandardCharsets.UTF_8));
+    return recordSourceFactory.forTsv(inputStream, THING_TYPE, Optional.of(PRIMARY_KEY));
+  }
+}
@@ -0,0 +1,123 @@
+package org.databiosphere.workspacedataservice.shared.model;
+
+import static org.databiosphere.workspacedataservice.TestTags.SLOW;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmarks holding a batch of a wide table as a list of {@link Record}s and as a {@link
+ * RecordBatch}, logging the heap each retains and the garbage collections building it caused. Heap
+ * is measured as the difference in used heap after forcing a collection, so is approximate.
+ */
+class RecordBatchMemoryBenchmarkTest {
+  private static final Logger logger =
+      LoggerFactory.getLogger(RecordBatchMemoryBenchmarkTest.class);
+  private static final RecordType RECORD_TYPE = RecordType.valueOf("wide");
+  private static final int ROWS = 5000;
+
+  @Tag(SLOW)
+  @ParameterizedTest(name = "{0} columns")
+  @ValueSource(ints = {50, 200})
+  void memoryBenchmark(int columns) {
+    Measurement records = measure(() -> buildRecords(columns));
+    Measurement batch = measure(() -> buildBatch(columns));
+
+    logger.info(
+        "{} rows x {} columns as records: {} MB retained, {} collections, {} ms in GC",
+        ROWS,
+        columns,
+        records.retainedBytes() / (1024 * 1024),
+        records.collections(),
+        records.collectionMillis());
+    logger.info(
+        "{} rows x {} columns as a batch: {} MB retained, {} collections, {} ms in GC",
+        ROWS,
+        columns,
+        batch.retainedBytes() / (1024 * 1024),
+        batch.collections(),
+        batch.collectionMillis());
+
+    assertEquals(ROWS, ((List<?>) records.result()).size());
+    assertEquals(ROWS, ((RecordBatch) batch.result()).size());
+  }
+
+  private static List<Record> buildRecords(int columns) {
+    List<Record> records = new ArrayList<>(ROWS);
+    for (int row = 0; row < ROWS; row++) {
+      RecordAttributes attributes = RecordAttributes.empty();
+      for (int column = 0; column < columns; column++) {
+        attributes.putAttribute(columnName(column), value(row, column));
+      }
+      records.add(new Record(Integer.toString(row), RECORD_TYPE, attributes));
+    }
+    return records;
+  }
+
+  private static RecordBatch buildBatch(int columns) {
+    RecordBatch batch = new RecordBatch(RECORD_TYPE, ROWS);
+    for (int row = 0; row < ROWS; row++) {
+      int index = batch.addRecord(Integer.toString(row));
+      for (int column = 0; column < columns; column++) {
+        batch.put(index, columnName(column), value(row, column));
+      }
+    }
+    return batch;
+  }
+
+  // as a source reading a file would, create a new name for each row's attribute
+  private static String columnName(int column) {
+    return new StringBuilder("column_").append(column).toString();
+  }
+
+  // a mix of the value types imports produce: whole numbers, booleans, strings and nulls
+  private static Object value(int row, int column) {
+    return switch (column % 4) {
+      case 0 -> BigDecimal.valueOf((long) row * column);
+      case 1 -> row % 2 == 0;
+      case 2 -> "value " + row;
+      default -> row % 3 == 0 ? null : BigDecimal.valueOf(row);
+    };
+  }
+
+  private record Measurement(
+      Object result, long retainedBytes, long collections, long collectionMillis) {}
+
+  private static Measurement measure(Supplier<Object> build) {
+    long usedBefore = usedHeapAfterGc();
+    long collectionsBefore = collectionCount();
+    long millisBefore = collectionMillis();
+    Object result = build.get();
+    long collections = collectionCount() - collectionsBefore;
+    long millis = collectionMillis() - millisBefore;
+    long retained = usedHeapAfterGc() - usedBefore;
+    return new Measurement(result, retained, collections, millis);
+  }
+
+  private static long usedHeapAfterGc() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long collectionCount() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream()
+        .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+        .sum();
+  }
+
+  private static long collectionMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream()
+        .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+        .sum();
+  }
+}
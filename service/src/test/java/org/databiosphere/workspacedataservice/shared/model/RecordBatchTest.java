@@ -0,0 +1,136 @@
+package org.databiosphere.workspacedataservice.shared.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch.ColumnStorage;
+import org.junit.jupiter.api.Test;
+
+class RecordBatchTest {
+  private static final RecordType THING = RecordType.valueOf("thing");
+  private static final RecordType OTHER = RecordType.valueOf("other");
+
+  @Test
+  void storesColumnsByType() {
+    RecordBatch batch = new RecordBatch(THING, 1);
+    for (int i = 0; i < 40; i++) {
+      int row = batch.addRecord("id" + i);
+      batch.put(row, "flag", i % 2 == 0);
+      batch.put(row, "count", BigDecimal.valueOf(i));
+      batch.put(row, "name", "name" + i);
+    }
+
+    assertEquals(ColumnStorage.BOOLEAN, batch.getColumnStorage("flag"));
+    assertEquals(ColumnStorage.LONG, batch.getColumnStorage("count"));
+    assertEquals(ColumnStorage.OBJECT, batch.getColumnStorage("name"));
+    assertEquals(40, batch.size());
+    assertEquals(List.of("flag", "count", "name"), batch.getColumnNames());
+    assertEquals(false, batch.getValue(39, batch.getColumnIndex("flag")));
+    assertEquals(BigDecimal.valueOf(39), batch.getValue(39, batch.getColumnIndex("count")));
+    assertEquals("name39", batch.getValue(39, batch.getColumnIndex("name")));
+  }
+
+  @Test
+  void promotesColumnsWhenTypesMix() {
+    RecordBatch batch = new RecordBatch(THING);
+    batch.put(batch.addRecord("1"), "mixed", BigDecimal.ONE);
+    batch.put(batch.addRecord("2"), "mixed", new BigDecimal("1.50"));
+    batch.put(batch.addRecord("3"), "mixed", "three");
+    batch.put(batch.addRecord("4"), "mixed", true);
+
+    assertEquals(ColumnStorage.OBJECT, batch.getColumnStorage("mixed"));
+    int column = batch.getColumnIndex("mixed");
+    assertEquals(BigDecimal.ONE, batch.getValue(0, column));
+    // scale survives the round trip
+    assertEquals(new BigDecimal("1.50"), batch.getValue(1, column));
+    assertEquals("three", batch.getValue(2, column));
+    assertEquals(true, batch.getValue(3, column));
+  }
+
+  @Test
+  void distinguishesNullFromAbsent() {
+    RecordBatch batch = new RecordBatch(THING);
+    int withNull = batch.addRecord("1");
+    batch.put(withNull, "attr", null);
+    int without = batch.addRecord("2");
+    int withValue = batch.addRecord("3");
+    batch.put(withValue, "attr", BigDecimal.TEN);
+
+    int column = batch.getColumnIndex("attr");
+    assertTrue(batch.hasValue(withNull, column));
+    assertNull(batch.getValue(withNull, column));
+    assertFalse(batch.hasValue(without, column));
+    assertFalse(batch.hasAttributes(without));
+    assertEquals(ColumnStorage.LONG, batch.getColumnStorage("attr"));
+    assertEquals(-1, batch.getColumnIndex("missing"));
+
+    List<Record> records = batch.toRecords();
+    assertTrue(records.get(0).attributeSet().stream().anyMatch(e -> e.getKey().equals("attr")));
+    assertTrue(records.get(1).attributeSet().isEmpty());
+  }
+
+  @Test
+  void roundTripsRecords() {
+    Map<String, Object> withNull = new HashMap<>();
+    withNull.put("str", "b");
+    withNull.put("num", null);
+    List<Record> records =
+        List.of(
+            new Record("1", THING, new RecordAttributes(Map.of("str", "a", "num", BigDecimal.ONE))),
+            new Record("2", THING, new RecordAttributes(withNull)),
+            new Record("3", THING, RecordAttributes.empty()),
+            new Record("4", THING, new RecordAttributes(Map.of("arr", List.of("x", "y")))));
+
+    List<Record> roundTripped = RecordBatch.of(THING, records).toRecords();
+
+    assertEquals(records, roundTripped);
+    assertEquals(
+        records.stream().map(Record::getAttributes).toList(),
+        roundTripped.stream().map(Record::getAttributes).toList());
+  }
+
+  @Test
+  void rejectsRecordsOfOtherTypes() {
+    List<Record> records = List.of(new Record("1", OTHER));
+
+    assertThrows(IllegalArgumentException.class, () -> RecordBatch.of(THING, records));
+  }
+
+  @Test
+  void groupsByTypeInOrderOfAppearance() {
+    List<Record> records =
+        List.of(
+            new Record("1", OTHER),
+            new Record("2", THING),
+            new Record("3", OTHER),
+            new Record("4", THING));
+
+    List<RecordBatch> batches = RecordBatch.groupByType(records);
+
+    assertThat(batches).extracting(RecordBatch::getRecordType).containsExactly(OTHER, THING);
+    assertThat(batches.get(0).toRecords()).extracting(Record::getId).containsExactly("1", "3");
+    assertThat(batches.get(1).toRecords()).extracting(Record::getId).containsExactly("2", "4");
+  }
+
+  @Test
+  void dropsEmptyRecords() {
+    RecordBatch batch = new RecordBatch(THING);
+    batch.addRecord("empty");
+    batch.put(batch.addRecord("withNull"), "ref", null);
+    batch.put(batch.addRecord("withValue"), "ref", "terra-wds:/other/1");
+
+    RecordBatch withoutEmpty = batch.withoutEmptyRecords();
+
+    assertThat(withoutEmpty.toRecords())
+        .extracting(Record::getId)
+        .containsExactly("withNull", "withValue");
+  }
+}
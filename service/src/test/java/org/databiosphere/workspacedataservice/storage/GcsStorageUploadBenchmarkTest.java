@@ -0,0 +1,61 @@
+package org.databiosphere.workspacedataservice.storage;
+
+import static org.databiosphere.workspacedataservice.TestTags.SLOW;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Benchmarks uploading blobs of increasing size to the in-memory {@link LocalStorageHelper}
+ * storage, in a single stream and as parallel composite uploads, logging the elapsed time of each.
+ * Composing is emulated by {@link LocalComposingStorage}. As the storage is in memory, this
+ * measures the overhead of splitting, composing and cleaning up parts rather than the throughput
+ * gained against GCS.
+ */
+class GcsStorageUploadBenchmarkTest {
+  private static final Logger logger = LoggerFactory.getLogger(GcsStorageUploadBenchmarkTest.class);
+  private static final String BUCKET_NAME = "test-bucket";
+  // FakeStorageRpc can't write more than one chunk in a single stream; see GcsStorageConfig
+  private static final DataSize CHUNK_SIZE = DataSize.ofMegabytes(64);
+  private static final DataSize PART_SIZE = DataSize.ofMegabytes(1);
+  private static final int WRITE_SIZE = 8192;
+
+  @Tag(SLOW)
+  @ParameterizedTest(name = "{0} MB")
+  @ValueSource(ints = {1, 4, 16})
+  void uploadBenchmark(int megabytes) throws IOException {
+    byte[] contents = new byte[(int) DataSize.ofMegabytes(megabytes).toBytes()];
+    new Random(megabytes).nextBytes(contents);
+
+    for (int parallelism : new int[] {1, 4, 8}) {
+      Storage storage = LocalComposingStorage.create();
+      GcsStorage gcsStorage =
+          new GcsStorageImpl(storage, BUCKET_NAME, CHUNK_SIZE, parallelism, PART_SIZE);
+
+      long start = System.nanoTime();
+      try (OutputStream stream = gcsStorage.getOutputStream("benchmark.json")) {
+        for (int offset = 0; offset < contents.length; offset += WRITE_SIZE) {
+          stream.write(contents, offset, Math.min(WRITE_SIZE, contents.length - offset));
+        }
+      }
+      logger.info(
+          "Uploaded {} MB with parallelism {} in {} ms",
+          megabytes,
+          parallelism,
+          (System.nanoTime() - start) / 1_000_000);
+
+      assertArrayEquals(contents, storage.readAllBytes(BlobId.of(BUCKET_NAME, "benchmark.json")));
+    }
+  }
+}
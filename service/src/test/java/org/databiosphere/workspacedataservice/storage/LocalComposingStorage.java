@@ -0,0 +1,39 @@
+package org.databiosphere.workspacedataservice.storage;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.cloud.storage.Storage.ComposeRequest.SourceBlob;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * The in-memory {@link LocalStorageHelper} storage, with compose - which its FakeStorageRpc does
+ * not implement - emulated by concatenating the sources into the target. Being a Mockito spy, calls
+ * to it can be verified or made to fail.
+ */
+final class LocalComposingStorage {
+  private LocalComposingStorage() {}
+
+  static Storage create() {
+    Storage storage = spy(LocalStorageHelper.customOptions(false).getService());
+    doAnswer(
+            invocation -> {
+              ComposeRequest request = invocation.getArgument(0);
+              ByteArrayOutputStream composed = new ByteArrayOutputStream();
+              for (SourceBlob source : request.getSourceBlobs()) {
+                composed.writeBytes(
+                    storage.readAllBytes(
+                        BlobId.of(request.getTarget().getBucket(), source.getName())));
+              }
+              return storage.create(request.getTarget(), composed.toByteArray());
+            })
+        .when(storage)
+        .compose(any());
+    return storage;
+  }
+}
@@ -0,0 +1,205 @@
+package org.databiosphere.workspacedataservice.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.cloud.storage.StorageException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.springframework.util.unit.DataSize;
+
+class ParallelCompositeOutputStreamTest {
+  private static final String BUCKET_NAME = "test-bucket";
+  private static final BlobId TARGET = BlobId.of(BUCKET_NAME, "target.json");
+  private static final DataSize PART_SIZE = DataSize.ofKilobytes(1);
+
+  private Storage storage;
+
+  @BeforeEach
+  void setUp() {
+    storage = LocalComposingStorage.create();
+  }
+
+  @Test
+  void uploadsSmallBlobsDirectly() throws IOException {
+    byte[] contents = randomBytes(100);
+
+    upload(contents, 4);
+
+    assertThat(storage.readAllBytes(TARGET)).isEqualTo(contents);
+    verify(storage, never()).compose(any());
+    assertThat(blobNames()).containsExactly(TARGET.getName());
+  }
+
+  @Test
+  void uploadsEmptyBlobs() throws IOException {
+    upload(new byte[0], 4);
+
+    assertThat(storage.readAllBytes(TARGET)).isEmpty();
+  }
+
+  @Test
+  void composesParts() throws IOException {
+    byte[] contents = randomBytes(10_000);
+
+    upload(contents, 4);
+
+    assertThat(storage.readAllBytes(TARGET)).isEqualTo(contents);
+    verify(storage).compose(any());
+    // the parts are deleted once composed
+    assertThat(blobNames()).containsExactly(TARGET.getName());
+  }
+
+  @Test
+  void composesManyPartsInRounds() throws IOException {
+    // with parallelism 2, parts grow from 1KB to 4KB after four parts: about 50 parts in all
+    byte[] contents = randomBytes(200_000);
+
+    upload(contents, 2);
+
+    assertThat(storage.readAllBytes(TARGET)).isEqualTo(contents);
+    // two intermediate blobs, then the target
+    verify(storage, times(3)).compose(any(ComposeRequest.class));
+    assertThat(blobNames()).containsExactly(TARGET.getName());
+  }
+
+  @Test
+  void uploadsPartsOnNamedDaemonThreads() throws IOException {
+    List<Thread> uploaders = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(
+            invocation -> {
+              uploaders.add(Thread.currentThread());
+              return invocation.callRealMethod();
+            })
+        .when(storage)
+        .create(argThat(isPart(0)), any(byte[].class), anyInt(), anyInt());
+
+    upload(randomBytes(10_000), 4);
+
+    assertThat(uploaders)
+        .singleElement()
+        .satisfies(
+            thread -> {
+              assertThat(thread.getName()).startsWith("gcs-part-upload-");
+              assertThat(thread.isDaemon()).isTrue();
+            });
+  }
+
+  @Test
+  void growsParts() {
+    var stream = new ParallelCompositeOutputStream(storage, TARGET, 4, PART_SIZE);
+
+    assertThat(stream.partSize(0)).isEqualTo(1024);
+    assertThat(stream.partSize(3)).isEqualTo(1024);
+    assertThat(stream.partSize(4)).isEqualTo(2048);
+    assertThat(stream.partSize(8)).isEqualTo(4096);
+    assertThat(stream.partSize(1000))
+        .isEqualTo(1024 * ParallelCompositeOutputStream.MAX_PART_SIZE_GROWTH);
+  }
+
+  @Test
+  void retriesFailedParts() throws IOException {
+    doThrow(new StorageException(503, "unavailable"))
+        .doCallRealMethod()
+        .when(storage)
+        .create(argThat(isPart(1)), any(byte[].class), anyInt(), anyInt());
+    byte[] contents = randomBytes(10_000);
+
+    upload(contents, 4);
+
+    assertThat(storage.readAllBytes(TARGET)).isEqualTo(contents);
+    verify(storage, times(2)).create(argThat(isPart(1)), any(byte[].class), anyInt(), anyInt());
+    assertThat(blobNames()).containsExactly(TARGET.getName());
+  }
+
+  @Test
+  void failsAndCleansUpWhenAPartFails() {
+    doThrow(new StorageException(403, "forbidden"))
+        .when(storage)
+        .create(argThat(isPart(2)), any(byte[].class), anyInt(), anyInt());
+    byte[] contents = randomBytes(10_000);
+
+    assertThatExceptionOfType(IOException.class)
+        .isThrownBy(() -> upload(contents, 4))
+        .withMessageContaining("forbidden");
+
+    // the non-retryable failure is not retried
+    verify(storage).create(argThat(isPart(2)), any(byte[].class), anyInt(), anyInt());
+    verify(storage, never()).compose(any());
+    assertThat(blobNames()).isEmpty();
+  }
+
+  @Test
+  void failsWhenComposingFails() {
+    doThrow(new StorageException(400, "bad compose")).when(storage).compose(any());
+
+    assertThatExceptionOfType(IOException.class)
+        .isThrownBy(() -> upload(randomBytes(10_000), 4))
+        .withMessageContaining("bad compose");
+    assertThat(blobNames()).isEmpty();
+  }
+
+  @Test
+  void closesOnce() throws IOException {
+    OutputStream stream = new ParallelCompositeOutputStream(storage, TARGET, 4, PART_SIZE);
+    stream.write(randomBytes(10));
+    stream.close();
+    stream.close();
+
+    verify(storage, times(1)).create(any(BlobInfo.class), any(byte[].class), anyInt(), anyInt());
+    assertThatExceptionOfType(IOException.class).isThrownBy(() -> stream.write(1));
+  }
+
+  private void upload(byte[] contents, int parallelism) throws IOException {
+    // write in uneven slices, and a byte at a time, so parts don't line up with writes
+    try (OutputStream stream =
+        new ParallelCompositeOutputStream(storage, TARGET, parallelism, PART_SIZE)) {
+      int offset = 0;
+      while (offset < contents.length) {
+        int length = Math.min(333, contents.length - offset);
+        stream.write(contents, offset, length);
+        offset += length;
+        if (offset < contents.length) {
+          stream.write(contents[offset++]);
+        }
+      }
+    }
+  }
+
+  private static ArgumentMatcher<BlobInfo> isPart(int index) {
+    return info -> info != null && info.getName().endsWith("part-%05d".formatted(index));
+  }
+
+  private Iterable<String> blobNames() {
+    return StreamSupport.stream(storage.list(BUCKET_NAME).iterateAll().spliterator(), false)
+        .map(Blob::getName)
+        .toList();
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -8,7 +8,6 @@ import static org.mockito.Mockito.verify;
 
 import jakarta.annotation.Nullable;
 import java.io.IOException;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.databiosphere.workspacedataservice.TestUtils;
@@ -27,7 +26,7 @@ import org.databiosphere.workspacedataservice.service.model.AttributeSchema;
 import org.databiosphere.workspacedataservice.service.model.DataTypeMapping;
 import org.databiosphere.workspacedataservice.service.model.RecordTypeSchema;
 import org.databiosphere.workspacedataservice.shared.model.CollectionId;
-import org.databiosphere.workspacedataservice.shared.model.Record;
+import org.databiosphere.workspacedataservice.shared.model.RecordBatch;
 import org.databiosphere.workspacedataservice.shared.model.RecordType;
 import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
 import org.databiosphere.workspacedataservice.workspace.WorkspaceDataTableType;
@@ -35,7 +34,6 @@ import org.databiosphere.workspacedataservice.workspace.WorkspaceRecord;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
@@ -114,10 +112,11 @@ id\tmyColumn
 
     // we should write three batches
     verify(recordService, times(3))
-        .batchUpsert(eq(collectionId), eq(THING_TYPE), any(), any(), eq(primaryKey));
+        .batchUpsert(
+            eq(collectionId), eq(THING_TYPE), any(RecordBatch.class), any(), eq(primaryKey));
 
     // and we should have inferred the schema three times as well
-    verify(inferer, times(3)).inferTypes(ArgumentMatchers.<List<Record>>any());
+    verify(inferer, times(3)).inferTypes(any(RecordBatch.class));
 
     // retrieve the final record schema
     RecordTypeSchema actualRecordSchema =
@@ -0,0 +1,234 @@
+package org.databiosphere.workspacedataservice.workspace;
+
+import static org.databiosphere.workspacedataservice.TestTags.SLOW;
+import static org.databiosphere.workspacedataservice.dao.SqlUtils.quote;
+import static org.databiosphere.workspacedataservice.service.RecordUtils.VERSION;
+import static org.databiosphere.workspacedataservice.service.RelationUtils.createRelationString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
+import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.WorkspaceInitCloneServerModel;
+import org.databiosphere.workspacedataservice.generated.WorkspaceInitServerModel;
+import org.databiosphere.workspacedataservice.process.LocalProcessLauncher;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.RecordOrchestratorService;
+import org.databiosphere.workspacedataservice.service.WorkspaceService;
+import org.databiosphere.workspacedataservice.service.model.exception.LaunchProcessException;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordRequest;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Benchmarks cloning a synthetic collection with {@link WorkspaceCloner} against the pg_dump/psql
+ * path used by the older backup and restore, logging the elapsed time of each. Opt-in, since it is
+ * only meaningful at scale: set WDS_CLONE_BENCHMARK_ROWS to the number of samples to generate, e.g.
+ * 10000000 for a collection of about 3 GB. The pg_dump half is skipped unless pg_dump and psql are
+ * on the PATH.
+ */
+@DirtiesContext
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "WDS_CLONE_BENCHMARK_ROWS", matches = "[0-9]+")
+class WorkspaceClonerBenchmarkTest extends ControlPlaneTestBase {
+  private static final Logger logger = LoggerFactory.getLogger(WorkspaceClonerBenchmarkTest.class);
+  private static final RecordType SAMPLE = RecordType.valueOf("sample");
+  private static final RecordType PARTICIPANT = RecordType.valueOf("participant");
+
+  @Autowired CollectionService collectionService;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+  @Autowired RecordOrchestratorService recordOrchestratorService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired WorkspaceService workspaceService;
+  // the clone job is run by the benchmark, rather than by Quartz
+  @MockitoBean SchedulerDao schedulerDao;
+
+  @Value("${env.wds.db.host}")
+  String dbHost;
+
+  @Value("${env.wds.db.port}")
+  String dbPort;
+
+  @Value("${env.wds.db.name}")
+  String dbName;
+
+  @Value("${env.wds.db.user}")
+  String dbUser;
+
+  @Value("${env.wds.db.password}")
+  String dbPassword;
+
+  @TempDir Path tempDir;
+
+  private String restoredSchema;
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+    namedTemplate.getJdbcTemplate().update("delete from sys_wds.clone");
+    if (restoredSchema != null) {
+      namedTemplate
+          .getJdbcTemplate()
+          .update("drop schema if exists " + restoredSchema + " cascade");
+    }
+  }
+
+  @Tag(SLOW)
+  @Test
+  void cloneSyntheticCollection() throws IOException {
+    long numSamples = Long.parseLong(System.getenv("WDS_CLONE_BENCHMARK_ROWS"));
+    WorkspaceId sourceWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(sourceWorkspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    UUID collectionId =
+        collectionService
+            .createDefaultCollection(sourceWorkspaceId)
+            .collectionServerModel()
+            .getId();
+    generateRecords(collectionId, numSamples);
+    String size =
+        namedTemplate.queryForObject(
+            "select pg_size_pretty(sum(pg_total_relation_size(c.oid))) from pg_class c "
+                + "join pg_namespace n on n.oid = c.relnamespace "
+                + "where n.nspname = :schema and c.relkind = 'r'",
+            new MapSqlParameterSource("schema", collectionId.toString()),
+            String.class);
+    logger.info("Generated {} samples in a collection of {}", numSamples, size);
+
+    // in-database clone
+    WorkspaceId targetWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+    long start = System.nanoTime();
+    GenericJobServerModel job =
+        workspaceService.initWorkspace(
+            targetWorkspaceId,
+            new WorkspaceInitServerModel()
+                .clone(new WorkspaceInitCloneServerModel(sourceWorkspaceId.id())));
+    workspaceService.runCloneJob(job.getJobId(), targetWorkspaceId, sourceWorkspaceId);
+    logElapsed("in-database clone", start);
+    assertEquals(GenericJobServerModel.StatusEnum.QUEUED, job.getStatus());
+
+    // pg_dump the collection's schema, then restore it under another name with psql
+    assumeTrue(
+        commandExists("pg_dump") && commandExists("psql"), "pg_dump and psql are not installed");
+    Path dump = tempDir.resolve("dump.sql");
+    Path restore = tempDir.resolve("restore.sql");
+    restoredSchema = quote(UUID.randomUUID().toString());
+    start = System.nanoTime();
+    run(
+        List.of(
+            "pg_dump", "--schema=" + collectionId, "--no-owner", "--file=" + dump, connection()));
+    rewriteSchema(dump, restore, quote(collectionId.toString()), restoredSchema);
+    run(List.of("psql", "--quiet", "-v", "ON_ERROR_STOP=1", "--file=" + restore, connection()));
+    logElapsed("pg_dump and psql", start);
+  }
+
+  // a few samples' worth of schema through the API, then the rest in bulk
+  private void generateRecords(UUID collectionId, long numSamples) {
+    recordOrchestratorService.upsertSingleRecord(
+        collectionId,
+        VERSION,
+        SAMPLE,
+        "sample-0",
+        Optional.empty(),
+        new RecordRequest(
+            RecordAttributes.empty()
+                .putAttribute("name", "sample")
+                .putAttribute("depth", 0)
+                .putAttribute("metadata", Map.of("i", 0))
+                .putAttribute("tags", List.of("a", "b"))));
+    recordOrchestratorService.upsertSingleRecord(
+        collectionId,
+        VERSION,
+        PARTICIPANT,
+        "participant-0",
+        Optional.empty(),
+        new RecordRequest(
+            RecordAttributes.empty()
+                .putAttribute("sample", createRelationString(SAMPLE, "sample-0"))));
+    String schema = quote(collectionId.toString());
+    MapSqlParameterSource params = new MapSqlParameterSource("numSamples", numSamples);
+    namedTemplate.update(
+        "insert into "
+            + schema
+            + ".sample (sys_name, name, depth, metadata, tags) "
+            + "select 'sample-' || i, md5(i::text) || md5((i * 7)::text), i, "
+            + "jsonb_build_object('i', i, 'hash', md5(i::text)), "
+            + "array[md5(i::text), md5((i + 1)::text)] "
+            + "from generate_series(1, :numSamples) i",
+        params);
+    namedTemplate.update(
+        "insert into "
+            + schema
+            + ".participant (sys_name, sample) "
+            + "select 'participant-' || i, 'sample-' || i "
+            + "from generate_series(1, :numSamples / 10) i",
+        params);
+    namedTemplate.getJdbcTemplate().update("analyze " + schema + ".sample");
+  }
+
+  private String connection() {
+    return "postgresql://%s@%s:%s/%s".formatted(dbUser, dbHost, dbPort, dbName);
+  }
+
+  private void run(List<String> command) {
+    LocalProcessLauncher launcher = new LocalProcessLauncher();
+    launcher.launchProcess(command, Map.of("PGPASSWORD", dbPassword));
+    assertEquals(0, launcher.waitForTerminate(), () -> command.get(0) + " failed");
+  }
+
+  private static boolean commandExists(String command) {
+    try {
+      LocalProcessLauncher launcher = new LocalProcessLauncher();
+      launcher.launchProcess(List.of(command, "--version"), Map.of());
+      return launcher.waitForTerminate() == 0;
+    } catch (LaunchProcessException e) {
+      return false;
+    }
+  }
+
+  // stream the dump, rather than reading it into memory; it may be several GB
+  private static void rewriteSchema(Path from, Path to, String fromSchema, String toSchema)
+      throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(from, StandardCharsets.UTF_8);
+        BufferedWriter writer = Files.newBufferedWriter(to, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        writer.write(line.replace(fromSchema, toSchema));
+        writer.newLine();
+      }
+    }
+  }
+
+  private static void logElapsed(String operation, long startNanos) {
+    logger.info("{} took {} ms", operation, (System.nanoTime() - startNanos) / 1_000_000);
+  }
+}
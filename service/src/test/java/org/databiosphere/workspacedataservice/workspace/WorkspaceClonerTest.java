@@ -0,0 +1,291 @@
+package org.databiosphere.workspacedataservice.workspace;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.databiosphere.workspacedataservice.service.RecordUtils.VERSION;
+import static org.databiosphere.workspacedataservice.service.RelationUtils.createRelationString;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.databiosphere.workspacedataservice.TestUtils;
+import org.databiosphere.workspacedataservice.common.ControlPlaneTestBase;
+import org.databiosphere.workspacedataservice.dao.JobDao;
+import org.databiosphere.workspacedataservice.dao.SchedulerDao;
+import org.databiosphere.workspacedataservice.dao.WorkspaceRepository;
+import org.databiosphere.workspacedataservice.fulltextsearch.FullTextSearchService;
+import org.databiosphere.workspacedataservice.generated.CollectionServerModel;
+import org.databiosphere.workspacedataservice.generated.GenericJobServerModel;
+import org.databiosphere.workspacedataservice.generated.WorkspaceInitCloneServerModel;
+import org.databiosphere.workspacedataservice.generated.WorkspaceInitServerModel;
+import org.databiosphere.workspacedataservice.service.CollectionService;
+import org.databiosphere.workspacedataservice.service.RecordOrchestratorService;
+import org.databiosphere.workspacedataservice.service.WorkspaceService;
+import org.databiosphere.workspacedataservice.shared.model.RecordAttributes;
+import org.databiosphere.workspacedataservice.shared.model.RecordRequest;
+import org.databiosphere.workspacedataservice.shared.model.RecordResponse;
+import org.databiosphere.workspacedataservice.shared.model.RecordType;
+import org.databiosphere.workspacedataservice.shared.model.Schedulable;
+import org.databiosphere.workspacedataservice.shared.model.SearchFilter;
+import org.databiosphere.workspacedataservice.shared.model.SearchRequest;
+import org.databiosphere.workspacedataservice.shared.model.WorkspaceId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.server.ResponseStatusException;
+
+/** Tests for cloning workspaces inside Postgres; see {@link WorkspaceCloner}. */
+@DirtiesContext
+@SpringBootTest
+class WorkspaceClonerTest extends ControlPlaneTestBase {
+  private static final RecordType SAMPLE = RecordType.valueOf("sample");
+  private static final RecordType PARTICIPANT = RecordType.valueOf("participant");
+  private static final RecordType THING = RecordType.valueOf("thing");
+
+  @Autowired CollectionService collectionService;
+  @Autowired FullTextSearchService fullTextSearchService;
+  @Autowired NamedParameterJdbcTemplate namedTemplate;
+  @Autowired RecordOrchestratorService recordOrchestratorService;
+  @Autowired WorkspaceRepository workspaceRepository;
+  @Autowired WorkspaceService workspaceService;
+  @Autowired WorkspaceInitQuartzJob workspaceInitQuartzJob;
+  @Autowired JobDao jobDao;
+  // clones are run by the tests, rather than by Quartz
+  @MockitoBean SchedulerDao schedulerDao;
+
+  private WorkspaceId sourceWorkspaceId;
+  private UUID otherCollectionId;
+
+  @BeforeEach
+  void setUp() {
+    sourceWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+    workspaceRepository.save(
+        new WorkspaceRecord(sourceWorkspaceId, WorkspaceDataTableType.WDS, /* newFlag= */ true));
+    UUID defaultCollectionId =
+        collectionService
+            .createDefaultCollection(sourceWorkspaceId)
+            .collectionServerModel()
+            .getId();
+    otherCollectionId = collectionService.save(sourceWorkspaceId, "other", "desc").getId();
+
+    upsert(
+        defaultCollectionId,
+        SAMPLE,
+        "s1",
+        RecordAttributes.empty().putAttribute("depth", 12).putAttribute("tags", List.of("a")));
+    upsert(defaultCollectionId, SAMPLE, "s2", RecordAttributes.empty().putAttribute("depth", 3));
+    upsert(
+        defaultCollectionId,
+        PARTICIPANT,
+        "p1",
+        RecordAttributes.empty()
+            .putAttribute("sample", createRelationString(SAMPLE, "s1"))
+            .putAttribute(
+                "samples",
+                List.of(createRelationString(SAMPLE, "s1"), createRelationString(SAMPLE, "s2"))));
+    upsert(otherCollectionId, THING, "t1", RecordAttributes.empty().putAttribute("name", "x"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    TestUtils.cleanAllCollections(collectionService, namedTemplate);
+    TestUtils.cleanAllWorkspaces(namedTemplate);
+    namedTemplate.getJdbcTemplate().update("delete from sys_wds.clone");
+  }
+
+  @Test
+  void clonesAllCollections() {
+    WorkspaceId targetWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+
+    GenericJobServerModel job = initClone(targetWorkspaceId);
+
+    assertEquals(GenericJobServerModel.StatusEnum.SUCCEEDED, job.getStatus());
+
+    List<CollectionServerModel> collections = collectionService.list(targetWorkspaceId);
+    assertEquals(
+        List.of("default", "other"),
+        collections.stream().map(CollectionServerModel::getName).sorted().toList());
+    UUID targetDefault = targetWorkspaceId.id();
+    UUID targetOther =
+        collections.stream()
+            .filter(collection -> collection.getName().equals("other"))
+            .findFirst()
+            .orElseThrow()
+            .getId();
+
+    // schemas, including primary keys and relations, match the source
+    assertEquals(
+        recordOrchestratorService.describeAllRecordTypes(sourceWorkspaceId.id(), VERSION),
+        recordOrchestratorService.describeAllRecordTypes(targetDefault, VERSION));
+    assertEquals(
+        recordOrchestratorService.describeAllRecordTypes(otherCollectionId, VERSION),
+        recordOrchestratorService.describeAllRecordTypes(targetOther, VERSION));
+
+    // and so do records, including relation arrays
+    assertThat(recordOrchestratorService.getSingleRecord(targetDefault, VERSION, PARTICIPANT, "p1"))
+        .usingRecursiveComparison()
+        .isEqualTo(
+            recordOrchestratorService.getSingleRecord(
+                sourceWorkspaceId.id(), VERSION, PARTICIPANT, "p1"));
+
+    // foreign keys were added once the data was copied
+    assertThrows(
+        ResponseStatusException.class,
+        () -> recordOrchestratorService.deleteSingleRecord(targetDefault, VERSION, SAMPLE, "s1"));
+
+    // 4 tables: sample, participant, the join table for participant.samples, and thing
+    Map<String, Object> progress =
+        namedTemplate.queryForMap(
+            "select status, clonestatus, targetworkspaceid, tablestotal, tablescopied, rowscopied "
+                + "from sys_wds.clone where id = :id",
+            new MapSqlParameterSource("id", job.getJobId()));
+    assertEquals("SUCCEEDED", progress.get("status"));
+    assertEquals("COPYSUCCEEDED", progress.get("clonestatus"));
+    assertEquals(targetWorkspaceId.id(), progress.get("targetworkspaceid"));
+    assertEquals(4, progress.get("tablestotal"));
+    assertEquals(4, progress.get("tablescopied"));
+    assertEquals(6L, progress.get("rowscopied"));
+  }
+
+  @Test
+  void copiesAreIndependentOfTheirSource() {
+    WorkspaceId targetWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+    initClone(targetWorkspaceId);
+    RecordResponse copied =
+        recordOrchestratorService.getSingleRecord(targetWorkspaceId.id(), VERSION, SAMPLE, "s1");
+
+    upsert(
+        sourceWorkspaceId.id(), SAMPLE, "s1", RecordAttributes.empty().putAttribute("depth", 99));
+
+    assertThat(
+            recordOrchestratorService.getSingleRecord(
+                targetWorkspaceId.id(), VERSION, SAMPLE, "s1"))
+        .usingRecursiveComparison()
+        .isEqualTo(copied);
+  }
+
+  @Test
+  void copiesFullTextSearch() {
+    fullTextSearchService.enable(sourceWorkspaceId.id(), SAMPLE);
+    WorkspaceId targetWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+    initClone(targetWorkspaceId);
+
+    // copied records keep their index, and the copy's trigger indexes new ones
+    upsert(
+        targetWorkspaceId.id(),
+        SAMPLE,
+        "s3",
+        RecordAttributes.empty().putAttribute("tags", List.of("a", "b")));
+    SearchRequest searchRequest = new SearchRequest();
+    searchRequest.setFilter(Optional.of(new SearchFilter(Optional.empty(), Optional.of("a"))));
+    assertEquals(
+        List.of("s1", "s3"),
+        recordOrchestratorService
+            .queryForRecords(targetWorkspaceId.id(), SAMPLE, VERSION, searchRequest)
+            .records()
+            .stream()
+            .map(RecordResponse::recordId)
+            .toList());
+  }
+
+  @Test
+  void emptySourceGetsDefaultCollection() {
+    WorkspaceId emptyWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+    WorkspaceId targetWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+
+    GenericJobServerModel job = initClone(targetWorkspaceId, emptyWorkspaceId);
+
+    assertEquals(GenericJobServerModel.StatusEnum.SUCCEEDED, job.getStatus());
+    assertEquals(
+        List.of(targetWorkspaceId.id()),
+        collectionService.list(targetWorkspaceId).stream()
+            .map(CollectionServerModel::getId)
+            .toList());
+  }
+
+  @Test
+  void failedCloneDeletesItsCollections() {
+    WorkspaceId targetWorkspaceId = WorkspaceId.of(UUID.randomUUID());
+    // the copy of the source's default collection will conflict with this one
+    collectionService.createDefaultCollection(targetWorkspaceId);
+
+    GenericJobServerModel job = initClone(targetWorkspaceId);
+
+    assertEquals(GenericJobServerModel.StatusEnum.ERROR, job.getStatus());
+    assertEquals(
+        List.of(targetWorkspaceId.id()),
+        collectionService.list(targetWorkspaceId).stream()
+            .map(CollectionServerModel::getId)
+            .toList());
+    assertEquals(
+        "COPYERROR",
+        namedTemplate.queryForObject(
+            "select clonestatus from sys_wds.clone where id = :id",
+            new MapSqlParameterSource("id", job.getJobId()),
+            String.class));
+    assertTrue(
+        recordOrchestratorService
+            .describeAllRecordTypes(targetWorkspaceId.id(), VERSION)
+            .isEmpty());
+  }
+
+  @Test
+  void capsParallelismBelowThePoolSize() {
+    // leaves at least half of the pool for requests and other jobs
+    assertEquals(2, WorkspaceCloner.maxParallelism(4, 7));
+    assertEquals(4, WorkspaceCloner.maxParallelism(4, 20));
+    assertEquals(1, WorkspaceCloner.maxParallelism(4, 2));
+    assertEquals(1, WorkspaceCloner.maxParallelism(0, 20));
+  }
+
+  private GenericJobServerModel initClone(WorkspaceId targetWorkspaceId) {
+    return initClone(targetWorkspaceId, sourceWorkspaceId);
+  }
+
+  // the clone is queued as a job; run it as Quartz would, and return the finished job
+  private GenericJobServerModel initClone(
+      WorkspaceId targetWorkspaceId, WorkspaceId sourceWorkspaceId) {
+    GenericJobServerModel job =
+        workspaceService.initWorkspace(
+            targetWorkspaceId,
+            new WorkspaceInitServerModel()
+                .clone(new WorkspaceInitCloneServerModel(sourceWorkspaceId.id())));
+    assertEquals(GenericJobServerModel.StatusEnum.QUEUED, job.getStatus());
+
+    ArgumentCaptor<Schedulable> scheduled = ArgumentCaptor.forClass(Schedulable.class);
+    verify(schedulerDao).schedule(scheduled.capture());
+    JobDetail jobDetail = scheduled.getValue().getJobDetail();
+    JobExecutionContext context = mock(JobExecutionContext.class);
+    when(context.getMergedJobDataMap()).thenReturn(jobDetail.getJobDataMap());
+    when(context.getJobDetail()).thenReturn(jobDetail);
+    assertDoesNotThrow(() -> workspaceInitQuartzJob.execute(context));
+    return jobDao.getJob(job.getJobId());
+  }
+
+  private void upsert(
+      UUID collectionId, RecordType recordType, String recordId, RecordAttributes attributes) {
+    recordOrchestratorService.upsertSingleRecord(
+        collectionId,
+        VERSION,
+        recordType,
+        recordId,
+        Optional.empty(),
+        new RecordRequest(attributes));
+  }
+}